@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.command.analyze;
+
+import com.google.dart.engine.context.AnalysisContentStatistics;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.UriKind;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code AnalysisSession} keep analysis contexts alive across the
+ * invocations of the analyzer in batch mode, so that libraries shared by several invocations (most
+ * notably the package closure of the analyzed files) are resolved only once.
+ * <p>
+ * A context is reused when the invocation uses the same SDK, package configuration and analysis
+ * options. The first time a context is reused by a run, every source that was analyzed in it is
+ * checked for a new modification stamp and only the sources that were changed or removed are
+ * invalidated. The files analyzed by a single run are not expected to change during the run, so
+ * later requests for the context within the same run do not check the sources again.
+ */
+class AnalysisSession {
+  /**
+   * Instances of the class {@code ContextInfo} hold a reused context together with the
+   * modification stamps of the sources that have been analyzed in it.
+   */
+  private static class ContextInfo {
+    /**
+     * The context being reused.
+     */
+    private InternalAnalysisContext context;
+
+    /**
+     * A table mapping the sources analyzed in the context to their last known modification stamps.
+     */
+    private HashMap<Source, Long> sourceStamps = new HashMap<Source, Long>();
+
+    /**
+     * The run in which the sources were last checked for modifications.
+     */
+    private int checkedRun;
+
+    /**
+     * The number of AST cache hits reported by the context at the start of the invocation.
+     */
+    private int astHitCount;
+
+    /**
+     * The number of AST cache misses reported by the context at the start of the invocation.
+     */
+    private int astMissCount;
+
+    /**
+     * The number of dependent library invalidations reported by the context at the start of the
+     * invocation.
+     */
+    private int dependentInvalidationCount;
+
+    /**
+     * The number of preserved dependent libraries reported by the context at the start of the
+     * invocation.
+     */
+    private int preservedDependentCount;
+
+    public ContextInfo(InternalAnalysisContext context) {
+      this.context = context;
+    }
+  }
+
+  /**
+   * A table mapping the keys describing the configuration of a context to the context.
+   */
+  private HashMap<String, ContextInfo> contextMap = new HashMap<String, ContextInfo>();
+
+  /**
+   * The number of the current run. Every invocation of the analyzer is a new run.
+   */
+  private int currentRun;
+
+  /**
+   * {@code true} if the statistics of the contexts are to be recorded for the current run. They
+   * are only printed when performance output is requested, and computing them walks the whole
+   * cache of the context.
+   */
+  private boolean statisticsEnabled;
+
+  /**
+   * The information about the context used by the current invocation, or {@code null} if there is
+   * no current invocation.
+   */
+  private ContextInfo currentInfo;
+
+  /**
+   * {@code true} if the context used by the current invocation was reused.
+   */
+  private boolean currentReused;
+
+  /**
+   * The number of sources invalidated at the start of the current invocation.
+   */
+  private int currentChangedCount;
+
+  /**
+   * The number of invocations that were able to reuse an existing context.
+   */
+  private int contextHitCount;
+
+  /**
+   * The number of invocations that had to create a new context.
+   */
+  private int contextMissCount;
+
+  /**
+   * Return the context associated with the given key, or {@code null} if there is no such context,
+   * in which case the caller is expected to {@link #putContext(String, AnalysisContext) create
+   * one}. If this is the first time the context is requested in the current run, any of its sources
+   * that have been modified or removed since they were last analyzed are invalidated first.
+   *
+   * @param key the key describing the configuration of the context
+   * @return the context associated with the given key
+   */
+  public AnalysisContext getContext(String key) {
+    ContextInfo info = contextMap.get(key);
+    if (info == null) {
+      return null;
+    }
+    if (info.checkedRun == currentRun) {
+      currentInfo = info;
+      return info.context;
+    }
+    info.checkedRun = currentRun;
+    ChangeSet changeSet = new ChangeSet();
+    int changedCount = 0;
+    for (Map.Entry<Source, Long> entry : info.sourceStamps.entrySet()) {
+      Source source = entry.getKey();
+      if (!source.exists()) {
+        changeSet.removed(source);
+        changedCount++;
+      } else {
+        long stamp = source.getModificationStamp();
+        if (stamp != entry.getValue().longValue()) {
+          changeSet.changed(source);
+          entry.setValue(stamp);
+          changedCount++;
+        }
+      }
+    }
+    for (Source source : changeSet.getRemoved()) {
+      info.sourceStamps.remove(source);
+    }
+    if (changedCount > 0) {
+      info.context.applyChanges(changeSet);
+    }
+    startInvocation(info, true, changedCount);
+    contextHitCount++;
+    return info.context;
+  }
+
+  /**
+   * Print statistics about the use of the cached contexts by the current invocation. The statistics
+   * of the context itself are only printed if they are enabled for the current run.
+   *
+   * @param out the stream to which the statistics are to be printed
+   */
+  public void printStatistics(PrintStream out) {
+    if (currentInfo == null) {
+      return;
+    }
+    AnalysisContentStatistics statistics = currentInfo.context.getStatistics();
+    out.println("context:" + (currentReused ? "reused" : "created") + " (" + contextHitCount
+        + " reused, " + contextMissCount + " created)");
+    out.println("sources:" + currentInfo.sourceStamps.size() + " (" + currentChangedCount
+        + " changed)");
+    if (!statisticsEnabled) {
+      return;
+    }
+    out.println("astHits:" + (statistics.getAstHitCount() - currentInfo.astHitCount));
+    out.println("astMisses:" + (statistics.getAstMissCount() - currentInfo.astMissCount));
+    out.println("dependents:"
+        + (statistics.getDependentInvalidationCount() - currentInfo.dependentInvalidationCount)
+        + " invalidated, "
+        + (statistics.getPreservedDependentCount() - currentInfo.preservedDependentCount)
+        + " preserved");
+  }
+
+  /**
+   * Associate the given newly created context with the given key so that it can be reused by later
+   * invocations.
+   *
+   * @param key the key describing the configuration of the context
+   * @param context the context being associated with the key
+   */
+  public void putContext(String key, AnalysisContext context) {
+    ContextInfo info = new ContextInfo((InternalAnalysisContext) context);
+    info.checkedRun = currentRun;
+    contextMap.put(key, info);
+    startInvocation(info, false, 0);
+    contextMissCount++;
+  }
+
+  /**
+   * Record the modification stamp of the given source if it has not already been recorded.
+   *
+   * @param source the source that was analyzed by the current invocation
+   */
+  public void recordSource(Source source) {
+    if (currentInfo != null && !currentInfo.sourceStamps.containsKey(source)) {
+      currentInfo.sourceStamps.put(source, source.getModificationStamp());
+    }
+  }
+
+  /**
+   * Record the modification stamps of the sources of the given library and the libraries it
+   * references so that they can be checked for modifications before the context is reused.
+   *
+   * @param library the library that was analyzed by the current invocation
+   */
+  public void recordSources(LibraryElement library) {
+    if (currentInfo == null) {
+      return;
+    }
+    recordLibrary(library, new HashSet<LibraryElement>());
+  }
+
+  /**
+   * Start a new run. The sources of each context are checked for modifications the first time the
+   * context is requested after this method is invoked.
+   *
+   * @param statisticsEnabled {@code true} if the statistics of the contexts are to be recorded so
+   *          that they can be {@link #printStatistics(PrintStream) printed} at the end of the run
+   */
+  public void startRun(boolean statisticsEnabled) {
+    currentRun++;
+    this.statisticsEnabled = statisticsEnabled;
+  }
+
+  /**
+   * Record the modification stamp of the source of the given compilation unit.
+   *
+   * @param unit the compilation unit whose source is to be recorded
+   */
+  private void recordCompilationUnit(CompilationUnitElement unit) {
+    if (unit != null) {
+      recordSource(unit.getSource());
+    }
+  }
+
+  /**
+   * Record the modification stamps of the sources of the given library and the libraries it
+   * references. SDK libraries are not recorded because the SDK does not change during a session.
+   *
+   * @param library the library whose sources are to be recorded
+   * @param visitedLibraries the libraries that have already been recorded
+   */
+  private void recordLibrary(LibraryElement library, HashSet<LibraryElement> visitedLibraries) {
+    if (library == null || !visitedLibraries.add(library)) {
+      return;
+    }
+    if (library.getSource().getUriKind() == UriKind.DART_URI) {
+      return;
+    }
+    recordCompilationUnit(library.getDefiningCompilationUnit());
+    for (CompilationUnitElement part : library.getParts()) {
+      recordCompilationUnit(part);
+    }
+    for (LibraryElement importedLibrary : library.getImportedLibraries()) {
+      recordLibrary(importedLibrary, visitedLibraries);
+    }
+    for (LibraryElement exportedLibrary : library.getExportedLibraries()) {
+      recordLibrary(exportedLibrary, visitedLibraries);
+    }
+  }
+
+  /**
+   * Make the given context information be the information for the current invocation.
+   *
+   * @param info the information about the context used by the invocation
+   * @param reused {@code true} if the context was reused
+   * @param changedCount the number of sources that were invalidated
+   */
+  private void startInvocation(ContextInfo info, boolean reused, int changedCount) {
+    if (statisticsEnabled) {
+      AnalysisContentStatistics statistics = info.context.getStatistics();
+      info.astHitCount = statistics.getAstHitCount();
+      info.astMissCount = statistics.getAstMissCount();
+      info.dependentInvalidationCount = statistics.getDependentInvalidationCount();
+      info.preservedDependentCount = statistics.getPreservedDependentCount();
+    }
+    currentInfo = info;
+    currentReused = reused;
+    currentChangedCount = changedCount;
+  }
+}
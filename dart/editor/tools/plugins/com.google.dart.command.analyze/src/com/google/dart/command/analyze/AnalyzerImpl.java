@@ -20,6 +20,7 @@ import com.google.dart.engine.ast.LibraryDirective;
 import com.google.dart.engine.ast.PartOfDirective;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
@@ -43,6 +44,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -85,9 +87,20 @@ class AnalyzerImpl {
   private AnalyzerOptions options;
   private DirectoryBasedDartSdk sdk;
 
+  /**
+   * The session used to reuse contexts across invocations, or {@code null} if a new context should
+   * be created for every invocation.
+   */
+  private AnalysisSession session;
+
   public AnalyzerImpl(AnalyzerOptions options) {
+    this(options, null);
+  }
+
+  public AnalyzerImpl(AnalyzerOptions options, AnalysisSession session) {
     this.options = options;
     this.sdk = getSdk(options.getDartSdkPath());
+    this.session = session;
   }
 
   /**
@@ -106,55 +119,19 @@ class AnalyzerImpl {
       throw new IllegalArgumentException("sourceFile cannot be null");
     }
 
-    // prepare "packages" directory
-    File packageDirectory;
-    if (options.getPackageRootPath() != null) {
-      packageDirectory = options.getPackageRootPath();
-    } else {
-      packageDirectory = getPackageDirectoryFor(sourceFile);
-    }
-
-    // create SourceFactory
-    SourceFactory sourceFactory;
-
-    if (options.getUsePackageMap()) {
-      sourceFactory = new SourceFactory(
-          new DartUriResolver(sdk),
-          new FileUriResolver(),
-          new ExplicitPackageUriResolver(sdk, getPubDir(sourceFile)));
-    } else if (packageDirectory != null) {
-      sourceFactory = new SourceFactory(
-          new DartUriResolver(sdk),
-          new FileUriResolver(),
-          new PackageUriResolver(packageDirectory.getAbsoluteFile()));
-    } else {
-      sourceFactory = new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
-    }
-
-    // create options for context
-    AnalysisOptionsImpl contextOptions = new AnalysisOptionsImpl();
-    contextOptions.setCacheSize(MAX_CACHE_SIZE);
-    contextOptions.setHint(!options.getDisableHints());
-
     // prepare AnalysisContext
-    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
-    context.setSourceFactory(sourceFactory);
-    context.setAnalysisOptions(contextOptions);
+    AnalysisContext context = getContext(sourceFile);
 
     // prepare Source
     sourceFile = sourceFile.getAbsoluteFile();
-    UriKind uriKind = getUriKind(sourceFile);
-    Source librarySource = new FileBasedSource(sourceFactory.getContentCache(), sourceFile, uriKind);
+    Source librarySource = createSource(context, sourceFile);
 
     // don't try to analyze parts
     CompilationUnit unit = context.parseCompilationUnit(librarySource);
-    boolean hasLibraryDirective = false;
-    boolean hasPartOfDirective = false;
-    for (Directive directive : unit.getDirectives()) {
-      hasLibraryDirective |= directive instanceof LibraryDirective;
-      hasPartOfDirective |= directive instanceof PartOfDirective;
+    if (session != null) {
+      session.recordSource(librarySource);
     }
-    if (hasPartOfDirective && !hasLibraryDirective) {
+    if (isPart(unit)) {
       System.err.println("Only libraries can be analyzed.");
       System.err.println(sourceFile + " is a part and can not be analyzed.");
       return ErrorSeverity.NONE;
@@ -163,6 +140,9 @@ class AnalyzerImpl {
     // analyze Source
     LibraryElement library = context.computeLibraryElement(librarySource);
     context.resolveCompilationUnit(librarySource, library);
+    if (session != null) {
+      session.recordSources(library);
+    }
 
     // prepare errors
     Set<Source> sources = getAllSources(library);
@@ -174,6 +154,53 @@ class AnalyzerImpl {
     return getMaxErrorSeverity(errors);
   }
 
+  /**
+   * Return {@code true} if the given file is a part rather than a library.
+   * 
+   * @param sourceFile the file being tested
+   * @return {@code true} if the given file is a part
+   */
+  public boolean isPart(File sourceFile) throws AnalysisException {
+    AnalysisContext context = getContext(sourceFile);
+    return isPart(context.parseCompilationUnit(createSource(context, sourceFile.getAbsoluteFile())));
+  }
+
+  /**
+   * Analyze the given files concurrently, using the number of threads specified by
+   * {@link AnalyzerOptions#getJobs()}. Files sharing the same package configuration are analyzed in
+   * the same context, so that the libraries they have in common are only resolved once.
+   * <p>
+   * This does not report any errors. It only populates the contexts of the session so that the
+   * subsequent invocations of {@link #analyze(File, List, Map)} find the results in the cache.
+   * Nothing is done if there is no session.
+   * 
+   * @param sourceFiles the files to be analyzed
+   */
+  public void prepare(List<File> sourceFiles) throws AnalysisException {
+    if (session == null) {
+      return;
+    }
+    LinkedHashMap<AnalysisContext, ChangeSet> changeSets = new LinkedHashMap<AnalysisContext, ChangeSet>();
+    for (File sourceFile : sourceFiles) {
+      AnalysisContext context = getContext(sourceFile);
+      ChangeSet changeSet = changeSets.get(context);
+      if (changeSet == null) {
+        changeSet = new ChangeSet();
+        changeSets.put(context, changeSet);
+      }
+      Source source = createSource(context, sourceFile.getAbsoluteFile());
+      changeSet.added(source);
+      session.recordSource(source);
+    }
+    for (Map.Entry<AnalysisContext, ChangeSet> entry : changeSets.entrySet()) {
+      AnalysisContext context = entry.getKey();
+      context.applyChanges(entry.getValue());
+      while (context.performAnalysisTask().getChangeNotices() != null) {
+        // Keep going until there is no more work to be done.
+      }
+    }
+  }
+
   Set<Source> getAllSources(LibraryElement library) {
     Set<CompilationUnitElement> units = new HashSet<CompilationUnitElement>();
     Set<LibraryElement> libraries = new HashSet<LibraryElement>();
@@ -232,6 +259,56 @@ class AnalyzerImpl {
     }
   }
 
+  /**
+   * Create a new context in which the given source file can be analyzed.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @param packageDirectory the "packages" directory, or {@code null} if there is none
+   * @return the context that was created
+   */
+  private AnalysisContext createContext(File sourceFile, File packageDirectory) {
+    // create SourceFactory
+    SourceFactory sourceFactory;
+
+    if (options.getUsePackageMap()) {
+      sourceFactory = new SourceFactory(
+          new DartUriResolver(sdk),
+          new FileUriResolver(),
+          new ExplicitPackageUriResolver(sdk, getPubDir(sourceFile)));
+    } else if (packageDirectory != null) {
+      sourceFactory = new SourceFactory(
+          new DartUriResolver(sdk),
+          new FileUriResolver(),
+          new PackageUriResolver(packageDirectory.getAbsoluteFile()));
+    } else {
+      sourceFactory = new SourceFactory(new DartUriResolver(sdk), new FileUriResolver());
+    }
+
+    // create options for context
+    AnalysisOptionsImpl contextOptions = new AnalysisOptionsImpl();
+    contextOptions.setCacheSize(MAX_CACHE_SIZE);
+    contextOptions.setHint(!options.getDisableHints());
+    contextOptions.setConcurrencyLevel(options.getJobs());
+
+    // prepare AnalysisContext
+    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
+    context.setSourceFactory(sourceFactory);
+    context.setAnalysisOptions(contextOptions);
+    return context;
+  }
+
+  /**
+   * Return a source representing the given absolute file.
+   * 
+   * @param context the context in which the source will be analyzed
+   * @param sourceFile the file represented by the source
+   * @return a source representing the given file
+   */
+  private Source createSource(AnalysisContext context, File sourceFile) {
+    SourceFactory sourceFactory = context.getSourceFactory();
+    return new FileBasedSource(sourceFactory.getContentCache(), sourceFile, getUriKind(sourceFile));
+  }
+
   /**
    * Remove any hints (ErrorType.HINT) from the passed list.
    */
@@ -271,6 +348,58 @@ class AnalyzerImpl {
     }
   }
 
+  /**
+   * Return the context in which the given source file should be analyzed. If there is a session,
+   * the context is shared with the other files using the same configuration.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @return the context in which the given source file should be analyzed
+   */
+  private AnalysisContext getContext(File sourceFile) {
+    // prepare "packages" directory
+    File packageDirectory;
+    if (options.getPackageRootPath() != null) {
+      packageDirectory = options.getPackageRootPath();
+    } else {
+      packageDirectory = getPackageDirectoryFor(sourceFile);
+    }
+
+    // prepare AnalysisContext
+    if (session == null) {
+      return createContext(sourceFile, packageDirectory);
+    }
+    String contextKey = getContextKey(sourceFile, packageDirectory);
+    AnalysisContext context = session.getContext(contextKey);
+    if (context == null) {
+      context = createContext(sourceFile, packageDirectory);
+      session.putContext(contextKey, context);
+    }
+    return context;
+  }
+
+  /**
+   * Return a key describing the configuration of the context used to analyze the given source file.
+   * Invocations with the same key can share a context.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @param packageDirectory the "packages" directory, or {@code null} if there is none
+   * @return a key describing the configuration of the context
+   */
+  private String getContextKey(File sourceFile, File packageDirectory) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(sdk.getDirectory().getAbsolutePath());
+    if (options.getUsePackageMap()) {
+      builder.append("|map:");
+      builder.append(getPubDir(sourceFile).getAbsolutePath());
+    } else if (packageDirectory != null) {
+      builder.append("|root:");
+      builder.append(packageDirectory.getAbsolutePath());
+    }
+    builder.append("|hints:");
+    builder.append(!options.getDisableHints());
+    return builder.toString();
+  }
+
   private File getPackageDirectoryFor(File sourceFile) {
     // we are going to ask parent file, so get absolute path
     sourceFile = sourceFile.getAbsoluteFile();
@@ -316,6 +445,22 @@ class AnalyzerImpl {
     return new File(System.getProperty("user.dir"));
   }
 
+  /**
+   * Return {@code true} if the given compilation unit is a part rather than a library.
+   * 
+   * @param unit the compilation unit being tested
+   * @return {@code true} if the given compilation unit is a part
+   */
+  private boolean isPart(CompilationUnit unit) {
+    boolean hasLibraryDirective = false;
+    boolean hasPartOfDirective = false;
+    for (Directive directive : unit.getDirectives()) {
+      hasLibraryDirective |= directive instanceof LibraryDirective;
+      hasPartOfDirective |= directive instanceof PartOfDirective;
+    }
+    return hasPartOfDirective && !hasLibraryDirective;
+  }
+
   /**
    * Returns the {@link UriKind} for the given input file. Usually {@link UriKind#FILE_URI}, but if
    * the given file is located in the "lib" directory of the {@link #sdk}, then returns
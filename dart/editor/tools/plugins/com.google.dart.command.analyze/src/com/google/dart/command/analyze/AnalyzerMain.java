@@ -26,9 +26,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Entry point for the Dart command line analyzer.
@@ -84,6 +87,7 @@ public class AnalyzerMain {
     try {
 
       if (options.shouldBatch()) {
+        final AnalysisSession session = new AnalysisSession();
         ErrorSeverity result = BatchRunner.runAsBatch(args, new BatchRunnerInvocation() {
           @Override
           public ErrorSeverity invoke(String[] lineArgs) throws Throwable {
@@ -97,7 +101,7 @@ public class AnalyzerMain {
               compilerOptions.setWarningsAreFatal(true);
             }
 
-            return runAnalyzer(compilerOptions);
+            return runAnalyzer(compilerOptions, session);
           }
         });
 
@@ -113,7 +117,7 @@ public class AnalyzerMain {
           System.exit(1);
         }
 
-        ErrorSeverity result = runAnalyzer(options);
+        ErrorSeverity result = runAnalyzer(options, null);
 
         if (result != ErrorSeverity.NONE) {
           System.exit(getReturnCode(result));
@@ -137,46 +141,68 @@ public class AnalyzerMain {
   }
 
   /**
-   * Invoke the compiler to build all of the files passed on the command line
+   * Invoke the compiler to build all of the files passed on the command line. When more than one
+   * file is passed, either explicitly or by passing a directory, the files are first analyzed
+   * concurrently and the errors are then reported for each file in turn.
    * 
    * @param analyzerOptions parsed command line arguments
+   * @param session the session used to reuse contexts in batch mode, or {@code null} if a new
+   *          context should be created
    * @return {@code  true} on success, {@code false} on failure.
    */
-  protected static ErrorSeverity runAnalyzer(AnalyzerOptions options) throws IOException,
-      AnalysisException {
-    File sourceFile = new File(options.getSourceFile());
-
-    if (!sourceFile.exists()) {
-      System.out.println("File not found: " + sourceFile);
-      System.out.println();
-      showUsage(System.out);
-      return ErrorSeverity.ERROR;
-    }
+  protected static ErrorSeverity runAnalyzer(AnalyzerOptions options, AnalysisSession session)
+      throws IOException, AnalysisException {
+    List<File> sourceFiles = new ArrayList<File>();
+    Set<File> discoveredFiles = new HashSet<File>();
+
+    for (String sourceFilePath : options.getSourceFiles()) {
+      File sourceFile = new File(sourceFilePath);
+
+      if (sourceFile.isDirectory()) {
+        int count = sourceFiles.size();
+        addDartFiles(sourceFile, sourceFiles);
+        discoveredFiles.addAll(sourceFiles.subList(count, sourceFiles.size()));
+        continue;
+      }
 
-    // TODO: also support analyzing html files (via AnalysisEngine.isHtmlFileName())
-    if (!AnalysisEngine.isDartFileName(sourceFile.getName())) {
-      System.out.println(sourceFile + " is not a Dart file");
-      System.out.println();
-      showUsage(System.out);
-      return ErrorSeverity.ERROR;
-    }
+      if (!sourceFile.exists()) {
+        System.out.println("File not found: " + sourceFile);
+        System.out.println();
+        showUsage(System.out);
+        return ErrorSeverity.ERROR;
+      }
 
-    List<AnalysisError> errors = new ArrayList<AnalysisError>();
-    Map<Source, LineInfo> lineInfoMap = new HashMap<Source, LineInfo>();
+      // TODO: also support analyzing html files (via AnalysisEngine.isHtmlFileName())
+      if (!AnalysisEngine.isDartFileName(sourceFile.getName())) {
+        System.out.println(sourceFile + " is not a Dart file");
+        System.out.println();
+        showUsage(System.out);
+        return ErrorSeverity.ERROR;
+      }
 
-    ErrorFormatter formatter = new ErrorFormatter(options.getMachineFormat() ? System.err
-        : System.out, options, lineInfoMap);
+      sourceFiles.add(sourceFile);
+    }
 
-    formatter.startAnalysis();
+    // share a single set of contexts between the files
+    if (sourceFiles.size() > 1 && session == null) {
+      session = new AnalysisSession();
+    }
+    if (session != null) {
+      session.startRun(options.getPerf());
+    }
 
     long startTime = System.currentTimeMillis();
-    AnalyzerImpl analyzer = new AnalyzerImpl(options);
-    ErrorSeverity status = analyzer.analyze(sourceFile, errors, lineInfoMap);
-
-    formatter.formatErrors(errors);
+    AnalyzerImpl analyzer = new AnalyzerImpl(options, session);
+    if (sourceFiles.size() > 1) {
+      analyzer.prepare(sourceFiles);
+    }
 
-    if (status.equals(ErrorSeverity.WARNING) && options.getWarningsAreFatal()) {
-      status = ErrorSeverity.ERROR;
+    ErrorSeverity status = ErrorSeverity.NONE;
+    for (File sourceFile : sourceFiles) {
+      if (discoveredFiles.contains(sourceFile) && analyzer.isPart(sourceFile)) {
+        continue;
+      }
+      status = status.max(runAnalyzer(options, analyzer, sourceFile));
     }
 
     if (options.getPerf()) {
@@ -188,11 +214,39 @@ public class AnalyzerMain {
       System.out.println("hints:" + PerformanceStatistics.hints.getResult());
       System.out.println("angular:" + PerformanceStatistics.angular.getResult());
       System.out.println("total:" + totalTime);
+      if (session != null) {
+        session.printStatistics(System.out);
+      }
     }
 
     return status;
   }
 
+  /**
+   * Add the Dart files in the given directory and its subdirectories to the given list, in a
+   * deterministic order. Hidden directories and "packages" directories are skipped.
+   * 
+   * @param directory the directory to be searched
+   * @param sourceFiles the list to which the files are to be added
+   */
+  private static void addDartFiles(File directory, List<File> sourceFiles) {
+    File[] children = directory.listFiles();
+    if (children == null) {
+      return;
+    }
+    Arrays.sort(children);
+    for (File child : children) {
+      String name = child.getName();
+      if (child.isDirectory()) {
+        if (!name.startsWith(".") && !name.equals("packages")) {
+          addDartFiles(child, sourceFiles);
+        }
+      } else if (AnalysisEngine.isDartFileName(name)) {
+        sourceFiles.add(child);
+      }
+    }
+  }
+
   /**
    * Return the return code appropriate for the given severity.
    * 
@@ -208,8 +262,37 @@ public class AnalyzerMain {
     return 0;
   }
 
+  /**
+   * Analyze the given file and report the errors that were found.
+   * 
+   * @param options parsed command line arguments
+   * @param analyzer the analyzer used to analyze the file
+   * @param sourceFile the file to be analyzed
+   * @return the severity of the most severe error that was reported
+   */
+  private static ErrorSeverity runAnalyzer(AnalyzerOptions options, AnalyzerImpl analyzer,
+      File sourceFile) throws IOException, AnalysisException {
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+    Map<Source, LineInfo> lineInfoMap = new HashMap<Source, LineInfo>();
+
+    ErrorFormatter formatter = new ErrorFormatter(options.getMachineFormat() ? System.err
+        : System.out, options, lineInfoMap);
+
+    formatter.startAnalysis(sourceFile.getPath());
+
+    ErrorSeverity status = analyzer.analyze(sourceFile, errors, lineInfoMap);
+
+    formatter.formatErrors(errors);
+
+    if (status.equals(ErrorSeverity.WARNING) && options.getWarningsAreFatal()) {
+      status = ErrorSeverity.ERROR;
+    }
+
+    return status;
+  }
+
   private static void showUsage(PrintStream out) {
-    out.println("Usage: " + PROGRAM_NAME + " [<options>] <dart-script>");
+    out.println("Usage: " + PROGRAM_NAME + " [<options>] <dart-script or directory>...");
     out.println();
     out.println("Options:");
     AnalyzerOptions.printUsage(out);
@@ -178,6 +178,12 @@ public class AnalyzerOptions {
   usage = "Do not show hint results")
   private boolean disableHints = false;
 
+  @Option(name = "--jobs", //
+  aliases = {"-j"}, //
+  metaVar = "<count>", //
+  usage = "The number of threads used to analyze multiple files")
+  private int jobs = 0;
+
   @Option(name = "--perf",//
   usage = "Print performance statistics")
   private boolean perf = false;
@@ -186,8 +192,8 @@ public class AnalyzerOptions {
   @Option(name = "--diagnostic-colors")
   private boolean diagnosticColors = false; // ignored for now
 
-  @Argument
-  private final String sourceFile = null;
+  @Argument(multiValued = true)
+  private List<String> sourceFiles = new ArrayList<String>();
 
   public AnalyzerOptions() {
 
@@ -212,6 +218,19 @@ public class AnalyzerOptions {
     return machineFormat || outputFormat == AnalyzerOutputFormat.MACHINE;
   }
 
+  /**
+   * Return the number of threads that should be used to analyze multiple files. If no number was
+   * specified, the number of available processors is returned.
+   * 
+   * @return the number of threads that should be used to analyze multiple files
+   */
+  public int getJobs() {
+    if (jobs <= 0) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+    return jobs;
+  }
+
   /**
    * @return the package-root path, if specified
    */
@@ -248,10 +267,20 @@ public class AnalyzerOptions {
   }
 
   /**
-   * Returns the file passed to the analyzer.
+   * Returns the first file passed to the analyzer, or {@code null} if no files were passed.
    */
   public String getSourceFile() {
-    return sourceFile;
+    if (sourceFiles.isEmpty()) {
+      return null;
+    }
+    return sourceFiles.get(0);
+  }
+
+  /**
+   * Returns the files and directories passed to the analyzer.
+   */
+  public List<String> getSourceFiles() {
+    return sourceFiles;
   }
 
   /**
@@ -19,7 +19,6 @@ import com.google.dart.engine.error.ErrorSeverity;
 import com.google.dart.engine.error.ErrorType;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.source.LineInfo;
-import com.google.dart.engine.utilities.source.LineInfo.Location;
 
 import java.io.PrintStream;
 import java.util.Collections;
@@ -87,7 +86,14 @@ public class ErrorFormatter {
 
   public void formatError(AnalysisError error) {
     Source source = error.getSource();
-    Location location = getLocation(source, error.getOffset());
+    int offset = error.getOffset();
+    int lineNumber = -1;
+    int columnNumber = -1;
+    LineInfo lineInfo = lineInfoMap.get(source);
+    if (lineInfo != null) {
+      lineNumber = lineInfo.getLineNumber(offset);
+      columnNumber = lineInfo.getColumnNumber(offset);
+    }
     int length = error.getLength();
 
     if (options.getMachineFormat()) {
@@ -97,8 +103,8 @@ public class ErrorFormatter {
           escapePipe(error.getErrorCode().getType().toString()),
           escapePipe(error.getErrorCode().toString()),
           escapePipe(source.getFullName()),
-          location.getLineNumber(),
-          location.getColumnNumber(),
+          lineNumber,
+          columnNumber,
           length,
           escapePipe(error.getMessage())));
     } else {
@@ -113,8 +119,8 @@ public class ErrorFormatter {
           errorType,
           error.getMessage(),
           source.getFullName(),
-          location.getLineNumber(),
-          location.getColumnNumber()));
+          lineNumber,
+          columnNumber));
     }
   }
 
@@ -183,17 +189,12 @@ public class ErrorFormatter {
   }
 
   public void startAnalysis() {
-    if (!options.getMachineFormat()) {
-      out.println("Analyzing " + options.getSourceFile() + "...");
-    }
+    startAnalysis(options.getSourceFile());
   }
 
-  Location getLocation(Source source, int offset) {
-    LineInfo lineInfo = lineInfoMap.get(source);
-    if (lineInfo == null) {
-      return new Location(-1, -1);
-    } else {
-      return lineInfo.getLocation(offset);
+  public void startAnalysis(String sourceFile) {
+    if (!options.getMachineFormat()) {
+      out.println("Analyzing " + sourceFile + "...");
     }
   }
 
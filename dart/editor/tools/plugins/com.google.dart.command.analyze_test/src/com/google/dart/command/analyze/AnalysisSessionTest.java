@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.command.analyze;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class AnalysisSessionTest extends TestCase {
+  private File file;
+
+  public void test_analyze_filesSharingContext() throws Exception {
+    File directory = file.getParentFile();
+    File libraryFile = new File(directory, "session_lib.dart");
+    File mainFile = new File(directory, "session_main.dart");
+    try {
+      writeFile(libraryFile, "library lib;\nf() => undefinedInLib;\n");
+      writeFile(mainFile, "library main;\nimport 'session_lib.dart';\nmain() => f() + g();\n");
+      AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {
+          "--dart-sdk", DirectoryBasedDartSdk.getDefaultSdkDirectory().getPath(),
+          mainFile.getPath(), libraryFile.getPath()});
+      AnalysisSession session = new AnalysisSession();
+      session.startRun(false);
+      AnalyzerImpl analyzer = new AnalyzerImpl(options, session);
+      List<File> files = new ArrayList<File>();
+      files.add(mainFile);
+      files.add(libraryFile);
+      analyzer.prepare(files);
+      // the errors of each file, including those of the imported library, are reported
+      List<AnalysisError> mainErrors = new ArrayList<AnalysisError>();
+      analyzer.analyze(mainFile, mainErrors, new HashMap<Source, LineInfo>());
+      assertEquals(2, mainErrors.size());
+      List<AnalysisError> libraryErrors = new ArrayList<AnalysisError>();
+      analyzer.analyze(libraryFile, libraryErrors, new HashMap<Source, LineInfo>());
+      assertEquals(1, libraryErrors.size());
+      // both files are analyzed in a single context, whose sources are only checked once
+      String statistics = getStatistics(session);
+      assertTrue(statistics, statistics.contains("context:created (0 reused, 1 created)"));
+      assertTrue(statistics, statistics.contains("sources:2 (0 changed)"));
+      // a later run checks the sources of the context again
+      writeFile(libraryFile, "library lib;\nf() => 0;\n");
+      assertTrue(libraryFile.setLastModified(libraryFile.lastModified() + 10000L));
+      session.startRun(false);
+      libraryErrors.clear();
+      analyzer.analyze(libraryFile, libraryErrors, new HashMap<Source, LineInfo>());
+      assertEquals(0, libraryErrors.size());
+      statistics = getStatistics(session);
+      assertTrue(statistics, statistics.contains("context:reused (1 reused, 1 created)"));
+      assertTrue(statistics, statistics.contains("sources:2 (1 changed)"));
+    } finally {
+      libraryFile.delete();
+      mainFile.delete();
+    }
+  }
+
+  public void test_getContext_changed() throws Exception {
+    AnalysisSession session = new AnalysisSession();
+    AnalysisContext context = createContext();
+    session.putContext("key", context);
+    Source source = new FileBasedSource(context.getSourceFactory().getContentCache(), file);
+    assertEquals(1, context.parseCompilationUnit(source).getDeclarations().size());
+    session.recordSource(source);
+    // modify the file
+    writeFile("main() {}\nfoo() {}\n");
+    assertTrue(file.setLastModified(file.lastModified() + 10000L));
+    session.startRun(false);
+    assertSame(context, session.getContext("key"));
+    assertEquals(2, context.parseCompilationUnit(source).getDeclarations().size());
+    String statistics = getStatistics(session);
+    assertTrue(statistics, statistics.contains("context:reused (1 reused, 1 created)"));
+    assertTrue(statistics, statistics.contains("sources:1 (1 changed)"));
+  }
+
+  public void test_getContext_unchanged() throws Exception {
+    AnalysisSession session = new AnalysisSession();
+    AnalysisContext context = createContext();
+    session.putContext("key", context);
+    Source source = new FileBasedSource(context.getSourceFactory().getContentCache(), file);
+    context.parseCompilationUnit(source);
+    session.recordSource(source);
+    session.startRun(false);
+    assertSame(context, session.getContext("key"));
+    assertNull(session.getContext("other"));
+    String statistics = getStatistics(session);
+    assertTrue(statistics, statistics.contains("sources:1 (0 changed)"));
+  }
+
+  public void test_getContext_sameRun() throws Exception {
+    AnalysisSession session = new AnalysisSession();
+    session.startRun(false);
+    AnalysisContext context = createContext();
+    session.putContext("key", context);
+    Source source = new FileBasedSource(context.getSourceFactory().getContentCache(), file);
+    context.parseCompilationUnit(source);
+    session.recordSource(source);
+    // modifications made during a run are not checked for until the next run
+    writeFile("main() {}\nfoo() {}\n");
+    assertTrue(file.setLastModified(file.lastModified() + 10000L));
+    assertSame(context, session.getContext("key"));
+    assertSame(context, session.getContext("key"));
+    assertEquals(1, context.parseCompilationUnit(source).getDeclarations().size());
+    String statistics = getStatistics(session);
+    assertTrue(statistics, statistics.contains("context:created (0 reused, 1 created)"));
+    session.startRun(false);
+    assertSame(context, session.getContext("key"));
+    assertEquals(2, context.parseCompilationUnit(source).getDeclarations().size());
+  }
+
+  public void test_printStatistics_disabled() throws Exception {
+    AnalysisSession session = new AnalysisSession();
+    session.startRun(false);
+    AnalysisContext context = createContext();
+    session.putContext("key", context);
+    String statistics = getStatistics(session);
+    assertTrue(statistics, statistics.contains("context:created (0 reused, 1 created)"));
+    assertFalse(statistics, statistics.contains("astHits:"));
+  }
+
+  public void test_printStatistics_enabled() throws Exception {
+    AnalysisSession session = new AnalysisSession();
+    session.startRun(true);
+    AnalysisContext context = createContext();
+    session.putContext("key", context);
+    Source source = new FileBasedSource(context.getSourceFactory().getContentCache(), file);
+    context.parseCompilationUnit(source);
+    session.recordSource(source);
+    session.startRun(true);
+    assertSame(context, session.getContext("key"));
+    context.parseCompilationUnit(source);
+    String statistics = getStatistics(session);
+    assertTrue(statistics, statistics.contains("context:reused (1 reused, 1 created)"));
+    assertTrue(statistics, statistics.contains("astHits:"));
+    assertTrue(statistics, statistics.contains("dependents:0 invalidated, 0 preserved"));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    file = File.createTempFile("session", ".dart");
+    writeFile("main() {}\n");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    file.delete();
+    super.tearDown();
+  }
+
+  private AnalysisContext createContext() {
+    AnalysisContext context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(new FileUriResolver()));
+    return context;
+  }
+
+  private String getStatistics(AnalysisSession session) {
+    ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+    PrintStream writer = new PrintStream(bytesOut);
+    session.printStatistics(writer);
+    writer.flush();
+    return new String(bytesOut.toByteArray());
+  }
+
+  private void writeFile(File file, String contents) throws Exception {
+    FileWriter writer = new FileWriter(file);
+    try {
+      writer.write(contents);
+    } finally {
+      writer.close();
+    }
+  }
+
+  private void writeFile(String contents) throws Exception {
+    writeFile(file, contents);
+  }
+}
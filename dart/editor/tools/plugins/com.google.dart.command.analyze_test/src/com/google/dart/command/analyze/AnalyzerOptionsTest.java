@@ -27,6 +27,16 @@ public class AnalyzerOptionsTest extends TestCase {
     assertFalse(options.getShowPackageWarnings());
   }
 
+  public void test_getJobs() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"-j", "3"});
+    assertEquals(3, options.getJobs());
+  }
+
+  public void test_getJobs_default() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {});
+    assertEquals(Runtime.getRuntime().availableProcessors(), options.getJobs());
+  }
+
   public void test_getMachineFormat() {
     AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"--format=machine"});
     assertTrue(options.getMachineFormat());
@@ -52,6 +62,13 @@ public class AnalyzerOptionsTest extends TestCase {
     assertTrue(options.getShowSdkWarnings());
   }
 
+  public void test_getSourceFiles() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"a.dart", "lib"});
+    assertEquals("a.dart", options.getSourceFile());
+    assertEquals(2, options.getSourceFiles().size());
+    assertEquals("lib", options.getSourceFiles().get(1));
+  }
+
   public void test_undocumentedFlags() throws Exception {
     ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
     PrintStream writer = new PrintStream(bytesOut);
@@ -37,6 +37,38 @@ public interface AnalysisContentStatistics {
     int getValidCount();
   }
 
+  /**
+   * Return the number of times an AST structure was flushed from the cache in order to keep the
+   * number of retained AST structures within the cache size.
+   * 
+   * @return the number of times an AST structure was flushed from the cache
+   */
+  public int getAstFlushCount();
+
+  /**
+   * Return the number of times an AST structure was requested from the cache while it was being
+   * retained.
+   * 
+   * @return the number of times a retained AST structure was requested from the cache
+   */
+  public int getAstHitCount();
+
+  /**
+   * Return the number of times an AST structure was requested from the cache while it was not
+   * being retained.
+   * 
+   * @return the number of times an AST structure that was not retained was requested from the cache
+   */
+  public int getAstMissCount();
+
+  /**
+   * Return the number of times a library was invalidated because the API of a library it depends
+   * on was changed.
+   * 
+   * @return the number of times a library was invalidated because of an API change
+   */
+  public int getDependentInvalidationCount();
+
   /**
    * Return the exceptions that caused some entries to have a state of {@link CacheState#ERROR}.
    * 
@@ -44,6 +76,14 @@ public interface AnalysisContentStatistics {
    */
   public AnalysisException[] getExceptions();
 
+  /**
+   * Return the number of times a library was not invalidated, even though a library it depends on
+   * was changed, because the change did not affect the API of that library.
+   * 
+   * @return the number of times a library was not invalidated because the API was not changed
+   */
+  public int getPreservedDependentCount();
+
   /**
    * Return the statistics for each kind of cached data.
    * 
@@ -32,6 +32,17 @@ public interface AnalysisOptions {
    */
   public int getCacheSize();
 
+  /**
+   * Return the maximum number of analysis tasks that can be performed concurrently by a single
+   * invocation of {@link AnalysisContext#performAnalysisTask()}. A value of {@code 1} means that
+   * tasks are always performed one at a time on the calling thread. When the level is greater than
+   * {@code 1}, sources are parsed concurrently, and resolving a library also resolves the libraries
+   * it depends on concurrently.
+   * 
+   * @return the maximum number of analysis tasks that can be performed concurrently
+   */
+  public int getConcurrencyLevel();
+
   /**
    * Return {@code true} if analysis is to generate dart2js related hint results.
    * 
@@ -101,6 +101,28 @@ public class AnalysisError {
    */
   private boolean isStaticOnly = false;
 
+  /**
+   * Initialize a newly created analysis error whose message and correction have already been
+   * computed, such as an error that is being restored from a persisted form.
+   * 
+   * @param errorCode the error code to be associated with this error
+   * @param source the source for which the exception occurred
+   * @param offset the offset of the location of the error
+   * @param length the length of the location of the error
+   * @param message the message to be associated with this error
+   * @param correction the correction to be associated with this error, or {@code null} if there is
+   *          no correction information for this error
+   */
+  public AnalysisError(ErrorCode errorCode, Source source, int offset, int length, String message,
+      String correction) {
+    this.source = source;
+    this.offset = offset;
+    this.length = length;
+    this.errorCode = errorCode;
+    this.message = message;
+    this.correction = correction;
+  }
+
   /**
    * Initialize a newly created analysis error for the specified source. The error has no location
    * information.
@@ -137,6 +159,25 @@ public class AnalysisError {
     }
   }
 
+  /**
+   * Return a copy of this error whose location has been moved by the given number of characters,
+   * as is needed when characters have been inserted or removed before the location of this error.
+   * 
+   * @param delta the number of characters by which the location of the copy is to be moved
+   * @return a copy of this error with the moved location
+   */
+  public AnalysisError copyWithDelta(int delta) {
+    AnalysisError copy = new AnalysisError(
+        errorCode,
+        source,
+        offset + delta,
+        length,
+        message,
+        correction);
+    copy.isStaticOnly = isStaticOnly;
+    return copy;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == this) {
@@ -52,6 +52,37 @@ public class AnalysisErrorWithProperties extends AnalysisError {
     super(source, offset, length, errorCode, arguments);
   }
 
+  /**
+   * Initialize a newly created analysis error whose message and correction have already been
+   * computed.
+   * 
+   * @param errorCode the error code to be associated with this error
+   * @param source the source for which the exception occurred
+   * @param offset the offset of the location of the error
+   * @param length the length of the location of the error
+   * @param message the message to be associated with this error
+   * @param correction the correction to be associated with this error, or {@code null} if there is
+   *          no correction information for this error
+   */
+  private AnalysisErrorWithProperties(ErrorCode errorCode, Source source, int offset, int length,
+      String message, String correction) {
+    super(errorCode, source, offset, length, message, correction);
+  }
+
+  @Override
+  public AnalysisError copyWithDelta(int delta) {
+    AnalysisErrorWithProperties copy = new AnalysisErrorWithProperties(
+        getErrorCode(),
+        getSource(),
+        getOffset() + delta,
+        getLength(),
+        getMessage(),
+        getCorrection());
+    copy.setIsStaticOnly(isStaticOnly());
+    copy.propertyMap.putAll(propertyMap);
+    return copy;
+  }
+
   @Override
   public Object getProperty(ErrorProperty property) {
     return propertyMap.get(property);
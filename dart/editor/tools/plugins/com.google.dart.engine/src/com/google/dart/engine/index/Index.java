@@ -34,6 +34,33 @@ import com.google.dart.engine.source.SourceContainer;
  * @coverage dart.engine.index
  */
 public interface Index {
+  /**
+   * Asynchronously invoke the given callback with an array containing the locations of the
+   * declarations that have the given relationship with the universe and whose names might match the
+   * given camel-case pattern. The locations include every declaration whose name matches the
+   * pattern, but may also include some whose names do not match it.
+   * 
+   * @param relationship the relationship between the universe and the declarations
+   * @param pattern the camel-case pattern the names of the declarations must match
+   * @param callback the callback that will be invoked, with the universe as the element, when the
+   *          locations are found
+   */
+  void getDeclarationsWithCamelCasePattern(Relationship relationship, String pattern,
+      RelationshipCallback callback);
+
+  /**
+   * Asynchronously invoke the given callback with an array containing the locations of the
+   * declarations that have the given relationship with the universe and whose names start with the
+   * given prefix, ignoring case.
+   * 
+   * @param relationship the relationship between the universe and the declarations
+   * @param prefix the prefix the names of the declarations must start with
+   * @param callback the callback that will be invoked, with the universe as the element, when the
+   *          locations are found
+   */
+  void getDeclarationsWithPrefix(Relationship relationship, String prefix,
+      RelationshipCallback callback);
+
   /**
    * Asynchronously invoke the given callback with an array containing all of the locations of the
    * elements that have the given relationship with the given element. For example, if the element
@@ -15,6 +15,7 @@ package com.google.dart.engine.index;
 
 import com.google.dart.engine.internal.index.IndexImpl;
 import com.google.dart.engine.internal.index.MemoryIndexStoreImpl;
+import com.google.dart.engine.internal.index.SegmentIndexStoreImpl;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
 import com.google.dart.engine.internal.index.operation.OperationQueue;
 
@@ -25,11 +26,14 @@ import com.google.dart.engine.internal.index.operation.OperationQueue;
  */
 public class IndexFactory {
   /**
-   * @return the new instance of {@link Index} which uses given {@link IndexStore}.
+   * @return the new instance of {@link Index} which uses given {@link IndexStore}. Units are indexed
+   *         using as many threads as there are available processors.
    */
   public static Index newIndex(IndexStore store) {
     OperationQueue queue = new OperationQueue();
-    OperationProcessor processor = new OperationProcessor(queue);
+    OperationProcessor processor = new OperationProcessor(
+        queue,
+        Runtime.getRuntime().availableProcessors());
     return new IndexImpl(store, queue, processor);
   }
 
@@ -39,4 +43,11 @@ public class IndexFactory {
   public static MemoryIndexStore newMemoryIndexStore() {
     return new MemoryIndexStoreImpl();
   }
+
+  /**
+   * @return the new instance of {@link SegmentIndexStore}.
+   */
+  public static SegmentIndexStore newSegmentIndexStore() {
+    return new SegmentIndexStoreImpl();
+  }
 }
@@ -25,7 +25,7 @@ import com.google.dart.engine.source.SourceContainer;
  * 
  * @coverage dart.engine.index
  */
-public interface IndexStore {
+public interface IndexStore extends RelationshipRecorder {
   /**
    * Notifies the index store that we are going to index the unit with the given element.
    * <p>
@@ -54,6 +54,27 @@ public interface IndexStore {
    */
   boolean aboutToIndex(AnalysisContext context, Source source);
 
+  /**
+   * Return the locations of the declarations that have the given relationship with the universe
+   * and whose names might match the given camel-case pattern. The returned locations include every
+   * declaration matching the pattern, but may also include some that do not match it.
+   * 
+   * @param relationship the {@link Relationship} between the universe and the declarations
+   * @param pattern the camel-case pattern the names of the declarations must match
+   * @return the locations of the declarations that might match the given pattern
+   */
+  Location[] getDeclarationsWithCamelCasePattern(Relationship relationship, String pattern);
+
+  /**
+   * Return the locations of the declarations that have the given relationship with the universe
+   * and whose names start with the given prefix, ignoring case.
+   * 
+   * @param relationship the {@link Relationship} between the universe and the declarations
+   * @param prefix the prefix the names of the declarations must start with
+   * @return the locations of the declarations whose names start with the given prefix
+   */
+  Location[] getDeclarationsWithPrefix(Relationship relationship, String prefix);
+
   /**
    * Return the locations of the elements that have the given relationship with the given element.
    * For example, if the element represents a method and the relationship is the is-referenced-by
@@ -72,32 +93,6 @@ public interface IndexStore {
    */
   String getStatistics();
 
-  /**
-   * Record that the given element and location have the given relationship. For example, if the
-   * relationship is the is-referenced-by relationship, then the element would be the element being
-   * referenced and the location would be the point at which it is referenced. Each element can have
-   * the same relationship with multiple locations. In other words, if the following code were
-   * executed
-   * 
-   * <pre>
-   *   recordRelationship(element, isReferencedBy, location1);
-   *   recordRelationship(element, isReferencedBy, location2);
-   * </pre>
-   * 
-   * then both relationships would be maintained in the index and the result of executing
-   * 
-   * <pre>
-   *   getRelationship(element, isReferencedBy);
-   * </pre>
-   * 
-   * would be an array containing both <code>location1</code> and <code>location2</code>.
-   * 
-   * @param element the element that is related to the location
-   * @param relationship the {@link Relationship} between the element and the location
-   * @param location the {@link Location} where relationship happens
-   */
-  void recordRelationship(Element element, Relationship relationship, Location location);
-
   /**
    * Remove from the index all of the information associated with {@link AnalysisContext}.
    * <p>
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.engine.index;
+
+import com.google.dart.engine.element.Element;
+
+/**
+ * The interface {@code RelationshipRecorder} defines the behavior of objects into which index
+ * contributors record the relationships they find.
+ * 
+ * @coverage dart.engine.index
+ */
+public interface RelationshipRecorder {
+  /**
+   * Record that the given element and location have the given relationship. For example, if the
+   * relationship is the is-referenced-by relationship, then the element would be the element being
+   * referenced and the location would be the point at which it is referenced. Each element can have
+   * the same relationship with multiple locations. In other words, if the following code were
+   * executed
+   * 
+   * <pre>
+   *   recordRelationship(element, isReferencedBy, location1);
+   *   recordRelationship(element, isReferencedBy, location2);
+   * </pre>
+   * 
+   * then both relationships would be maintained in the index and the result of executing
+   * 
+   * <pre>
+   *   getRelationship(element, isReferencedBy);
+   * </pre>
+   * 
+   * would be an array containing both <code>location1</code> and <code>location2</code>.
+   * 
+   * @param element the element that is related to the location
+   * @param relationship the {@link Relationship} between the element and the location
+   * @param location the {@link Location} where relationship happens
+   */
+  void recordRelationship(Element element, Relationship relationship, Location location);
+}
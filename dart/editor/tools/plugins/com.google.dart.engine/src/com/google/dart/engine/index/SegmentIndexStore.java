@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.index;
+
+import com.google.dart.engine.context.AnalysisContext;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * {@link IndexStore} which keeps relationships in packed primitive arrays, one segment per indexed
+ * unit, rather than as {@link Location} objects. The index of a context can be written to a file
+ * and later memory-mapped, in which case relationships are read directly from the mapped file.
+ *
+ * @coverage dart.engine.index
+ */
+public interface SegmentIndexStore extends MemoryIndexStore {
+  /**
+   * Maps the index of the given {@link AnalysisContext} from the latest generation of the given
+   * file. The relationships are not copied into memory, they are read from the file when they are
+   * requested.
+   *
+   * @param context the {@link AnalysisContext} to read {@link Location}s for
+   * @param file the file to map, previously written by {@link #writeIndex(AnalysisContext, File)}
+   * @throws IOException if the index could not be read (for example because of version mismatch)
+   */
+  void readIndex(AnalysisContext context, File file) throws IOException;
+
+  /**
+   * Write the index of the given {@link AnalysisContext} to a new generation of the given file, so
+   * that a previous generation that is still mapped is not overwritten. The previous generations
+   * are deleted when possible.
+   *
+   * @param context the {@link AnalysisContext} to write {@link Location}s for
+   * @param file the file to which the index will be written
+   * @throws IOException if the index could not be written
+   */
+  void writeIndex(AnalysisContext context, File file) throws IOException;
+}
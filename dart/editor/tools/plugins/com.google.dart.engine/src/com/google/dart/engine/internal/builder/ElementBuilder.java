@@ -46,7 +46,9 @@ import com.google.dart.engine.ast.TypeParameter;
 import com.google.dart.engine.ast.VariableDeclaration;
 import com.google.dart.engine.ast.VariableDeclarationList;
 import com.google.dart.engine.ast.visitor.RecursiveASTVisitor;
+import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ParameterElement;
 import com.google.dart.engine.element.TypeParameterElement;
 import com.google.dart.engine.internal.element.ClassElementImpl;
@@ -56,6 +58,7 @@ import com.google.dart.engine.internal.element.ConstTopLevelVariableElementImpl;
 import com.google.dart.engine.internal.element.ConstructorElementImpl;
 import com.google.dart.engine.internal.element.DefaultFieldFormalParameterElementImpl;
 import com.google.dart.engine.internal.element.DefaultParameterElementImpl;
+import com.google.dart.engine.internal.element.ExecutableElementImpl;
 import com.google.dart.engine.internal.element.FieldElementImpl;
 import com.google.dart.engine.internal.element.FieldFormalParameterElementImpl;
 import com.google.dart.engine.internal.element.FunctionElementImpl;
@@ -124,6 +127,37 @@ public class ElementBuilder extends RecursiveASTVisitor<Void> {
     currentHolder = initialHolder;
   }
 
+  /**
+   * Build the elements for the local variables, local functions and labels declared in the given
+   * function body and add them to the element holder associated with this builder. The elements
+   * are not recorded in the given element, so that the caller can decide whether they replace the
+   * ones that were previously recorded. This is used when a single function body is re-resolved
+   * without re-building the element model for the rest of the compilation unit.
+   * 
+   * @param element the element of the method or function whose body is given
+   * @param body the function body whose local elements are to be built
+   */
+  public void buildBodyElements(ExecutableElementImpl element, FunctionBody body) {
+    Element enclosingElement = element.getEnclosingElement();
+    if (enclosingElement instanceof ClassElement) {
+      functionTypesToFix = new ArrayList<FunctionTypeImpl>();
+    }
+    boolean wasInFunction = inFunction;
+    inFunction = true;
+    try {
+      body.accept(this);
+    } finally {
+      inFunction = wasInFunction;
+    }
+    if (functionTypesToFix != null) {
+      Type[] typeArguments = ((ClassElement) enclosingElement).getType().getTypeArguments();
+      for (FunctionTypeImpl functionType : functionTypesToFix) {
+        functionType.setTypeArguments(typeArguments);
+      }
+      functionTypesToFix = null;
+    }
+  }
+
   @Override
   public Void visitBlock(Block node) {
     boolean wasInField = inFieldContext;
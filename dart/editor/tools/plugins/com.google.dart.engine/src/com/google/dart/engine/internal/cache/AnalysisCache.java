@@ -15,15 +15,29 @@ package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceKind;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map.Entry;
 
 /**
  * Instances of the class {@code AnalysisCache} implement an LRU cache of information related to
  * analysis.
+ * <p>
+ * The sources whose AST structures are being retained are kept in one LRU list per
+ * {@link RetentionPriority retention priority} so that both recording an access and choosing an
+ * AST structure to flush take constant time in the common case.
+ * <p>
+ * The imports, exports, parts and HTML references recorded in the entries are also kept in a
+ * reverse index that is updated whenever an entry is put into or removed from the cache, so that
+ * the sources depending on a given source can be found without visiting every entry. Entries must
+ * therefore not be replaced with entries having different references other than through
+ * {@link #put(Source, SourceEntry)}.
  */
 public class AnalysisCache {
   /**
@@ -31,6 +45,26 @@ public class AnalysisCache {
    */
   private final HashMap<Source, SourceEntry> sourceMap = new HashMap<Source, SourceEntry>();
 
+  /**
+   * The libraries imported by each source, together with the reverse mapping.
+   */
+  private final SourceReferenceMap importedLibraries = new SourceReferenceMap();
+
+  /**
+   * The libraries exported by each source, together with the reverse mapping.
+   */
+  private final SourceReferenceMap exportedLibraries = new SourceReferenceMap();
+
+  /**
+   * The parts included by each source, together with the reverse mapping.
+   */
+  private final SourceReferenceMap includedParts = new SourceReferenceMap();
+
+  /**
+   * The libraries referenced by each HTML source, together with the reverse mapping.
+   */
+  private final SourceReferenceMap referencedLibraries = new SourceReferenceMap();
+
   /**
    * The maximum number of sources for which AST structures should be kept in the cache.
    */
@@ -42,11 +76,40 @@ public class AnalysisCache {
   private CacheRetentionPolicy retentionPolicy;
 
   /**
-   * A list containing the most recently accessed sources with the most recently used at the end of
-   * the list. When more sources are added than the maximum allowed then the least recently used
-   * source will be removed and will have it's cached AST structure flushed.
+   * A table mapping the most recently accessed sources to the retention priority of the list in
+   * which they are currently kept. When more sources are added than the maximum allowed then the
+   * least recently used source with the lowest priority will be removed and will have it's cached
+   * AST structure flushed.
+   */
+  private HashMap<Source, RetentionPriority> recentlyUsed;
+
+  /**
+   * A table mapping retention priorities to the most recently accessed sources with that priority,
+   * with the most recently used at the end of each set.
+   */
+  private EnumMap<RetentionPriority, LinkedHashSet<Source>> recentlyUsedByPriority;
+
+  /**
+   * A set containing the sources whose entries have been added or changed since they were last
+   * checked for work that needs to be performed, with the least recently changed first.
+   */
+  private LinkedHashSet<Source> changedSources = new LinkedHashSet<Source>();
+
+  /**
+   * The number of times an access was recorded for a source whose AST structure was being retained.
+   */
+  private int hitCount = 0;
+
+  /**
+   * The number of times an access was recorded for a source whose AST structure was not being
+   * retained.
    */
-  private ArrayList<Source> recentlyUsed;
+  private int missCount = 0;
+
+  /**
+   * The number of times an AST structure was flushed from the cache.
+   */
+  private int flushCount = 0;
 
   /**
    * Initialize a newly created cache to maintain at most the given number of AST structures in the
@@ -60,7 +123,12 @@ public class AnalysisCache {
   public AnalysisCache(int maxCacheSize, CacheRetentionPolicy retentionPolicy) {
     this.maxCacheSize = maxCacheSize;
     this.retentionPolicy = retentionPolicy;
-    recentlyUsed = new ArrayList<Source>(maxCacheSize);
+    recentlyUsed = new HashMap<Source, RetentionPriority>(maxCacheSize);
+    recentlyUsedByPriority = new EnumMap<RetentionPriority, LinkedHashSet<Source>>(
+        RetentionPriority.class);
+    for (RetentionPriority priority : RetentionPriority.values()) {
+      recentlyUsedByPriority.put(priority, new LinkedHashSet<Source>());
+    }
   }
 
   /**
@@ -69,16 +137,28 @@ public class AnalysisCache {
    * @param source the source that was accessed
    */
   public void accessed(Source source) {
-    if (recentlyUsed.remove(source)) {
-      recentlyUsed.add(source);
+    RetentionPriority oldPriority = recentlyUsed.get(source);
+    if (oldPriority != null) {
+      hitCount++;
+      recentlyUsedByPriority.get(oldPriority).remove(source);
+      addRecentlyUsed(source, getAstPriority(source));
       return;
     }
+    missCount++;
     while (recentlyUsed.size() >= maxCacheSize) {
       if (!flushAstFromCache()) {
         break;
       }
     }
-    recentlyUsed.add(source);
+    addRecentlyUsed(source, getAstPriority(source));
+  }
+
+  /**
+   * Record that work might have become available for every source in this cache even though their
+   * entries have not changed, so that all of them are checked for work again.
+   */
+  public void allSourcesChanged() {
+    changedSources.addAll(sourceMap.keySet());
   }
 
   /**
@@ -101,6 +181,89 @@ public class AnalysisCache {
     return sourceMap.get(source);
   }
 
+  /**
+   * Return the HTML sources that reference the given library, or any library containing the given
+   * part if the source is a part.
+   * 
+   * @param source the source referenced by the HTML sources to be returned
+   * @return the HTML sources that reference the given source
+   */
+  public Source[] getHtmlFilesReferencing(Source source) {
+    SourceEntry sourceEntry = sourceMap.get(source);
+    LinkedHashSet<Source> htmlSources = new LinkedHashSet<Source>();
+    if (sourceEntry != null && sourceEntry.getKind() == SourceKind.PART) {
+      for (Source librarySource : getLibrariesContaining(source)) {
+        addSourcesOfKind(htmlSources, referencedLibraries, librarySource, SourceKind.HTML);
+      }
+    } else {
+      addSourcesOfKind(htmlSources, referencedLibraries, source, SourceKind.HTML);
+    }
+    return toArray(htmlSources);
+  }
+
+  /**
+   * Return the sources of the libraries that include the given part.
+   * 
+   * @param partSource the source of the part included by the libraries to be returned
+   * @return the sources of the libraries that include the given part
+   */
+  public Source[] getLibrariesContaining(Source partSource) {
+    ArrayList<Source> librarySources = new ArrayList<Source>();
+    addSourcesOfKind(librarySources, includedParts, partSource, SourceKind.LIBRARY);
+    return toArray(librarySources);
+  }
+
+  /**
+   * Return the sources of the libraries that export or import the given library. A library that
+   * both exports and imports the given library is included twice.
+   * 
+   * @param librarySource the source of the library depended on by the libraries to be returned
+   * @return the sources of the libraries that depend on the given library
+   */
+  public Source[] getLibrariesDependingOn(Source librarySource) {
+    ArrayList<Source> librarySources = new ArrayList<Source>();
+    addSourcesOfKind(librarySources, exportedLibraries, librarySource, SourceKind.LIBRARY);
+    addSourcesOfKind(librarySources, importedLibraries, librarySource, SourceKind.LIBRARY);
+    return toArray(librarySources);
+  }
+
+  /**
+   * Return the number of AST structures that have been flushed from this cache.
+   * 
+   * @return the number of AST structures that have been flushed from this cache
+   */
+  public int getFlushCount() {
+    return flushCount;
+  }
+
+  /**
+   * Return the number of recorded accesses to sources whose AST structure was being retained.
+   * 
+   * @return the number of recorded accesses to sources whose AST structure was being retained
+   */
+  public int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Return the number of recorded accesses to sources whose AST structure was not being retained.
+   * 
+   * @return the number of recorded accesses to sources whose AST structure was not being retained
+   */
+  public int getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Record that the retention priority of the given source might have changed for reasons other
+   * than a change to its cache entry, such as a change to the list of priority sources.
+   * 
+   * @param source the source whose retention priority might have changed
+   */
+  public void priorityChanged(Source source) {
+    updatePriority(source);
+  }
+
   /**
    * Associate the given entry with the given source.
    * 
@@ -109,6 +272,18 @@ public class AnalysisCache {
    */
   public void put(Source source, SourceEntry entry) {
     sourceMap.put(source, entry);
+    changedSources.add(source);
+    if (entry instanceof DartEntry) {
+      //
+      // The work to be done for a part depends on the state of the libraries that include it.
+      //
+      Source[] parts = ((DartEntry) entry).getValue(DartEntry.INCLUDED_PARTS);
+      for (Source part : parts) {
+        changedSources.add(part);
+      }
+    }
+    updateReferences(source, entry);
+    updatePriority(source);
   }
 
   /**
@@ -118,6 +293,29 @@ public class AnalysisCache {
    */
   public void remove(Source source) {
     sourceMap.remove(source);
+    changedSources.remove(source);
+    updateReferences(source, null);
+    RetentionPriority priority = recentlyUsed.remove(source);
+    if (priority != null) {
+      recentlyUsedByPriority.get(priority).remove(source);
+    }
+  }
+
+  /**
+   * Remove and return the source whose entry was changed least recently from the set of sources
+   * whose entries have changed since they were last checked for work, or {@code null} if there are
+   * no such sources.
+   * 
+   * @return the source whose entry was changed least recently
+   */
+  public Source removeFirstChangedSource() {
+    if (changedSources.isEmpty()) {
+      return null;
+    }
+    Iterator<Source> iterator = changedSources.iterator();
+    Source source = iterator.next();
+    iterator.remove();
+    return source;
   }
 
   /**
@@ -143,6 +341,36 @@ public class AnalysisCache {
     return sourceMap.size();
   }
 
+  /**
+   * Add the given source to the end of the list of recently used sources with the given priority.
+   * 
+   * @param source the source to be added
+   * @param priority the priority of retaining the AST structure for the source
+   */
+  private void addRecentlyUsed(Source source, RetentionPriority priority) {
+    recentlyUsed.put(source, priority);
+    recentlyUsedByPriority.get(priority).add(source);
+  }
+
+  /**
+   * Add to the given collection the sources that reference the given source according to the given
+   * references and whose entries have the given kind.
+   * 
+   * @param result the collection to which the sources are to be added
+   * @param references the references used to find the referencing sources
+   * @param source the source referenced by the sources to be added
+   * @param kind the kind of the sources to be added
+   */
+  private void addSourcesOfKind(Collection<Source> result, SourceReferenceMap references,
+      Source source, SourceKind kind) {
+    for (Source referencingSource : references.getReferencingSources(source)) {
+      SourceEntry sourceEntry = sourceMap.get(referencingSource);
+      if (sourceEntry != null && sourceEntry.getKind() == kind) {
+        result.add(referencingSource);
+      }
+    }
+  }
+
   /**
    * Attempt to flush one AST structure from the cache.
    * 
@@ -153,6 +381,7 @@ public class AnalysisCache {
     if (removedSource == null) {
       return false;
     }
+    flushCount++;
     SourceEntry sourceEntry = sourceMap.get(removedSource);
     if (sourceEntry instanceof HtmlEntry) {
       HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
@@ -166,30 +395,133 @@ public class AnalysisCache {
     return true;
   }
 
+  /**
+   * Return the current priority of retaining the AST structure for the given source.
+   * 
+   * @param source the source whose AST structure is being considered
+   * @return the current priority of retaining the AST structure for the given source
+   */
+  private RetentionPriority getAstPriority(Source source) {
+    if (retentionPolicy == null) {
+      return RetentionPriority.LOW;
+    }
+    return retentionPolicy.getAstPriority(source, sourceMap.get(source));
+  }
+
   /**
    * Remove and return one source from the list of recently used sources whose AST structure can be
    * flushed from the cache. The source that will be returned will be the source that has been
    * unreferenced for the longest period of time but that is not a priority for analysis.
+   * <p>
+   * The priority recorded for a source can be stale if it changed without the source's entry being
+   * updated, so the priority of each candidate is re-computed before it is removed. Candidates
+   * whose priority has changed are moved to the list for their new priority.
    * 
    * @return the source that was removed
    */
   private Source removeAstToFlush() {
-    int sourceToRemove = -1;
-    for (int i = 0; i < recentlyUsed.size(); i++) {
-      Source source = recentlyUsed.get(i);
-      RetentionPriority priority = retentionPolicy.getAstPriority(source, sourceMap.get(source));
-      if (priority == RetentionPriority.LOW) {
-        return recentlyUsed.remove(i);
-      } else if (priority == RetentionPriority.MEDIUM && sourceToRemove < 0) {
-        sourceToRemove = i;
-      }
+    Source source = removeFirstWithPriority(RetentionPriority.LOW);
+    if (source == null) {
+      source = removeFirstWithPriority(RetentionPriority.MEDIUM);
     }
-    if (sourceToRemove < 0) {
+    if (source == null) {
+      //
+      // Sources whose priority has been lowered since they were last accessed might still be in the
+      // high priority list.
+      //
+      LinkedHashSet<Source> highPrioritySources = recentlyUsedByPriority.get(RetentionPriority.HIGH);
+      for (Source candidate : new ArrayList<Source>(highPrioritySources)) {
+        if (getAstPriority(candidate) != RetentionPriority.HIGH) {
+          recentlyUsed.remove(candidate);
+          highPrioritySources.remove(candidate);
+          return candidate;
+        }
+      }
       AnalysisEngine.getInstance().getLogger().logError(
           "Internal error: Could not flush data from the cache",
           new Exception());
       return null;
     }
-    return recentlyUsed.remove(sourceToRemove);
+    return source;
+  }
+
+  /**
+   * Remove and return the least recently used source from the list of sources with the given
+   * priority whose current priority is no higher than the given priority, or {@code null} if there
+   * is no such source.
+   * 
+   * @param priority the priority of the list from which a source is to be removed
+   * @return the source that was removed
+   */
+  private Source removeFirstWithPriority(RetentionPriority priority) {
+    LinkedHashSet<Source> sources = recentlyUsedByPriority.get(priority);
+    while (!sources.isEmpty()) {
+      Iterator<Source> iterator = sources.iterator();
+      Source source = iterator.next();
+      iterator.remove();
+      RetentionPriority currentPriority = getAstPriority(source);
+      if (currentPriority.compareTo(priority) <= 0) {
+        recentlyUsed.remove(source);
+        return source;
+      }
+      addRecentlyUsed(source, currentPriority);
+    }
+    return null;
+  }
+
+  /**
+   * Return an array containing the given sources.
+   * 
+   * @param sources the sources to be returned
+   * @return an array containing the given sources
+   */
+  private Source[] toArray(Collection<Source> sources) {
+    if (sources.isEmpty()) {
+      return Source.EMPTY_ARRAY;
+    }
+    return sources.toArray(new Source[sources.size()]);
+  }
+
+  /**
+   * If the given source is in the list of recently used sources, make sure that it is in the list
+   * for its current priority. A source that is moved is treated as having been used most recently.
+   * 
+   * @param source the source whose priority is to be updated
+   */
+  private void updatePriority(Source source) {
+    RetentionPriority oldPriority = recentlyUsed.get(source);
+    if (oldPriority == null) {
+      return;
+    }
+    RetentionPriority newPriority = getAstPriority(source);
+    if (newPriority != oldPriority) {
+      recentlyUsedByPriority.get(oldPriority).remove(source);
+      addRecentlyUsed(source, newPriority);
+    }
+  }
+
+  /**
+   * Record the references of the given entry as being the references of the given source.
+   * 
+   * @param source the source whose references are to be recorded
+   * @param entry the entry now associated with the source, or {@code null} if it was removed
+   */
+  private void updateReferences(Source source, SourceEntry entry) {
+    Source[] imported = null;
+    Source[] exported = null;
+    Source[] parts = null;
+    Source[] referenced = null;
+    if (entry instanceof DartEntry) {
+      DartEntry dartEntry = (DartEntry) entry;
+      imported = dartEntry.getValue(DartEntry.IMPORTED_LIBRARIES);
+      exported = dartEntry.getValue(DartEntry.EXPORTED_LIBRARIES);
+      parts = dartEntry.getValue(DartEntry.INCLUDED_PARTS);
+    } else if (entry instanceof HtmlEntry) {
+      referenced = ((HtmlEntry) entry).getValue(HtmlEntry.REFERENCED_LIBRARIES);
+    }
+    importedLibraries.setReferencedSources(source, imported);
+    exportedLibraries.setReferencedSources(source, exported);
+    includedParts.setReferencedSources(source, parts);
+    referencedLibraries.setReferencedSources(source, referenced);
   }
 }
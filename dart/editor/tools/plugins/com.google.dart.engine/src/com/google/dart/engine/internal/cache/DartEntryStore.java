@@ -0,0 +1,562 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.ErrorCode;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.source.SourceKind;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code DartEntryStore} persist the information in a {@link DartEntry} that
+ * does not depend on AST structures or element models, so that it can be restored in a later
+ * session without analyzing the source again.
+ * <p>
+ * Neither AST structures nor element models are persisted. What is persisted is the source kind,
+ * the line information, the relationships between libraries and parts, and all of the errors and
+ * hints, which is what is needed to report the problems in a source. Anything that needs the AST
+ * structure or the element model of a restored source still has to parse or resolve it again.
+ * <p>
+ * Each entry is stored in its own file, named after a digest of the encoding of its source. The
+ * full encoding is stored in the file and checked when the entry is read. An entry is only
+ * restored if the modification stamp of the source, and of every source the entry's libraries
+ * depend on, is the same as it was when the entry was written. Restored entries have their AST
+ * structures and library element marked as {@link CacheState#FLUSHED flushed}, so those are only
+ * recomputed if they are actually needed.
+ * <p>
+ * The stored errors also depend on things that modification stamps do not capture, such as the
+ * analysis options and the location of the SDK. The store is therefore created with a key that
+ * describes them. The key is written to the directory, and all of the stored entries are deleted
+ * the first time the store is used with a different key.
+ */
+public class DartEntryStore {
+  /**
+   * The value written at the start of every file to identify it as a stored entry.
+   */
+  private static final int MAGIC = 0x44415254;
+
+  /**
+   * The version of the file format. This must be incremented whenever the format changes.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The suffix appended to the names of the files containing stored entries.
+   */
+  private static final String ENTRY_SUFFIX = ".entry";
+
+  /**
+   * The name of the file, in the directory of the store, containing the key of the store.
+   */
+  private static final String KEY_FILE_NAME = "store.key";
+
+  /**
+   * The directory in which entries are stored.
+   */
+  private File directory;
+
+  /**
+   * The key describing the configuration against which the stored entries were computed.
+   */
+  private String key;
+
+  /**
+   * A flag indicating whether the key of the entries in the directory has been checked against the
+   * key of this store.
+   */
+  private boolean keyChecked = false;
+
+  /**
+   * Initialize a newly created store to store entries in the given directory.
+   * 
+   * @param directory the directory in which entries are stored
+   * @param key the key describing the configuration, other than the modification stamps of the
+   *          sources, against which the entries are computed
+   */
+  public DartEntryStore(File directory, String key) {
+    this.directory = directory;
+    this.key = key;
+  }
+
+  /**
+   * Delete all of the entries in this store, together with its directory. This is used when the
+   * entries will no longer be needed, for example because the project they belong to was deleted.
+   */
+  public synchronized void delete() {
+    deleteFiles();
+    directory.delete();
+    keyChecked = false;
+  }
+
+  /**
+   * Return the directory in which entries are stored.
+   * 
+   * @return the directory in which entries are stored
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Return a cache entry for the given source that was restored from this store, or {@code null} if
+   * there is no stored entry for the source or if the stored entry is out of date.
+   * 
+   * @param source the source whose entry is to be restored
+   * @param factory the source factory used to restore the sources referenced by the entry
+   * @return the restored entry, or {@code null} if there is no valid entry for the source
+   */
+  public DartEntryImpl read(Source source, SourceFactory factory) {
+    checkKey();
+    File file = getFile(source);
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(
+          file)));
+      try {
+        return readEntry(input, source, factory);
+      } finally {
+        input.close();
+      }
+    } catch (Exception exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not read stored entry for " + source.getFullName(),
+          exception);
+      file.delete();
+      return null;
+    }
+  }
+
+  /**
+   * Remove the stored entry for the given source, if there is one. This is used when the source is
+   * no longer part of the context whose entries are stored.
+   * 
+   * @param source the source whose entry is to be removed
+   */
+  public void remove(Source source) {
+    getFile(source).delete();
+  }
+
+  /**
+   * Write the information in the given entry to this store. The entry is only written if all of the
+   * information that can be stored is available.
+   * 
+   * @param source the source associated with the entry
+   * @param entry the entry to be written
+   * @param librarySources the sources of the libraries containing the source
+   * @param dependencies a table mapping the sources that the libraries containing the source depend
+   *          on to the modification stamps against which the entry was computed
+   * @return {@code true} if the entry was written
+   */
+  public boolean write(Source source, DartEntry entry, Source[] librarySources,
+      Map<Source, Long> dependencies) {
+    if (!canWrite(entry, librarySources)) {
+      return false;
+    }
+    checkKey();
+    if (!directory.exists() && !directory.mkdirs()) {
+      return false;
+    }
+    File file = getFile(source);
+    File tempFile = null;
+    try {
+      // Several contexts can write the same entry, so each write uses a file of its own.
+      tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+          tempFile)));
+      try {
+        writeEntry(output, source, entry, librarySources, dependencies);
+      } finally {
+        output.close();
+      }
+      file.delete();
+      if (!tempFile.renameTo(file)) {
+        tempFile.delete();
+        return false;
+      }
+      return true;
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not write stored entry for " + source.getFullName(),
+          exception);
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Return {@code true} if all of the information that can be stored for the given entry is valid.
+   * 
+   * @param entry the entry being tested
+   * @param librarySources the sources of the libraries containing the source
+   * @return {@code true} if the entry can be written
+   */
+  private boolean canWrite(DartEntry entry, Source[] librarySources) {
+    if (librarySources.length == 0 || entry.getState(DartEntry.SOURCE_KIND) != CacheState.VALID
+        || entry.getState(SourceEntry.LINE_INFO) != CacheState.VALID
+        || entry.getState(DartEntry.PARSE_ERRORS) != CacheState.VALID) {
+      return false;
+    }
+    if (entry.getValue(DartEntry.SOURCE_KIND) == SourceKind.LIBRARY) {
+      if (entry.getState(DartEntry.IMPORTED_LIBRARIES) != CacheState.VALID
+          || entry.getState(DartEntry.EXPORTED_LIBRARIES) != CacheState.VALID
+          || entry.getState(DartEntry.INCLUDED_PARTS) != CacheState.VALID
+          || entry.getState(DartEntry.IS_CLIENT) != CacheState.VALID
+          || entry.getState(DartEntry.IS_LAUNCHABLE) != CacheState.VALID) {
+        return false;
+      }
+    }
+    for (Source librarySource : librarySources) {
+      if (entry.getState(DartEntry.RESOLUTION_ERRORS, librarySource) != CacheState.VALID
+          || entry.getState(DartEntry.VERIFICATION_ERRORS, librarySource) != CacheState.VALID) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * If the key of the entries in the directory has not yet been checked, check it against the key
+   * of this store. If the keys are different, delete the entries and record the key of this store.
+   */
+  private synchronized void checkKey() {
+    if (keyChecked) {
+      return;
+    }
+    keyChecked = true;
+    File keyFile = new File(directory, KEY_FILE_NAME);
+    if (keyFile.exists()) {
+      try {
+        DataInputStream input = new DataInputStream(new FileInputStream(keyFile));
+        try {
+          if (input.readUTF().equals(key)) {
+            return;
+          }
+        } finally {
+          input.close();
+        }
+      } catch (IOException exception) {
+        // Treat an unreadable key as a different key.
+      }
+    }
+    deleteFiles();
+    if (!directory.exists() && !directory.mkdirs()) {
+      return;
+    }
+    try {
+      DataOutputStream output = new DataOutputStream(new FileOutputStream(keyFile));
+      try {
+        output.writeUTF(key);
+      } finally {
+        output.close();
+      }
+    } catch (IOException exception) {
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Could not write the key of the entry store in " + directory,
+          exception);
+      keyFile.delete();
+    }
+  }
+
+  /**
+   * Delete all of the files in the directory of this store.
+   */
+  private void deleteFiles() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Return the file in which the entry for the given source is stored.
+   * 
+   * @param source the source whose entry is stored in the file
+   * @return the file in which the entry for the given source is stored
+   */
+  private File getFile(Source source) {
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1").digest(source.getEncoding().getBytes("UTF-8"));
+    } catch (Exception exception) {
+      // Every Java platform is required to support both SHA-1 and UTF-8.
+      throw new IllegalStateException(exception);
+    }
+    StringBuilder builder = new StringBuilder(digest.length * 2 + ENTRY_SUFFIX.length());
+    for (byte b : digest) {
+      builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+      builder.append(Character.forDigit(b & 0xF, 16));
+    }
+    builder.append(ENTRY_SUFFIX);
+    return new File(directory, builder.toString());
+  }
+
+  /**
+   * Read the information for the given source from the given stream. Return the entry that was
+   * read, or {@code null} if the stored information is not valid for the current state of the
+   * source.
+   * 
+   * @param input the stream from which the information is to be read
+   * @param source the source whose entry is being read
+   * @param factory the source factory used to restore the sources referenced by the entry
+   * @return the entry that was read
+   * @throws IOException if the information could not be read
+   */
+  private DartEntryImpl readEntry(DataInputStream input, Source source, SourceFactory factory)
+      throws IOException {
+    if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+      return null;
+    }
+    if (!input.readUTF().equals(source.getEncoding())) {
+      // Another source whose encoding has the same digest.
+      return null;
+    }
+    long modificationTime = input.readLong();
+    if (modificationTime != source.getModificationStamp()) {
+      return null;
+    }
+    int dependencyCount = input.readInt();
+    for (int i = 0; i < dependencyCount; i++) {
+      Source dependency = factory.fromEncoding(input.readUTF());
+      long dependencyTime = input.readLong();
+      if (dependency == null || dependency.getModificationStamp() != dependencyTime) {
+        return null;
+      }
+    }
+    DartEntryImpl entry = new DartEntryImpl();
+    entry.setModificationTime(modificationTime);
+    SourceKind kind = SourceKind.valueOf(input.readUTF());
+    entry.setValue(DartEntry.SOURCE_KIND, kind);
+    int[] lineStarts = new int[input.readInt()];
+    for (int i = 0; i < lineStarts.length; i++) {
+      lineStarts[i] = input.readInt();
+    }
+    entry.setValue(SourceEntry.LINE_INFO, new LineInfo(lineStarts));
+    entry.setValue(DartEntry.PARSE_ERRORS, readErrors(input, source));
+    entry.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
+    if (kind == SourceKind.LIBRARY) {
+      entry.setValue(DartEntry.IMPORTED_LIBRARIES, readSources(input, factory));
+      entry.setValue(DartEntry.EXPORTED_LIBRARIES, readSources(input, factory));
+      entry.setValue(DartEntry.INCLUDED_PARTS, readSources(input, factory));
+      entry.setValue(DartEntry.IS_CLIENT, input.readBoolean());
+      entry.setValue(DartEntry.IS_LAUNCHABLE, input.readBoolean());
+      entry.setState(DartEntry.ELEMENT, CacheState.FLUSHED);
+    }
+    int libraryCount = input.readInt();
+    for (int i = 0; i < libraryCount; i++) {
+      Source librarySource = factory.fromEncoding(input.readUTF());
+      if (librarySource == null) {
+        return null;
+      }
+      entry.setState(DartEntry.RESOLVED_UNIT, librarySource, CacheState.FLUSHED);
+      entry.setValue(DartEntry.RESOLUTION_ERRORS, librarySource, readErrors(input, source));
+      entry.setValue(DartEntry.VERIFICATION_ERRORS, librarySource, readErrors(input, source));
+      if (input.readBoolean()) {
+        entry.setValue(DartEntry.HINTS, librarySource, readErrors(input, source));
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Read an array of errors from the given stream.
+   * 
+   * @param input the stream from which the errors are to be read
+   * @param source the source in which the errors occur
+   * @return the errors that were read
+   * @throws IOException if the errors could not be read
+   */
+  private AnalysisError[] readErrors(DataInputStream input, Source source) throws IOException {
+    int count = input.readInt();
+    if (count == 0) {
+      return AnalysisError.NO_ERRORS;
+    }
+    AnalysisError[] errors = new AnalysisError[count];
+    for (int i = 0; i < count; i++) {
+      ErrorCode errorCode = toErrorCode(input.readUTF(), input.readUTF());
+      int offset = input.readInt();
+      int length = input.readInt();
+      String message = input.readUTF();
+      String correction = input.readBoolean() ? input.readUTF() : null;
+      AnalysisError error = new AnalysisError(
+          errorCode,
+          source,
+          offset,
+          length,
+          message,
+          correction);
+      error.setIsStaticOnly(input.readBoolean());
+      errors[i] = error;
+    }
+    return errors;
+  }
+
+  /**
+   * Read an array of sources from the given stream.
+   * 
+   * @param input the stream from which the sources are to be read
+   * @param factory the source factory used to restore the sources
+   * @return the sources that were read
+   * @throws IOException if the sources could not be read
+   */
+  private Source[] readSources(DataInputStream input, SourceFactory factory) throws IOException {
+    int count = input.readInt();
+    if (count == 0) {
+      return Source.EMPTY_ARRAY;
+    }
+    Source[] sources = new Source[count];
+    for (int i = 0; i < count; i++) {
+      String encoding = input.readUTF();
+      sources[i] = factory.fromEncoding(encoding);
+      if (sources[i] == null) {
+        throw new IOException("Could not restore the source " + encoding);
+      }
+    }
+    return sources;
+  }
+
+  /**
+   * Return the error code with the given name defined by the enumeration with the given class name.
+   * 
+   * @param className the name of the enumeration defining the error code
+   * @param name the name of the error code
+   * @return the error code with the given name
+   * @throws IOException if there is no such error code
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private ErrorCode toErrorCode(String className, String name) throws IOException {
+    try {
+      Class<?> errorCodeClass = Class.forName(className);
+      if (!errorCodeClass.isEnum() || !ErrorCode.class.isAssignableFrom(errorCodeClass)) {
+        throw new IOException("Not an error code class: " + className);
+      }
+      return (ErrorCode) Enum.valueOf((Class) errorCodeClass, name);
+    } catch (ClassNotFoundException exception) {
+      throw new IOException("Unknown error code class: " + className);
+    } catch (IllegalArgumentException exception) {
+      throw new IOException("Unknown error code: " + className + "." + name);
+    }
+  }
+
+  /**
+   * Write the information in the given entry to the given stream.
+   * 
+   * @param output the stream to which the information is to be written
+   * @param source the source associated with the entry
+   * @param entry the entry to be written
+   * @param librarySources the sources of the libraries containing the source
+   * @param dependencies a table mapping the sources that the libraries containing the source depend
+   *          on to the modification stamps against which the entry was computed
+   * @throws IOException if the information could not be written
+   */
+  private void writeEntry(DataOutputStream output, Source source, DartEntry entry,
+      Source[] librarySources, Map<Source, Long> dependencies) throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeUTF(source.getEncoding());
+    output.writeLong(entry.getModificationTime());
+    output.writeInt(dependencies.size());
+    for (Map.Entry<Source, Long> dependency : dependencies.entrySet()) {
+      output.writeUTF(dependency.getKey().getEncoding());
+      output.writeLong(dependency.getValue().longValue());
+    }
+    SourceKind kind = entry.getValue(DartEntry.SOURCE_KIND);
+    output.writeUTF(kind.name());
+    int[] lineStarts = entry.getValue(SourceEntry.LINE_INFO).getLineStarts();
+    output.writeInt(lineStarts.length);
+    for (int lineStart : lineStarts) {
+      output.writeInt(lineStart);
+    }
+    writeErrors(output, entry.getValue(DartEntry.PARSE_ERRORS));
+    if (kind == SourceKind.LIBRARY) {
+      writeSources(output, entry.getValue(DartEntry.IMPORTED_LIBRARIES));
+      writeSources(output, entry.getValue(DartEntry.EXPORTED_LIBRARIES));
+      writeSources(output, entry.getValue(DartEntry.INCLUDED_PARTS));
+      output.writeBoolean(entry.getValue(DartEntry.IS_CLIENT).booleanValue());
+      output.writeBoolean(entry.getValue(DartEntry.IS_LAUNCHABLE).booleanValue());
+    }
+    output.writeInt(librarySources.length);
+    for (Source librarySource : librarySources) {
+      output.writeUTF(librarySource.getEncoding());
+      writeErrors(output, entry.getValue(DartEntry.RESOLUTION_ERRORS, librarySource));
+      writeErrors(output, entry.getValue(DartEntry.VERIFICATION_ERRORS, librarySource));
+      boolean hasHints = entry.getState(DartEntry.HINTS, librarySource) == CacheState.VALID;
+      output.writeBoolean(hasHints);
+      if (hasHints) {
+        writeErrors(output, entry.getValue(DartEntry.HINTS, librarySource));
+      }
+    }
+  }
+
+  /**
+   * Write the given errors to the given stream.
+   * 
+   * @param output the stream to which the errors are to be written
+   * @param errors the errors to be written
+   * @throws IOException if the errors could not be written
+   */
+  private void writeErrors(DataOutputStream output, AnalysisError[] errors) throws IOException {
+    output.writeInt(errors.length);
+    for (AnalysisError error : errors) {
+      ErrorCode errorCode = error.getErrorCode();
+      if (!(errorCode instanceof Enum<?>)) {
+        throw new IOException("Cannot store error code " + errorCode);
+      }
+      output.writeUTF(((Enum<?>) errorCode).getDeclaringClass().getName());
+      output.writeUTF(((Enum<?>) errorCode).name());
+      output.writeInt(error.getOffset());
+      output.writeInt(error.getLength());
+      output.writeUTF(error.getMessage());
+      String correction = error.getCorrection();
+      output.writeBoolean(correction != null);
+      if (correction != null) {
+        output.writeUTF(correction);
+      }
+      output.writeBoolean(error.isStaticOnly());
+    }
+  }
+
+  /**
+   * Write the encodings of the given sources to the given stream.
+   * 
+   * @param output the stream to which the sources are to be written
+   * @param sources the sources to be written
+   * @throws IOException if the sources could not be written
+   */
+  private void writeSources(DataOutputStream output, Source[] sources) throws IOException {
+    output.writeInt(sources.length);
+    for (Source source : sources) {
+      output.writeUTF(source.getEncoding());
+    }
+  }
+}
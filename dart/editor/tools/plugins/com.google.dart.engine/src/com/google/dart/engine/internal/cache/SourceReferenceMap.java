@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.source.Source;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * Instances of the class {@code SourceReferenceMap} record one kind of reference between sources,
+ * such as imports, in both directions, so that the sources referencing a given source can be found
+ * in time proportional to their number.
+ */
+class SourceReferenceMap {
+  /**
+   * A table mapping the sources that have references to the sources they reference.
+   */
+  private final HashMap<Source, Source[]> referencedSources = new HashMap<Source, Source[]>();
+
+  /**
+   * A table mapping the sources that are referenced to the sources that reference them.
+   */
+  private final HashMap<Source, LinkedHashSet<Source>> referencingSources =
+      new HashMap<Source, LinkedHashSet<Source>>();
+
+  /**
+   * Return the sources that reference the given source. Clients should not modify the returned
+   * collection.
+   * 
+   * @param source the source whose referencing sources are to be returned
+   * @return the sources that reference the given source
+   */
+  public Collection<Source> getReferencingSources(Source source) {
+    LinkedHashSet<Source> sources = referencingSources.get(source);
+    if (sources == null) {
+      return Collections.emptySet();
+    }
+    return sources;
+  }
+
+  /**
+   * Remove all of the references from the given source.
+   * 
+   * @param source the source whose references are to be removed
+   */
+  public void remove(Source source) {
+    setReferencedSources(source, null);
+  }
+
+  /**
+   * Record that the given source references exactly the given sources, replacing any references
+   * recorded for it before.
+   * 
+   * @param source the source with the references
+   * @param sources the sources referenced by the source, or {@code null} if there are none
+   */
+  public void setReferencedSources(Source source, Source[] sources) {
+    if (sources != null && sources.length == 0) {
+      sources = null;
+    }
+    Source[] oldSources = referencedSources.get(source);
+    if (oldSources == sources || Arrays.equals(oldSources, sources)) {
+      return;
+    }
+    if (oldSources != null) {
+      for (Source oldSource : oldSources) {
+        LinkedHashSet<Source> referencing = referencingSources.get(oldSource);
+        if (referencing != null) {
+          referencing.remove(source);
+          if (referencing.isEmpty()) {
+            referencingSources.remove(oldSource);
+          }
+        }
+      }
+    }
+    if (sources == null) {
+      referencedSources.remove(source);
+      return;
+    }
+    referencedSources.put(source, sources);
+    for (Source newSource : sources) {
+      LinkedHashSet<Source> referencing = referencingSources.get(newSource);
+      if (referencing == null) {
+        referencing = new LinkedHashSet<Source>();
+        referencingSources.put(newSource, referencing);
+      }
+      referencing.add(source);
+    }
+  }
+}
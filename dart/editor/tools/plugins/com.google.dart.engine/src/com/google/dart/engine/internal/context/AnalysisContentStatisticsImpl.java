@@ -106,17 +106,52 @@ public class AnalysisContentStatisticsImpl implements AnalysisContentStatistics
 
   private HashSet<AnalysisException> exceptions = new HashSet<AnalysisException>();
 
+  private int astFlushCount;
+
+  private int astHitCount;
+
+  private int astMissCount;
+
+  private int dependentInvalidationCount;
+
+  private int preservedDependentCount;
+
+  @Override
+  public int getAstFlushCount() {
+    return astFlushCount;
+  }
+
+  @Override
+  public int getAstHitCount() {
+    return astHitCount;
+  }
+
+  @Override
+  public int getAstMissCount() {
+    return astMissCount;
+  }
+
   @Override
   public CacheRow[] getCacheRows() {
     Collection<CacheRow> items = dataMap.values();
     return items.toArray(new CacheRow[items.size()]);
   }
 
+  @Override
+  public int getDependentInvalidationCount() {
+    return dependentInvalidationCount;
+  }
+
   @Override
   public AnalysisException[] getExceptions() {
     return exceptions.toArray(new AnalysisException[exceptions.size()]);
   }
 
+  @Override
+  public int getPreservedDependentCount() {
+    return preservedDependentCount;
+  }
+
   public void putCacheItem(DartEntry dartEntry, DataDescriptor<?> descriptor) {
     putCacheItem(dartEntry, descriptor, dartEntry.getState(descriptor));
   }
@@ -141,4 +176,15 @@ public class AnalysisContentStatisticsImpl implements AnalysisContentStatistics
       }
     }
   }
+
+  public void setAstCounts(int hitCount, int missCount, int flushCount) {
+    astHitCount = hitCount;
+    astMissCount = missCount;
+    astFlushCount = flushCount;
+  }
+
+  public void setDependentCounts(int invalidationCount, int preservedCount) {
+    dependentInvalidationCount = invalidationCount;
+    preservedDependentCount = preservedCount;
+  }
 }
@@ -40,14 +40,15 @@ import com.google.dart.engine.internal.cache.CacheRetentionPolicy;
 import com.google.dart.engine.internal.cache.CacheState;
 import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.cache.DartEntryImpl;
+import com.google.dart.engine.internal.cache.DartEntryStore;
 import com.google.dart.engine.internal.cache.DataDescriptor;
 import com.google.dart.engine.internal.cache.HtmlEntry;
 import com.google.dart.engine.internal.cache.HtmlEntryImpl;
 import com.google.dart.engine.internal.cache.RetentionPriority;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.cache.SourceEntryImpl;
-import com.google.dart.engine.internal.element.ElementImpl;
 import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.internal.resolver.Library;
 import com.google.dart.engine.internal.resolver.LibraryResolver;
 import com.google.dart.engine.internal.resolver.TypeProvider;
@@ -64,18 +65,21 @@ import com.google.dart.engine.internal.task.ParseHtmlTask;
 import com.google.dart.engine.internal.task.ResolveDartLibraryTask;
 import com.google.dart.engine.internal.task.ResolveDartUnitTask;
 import com.google.dart.engine.internal.task.ResolveHtmlTask;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
+import com.google.dart.engine.source.UriKind;
 import com.google.dart.engine.utilities.collection.ListUtilities;
 import com.google.dart.engine.utilities.io.PrintStringWriter;
 import com.google.dart.engine.utilities.os.OSUtilities;
 import com.google.dart.engine.utilities.source.LineInfo;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -83,6 +87,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Instances of the class {@code AnalysisContextImpl} implement an {@link AnalysisContext analysis
@@ -173,6 +184,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private static final int PRIORITY_ORDER_SIZE_DELTA = 4;
 
+  /**
+   * The number of seconds that an idle worker thread is kept alive before being discarded.
+   */
+  private static final long WORKER_KEEP_ALIVE_SECONDS = 30L;
+
   /**
    * The set of analysis options controlling the behavior of this context.
    */
@@ -222,12 +238,77 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private AnalysisTaskResultRecorder resultRecorder;
 
+  /**
+   * The executor used to perform tasks concurrently when the concurrency level in the analysis
+   * options is greater than one, or {@code null} if no concurrent tasks have been performed since
+   * the concurrency level was last changed. Synchronize against {@link #cacheLock} before accessing
+   * this field.
+   */
+  private ThreadPoolExecutor taskExecutor;
+
+  /**
+   * The store used to persist the cache entries for SDK and package sources between sessions, or
+   * {@code null} if entries are not persisted. Synchronize against {@link #cacheLock} before
+   * accessing this field.
+   */
+  private DartEntryStore entryStore;
+
+  /**
+   * A table mapping the sources whose entries have been read from or written to the
+   * {@link #entryStore} to the entry that was read or written. The entries are weakly referenced so
+   * that the AST structures of entries that have since been replaced are not retained. Synchronize
+   * against {@link #cacheLock} before accessing this field.
+   */
+  private HashMap<Source, WeakReference<DartEntry>> storedEntries = new HashMap<Source, WeakReference<DartEntry>>();
+
+  /**
+   * The stored sources whose entries have changed and have no more work to be done, and therefore
+   * need to be written to the {@link #entryStore} the next time there is no analysis work to be
+   * performed. Synchronize against {@link #cacheLock} before accessing this field.
+   */
+  private HashSet<Source> sourcesToStore = new HashSet<Source>();
+
   /**
    * Cached information used in incremental analysis or {@code null} if none. Synchronize against
    * {@link #cacheLock} before accessing this field.
    */
   private IncrementalAnalysisCache incrementalAnalysisCache;
 
+  /**
+   * A table mapping the sources of the libraries that have been resolved to the signature of the
+   * API of the library, as computed by an {@link ApiSignatureBuilder}. Synchronize against
+   * {@link #cacheLock} before accessing this field.
+   */
+  private HashMap<Source, String> apiSignatures = new HashMap<Source, String>();
+
+  /**
+   * A table mapping the sources of the libraries that have been changed since their API signature
+   * was computed to the element model of their previous resolution, or {@code null} if it was not
+   * available. The dependent libraries of these libraries will be invalidated once they have been
+   * resolved again, but only if their API signature has changed. Otherwise the offsets in the
+   * previous element model, which the dependent libraries still refer to, are updated. Synchronize
+   * against {@link #cacheLock} before accessing this field.
+   */
+  private HashMap<Source, LibraryElement> librariesWithUncheckedApi = new HashMap<Source, LibraryElement>();
+
+  /**
+   * The number of times a library was invalidated because the API of a library it depends on was
+   * changed.
+   */
+  private int dependentInvalidationCount = 0;
+
+  /**
+   * The number of times a library was not invalidated, even though a library it depends on was
+   * changed, because the API of that library was not changed.
+   */
+  private int preservedDependentCount = 0;
+
+  /**
+   * The symbol table shared by all of the scanners used to scan the sources in this context, so
+   * that every token and element in this context with a given name shares a single string.
+   */
+  private final SymbolTable symbolTable = new SymbolTable();
+
   /**
    * Initialize a newly created analysis context.
    */
@@ -521,16 +602,12 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   public Element getElement(ElementLocation location) {
     // TODO(brianwilkerson) This should not be a "get" method.
     try {
-      String[] components = ((ElementLocationImpl) location).getComponents();
-      Source librarySource = computeSourceFromEncoding(components[0]);
-      ElementImpl element = (ElementImpl) computeLibraryElement(librarySource);
-      for (int i = 1; i < components.length; i++) {
-        if (element == null) {
-          return null;
-        }
-        element = element.getChild(components[i]);
+      Source librarySource = computeLibrarySource((ElementLocationImpl) location);
+      LibraryElementImpl library = (LibraryElementImpl) computeLibraryElement(librarySource);
+      if (library == null) {
+        return null;
       }
-      return element;
+      return library.getElement(location);
     } catch (AnalysisException exception) {
       return null;
     }
@@ -569,37 +646,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       return Source.EMPTY_ARRAY;
     }
     synchronized (cacheLock) {
-      ArrayList<Source> htmlSources = new ArrayList<Source>();
-      switch (sourceKind) {
-        case LIBRARY:
-        default:
-          for (Map.Entry<Source, SourceEntry> entry : cache.entrySet()) {
-            SourceEntry sourceEntry = entry.getValue();
-            if (sourceEntry.getKind() == SourceKind.HTML) {
-              Source[] referencedLibraries = ((HtmlEntry) sourceEntry).getValue(HtmlEntry.REFERENCED_LIBRARIES);
-              if (contains(referencedLibraries, source)) {
-                htmlSources.add(entry.getKey());
-              }
-            }
-          }
-          break;
-        case PART:
-          Source[] librarySources = getLibrariesContaining(source);
-          for (Map.Entry<Source, SourceEntry> entry : cache.entrySet()) {
-            SourceEntry sourceEntry = entry.getValue();
-            if (sourceEntry.getKind() == SourceKind.HTML) {
-              Source[] referencedLibraries = ((HtmlEntry) sourceEntry).getValue(HtmlEntry.REFERENCED_LIBRARIES);
-              if (containsAny(referencedLibraries, librarySources)) {
-                htmlSources.add(entry.getKey());
-              }
-            }
-          }
-          break;
-      }
-      if (htmlSources.isEmpty()) {
-        return Source.EMPTY_ARRAY;
-      }
-      return htmlSources.toArray(new Source[htmlSources.size()]);
+      return cache.getHtmlFilesReferencing(source);
     }
   }
 
@@ -664,45 +711,14 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       if (sourceEntry == null || sourceEntry.getKind() != SourceKind.PART) {
         return new Source[] {source};
       }
-      ArrayList<Source> librarySources = new ArrayList<Source>();
-      for (Map.Entry<Source, SourceEntry> entry : cache.entrySet()) {
-        sourceEntry = entry.getValue();
-        if (sourceEntry.getKind() == SourceKind.LIBRARY) {
-          if (contains(((DartEntry) sourceEntry).getValue(DartEntry.INCLUDED_PARTS), source)) {
-            librarySources.add(entry.getKey());
-          }
-        }
-      }
-      if (librarySources.isEmpty()) {
-        return Source.EMPTY_ARRAY;
-      }
-      return librarySources.toArray(new Source[librarySources.size()]);
+      return cache.getLibrariesContaining(source);
     }
   }
 
   @Override
   public Source[] getLibrariesDependingOn(Source librarySource) {
     synchronized (cacheLock) {
-      ArrayList<Source> dependentLibraries = new ArrayList<Source>();
-      for (Map.Entry<Source, SourceEntry> entry : cache.entrySet()) {
-        SourceEntry sourceEntry = entry.getValue();
-        if (sourceEntry.getKind() == SourceKind.LIBRARY) {
-          if (contains(
-              ((DartEntry) sourceEntry).getValue(DartEntry.EXPORTED_LIBRARIES),
-              librarySource)) {
-            dependentLibraries.add(entry.getKey());
-          }
-          if (contains(
-              ((DartEntry) sourceEntry).getValue(DartEntry.IMPORTED_LIBRARIES),
-              librarySource)) {
-            dependentLibraries.add(entry.getKey());
-          }
-        }
-      }
-      if (dependentLibraries.isEmpty()) {
-        return Source.EMPTY_ARRAY;
-      }
-      return dependentLibraries.toArray(new Source[dependentLibraries.size()]);
+      return cache.getLibrariesDependingOn(librarySource);
     }
   }
 
@@ -875,6 +891,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   public AnalysisContentStatistics getStatistics() {
     AnalysisContentStatisticsImpl statistics = new AnalysisContentStatisticsImpl();
     synchronized (cacheLock) {
+      statistics.setAstCounts(cache.getHitCount(), cache.getMissCount(), cache.getFlushCount());
+      statistics.setDependentCounts(dependentInvalidationCount, preservedDependentCount);
       for (Entry<Source, SourceEntry> mapEntry : cache.entrySet()) {
         SourceEntry entry = mapEntry.getValue();
         if (entry instanceof DartEntry) {
@@ -913,6 +931,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return statistics;
   }
 
+  @Override
+  public SymbolTable getSymbolTable() {
+    return symbolTable;
+  }
+
   @Override
   public TypeProvider getTypeProvider() throws AnalysisException {
     Source coreSource = getSourceFactory().forUri(DartSdk.DART_CORE);
@@ -1001,24 +1024,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       task = getNextTaskAnalysisTask();
     }
     if (task == null) {
+      writeEntriesToStore();
       return new AnalysisResult(getChangeNotices(true), getEnd - getStart, null, -1L);
     }
-    String taskDescriptor = task.toString();
-    if (recentTasks.add(taskDescriptor)) {
-      logInformation("Performing task: " + taskDescriptor);
-    } else {
-      logInformation("*** Performing repeated task: " + taskDescriptor);
+    int concurrencyLevel = getAnalysisOptions().getConcurrencyLevel();
+    if (concurrencyLevel > 1 && canPerformConcurrently(task)) {
+      return performConcurrentTasks(task, concurrencyLevel, getEnd - getStart);
     }
+    logTaskStart(task);
     long performStart = System.currentTimeMillis();
-    try {
-      task.perform(resultRecorder);
-    } catch (AnalysisException exception) {
-      if (!(exception.getCause() instanceof IOException)) {
-        AnalysisEngine.getInstance().getLogger().logError(
-            "Internal error while performing the task: " + task,
-            exception);
-      }
-    }
+    performTask(task);
     long performEnd = System.currentTimeMillis();
     return new AnalysisResult(
         getChangeNotices(false),
@@ -1075,6 +1090,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           || this.options.getDart2jsHint() != options.getDart2jsHint()
           || (this.options.getHint() && !options.getHint())
           || this.options.getPreserveComments() != options.getPreserveComments();
+      boolean hintsEnabled = !this.options.getHint() && options.getHint();
 
       int cacheSize = options.getCacheSize();
       if (this.options.getCacheSize() != cacheSize) {
@@ -1087,9 +1103,23 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         //
         int maxPriorityOrderSize = cacheSize - PRIORITY_ORDER_SIZE_DELTA;
         if (priorityOrder.length > maxPriorityOrderSize) {
+          Source[] oldPriorityOrder = priorityOrder;
           Source[] newPriorityOrder = new Source[maxPriorityOrderSize];
           System.arraycopy(priorityOrder, 0, newPriorityOrder, 0, maxPriorityOrderSize);
           priorityOrder = newPriorityOrder;
+          priorityOrderChanged(oldPriorityOrder);
+        }
+      }
+      int concurrencyLevel = options.getConcurrencyLevel();
+      if (this.options.getConcurrencyLevel() != concurrencyLevel) {
+        this.options.setConcurrencyLevel(concurrencyLevel);
+        //
+        // Discard the current executor; a new one will be created with the right number of threads
+        // the next time tasks are performed concurrently.
+        //
+        if (taskExecutor != null) {
+          taskExecutor.shutdown();
+          taskExecutor = null;
         }
       }
       this.options.setAnalyzeFunctionBodies(options.getAnalyzeFunctionBodies());
@@ -1100,6 +1130,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
       if (needsRecompute) {
         invalidateAllResolutionInformation();
+      } else if (hintsEnabled) {
+        //
+        // Enabling hints creates work for sources whose entries have not changed.
+        //
+        cache.allSourcesChanged();
       }
     }
   }
@@ -1107,6 +1142,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   @Override
   public void setAnalysisPriorityOrder(List<Source> sources) {
     synchronized (cacheLock) {
+      Source[] oldPriorityOrder = priorityOrder;
       if (sources == null || sources.isEmpty()) {
         priorityOrder = Source.EMPTY_ARRAY;
       } else {
@@ -1127,6 +1163,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           priorityOrder[i] = sources.get(i);
         }
       }
+      priorityOrderChanged(oldPriorityOrder);
     }
   }
 
@@ -1177,6 +1214,41 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Set the store used to persist the cache entries for SDK and package sources between sessions.
+   * Entries are read from the store when a source is added to the cache, or when the store is set
+   * for sources that have been added but not yet parsed. Entries that have changed are written to
+   * the store once there is no more analysis work to be performed.
+   * 
+   * @param store the store used to persist cache entries, or {@code null} if entries should not be
+   *          persisted
+   */
+  public void setEntryStore(DartEntryStore store) {
+    synchronized (cacheLock) {
+      entryStore = store;
+      storedEntries.clear();
+      sourcesToStore.clear();
+      if (store == null) {
+        return;
+      }
+      //
+      // The sources that were added before the store was set, but that have not been parsed yet,
+      // can still have their entries restored from the store.
+      //
+      ArrayList<Source> unparsedSources = new ArrayList<Source>();
+      for (Map.Entry<Source, SourceEntry> mapEntry : cache.entrySet()) {
+        SourceEntry sourceEntry = mapEntry.getValue();
+        if (sourceEntry instanceof DartEntry && isStoredSource(mapEntry.getKey())
+            && sourceEntry.getState(DartEntry.PARSE_ERRORS) == CacheState.INVALID) {
+          unparsedSources.add(mapEntry.getKey());
+        }
+      }
+      for (Source source : unparsedSources) {
+        readEntryFromStore(source);
+      }
+    }
+  }
+
   @Override
   public void setSourceFactory(SourceFactory factory) {
     synchronized (cacheLock) {
@@ -1239,6 +1311,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         dartCopy.recordResolutionError();
         dartCopy.setException(thrownException);
         cache.put(unitSource, dartCopy);
+        synchronized (cacheLock) {
+          invalidateUncheckedDependents(task.getLibrarySource());
+        }
         if (thrownException != null) {
           throw thrownException;
         }
@@ -1288,6 +1363,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
               notice.setErrors(dartCopy.getAllErrors(), lineInfo);
             }
           }
+          recordApiSignatures(resolvedLibraries, thrownException == null);
         } else {
           @SuppressWarnings("resource")
           PrintStringWriter writer = new PrintStringWriter();
@@ -1583,47 +1659,82 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   /**
-   * Given the encoded form of a source, use the source factory to reconstitute the original source.
+   * Return {@code true} if the given task can be performed concurrently with other tasks of the
+   * same kind. Only the tasks that parse Dart and HTML files qualify: they only read the contents
+   * of a single source, they neither read nor modify element models, and recording their results
+   * never causes anything to be resolved. Tasks that compute errors or hints are not safe, because
+   * they can resolve a compilation unit again if its resolved form has been flushed from the cache,
+   * so they and all other tasks are performed on the thread that invoked
+   * {@link #performAnalysisTask()}.
    * 
-   * @param encoding the encoded form of a source
-   * @return the source represented by the encoding
+   * @param task the task being tested
+   * @return {@code true} if the given task can be performed concurrently with other tasks
    */
-  private Source computeSourceFromEncoding(String encoding) {
-    synchronized (cacheLock) {
-      return sourceFactory.fromEncoding(encoding);
-    }
+  private boolean canPerformConcurrently(AnalysisTask task) {
+    return task instanceof ParseDartTask || task instanceof ParseHtmlTask;
   }
 
   /**
-   * Return {@code true} if the given array of sources contains the given source.
+   * Return a table mapping the sources that the given library depends on, directly or indirectly,
+   * to the modification times of their cache entries, or {@code null} if the dependencies of some
+   * library are not known. The table includes the library itself, the parts of every library, and
+   * every library that is imported or exported.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
    * 
-   * @param sources the sources being searched
-   * @param targetSource the source being searched for
-   * @return {@code true} if the given source is in the array
+   * @param librarySource the source of the library whose dependencies are to be computed
+   * @return a table mapping the sources that the library depends on to their modification times
    */
-  private boolean contains(Source[] sources, Source targetSource) {
-    for (Source source : sources) {
-      if (source.equals(targetSource)) {
-        return true;
+  private HashMap<Source, Long> computeLibraryDependencies(Source librarySource) {
+    HashMap<Source, Long> dependencies = new HashMap<Source, Long>();
+    ArrayList<Source> librariesToVisit = new ArrayList<Source>();
+    librariesToVisit.add(librarySource);
+    while (!librariesToVisit.isEmpty()) {
+      Source library = librariesToVisit.remove(librariesToVisit.size() - 1);
+      if (dependencies.containsKey(library)) {
+        continue;
+      }
+      SourceEntry sourceEntry = cache.get(library);
+      if (!(sourceEntry instanceof DartEntry)) {
+        return null;
+      }
+      DartEntry libraryEntry = (DartEntry) sourceEntry;
+      if (libraryEntry.getState(DartEntry.IMPORTED_LIBRARIES) != CacheState.VALID
+          || libraryEntry.getState(DartEntry.EXPORTED_LIBRARIES) != CacheState.VALID
+          || libraryEntry.getState(DartEntry.INCLUDED_PARTS) != CacheState.VALID) {
+        return null;
+      }
+      dependencies.put(library, Long.valueOf(libraryEntry.getModificationTime()));
+      for (Source part : libraryEntry.getValue(DartEntry.INCLUDED_PARTS)) {
+        SourceEntry partEntry = cache.get(part);
+        if (partEntry == null) {
+          return null;
+        }
+        dependencies.put(part, Long.valueOf(partEntry.getModificationTime()));
+      }
+      for (Source importedLibrary : libraryEntry.getValue(DartEntry.IMPORTED_LIBRARIES)) {
+        librariesToVisit.add(importedLibrary);
+      }
+      for (Source exportedLibrary : libraryEntry.getValue(DartEntry.EXPORTED_LIBRARIES)) {
+        librariesToVisit.add(exportedLibrary);
       }
     }
-    return false;
+    return dependencies;
   }
 
   /**
-   * Return {@code true} if the given array of sources contains any of the given target sources.
+   * Given the location of an element, use the source factory to reconstitute the source of the
+   * library containing the element.
    * 
-   * @param sources the sources being searched
-   * @param targetSources the sources being searched for
-   * @return {@code true} if any of the given target sources are in the array
+   * @param location the location of the element
+   * @return the source of the library containing the element
    */
-  private boolean containsAny(Source[] sources, Source[] targetSources) {
-    for (Source targetSource : targetSources) {
-      if (contains(sources, targetSource)) {
-        return true;
-      }
+  private Source computeLibrarySource(ElementLocationImpl location) {
+    SourceFactory factory;
+    synchronized (cacheLock) {
+      factory = sourceFactory;
     }
-    return false;
+    return location.getLibrarySource(factory);
   }
 
   /**
@@ -1641,6 +1752,12 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       cache.put(source, htmlEntry);
       return htmlEntry;
     } else {
+      if (entryStore != null && isStoredSource(source)) {
+        DartEntryImpl dartEntry = readEntryFromStore(source);
+        if (dartEntry != null) {
+          return dartEntry;
+        }
+      }
       DartEntryImpl dartEntry = new DartEntryImpl();
       dartEntry.setModificationTime(source.getModificationStamp());
       cache.put(source, dartEntry);
@@ -1809,6 +1926,26 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return dartEntry.getValue(descriptor, librarySource);
   }
 
+  /**
+   * Return the sources of the libraries that import or export the given library, other than the
+   * given excluded libraries.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library depended on by the libraries to be returned
+   * @param excludedSources the sources of the libraries that are not to be returned
+   * @return the sources of the libraries that depend on the given library
+   */
+  private HashSet<Source> getDependentLibraries(Source librarySource, Set<Source> excludedSources) {
+    HashSet<Source> dependentLibraries = new HashSet<Source>();
+    for (Source dependentLibrary : getLibrariesDependingOn(librarySource)) {
+      if (!excludedSources.contains(dependentLibrary)) {
+        dependentLibraries.add(dependentLibrary);
+      }
+    }
+    return dependentLibraries;
+  }
+
   /**
    * Given a source for an HTML file, return the data represented by the given descriptor that is
    * associated with that source, or the given default value if the source is not an HTML file. This
@@ -1897,17 +2034,29 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         }
       }
       //
-      // Look for a non-priority source that needs to be analyzed.
+      // Look for a non-priority source that needs to be analyzed. Only the sources whose entries
+      // have changed since they were last checked can have work to be done: sources for which there
+      // is no work are removed from the set, and anything that makes work available for a source
+      // (such as recording a task as being in process, invalidating the source, changing the
+      // library that contains it or enabling hints) adds the source back.
       //
-      for (Map.Entry<Source, SourceEntry> entry : cache.entrySet()) {
-        AnalysisTask task = getNextTaskAnalysisTask(
-            entry.getKey(),
-            entry.getValue(),
-            false,
-            hintsEnabled);
-        if (task != null) {
-          return task;
+      Source changedSource = cache.removeFirstChangedSource();
+      while (changedSource != null) {
+        SourceEntry sourceEntry = cache.get(changedSource);
+        if (sourceEntry != null) {
+          AnalysisTask task = getNextTaskAnalysisTask(
+              changedSource,
+              sourceEntry,
+              false,
+              hintsEnabled);
+          if (task != null) {
+            return task;
+          }
+          if (entryStore != null && isStoredSource(changedSource)) {
+            sourcesToStore.add(changedSource);
+          }
         }
+        changedSource = cache.removeFirstChangedSource();
       }
       return null;
     }
@@ -1931,6 +2080,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (sourceEntry instanceof DartEntry) {
       DartEntry dartEntry = (DartEntry) sourceEntry;
       if (!source.exists()) {
+        if (dartEntry.getState(DartEntry.PARSE_ERRORS) == CacheState.ERROR) {
+          // The error has already been recorded, and recording it again would mark the source as
+          // changed.
+          return null;
+        }
         DartEntryImpl dartCopy = dartEntry.getWritableCopy();
         dartCopy.recordParseError();
         dartCopy.setException(new AnalysisException("Source does not exist"));
@@ -1963,7 +2117,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
             DartEntryImpl libraryCopy = ((DartEntry) libraryEntry).getWritableCopy();
             libraryCopy.setState(DartEntry.ELEMENT, CacheState.IN_PROCESS);
             cache.put(librarySource, libraryCopy);
-            return new ResolveDartLibraryTask(this, source, librarySource);
+            return new ResolveDartLibraryTask(
+                this,
+                source,
+                librarySource,
+                getResolutionExecutor());
           }
           CacheState resolvedUnitState = dartEntry.getState(DartEntry.RESOLVED_UNIT, librarySource);
           if (resolvedUnitState == CacheState.INVALID
@@ -1979,7 +2137,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
             dartCopy.setState(DartEntry.RESOLVED_UNIT, librarySource, CacheState.IN_PROCESS);
             cache.put(source, dartCopy);
             //return new ResolveDartUnitTask(this, source, libraryElement);
-            return new ResolveDartLibraryTask(this, source, librarySource);
+            return new ResolveDartLibraryTask(
+                this,
+                source,
+                librarySource,
+                getResolutionExecutor());
             //}
           }
           CacheState verificationErrorsState = dartEntry.getState(
@@ -2013,6 +2175,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     } else if (sourceEntry instanceof HtmlEntry) {
       HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
       if (!source.exists()) {
+        if (htmlEntry.getState(HtmlEntry.PARSED_UNIT) == CacheState.ERROR) {
+          // The error has already been recorded, and recording it again would mark the source as
+          // changed.
+          return null;
+        }
         HtmlEntryImpl htmlCopy = htmlEntry.getWritableCopy();
         htmlCopy.recordParseError();
         htmlCopy.setException(new AnalysisException("Source does not exist"));
@@ -2115,6 +2282,23 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Return the executor that library resolution tasks use to resolve independent libraries
+   * concurrently, or {@code null} if libraries are to be resolved one at a time. The task executor
+   * is idle while a library resolution task is being performed because such tasks are never
+   * performed concurrently with other tasks.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @return the executor used to resolve independent libraries concurrently
+   */
+  private ExecutorService getResolutionExecutor() {
+    if (options.getConcurrencyLevel() > 1) {
+      return getTaskExecutor();
+    }
+    return null;
+  }
+
   /**
    * Return an array containing all of the sources known to this context that have the given kind.
    * 
@@ -2223,6 +2407,37 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Return the executor used to perform tasks concurrently, creating it if necessary. The executor
+   * has one fewer thread than the concurrency level because the thread invoking
+   * {@link #performAnalysisTask()} also performs one of the tasks.
+   * 
+   * @return the executor used to perform tasks concurrently
+   */
+  private ThreadPoolExecutor getTaskExecutor() {
+    synchronized (cacheLock) {
+      if (taskExecutor == null) {
+        int threadCount = Math.max(1, options.getConcurrencyLevel() - 1);
+        taskExecutor = new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            WORKER_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Analysis Worker");
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+        taskExecutor.allowCoreThreadTimeOut(true);
+      }
+      return taskExecutor;
+    }
+  }
+
   /**
    * Invalidate all of the resolution results computed by this context.
    * <p>
@@ -2243,6 +2458,30 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Invalidate the resolution of the libraries that depend on the given library, whose API has
+   * changed. The invalidated libraries whose API signature is known are checked for API changes in
+   * turn once they have been resolved again.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library whose API has changed
+   * @param excludedSources the sources of the libraries that are not to be invalidated
+   */
+  private void invalidateDependentLibraries(Source librarySource, Set<Source> excludedSources) {
+    @SuppressWarnings("resource")
+    PrintStringWriter writer = new PrintStringWriter();
+    writer.println("API of library changed: " + debuggingString(librarySource));
+    for (Source dependentLibrary : getDependentLibraries(librarySource, excludedSources)) {
+      if (apiSignatures.containsKey(dependentLibrary)) {
+        recordUncheckedApi(dependentLibrary);
+      }
+      invalidateLibraryResolution(dependentLibrary, writer);
+      dependentInvalidationCount++;
+    }
+    logInformation(writer.toString());
+  }
+
   /**
    * In response to a change to at least one of the compilation units in the given library,
    * invalidate any results that are dependent on the result of resolving that library.
@@ -2253,9 +2492,6 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param writer the writer to which debugging information should be written
    */
   private void invalidateLibraryResolution(Source librarySource, PrintStringWriter writer) {
-    // TODO(brianwilkerson) This could be optimized. There's no need to flush all of these caches if
-    // the public namespace hasn't changed, which will be a fairly common case. The question is
-    // whether we can afford the time to compute the namespace to look for differences.
     DartEntry libraryEntry = getReadableDartEntry(librarySource);
     if (libraryEntry != null) {
       Source[] includedParts = libraryEntry.getValue(DartEntry.INCLUDED_PARTS);
@@ -2284,6 +2520,23 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * If the given library has been changed since its API signature was computed, and the libraries
+   * that depend on it have therefore not been invalidated yet, invalidate them now. This is used
+   * when the library will not be resolved again, so that its new API signature cannot be computed.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library whose dependents might need to be invalidated
+   */
+  private void invalidateUncheckedDependents(Source librarySource) {
+    apiSignatures.remove(librarySource);
+    if (librariesWithUncheckedApi.containsKey(librarySource)) {
+      librariesWithUncheckedApi.remove(librarySource);
+      invalidateDependentLibraries(librarySource, new HashSet<Source>());
+    }
+  }
+
   /**
    * Return {@code true} if this library is, or depends on, dart:html.
    * 
@@ -2314,6 +2567,17 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return false;
   }
 
+  /**
+   * Return {@code true} if the cache entry for the given source should be read from and written to
+   * the {@link #entryStore}. Only sources that are not expected to be edited are stored.
+   * 
+   * @param source the source being tested
+   * @return {@code true} if the cache entry for the given source should be stored
+   */
+  private boolean isStoredSource(Source source) {
+    return source.isInSystemLibrary() || source.getUriKind() == UriKind.PACKAGE_URI;
+  }
+
   /**
    * Log the given debugging information.
    * 
@@ -2337,6 +2601,187 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Log the fact that the given task is about to be performed, noting whether the same task has
+   * already been performed since the last change notification.
+   * 
+   * @param task the task that is about to be performed
+   */
+  private void logTaskStart(AnalysisTask task) {
+    String taskDescriptor = task.toString();
+    if (recentTasks.add(taskDescriptor)) {
+      logInformation("Performing task: " + taskDescriptor);
+    } else {
+      logInformation("*** Performing repeated task: " + taskDescriptor);
+    }
+  }
+
+  /**
+   * Perform the given task together with as many other tasks as the concurrency level allows. The
+   * additional tasks are performed on worker threads while the given task is performed on the
+   * calling thread. If a task that cannot be performed concurrently is encountered while looking
+   * for additional tasks, it is performed on the calling thread after all of the concurrent tasks
+   * have completed. The results of every task are recorded through the {@link #resultRecorder},
+   * which validates them against the cache while holding the {@link #cacheLock}.
+   * 
+   * @param firstTask the first task to be performed, which must be able to be performed
+   *          concurrently
+   * @param concurrencyLevel the maximum number of tasks to be performed concurrently
+   * @param getTime the number of milliseconds required to determine the first task
+   * @return the result of performing the tasks
+   */
+  private AnalysisResult performConcurrentTasks(AnalysisTask firstTask, int concurrencyLevel,
+      long getTime) {
+    long getStart = System.currentTimeMillis();
+    ArrayList<AnalysisTask> concurrentTasks = new ArrayList<AnalysisTask>(concurrencyLevel);
+    AnalysisTask sequentialTask = null;
+    while (concurrentTasks.size() < concurrencyLevel - 1) {
+      AnalysisTask task = getNextTaskAnalysisTask();
+      if (task == null) {
+        break;
+      } else if (!canPerformConcurrently(task)) {
+        sequentialTask = task;
+        break;
+      }
+      concurrentTasks.add(task);
+    }
+    long getEnd = System.currentTimeMillis();
+    long performStart = getEnd;
+    ArrayList<Future<?>> futures = new ArrayList<Future<?>>(concurrentTasks.size());
+    if (!concurrentTasks.isEmpty()) {
+      ThreadPoolExecutor executor = getTaskExecutor();
+      for (final AnalysisTask task : concurrentTasks) {
+        logTaskStart(task);
+        futures.add(executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            performTask(task);
+          }
+        }));
+      }
+    }
+    logTaskStart(firstTask);
+    performTask(firstTask);
+    boolean interrupted = false;
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (InterruptedException exception) {
+        // The task still owns cache entries that are marked as being in process, so keep waiting.
+        interrupted = true;
+        i--;
+      } catch (ExecutionException exception) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Internal error while performing the task: " + concurrentTasks.get(i),
+            exception.getCause());
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (sequentialTask != null) {
+      logTaskStart(sequentialTask);
+      performTask(sequentialTask);
+    }
+    long performEnd = System.currentTimeMillis();
+    return new AnalysisResult(
+        getChangeNotices(false),
+        getTime + (getEnd - getStart),
+        firstTask.getClass().getName(),
+        performEnd - performStart);
+  }
+
+  /**
+   * Perform the given task, recording the results through the {@link #resultRecorder}.
+   * 
+   * @param task the task to be performed
+   */
+  private void performTask(AnalysisTask task) {
+    try {
+      task.perform(resultRecorder);
+    } catch (AnalysisException exception) {
+      if (!(exception.getCause() instanceof IOException)) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Internal error while performing the task: " + task,
+            exception);
+      }
+    }
+  }
+
+  /**
+   * Inform the cache that the retention priority of the sources that were, or now are, priority
+   * sources might have changed.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param oldPriorityOrder the priority sources before the priority order was changed
+   */
+  private void priorityOrderChanged(Source[] oldPriorityOrder) {
+    for (Source source : oldPriorityOrder) {
+      cache.priorityChanged(source);
+    }
+    for (Source source : priorityOrder) {
+      cache.priorityChanged(source);
+    }
+  }
+
+  /**
+   * Replace the entry for the given source with the entry for it in the {@link #entryStore}, if
+   * the store has an entry for the source that is still valid. Return the entry that was read, or
+   * {@code null} if the store does not have a valid entry for the source.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param source the source whose entry is to be read
+   * @return the entry that was read from the store
+   */
+  private DartEntryImpl readEntryFromStore(Source source) {
+    DartEntryImpl dartEntry = entryStore.read(source, sourceFactory);
+    if (dartEntry != null) {
+      storedEntries.put(source, new WeakReference<DartEntry>(dartEntry));
+      cache.put(source, dartEntry);
+    }
+    return dartEntry;
+  }
+
+  /**
+   * Record the API signatures of the given libraries, which have just been resolved together. The
+   * libraries that depend on a library that was changed since its previous signature was computed
+   * are invalidated if the signature of that library has changed, or if the offsets of the elements
+   * they refer to could not be updated.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param libraries the libraries that were resolved
+   * @param resolved {@code true} if the libraries were successfully resolved
+   */
+  private void recordApiSignatures(Set<Library> libraries, boolean resolved) {
+    HashSet<Source> librarySources = new HashSet<Source>();
+    for (Library library : libraries) {
+      librarySources.add(library.getLibrarySource());
+    }
+    ApiSignatureBuilder builder = new ApiSignatureBuilder();
+    for (Library library : libraries) {
+      Source librarySource = library.getLibrarySource();
+      LibraryElement element = library.getLibraryElement();
+      if (!resolved || element == null) {
+        invalidateUncheckedDependents(librarySource);
+        continue;
+      }
+      String signature = builder.computeSignature(element);
+      String oldSignature = apiSignatures.put(librarySource, signature);
+      if (librariesWithUncheckedApi.containsKey(librarySource)) {
+        LibraryElement oldElement = librariesWithUncheckedApi.remove(librarySource);
+        if (signature.equals(oldSignature) && oldElement != null
+            && new DeclarationOffsetUpdater().updateOffsets(oldElement, element)) {
+          preservedDependentCount += getDependentLibraries(librarySource, librarySources).size();
+        } else {
+          invalidateDependentLibraries(librarySource, librarySources);
+        }
+      }
+    }
+  }
+
   /**
    * Given a cache entry and a library element, record the library element and other information
    * gleaned from the element in the cache entry.
@@ -2561,9 +3006,23 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     synchronized (cacheLock) {
       CompilationUnit unit = task.getCompilationUnit();
       if (unit != null) {
-        ChangeNoticeImpl notice = getNotice(task.getSource());
+        Source source = task.getSource();
+        String contents = sourceFactory.getContentCache().getContents(source);
+        if (!task.getCache().getNewContents().equals(contents)) {
+          // The contents have changed again since the task was created.
+          return null;
+        }
+        task.installElements();
+        ChangeNoticeImpl notice = getNotice(source);
         notice.setCompilationUnit(unit);
-        incrementalAnalysisCache = IncrementalAnalysisCache.cacheResult(task.getCache(), unit);
+        AnalysisError[] errors = task.getErrors();
+        if (errors != null) {
+          notice.setErrors(errors, task.getLineInfo());
+        }
+        incrementalAnalysisCache = IncrementalAnalysisCache.cacheResult(
+            task.getCache(),
+            unit,
+            errors);
       }
     }
     return null;
@@ -2634,6 +3093,10 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         dartCopy.setException(thrownException);
         cache.put(source, dartCopy);
         dartEntry = dartCopy;
+        if (dartCopy.getValue(DartEntry.SOURCE_KIND) != SourceKind.LIBRARY) {
+          // The library will not be resolved again, so its API signature cannot be checked.
+          invalidateUncheckedDependents(source);
+        }
       } else {
         logInformation(
             "Parse results discarded for " + debuggingString(source) + "; sourceTime = "
@@ -2921,6 +3384,24 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return htmlEntry;
   }
 
+  /**
+   * Record that the given library has been changed since its API signature was computed. The
+   * element model of its previous resolution is remembered the first time, so that the offsets in
+   * it can be updated if the API of the library turns out not to have changed.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * 
+   * @param librarySource the source of the library that has been changed
+   */
+  private void recordUncheckedApi(Source librarySource) {
+    if (!librariesWithUncheckedApi.containsKey(librarySource)) {
+      DartEntry libraryEntry = getReadableDartEntry(librarySource);
+      librariesWithUncheckedApi.put(
+          librarySource,
+          libraryEntry == null ? null : libraryEntry.getValue(DartEntry.ELEMENT));
+    }
+  }
+
   /**
    * Create an entry for the newly added source. Return {@code true} if the new source is a Dart
    * file.
@@ -2977,8 +3458,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       HashSet<Source> librariesToInvalidate = new HashSet<Source>();
       for (Source containingLibrary : containingLibraries) {
         librariesToInvalidate.add(containingLibrary);
-        for (Source dependentLibrary : getLibrariesDependingOn(containingLibrary)) {
-          librariesToInvalidate.add(dependentLibrary);
+        if (apiSignatures.containsKey(containingLibrary)) {
+          //
+          // The libraries that depend on this library will be invalidated once it has been resolved
+          // again, if the change turns out to affect its API.
+          //
+          recordUncheckedApi(containingLibrary);
+        } else {
+          for (Source dependentLibrary : getLibrariesDependingOn(containingLibrary)) {
+            librariesToInvalidate.add(dependentLibrary);
+          }
         }
       }
 
@@ -3023,6 +3512,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         invalidateLibraryResolution(librarySource, writer);
       }
     }
+    apiSignatures.remove(source);
+    librariesWithUncheckedApi.remove(source);
+    if (entryStore != null && isStoredSource(source)) {
+      storedEntries.remove(source);
+      sourcesToStore.remove(source);
+      entryStore.remove(source);
+    }
     cache.remove(source);
     logInformation(writer.toString());
   }
@@ -3055,4 +3551,62 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         + ((consistencyCheckEnd - consistencyCheckStart) / 1000000.0) + " ms");
     return inconsistentCount > 0;
   }
+
+  /**
+   * Write the entries of the stored sources that have changed since they were last read from or
+   * written to the {@link #entryStore}, and that have no more work to be done, to the store. The
+   * entries are selected while holding the {@link #cacheLock} but are written without holding it.
+   */
+  private void writeEntriesToStore() {
+    DartEntryStore store;
+    ArrayList<Source> sources = new ArrayList<Source>();
+    ArrayList<DartEntry> entries = new ArrayList<DartEntry>();
+    ArrayList<Source[]> librarySourceLists = new ArrayList<Source[]>();
+    ArrayList<HashMap<Source, Long>> dependencyTables = new ArrayList<HashMap<Source, Long>>();
+    synchronized (cacheLock) {
+      store = entryStore;
+      if (store == null || sourcesToStore.isEmpty()) {
+        return;
+      }
+      HashMap<Source, HashMap<Source, Long>> libraryDependencies = new HashMap<Source, HashMap<Source, Long>>();
+      for (Source source : sourcesToStore) {
+        SourceEntry sourceEntry = cache.get(source);
+        if (!(sourceEntry instanceof DartEntry)) {
+          continue;
+        }
+        WeakReference<DartEntry> storedEntry = storedEntries.get(source);
+        if (storedEntry != null && storedEntry.get() == sourceEntry) {
+          continue;
+        }
+        Source[] librarySources = getLibrariesContaining(source);
+        HashMap<Source, Long> dependencies = new HashMap<Source, Long>();
+        for (Source librarySource : librarySources) {
+          if (!libraryDependencies.containsKey(librarySource)) {
+            libraryDependencies.put(librarySource, computeLibraryDependencies(librarySource));
+          }
+          HashMap<Source, Long> libraryTable = libraryDependencies.get(librarySource);
+          if (libraryTable == null) {
+            dependencies = null;
+            break;
+          }
+          dependencies.putAll(libraryTable);
+        }
+        if (dependencies != null) {
+          sources.add(source);
+          entries.add((DartEntry) sourceEntry);
+          librarySourceLists.add(librarySources);
+          dependencyTables.add(dependencies);
+        }
+      }
+      sourcesToStore.clear();
+    }
+    for (int i = 0; i < sources.size(); i++) {
+      DartEntry entry = entries.get(i);
+      if (store.write(sources.get(i), entry, librarySourceLists.get(i), dependencyTables.get(i))) {
+        synchronized (cacheLock) {
+          storedEntries.put(sources.get(i), new WeakReference<DartEntry>(entry));
+        }
+      }
+    }
+  }
 }
@@ -26,11 +26,21 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
    */
   public static final int DEFAULT_CACHE_SIZE = 64;
 
+  /**
+   * The default maximum number of analysis tasks that can be performed concurrently.
+   */
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 1;
+
   /**
    * The maximum number of sources for which AST structures should be kept in the cache.
    */
   private int cacheSize = DEFAULT_CACHE_SIZE;
 
+  /**
+   * The maximum number of analysis tasks that can be performed concurrently.
+   */
+  private int concurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+
   /**
    * A flag indicating whether analysis is to parse and analyze function bodies.
    */
@@ -71,6 +81,7 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
    */
   public AnalysisOptionsImpl(AnalysisOptions options) {
     cacheSize = options.getCacheSize();
+    concurrencyLevel = options.getConcurrencyLevel();
     dart2jsHint = options.getDart2jsHint();
     hint = options.getHint();
     incremental = options.getIncremental();
@@ -86,6 +97,11 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     return cacheSize;
   }
 
+  @Override
+  public int getConcurrencyLevel() {
+    return concurrencyLevel;
+  }
+
   @Override
   public boolean getDart2jsHint() {
     return dart2jsHint;
@@ -126,6 +142,16 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     this.cacheSize = cacheSize;
   }
 
+  /**
+   * Set the maximum number of analysis tasks that can be performed concurrently to the given value.
+   * Values less than {@code 1} are treated as {@code 1}.
+   * 
+   * @param concurrencyLevel the maximum number of analysis tasks that can be performed concurrently
+   */
+  public void setConcurrencyLevel(int concurrencyLevel) {
+    this.concurrencyLevel = Math.max(1, concurrencyLevel);
+  }
+
   /**
    * Set whether analysis is to generate dart2js related hint results.
    * 
@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.ConstructorElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementAnnotation;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.FieldElement;
+import com.google.dart.engine.element.FieldFormalParameterElement;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.element.PropertyAccessorElement;
+import com.google.dart.engine.element.TypeParameterElement;
+import com.google.dart.engine.element.VariableElement;
+import com.google.dart.engine.internal.constant.EvaluationResultImpl;
+import com.google.dart.engine.internal.constant.ValidResult;
+import com.google.dart.engine.internal.element.VariableElementImpl;
+import com.google.dart.engine.internal.object.DartObjectImpl;
+import com.google.dart.engine.internal.scope.NamespaceBuilder;
+import com.google.dart.engine.type.FunctionType;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Instances of the class {@code ApiSignatureBuilder} compute a signature of the part of a library
+ * that other libraries can depend on: the names in its export namespace together with their kinds,
+ * types, members, annotations and constant values, and the libraries it imports and exports.
+ * <p>
+ * The signature does not depend on offsets or on the order of declarations, so editing the body
+ * of a function or method does not change it. Two libraries with equal signatures are
+ * interchangeable as far as the resolution of the libraries that depend on them is concerned. The
+ * offsets of the elements that those libraries refer to are updated by a
+ * {@link DeclarationOffsetUpdater}.
+ */
+class ApiSignatureBuilder {
+  /**
+   * The buffer in which the description of the library is being built.
+   */
+  private StringBuilder buffer = new StringBuilder();
+
+  /**
+   * Return the signature of the API of the given library.
+   * 
+   * @param library the library whose signature is to be computed
+   * @return the signature of the API of the given library
+   */
+  public String computeSignature(LibraryElement library) {
+    buffer.setLength(0);
+    buffer.append("library ");
+    buffer.append(library.getName());
+    buffer.append('\n');
+    for (LibraryElement importedLibrary : library.getImportedLibraries()) {
+      buffer.append("import ");
+      appendLocation(importedLibrary);
+      buffer.append('\n');
+    }
+    for (LibraryElement exportedLibrary : library.getExportedLibraries()) {
+      buffer.append("export ");
+      appendLocation(exportedLibrary);
+      buffer.append('\n');
+    }
+    Map<String, Element> definedNames = new TreeMap<String, Element>(
+        new NamespaceBuilder().createExportNamespace(library).getDefinedNames());
+    for (Element element : definedNames.values()) {
+      appendElement(element);
+      buffer.append('\n');
+    }
+    return digest(buffer.toString());
+  }
+
+  /**
+   * Add a description of each of the given class members that is not private, and therefore can be
+   * depended on by other libraries, to the given list.
+   * 
+   * @param descriptions the list to which the descriptions are to be added
+   * @param members the members to be described
+   */
+  private void addMembers(ArrayList<String> descriptions, Element[] members) {
+    for (Element member : members) {
+      if (!member.isPrivate()) {
+        descriptions.add(describeMember(member));
+      }
+    }
+  }
+
+  /**
+   * Append a description of the given class and its public members to the buffer.
+   * 
+   * @param element the class to be described
+   */
+  private void appendClass(ClassElement element) {
+    if (element.isAbstract()) {
+      buffer.append(" abstract");
+    }
+    if (element.isTypedef()) {
+      buffer.append(" typedef");
+    }
+    if (element.isValidMixin()) {
+      buffer.append(" mixin");
+    }
+    if (element.hasNonFinalField()) {
+      buffer.append(" mutable");
+    }
+    appendTypeParameters(element.getTypeParameters());
+    buffer.append(" extends ");
+    appendType(element.getSupertype());
+    buffer.append(" with");
+    appendTypes(element.getMixins());
+    buffer.append(" implements");
+    appendTypes(element.getInterfaces());
+    ArrayList<String> members = new ArrayList<String>();
+    addMembers(members, element.getConstructors());
+    addMembers(members, element.getFields());
+    addMembers(members, element.getAccessors());
+    addMembers(members, element.getMethods());
+    Collections.sort(members);
+    for (String member : members) {
+      buffer.append("\n  ");
+      buffer.append(member);
+    }
+  }
+
+  /**
+   * Append a description of the constant value of the given variable, if it has one, to the
+   * buffer. Values that do not have a textual representation are described by their type and hash
+   * code.
+   * 
+   * @param element the variable whose value is to be described
+   */
+  private void appendConstantValue(VariableElement element) {
+    if (!(element instanceof VariableElementImpl)) {
+      return;
+    }
+    EvaluationResultImpl result = ((VariableElementImpl) element).getEvaluationResult();
+    if (result == null) {
+      return;
+    }
+    buffer.append(" = ");
+    if (result instanceof ValidResult) {
+      DartObjectImpl value = ((ValidResult) result).getValue();
+      if (value == null || value.hasExactValue()) {
+        buffer.append(value);
+      } else {
+        buffer.append(value.getType().getDisplayName());
+        buffer.append('#');
+        buffer.append(value.hashCode());
+      }
+    } else {
+      buffer.append("<error>");
+    }
+  }
+
+  /**
+   * Append a description of the given element to the buffer.
+   * 
+   * @param element the element to be described
+   */
+  private void appendElement(Element element) {
+    buffer.append(element.getKind());
+    buffer.append(' ');
+    appendLocation(element);
+    appendMetadata(element);
+    if (element instanceof ClassElement) {
+      appendClass((ClassElement) element);
+    } else if (element instanceof FunctionTypeAliasElement) {
+      FunctionTypeAliasElement alias = (FunctionTypeAliasElement) element;
+      appendTypeParameters(alias.getTypeParameters());
+      appendParameters(alias.getParameters());
+      buffer.append(" -> ");
+      appendType(alias.getReturnType());
+    } else if (element instanceof ExecutableElement) {
+      appendExecutable((ExecutableElement) element);
+    } else if (element instanceof VariableElement) {
+      buffer.append(' ');
+      appendType(((VariableElement) element).getType());
+    }
+  }
+
+  /**
+   * Append a description of the given function, method, accessor or constructor to the buffer.
+   * 
+   * @param element the element to be described
+   */
+  private void appendExecutable(ExecutableElement element) {
+    if (element.isStatic()) {
+      buffer.append(" static");
+    }
+    if (element instanceof ConstructorElement) {
+      ConstructorElement constructor = (ConstructorElement) element;
+      if (constructor.isConst()) {
+        buffer.append(" const");
+      }
+      if (constructor.isFactory()) {
+        buffer.append(" factory");
+      }
+      ConstructorElement redirectedConstructor = constructor.getRedirectedConstructor();
+      if (redirectedConstructor != null) {
+        buffer.append(" redirects ");
+        appendLocation(redirectedConstructor);
+      }
+    } else if (element instanceof PropertyAccessorElement) {
+      PropertyAccessorElement accessor = (PropertyAccessorElement) element;
+      if (accessor.isAbstract()) {
+        buffer.append(" abstract");
+      }
+      VariableElement variable = accessor.getVariable();
+      if (variable != null) {
+        appendMetadata(variable);
+        if (variable.isConst()) {
+          buffer.append(" const");
+        } else if (variable.isFinal()) {
+          buffer.append(" final");
+        }
+        appendConstantValue(variable);
+      }
+    }
+    appendParameters(element.getParameters());
+    buffer.append(" -> ");
+    appendType(element.getReturnType());
+  }
+
+  /**
+   * Append the location of the given element, which does not depend on offsets, to the buffer.
+   * 
+   * @param element the element whose location is to be appended
+   */
+  private void appendLocation(Element element) {
+    if (element == null) {
+      buffer.append("null");
+    } else if (element instanceof FunctionElement) {
+      // The location of a function includes its offset.
+      appendLocation(element.getEnclosingElement());
+      buffer.append(';');
+      buffer.append(element.getName());
+    } else {
+      buffer.append(element.getLocation().getEncoding());
+    }
+  }
+
+  /**
+   * Append a description of the annotations on the given element to the buffer.
+   * 
+   * @param element the element whose annotations are to be described
+   */
+  private void appendMetadata(Element element) {
+    for (ElementAnnotation annotation : element.getMetadata()) {
+      buffer.append(" @");
+      appendLocation(annotation.getElement());
+    }
+  }
+
+  /**
+   * Append a description of the given parameters to the buffer.
+   * 
+   * @param parameters the parameters to be described
+   */
+  private void appendParameters(ParameterElement[] parameters) {
+    buffer.append(" (");
+    for (ParameterElement parameter : parameters) {
+      buffer.append(parameter.getParameterKind());
+      buffer.append(' ');
+      buffer.append(parameter.getName());
+      buffer.append(':');
+      appendType(parameter.getType());
+      if (parameter instanceof FieldFormalParameterElement) {
+        buffer.append(" this.");
+        FieldElement field = ((FieldFormalParameterElement) parameter).getField();
+        buffer.append(field == null ? null : field.getName());
+      }
+      appendMetadata(parameter);
+      appendConstantValue(parameter);
+      buffer.append(", ");
+    }
+    buffer.append(')');
+  }
+
+  /**
+   * Append a description of the given type to the buffer. Interface types and the types defined by
+   * function type aliases are described by the location of their element, so that a type defined
+   * in terms of itself does not cause infinite recursion.
+   * 
+   * @param type the type to be described
+   */
+  private void appendType(Type type) {
+    if (type == null) {
+      buffer.append("null");
+    } else if (type instanceof InterfaceType) {
+      appendLocation(type.getElement());
+      Type[] typeArguments = ((InterfaceType) type).getTypeArguments();
+      if (typeArguments.length > 0) {
+        buffer.append('<');
+        appendTypes(typeArguments);
+        buffer.append('>');
+      }
+    } else if (type instanceof FunctionType) {
+      FunctionType functionType = (FunctionType) type;
+      if (type.getElement() instanceof FunctionTypeAliasElement) {
+        appendLocation(type.getElement());
+        buffer.append('<');
+        appendTypes(functionType.getTypeArguments());
+        buffer.append('>');
+        return;
+      }
+      buffer.append('(');
+      appendTypes(functionType.getNormalParameterTypes());
+      buffer.append(" [");
+      appendTypes(functionType.getOptionalParameterTypes());
+      buffer.append("] {");
+      for (Map.Entry<String, Type> entry : new TreeMap<String, Type>(
+          functionType.getNamedParameterTypes()).entrySet()) {
+        buffer.append(entry.getKey());
+        buffer.append(':');
+        appendType(entry.getValue());
+        buffer.append(", ");
+      }
+      buffer.append("}) -> ");
+      appendType(functionType.getReturnType());
+    } else {
+      buffer.append(type.getName());
+    }
+  }
+
+  /**
+   * Append a description of the given type parameters to the buffer.
+   * 
+   * @param typeParameters the type parameters to be described
+   */
+  private void appendTypeParameters(TypeParameterElement[] typeParameters) {
+    buffer.append(" <");
+    for (TypeParameterElement typeParameter : typeParameters) {
+      buffer.append(typeParameter.getName());
+      buffer.append(" extends ");
+      appendType(typeParameter.getBound());
+      buffer.append(", ");
+    }
+    buffer.append('>');
+  }
+
+  /**
+   * Append a description of each of the given types to the buffer.
+   * 
+   * @param types the types to be described
+   */
+  private void appendTypes(Type[] types) {
+    for (Type type : types) {
+      buffer.append(' ');
+      appendType(type);
+      buffer.append(',');
+    }
+  }
+
+  /**
+   * Return a description of the given class member.
+   * 
+   * @param member the member to be described
+   * @return a description of the given class member
+   */
+  private String describeMember(Element member) {
+    StringBuilder classBuffer = buffer;
+    buffer = new StringBuilder();
+    try {
+      appendElement(member);
+      return buffer.toString();
+    } finally {
+      buffer = classBuffer;
+    }
+  }
+
+  /**
+   * Return a string encoding the MD5 digest of the given description.
+   * 
+   * @param description the description to be digested
+   * @return the digest of the given description
+   */
+  private String digest(String description) {
+    try {
+      byte[] bytes = MessageDigest.getInstance("MD5").digest(description.getBytes("UTF-8"));
+      StringBuilder result = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes) {
+        result.append(Character.forDigit((b >> 4) & 0xF, 16));
+        result.append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException exception) {
+      return description;
+    } catch (UnsupportedEncodingException exception) {
+      return description;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.context;
+
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.ParameterElement;
+import com.google.dart.engine.internal.element.ElementImpl;
+import com.google.dart.engine.internal.element.ParameterElementImpl;
+import com.google.dart.engine.utilities.general.ObjectUtilities;
+import com.google.dart.engine.utilities.source.SourceRange;
+
+/**
+ * Instances of the class {@code DeclarationOffsetUpdater} update the offsets recorded in the
+ * element model of a previous resolution of a library to match those of a new resolution of the
+ * same library.
+ * <p>
+ * The libraries that depend on a library whose API signature did not change are not resolved
+ * again, so they keep referring to the elements of the previous resolution of the library. An edit
+ * that does not change the API can still move declarations, so the offsets of those elements are
+ * updated in place instead.
+ * <p>
+ * Elements are matched by their position among the children of their enclosing element, and must
+ * have the same class and name. If the declarations cannot be matched, for example because they
+ * were reordered, the update fails and the dependent libraries must be resolved again.
+ */
+class DeclarationOffsetUpdater {
+  /**
+   * Update the offsets of the declarations in the given old library to those of the corresponding
+   * declarations in the given new library. Return {@code true} if every declaration could be
+   * matched. If not, some of the offsets might have been updated anyway, so the old library must no
+   * longer be used.
+   * 
+   * @param oldLibrary the element model of the previous resolution of the library
+   * @param newLibrary the element model of the new resolution of the library
+   * @return {@code true} if all of the offsets were updated
+   */
+  public boolean updateOffsets(LibraryElement oldLibrary, LibraryElement newLibrary) {
+    if (!updateElement(oldLibrary, newLibrary)) {
+      return false;
+    }
+    CompilationUnitElement oldUnit = oldLibrary.getDefiningCompilationUnit();
+    if (!updateUnit(oldUnit, newLibrary.getDefiningCompilationUnit())) {
+      return false;
+    }
+    CompilationUnitElement[] oldParts = oldLibrary.getParts();
+    CompilationUnitElement[] newParts = newLibrary.getParts();
+    if (oldParts.length != newParts.length) {
+      return false;
+    }
+    for (int i = 0; i < oldParts.length; i++) {
+      if (!oldParts[i].getSource().equals(newParts[i].getSource())
+          || !updateUnit(oldParts[i], newParts[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Update the offsets of the given old element, and of the declarations it contains that can be
+   * referenced from other libraries, to those of the given new element.
+   * 
+   * @param oldElement the element whose offsets are to be updated
+   * @param newElement the element whose offsets are to be copied
+   * @return {@code true} if the elements, and the declarations they contain, could be matched
+   */
+  private boolean updateElement(Element oldElement, Element newElement) {
+    if (!(oldElement instanceof ElementImpl) || oldElement.getClass() != newElement.getClass()
+        || !ObjectUtilities.equals(oldElement.getName(), newElement.getName())) {
+      return false;
+    }
+    ((ElementImpl) oldElement).setNameOffset(newElement.getNameOffset());
+    if (oldElement instanceof ClassElement) {
+      ClassElement oldClass = (ClassElement) oldElement;
+      ClassElement newClass = (ClassElement) newElement;
+      return updateElements(oldClass.getAccessors(), newClass.getAccessors())
+          && updateElements(oldClass.getConstructors(), newClass.getConstructors())
+          && updateElements(oldClass.getFields(), newClass.getFields())
+          && updateElements(oldClass.getMethods(), newClass.getMethods())
+          && updateElements(oldClass.getTypeParameters(), newClass.getTypeParameters());
+    } else if (oldElement instanceof FunctionTypeAliasElement) {
+      FunctionTypeAliasElement oldAlias = (FunctionTypeAliasElement) oldElement;
+      FunctionTypeAliasElement newAlias = (FunctionTypeAliasElement) newElement;
+      return updateElements(oldAlias.getParameters(), newAlias.getParameters())
+          && updateElements(oldAlias.getTypeParameters(), newAlias.getTypeParameters());
+    } else if (oldElement instanceof ExecutableElement) {
+      return updateElements(
+          ((ExecutableElement) oldElement).getParameters(),
+          ((ExecutableElement) newElement).getParameters());
+    } else if (oldElement instanceof ParameterElementImpl) {
+      ParameterElementImpl oldParameter = (ParameterElementImpl) oldElement;
+      ParameterElement newParameter = (ParameterElement) newElement;
+      SourceRange range = newParameter.getDefaultValueRange();
+      if (range == null) {
+        oldParameter.setDefaultValueRange(-1, -1);
+      } else {
+        oldParameter.setDefaultValueRange(range.getOffset(), range.getLength());
+      }
+      range = newParameter.getVisibleRange();
+      if (range == null) {
+        oldParameter.setVisibleRange(-1, -1);
+      } else {
+        oldParameter.setVisibleRange(range.getOffset(), range.getLength());
+      }
+      return updateElements(oldParameter.getParameters(), newParameter.getParameters());
+    }
+    return true;
+  }
+
+  /**
+   * Update the offsets of the given old elements to those of the new elements at the same
+   * positions.
+   * 
+   * @param oldElements the elements whose offsets are to be updated
+   * @param newElements the elements whose offsets are to be copied
+   * @return {@code true} if the elements could be matched
+   */
+  private boolean updateElements(Element[] oldElements, Element[] newElements) {
+    if (oldElements.length != newElements.length) {
+      return false;
+    }
+    for (int i = 0; i < oldElements.length; i++) {
+      if (!updateElement(oldElements[i], newElements[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Update the offsets of the top-level declarations in the given old compilation unit to those of
+   * the declarations in the given new compilation unit.
+   * 
+   * @param oldUnit the compilation unit whose offsets are to be updated
+   * @param newUnit the compilation unit whose offsets are to be copied
+   * @return {@code true} if the declarations in the compilation units could be matched
+   */
+  private boolean updateUnit(CompilationUnitElement oldUnit, CompilationUnitElement newUnit) {
+    return updateElements(oldUnit.getAccessors(), newUnit.getAccessors())
+        && updateElements(oldUnit.getFunctionTypeAliases(), newUnit.getFunctionTypeAliases())
+        && updateElements(oldUnit.getFunctions(), newUnit.getFunctions())
+        && updateElements(oldUnit.getTopLevelVariables(), newUnit.getTopLevelVariables())
+        && updateElements(oldUnit.getTypes(), newUnit.getTypes());
+  }
+}
@@ -14,6 +14,8 @@
 package com.google.dart.engine.internal.context;
 
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.internal.cache.CacheState;
 import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.cache.DartEntryImpl;
 import com.google.dart.engine.internal.cache.SourceEntry;
@@ -33,16 +35,19 @@ public class IncrementalAnalysisCache {
    * 
    * @param cache the prior incremental analysis cache
    * @param unit the incrementally updated compilation unit
+   * @param errors the errors associated with the incrementally updated compilation unit, or
+   *          {@code null} if the errors were not updated
    * @return the cache used for incremental analysis or {@code null} if incremental analysis results
    *         cannot be cached for the next incremental analysis
    */
   public static IncrementalAnalysisCache cacheResult(IncrementalAnalysisCache cache,
-      CompilationUnit unit) {
+      CompilationUnit unit, AnalysisError[] errors) {
     if (cache != null && unit != null) {
       return new IncrementalAnalysisCache(
           cache.librarySource,
           cache.source,
           unit,
+          errors,
           cache.newContents,
           cache.newContents,
           0,
@@ -88,6 +93,7 @@ public class IncrementalAnalysisCache {
     // Determine the cache resolved unit
     Source librarySource = null;
     CompilationUnit unit = null;
+    AnalysisError[] errors = null;
     if (sourceEntry instanceof DartEntryImpl) {
       DartEntryImpl dartEntry = (DartEntryImpl) sourceEntry;
       Source[] librarySources = dartEntry.getLibrariesContaining();
@@ -95,6 +101,10 @@ public class IncrementalAnalysisCache {
         librarySource = librarySources[0];
         if (librarySource != null) {
           unit = dartEntry.getValue(DartEntry.RESOLVED_UNIT, librarySource);
+          CacheState errorState = dartEntry.getState(DartEntry.VERIFICATION_ERRORS, librarySource);
+          if (errorState == CacheState.VALID) {
+            errors = dartEntry.getAllErrors();
+          }
         }
       }
     }
@@ -115,6 +125,7 @@ public class IncrementalAnalysisCache {
           librarySource,
           source,
           unit,
+          errors,
           oldContents,
           newContents,
           offset,
@@ -131,7 +142,10 @@ public class IncrementalAnalysisCache {
       if (cache.offset > offset || offset > cache.offset + cache.newLength) {
         return null;
       }
-      cache.newLength += newLength - oldLength;
+      // The change can extend past the end of the previously changed range
+      int end = Math.max(cache.offset + cache.newLength, offset + oldLength);
+      cache.oldLength = end - cache.newLength + cache.oldLength - cache.offset;
+      cache.newLength = end + newLength - oldLength - cache.offset;
     }
     cache.newContents = newContents;
     return cache;
@@ -161,6 +175,7 @@ public class IncrementalAnalysisCache {
   private final Source source;
   private final String oldContents;
   private final CompilationUnit resolvedUnit;
+  private final AnalysisError[] errors;
 
   private String newContents;
   private int offset;
@@ -168,11 +183,12 @@ public class IncrementalAnalysisCache {
   private int newLength;
 
   public IncrementalAnalysisCache(Source librarySource, Source source,
-      CompilationUnit resolvedUnit, String oldContents, String newContents, int offset,
-      int oldLength, int newLength) {
+      CompilationUnit resolvedUnit, AnalysisError[] errors, String oldContents,
+      String newContents, int offset, int oldLength, int newLength) {
     this.librarySource = librarySource;
     this.source = source;
     this.resolvedUnit = resolvedUnit;
+    this.errors = errors;
     this.oldContents = oldContents;
     this.newContents = newContents;
     this.offset = offset;
@@ -180,6 +196,16 @@ public class IncrementalAnalysisCache {
     this.newLength = newLength;
   }
 
+  /**
+   * Return the errors associated with the resolved compilation unit, or {@code null} if the errors
+   * were not known when the resolved unit was cached.
+   * 
+   * @return the errors associated with the resolved unit
+   */
+  public AnalysisError[] getErrors() {
+    return errors;
+  }
+
   /**
    * Answer the library source for the incremental analysis to be performed
    * 
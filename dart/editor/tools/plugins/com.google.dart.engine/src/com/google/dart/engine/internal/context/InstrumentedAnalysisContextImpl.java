@@ -17,6 +17,7 @@ import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.resolver.TypeProvider;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
@@ -481,6 +482,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     return basis.getStatistics();
   }
 
+  @Override
+  public SymbolTable getSymbolTable() {
+    return basis.getSymbolTable();
+  }
+
   @Override
   public TypeProvider getTypeProvider() throws AnalysisException {
     return basis.getTypeProvider();
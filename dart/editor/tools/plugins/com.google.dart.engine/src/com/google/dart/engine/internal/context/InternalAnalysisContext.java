@@ -21,6 +21,7 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.resolver.TypeProvider;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 
@@ -119,6 +120,14 @@ public interface InternalAnalysisContext extends AnalysisContext {
    */
   public AnalysisContentStatistics getStatistics();
 
+  /**
+   * Return the symbol table used to canonicalize the lexemes of the tokens produced when scanning
+   * the sources in this context.
+   * 
+   * @return the symbol table shared by the scanners of this context
+   */
+  public SymbolTable getSymbolTable();
+
   /**
    * Returns a type provider for this context or throws an exception if dart:core cannot be
    * resolved.
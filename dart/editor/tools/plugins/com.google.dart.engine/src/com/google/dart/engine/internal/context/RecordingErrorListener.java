@@ -29,7 +29,7 @@ import java.util.Map.Entry;
 /**
  * Instances of the class {@code RecordingErrorListener} implement an error listener that will
  * record the errors that are reported to it in a way that is appropriate for caching those errors
- * within an analysis context.
+ * within an analysis context. Errors can be reported from multiple threads.
  * 
  * @coverage dart.engine
  */
@@ -56,7 +56,7 @@ public class RecordingErrorListener implements AnalysisErrorListener {
    * 
    * @return an array of errors (not {@code null}, contains no {@code null}s)
    */
-  public AnalysisError[] getErrors() {
+  public synchronized AnalysisError[] getErrors() {
     Collection<Entry<Source, HashSet<AnalysisError>>> entrySet = errors.entrySet();
     int numEntries = entrySet.size();
     if (numEntries == 0) {
@@ -76,7 +76,7 @@ public class RecordingErrorListener implements AnalysisErrorListener {
    *          collected by this listener
    * @return the errors collected by the listener for the passed {@link Source}
    */
-  public AnalysisError[] getErrors(Source source) {
+  public synchronized AnalysisError[] getErrors(Source source) {
     HashSet<AnalysisError> errorsForSource = errors.get(source);
     if (errorsForSource == null) {
       return NO_ERRORS;
@@ -86,7 +86,7 @@ public class RecordingErrorListener implements AnalysisErrorListener {
   }
 
   @Override
-  public void onError(AnalysisError error) {
+  public synchronized void onError(AnalysisError error) {
     Source source = error.getSource();
     HashSet<AnalysisError> errorsForSource = errors.get(source);
     if (errors.get(source) == null) {
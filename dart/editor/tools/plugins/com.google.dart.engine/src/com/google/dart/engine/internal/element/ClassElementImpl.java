@@ -28,9 +28,11 @@ import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.element.ToolkitObjectElement;
 import com.google.dart.engine.element.TypeParameterElement;
 import com.google.dart.engine.internal.type.InterfaceTypeImpl;
+import com.google.dart.engine.internal.type.SubtypeCache;
 import com.google.dart.engine.type.InterfaceType;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 /**
@@ -39,6 +41,85 @@ import java.util.HashSet;
  * @coverage dart.engine.element
  */
 public class ClassElementImpl extends ElementImpl implements ClassElement {
+  /**
+   * Instances of the class {@code MemberTables} map the names of the members of a class to the
+   * members with those names. When more than one member has the same name, the tables map the name
+   * to the first of those members, so lookups return the same member as a scan of the arrays would.
+   * The tables are not modified after they have been built.
+   */
+  private static class MemberTables {
+    /**
+     * A table mapping identifiers to the children of the class with those identifiers.
+     */
+    private HashMap<String, ElementImpl> children = new HashMap<String, ElementImpl>();
+
+    /**
+     * A table mapping names to the fields with those names.
+     */
+    private HashMap<String, FieldElement> fields = new HashMap<String, FieldElement>();
+
+    /**
+     * A table mapping names to the getters with those names.
+     */
+    private HashMap<String, PropertyAccessorElement> getters = new HashMap<String, PropertyAccessorElement>();
+
+    /**
+     * A table mapping names to the methods with those names.
+     */
+    private HashMap<String, MethodElement> methods = new HashMap<String, MethodElement>();
+
+    /**
+     * A table mapping names, including the trailing '=', to the setters with those names.
+     */
+    private HashMap<String, PropertyAccessorElement> setters = new HashMap<String, PropertyAccessorElement>();
+
+    /**
+     * Initialize a newly created set of tables to hold the members of the given class.
+     * 
+     * @param classElement the class whose members are to be recorded
+     */
+    public MemberTables(ClassElementImpl classElement) {
+      //
+      // The casts in this method are safe because the set methods would have thrown a CCE if any
+      // of the elements in the arrays were not of the expected types. The children are added in the
+      // order in which getChild used to search for them.
+      //
+      for (PropertyAccessorElement accessor : classElement.accessors) {
+        addChild((PropertyAccessorElementImpl) accessor);
+        if (accessor.isGetter()) {
+          addFirst(getters, accessor.getName(), accessor);
+        }
+        if (accessor.isSetter()) {
+          addFirst(setters, accessor.getName(), accessor);
+        }
+      }
+      for (ConstructorElement constructor : classElement.constructors) {
+        addChild((ConstructorElementImpl) constructor);
+      }
+      for (FieldElement field : classElement.fields) {
+        addChild((FieldElementImpl) field);
+        addFirst(fields, field.getName(), field);
+      }
+      for (MethodElement method : classElement.methods) {
+        addChild((MethodElementImpl) method);
+        addFirst(this.methods, method.getName(), method);
+      }
+      for (TypeParameterElement typeParameter : classElement.typeParameters) {
+        addChild((TypeParameterElementImpl) typeParameter);
+      }
+    }
+
+    private void addChild(ElementImpl child) {
+      addFirst(children, child.getIdentifier(), child);
+    }
+
+    private <E> void addFirst(HashMap<String, E> table, String name, E element) {
+      if (!table.containsKey(name)) {
+        table.put(name, element);
+      }
+    }
+  }
+
   /**
    * An array containing all of the accessors (getters and setters) contained in this class.
    */
@@ -90,6 +171,20 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   private TypeParameterElement[] typeParameters = TypeParameterElementImpl.EMPTY_ARRAY;
 
+  /**
+   * The tables used to look up the members of this class by name, or {@code null} if they have not
+   * been built since the members were last set. The tables are built the first time a member is
+   * looked up, by which time the element model is complete. Class elements are shared between
+   * threads, so the tables are published through a volatile field and never modified afterwards.
+   */
+  private volatile MemberTables memberTables;
+
+  /**
+   * The generation of the {@link SubtypeCache} table whose results might depend on the hierarchy
+   * of this class, or {@code -1} if no cached result has depended on it.
+   */
+  private volatile int subtypeCacheGeneration = -1;
+
   /**
    * An empty array of type elements.
    */
@@ -123,36 +218,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
 
   @Override
   public ElementImpl getChild(String identifier) {
-    //
-    // The casts in this method are safe because the set methods would have thrown a CCE if any of
-    // the elements in the arrays were not of the expected types.
-    //
-    for (PropertyAccessorElement accessor : accessors) {
-      if (((PropertyAccessorElementImpl) accessor).getIdentifier().equals(identifier)) {
-        return (PropertyAccessorElementImpl) accessor;
-      }
-    }
-    for (ConstructorElement constructor : constructors) {
-      if (((ConstructorElementImpl) constructor).getIdentifier().equals(identifier)) {
-        return (ConstructorElementImpl) constructor;
-      }
-    }
-    for (FieldElement field : fields) {
-      if (((FieldElementImpl) field).getIdentifier().equals(identifier)) {
-        return (FieldElementImpl) field;
-      }
-    }
-    for (MethodElement method : methods) {
-      if (((MethodElementImpl) method).getIdentifier().equals(identifier)) {
-        return (MethodElementImpl) method;
-      }
-    }
-    for (TypeParameterElement typeParameter : typeParameters) {
-      if (((TypeParameterElementImpl) typeParameter).getIdentifier().equals(identifier)) {
-        return (TypeParameterElementImpl) typeParameter;
-      }
-    }
-    return null;
+    return getMemberTables().children.get(identifier);
   }
 
   @Override
@@ -162,12 +228,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
 
   @Override
   public FieldElement getField(String name) {
-    for (FieldElement fieldElement : fields) {
-      if (name.equals(fieldElement.getName())) {
-        return fieldElement;
-      }
-    }
-    return null;
+    return getMemberTables().fields.get(name);
   }
 
   @Override
@@ -177,12 +238,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
 
   @Override
   public PropertyAccessorElement getGetter(String getterName) {
-    for (PropertyAccessorElement accessor : accessors) {
-      if (accessor.isGetter() && accessor.getName().equals(getterName)) {
-        return accessor;
-      }
-    }
-    return null;
+    return getMemberTables().getters.get(getterName);
   }
 
   @Override
@@ -197,12 +253,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
 
   @Override
   public MethodElement getMethod(String methodName) {
-    for (MethodElement method : methods) {
-      if (method.getName().equals(methodName)) {
-        return method;
-      }
-    }
-    return null;
+    return getMemberTables().methods.get(methodName);
   }
 
   @Override
@@ -238,12 +289,17 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
     if (!setterName.endsWith("=")) {
       setterName += '=';
     }
-    for (PropertyAccessorElement accessor : accessors) {
-      if (accessor.isSetter() && accessor.getName().equals(setterName)) {
-        return accessor;
-      }
-    }
-    return null;
+    return getMemberTables().setters.get(setterName);
+  }
+
+  /**
+   * Return the generation of the {@link SubtypeCache} table whose results might depend on the
+   * hierarchy of this class.
+   * 
+   * @return the generation of the table whose results might depend on the hierarchy of this class
+   */
+  public int getSubtypeCacheGeneration() {
+    return subtypeCacheGeneration;
   }
 
   @Override
@@ -443,6 +499,8 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       ((PropertyAccessorElementImpl) accessor).setEnclosingElement(this);
     }
     this.accessors = accessors;
+    childrenChanged();
+    memberTables = null;
   }
 
   /**
@@ -455,6 +513,8 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       ((ConstructorElementImpl) constructor).setEnclosingElement(this);
     }
     this.constructors = constructors;
+    childrenChanged();
+    memberTables = null;
   }
 
   /**
@@ -467,6 +527,8 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       ((FieldElementImpl) field).setEnclosingElement(this);
     }
     this.fields = fields;
+    childrenChanged();
+    memberTables = null;
   }
 
   /**
@@ -485,6 +547,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   public void setInterfaces(InterfaceType[] interfaces) {
     this.interfaces = interfaces;
+    SubtypeCache.hierarchyChanged(this);
   }
 
   /**
@@ -497,6 +560,9 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       ((MethodElementImpl) method).setEnclosingElement(this);
     }
     this.methods = methods;
+    childrenChanged();
+    memberTables = null;
+    SubtypeCache.hierarchyChanged(this);
   }
 
   /**
@@ -507,6 +573,17 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   public void setMixins(InterfaceType[] mixins) {
     this.mixins = mixins;
+    SubtypeCache.hierarchyChanged(this);
+  }
+
+  /**
+   * Record that results in the {@link SubtypeCache} table with the given generation might depend on
+   * the hierarchy of this class.
+   * 
+   * @param generation the generation of the table whose results might depend on this class
+   */
+  public void setSubtypeCacheGeneration(int generation) {
+    subtypeCacheGeneration = generation;
   }
 
   /**
@@ -516,6 +593,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   public void setSupertype(InterfaceType supertype) {
     this.supertype = supertype;
+    SubtypeCache.hierarchyChanged(this);
   }
 
   /**
@@ -537,6 +615,7 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
    */
   public void setType(InterfaceType type) {
     this.type = type;
+    SubtypeCache.hierarchyChanged(this);
   }
 
   /**
@@ -558,6 +637,9 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       ((TypeParameterElementImpl) typeParameter).setEnclosingElement(this);
     }
     this.typeParameters = typeParameters;
+    childrenChanged();
+    memberTables = null;
+    SubtypeCache.hierarchyChanged(this);
   }
 
   /**
@@ -629,4 +711,20 @@ public class ClassElementImpl extends ElementImpl implements ClassElement {
       }
     }
   }
+
+  /**
+   * Return the tables used to look up the members of this class by name, building them if
+   * necessary.
+   * 
+   * @return the tables used to look up the members of this class
+   */
+  private MemberTables getMemberTables() {
+    MemberTables tables = memberTables;
+    if (tables == null) {
+      // Two threads may both build the tables, but they build equivalent tables.
+      tables = new MemberTables(this);
+      memberTables = tables;
+    }
+    return tables;
+  }
 }
@@ -218,6 +218,7 @@ public class CompilationUnitElementImpl extends ElementImpl implements Compilati
       ((PropertyAccessorElementImpl) accessor).setEnclosingElement(this);
     }
     this.accessors = accessors;
+    childrenChanged();
   }
 
   /**
@@ -230,6 +231,7 @@ public class CompilationUnitElementImpl extends ElementImpl implements Compilati
       ((FunctionElementImpl) function).setEnclosingElement(this);
     }
     this.functions = functions;
+    childrenChanged();
   }
 
   /**
@@ -251,6 +253,7 @@ public class CompilationUnitElementImpl extends ElementImpl implements Compilati
       ((TopLevelVariableElementImpl) field).setEnclosingElement(this);
     }
     this.variables = variables;
+    childrenChanged();
   }
 
   /**
@@ -263,6 +266,7 @@ public class CompilationUnitElementImpl extends ElementImpl implements Compilati
       ((FunctionTypeAliasElementImpl) typeAlias).setEnclosingElement(this);
     }
     this.typeAliases = typeAliases;
+    childrenChanged();
   }
 
   /**
@@ -275,6 +279,7 @@ public class CompilationUnitElementImpl extends ElementImpl implements Compilati
       ((ClassElementImpl) type).setEnclosingElement(this);
     }
     this.types = types;
+    childrenChanged();
   }
 
   /**
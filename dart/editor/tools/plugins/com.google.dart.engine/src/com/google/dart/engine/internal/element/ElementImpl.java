@@ -250,12 +250,15 @@ public abstract class ElementImpl implements Element {
   /**
    * Set the offset of the name of this element in the file that contains the declaration of this
    * element to the given value. This is normally done via the constructor, but this method is
-   * provided to support unnamed constructors.
+   * provided to support unnamed constructors and declarations that were moved without being
+   * resolved again.
    * 
    * @param nameOffset the offset to the beginning of the name
    */
   public void setNameOffset(int nameOffset) {
     this.nameOffset = nameOffset;
+    // The location of some elements, and therefore their hash code, depends on the offset.
+    cachedHashCode = 0;
   }
 
   /**
@@ -294,6 +297,17 @@ public abstract class ElementImpl implements Element {
     }
   }
 
+  /**
+   * Inform the library containing this element that the children of this element have changed, so
+   * that the library does not find elements by location that are no longer part of it.
+   */
+  protected void childrenChanged() {
+    LibraryElementImpl library = getAncestor(LibraryElementImpl.class);
+    if (library != null) {
+      library.childrenChanged();
+    }
+  }
+
   /**
    * Set this {@link Element} as an enclosing for given.
    * 
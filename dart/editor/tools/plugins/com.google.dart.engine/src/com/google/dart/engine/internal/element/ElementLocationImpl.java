@@ -15,7 +15,10 @@ package com.google.dart.engine.internal.element;
 
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 
 /**
@@ -24,11 +27,45 @@ import java.util.ArrayList;
  * @coverage dart.engine.element
  */
 public class ElementLocationImpl implements ElementLocation {
+  /**
+   * Instances of the class {@code DecodedSource} record the source of the library containing the
+   * element, as decoded by a particular source factory. The source factory is only weakly
+   * referenced so that locations, which can outlive the context that created them, do not keep the
+   * factory and its content cache alive.
+   */
+  private static class DecodedSource {
+    /**
+     * A weak reference to the source factory that decoded the source.
+     */
+    private final WeakReference<SourceFactory> sourceFactory;
+
+    /**
+     * The source of the library containing the element.
+     */
+    private final Source source;
+
+    public DecodedSource(SourceFactory sourceFactory, Source source) {
+      this.sourceFactory = new WeakReference<SourceFactory>(sourceFactory);
+      this.source = source;
+    }
+  }
+
   /**
    * The path to the element whose location is represented by this object.
    */
   private String[] components;
 
+  /**
+   * The hash code of this location, or {@code 0} if it has not yet been computed.
+   */
+  private int hashCode;
+
+  /**
+   * The most recently decoded source of the library containing the element, or {@code null} if the
+   * source has not yet been decoded.
+   */
+  private volatile DecodedSource librarySource;
+
   /**
    * The character used to separate components in the encoded form.
    */
@@ -108,8 +145,29 @@ public class ElementLocationImpl implements ElementLocation {
     return builder.toString();
   }
 
+  /**
+   * Return the source of the library containing the element whose location is represented by this
+   * object, as decoded by the given source factory. The decoded source is remembered so that it
+   * does not need to be decoded again by the same factory.
+   * 
+   * @param sourceFactory the source factory used to decode the source
+   * @return the source of the library containing the element
+   * @throws IllegalArgumentException if the source cannot be decoded
+   */
+  public Source getLibrarySource(SourceFactory sourceFactory) {
+    DecodedSource decodedSource = librarySource;
+    if (decodedSource == null || decodedSource.sourceFactory.get() != sourceFactory) {
+      decodedSource = new DecodedSource(sourceFactory, sourceFactory.fromEncoding(components[0]));
+      librarySource = decodedSource;
+    }
+    return decodedSource.source;
+  }
+
   @Override
   public int hashCode() {
+    if (hashCode != 0) {
+      return hashCode;
+    }
     int result = 1;
     for (int i = 0; i < components.length; i++) {
       String component = components[i];
@@ -121,6 +179,7 @@ public class ElementLocationImpl implements ElementLocation {
       }
       result = 31 * result + componentHash;
     }
+    hashCode = result;
     return result;
   }
 
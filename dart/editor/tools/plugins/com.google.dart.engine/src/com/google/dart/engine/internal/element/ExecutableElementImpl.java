@@ -88,6 +88,20 @@ public abstract class ExecutableElementImpl extends ElementImpl implements Execu
     super(name, nameOffset);
   }
 
+  /**
+   * Set this executable element as the enclosing element of the given local elements without
+   * recording them as being defined within this element. This allows elements built for a body that
+   * is being re-resolved to be resolved before it is known whether they will replace the ones that
+   * are currently recorded.
+   * 
+   * @param elements the local functions, labels or variables to be enclosed by this element
+   */
+  public void encloseLocalElements(Element[] elements) {
+    for (Element element : elements) {
+      encloseElement((ElementImpl) element);
+    }
+  }
+
   @Override
   public ElementImpl getChild(String identifier) {
     for (ExecutableElement function : functions) {
@@ -158,6 +172,7 @@ public abstract class ExecutableElementImpl extends ElementImpl implements Execu
       ((FunctionElementImpl) function).setEnclosingElement(this);
     }
     this.functions = functions;
+    childrenChanged();
   }
 
   /**
@@ -170,6 +185,7 @@ public abstract class ExecutableElementImpl extends ElementImpl implements Execu
       ((LabelElementImpl) label).setEnclosingElement(this);
     }
     this.labels = labels;
+    childrenChanged();
   }
 
   /**
@@ -182,6 +198,7 @@ public abstract class ExecutableElementImpl extends ElementImpl implements Execu
       ((LocalVariableElementImpl) variable).setEnclosingElement(this);
     }
     this.localVariables = localVariables;
+    childrenChanged();
   }
 
   /**
@@ -194,6 +211,7 @@ public abstract class ExecutableElementImpl extends ElementImpl implements Execu
       ((ParameterElementImpl) parameter).setEnclosingElement(this);
     }
     this.parameters = parameters;
+    childrenChanged();
   }
 
   /**
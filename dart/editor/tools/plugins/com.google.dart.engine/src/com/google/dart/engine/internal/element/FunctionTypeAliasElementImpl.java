@@ -136,6 +136,7 @@ public class FunctionTypeAliasElementImpl extends ElementImpl implements Functio
       }
     }
     this.parameters = parameters;
+    childrenChanged();
   }
 
   /**
@@ -166,6 +167,7 @@ public class FunctionTypeAliasElementImpl extends ElementImpl implements Functio
       ((TypeParameterElementImpl) typeParameter).setEnclosingElement(this);
     }
     this.typeParameters = typeParameters;
+    childrenChanged();
   }
 
   /**
@@ -18,6 +18,8 @@ import com.google.dart.engine.ast.LibraryIdentifier;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.ElementKind;
 import com.google.dart.engine.element.ElementVisitor;
 import com.google.dart.engine.element.ExportElement;
@@ -25,10 +27,12 @@ import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.ImportElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.PrefixElement;
+import com.google.dart.engine.element.visitor.GeneralizingElementVisitor;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.Source;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -117,6 +121,12 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
    */
   private CompilationUnitElement[] parts = CompilationUnitElementImpl.EMPTY_ARRAY;
 
+  /**
+   * A table mapping the locations of the elements in this library to those elements, or
+   * {@code null} if the table has not yet been built.
+   */
+  private volatile HashMap<ElementLocation, ElementImpl> elementTable;
+
   /**
    * Initialize a newly created library element to have the given name.
    * 
@@ -173,6 +183,42 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
     return definingCompilationUnit;
   }
 
+  /**
+   * Return the element in this library with the given location, or {@code null} if there is no
+   * such element. The result is the same as following the components of the location from this
+   * library using {@link #getChild(String)}, but the first invocation builds a table of all of the
+   * elements in the library so that later invocations only need a single lookup.
+   * 
+   * @param location the location of the element to be returned
+   * @return the element in this library with the given location
+   */
+  public ElementImpl getElement(ElementLocation location) {
+    HashMap<ElementLocation, ElementImpl> table = elementTable;
+    if (table == null) {
+      table = new HashMap<ElementLocation, ElementImpl>();
+      table.put(getLocation(), this);
+      addElements(table, this);
+      elementTable = table;
+    }
+    ElementImpl element = table.get(location);
+    if (element != null) {
+      return element;
+    }
+    //
+    // The table only contains the canonical location of each element, so fall back to following
+    // the components of locations that encode sources differently.
+    //
+    String[] components = ((ElementLocationImpl) location).getComponents();
+    element = this;
+    for (int i = 1; i < components.length; i++) {
+      if (element == null) {
+        return null;
+      }
+      element = element.getChild(components[i]);
+    }
+    return element;
+  }
+
   @Override
   public FunctionElement getEntryPoint() {
     return entryPoint;
@@ -304,6 +350,7 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
   public void setDefiningCompilationUnit(CompilationUnitElement definingCompilationUnit) {
     ((CompilationUnitElementImpl) definingCompilationUnit).setEnclosingElement(this);
     this.definingCompilationUnit = definingCompilationUnit;
+    childrenChanged();
   }
 
   /**
@@ -325,6 +372,7 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
       ((ExportElementImpl) exportElement).setEnclosingElement(this);
     }
     this.exports = exports;
+    childrenChanged();
   }
 
   /**
@@ -341,6 +389,7 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
       }
     }
     this.imports = imports;
+    childrenChanged();
   }
 
   /**
@@ -354,6 +403,7 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
       ((CompilationUnitElementImpl) compilationUnit).setEnclosingElement(this);
     }
     this.parts = parts;
+    childrenChanged();
   }
 
   @Override
@@ -365,11 +415,40 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
     safelyVisitChildren(parts, visitor);
   }
 
+  @Override
+  protected void childrenChanged() {
+    elementTable = null;
+  }
+
   @Override
   protected String getIdentifier() {
     return definingCompilationUnit.getSource().getEncoding();
   }
 
+  /**
+   * Add to the given table every child of the given element that would be found by looking up its
+   * identifier using {@link #getChild(String)}, along with the children of those children.
+   * 
+   * @param table the table to which the elements are to be added
+   * @param parent the element whose children are to be added
+   */
+  private void addElements(final HashMap<ElementLocation, ElementImpl> table,
+      final ElementImpl parent) {
+    parent.visitChildren(new GeneralizingElementVisitor<Void>() {
+      @Override
+      public Void visitElement(Element element) {
+        ElementImpl child = (ElementImpl) element;
+        // Skip elements that are hidden by an earlier child with the same identifier.
+        if (child.getEnclosingElement() == parent
+            && parent.getChild(child.getIdentifier()) == child) {
+          table.put(child.getLocation(), child);
+          addElements(table, child);
+        }
+        return null;
+      }
+    });
+  }
+
   /**
    * Recursively fills set of visible libraries for {@link #getVisibleElementsLibraries}.
    */
@@ -191,6 +191,7 @@ public class ParameterElementImpl extends VariableElementImpl implements Paramet
       ((ParameterElementImpl) parameter).setEnclosingElement(this);
     }
     this.parameters = parameters;
+    childrenChanged();
   }
 
   /**
@@ -158,6 +158,7 @@ public abstract class VariableElementImpl extends ElementImpl implements Variabl
       ((FunctionElementImpl) initializer).setEnclosingElement(this);
     }
     this.initializer = initializer;
+    childrenChanged();
   }
 
   /**
@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.internal.hint;
 
+import com.google.dart.engine.ast.ASTNode;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.error.TodoCode;
 import com.google.dart.engine.internal.error.ErrorReporter;
@@ -46,7 +47,17 @@ public class ToDoFinder {
    * @param unit the compilation unit containing the to-do comments
    */
   public void findIn(CompilationUnit unit) {
-    gatherTodoComments(unit.getBeginToken());
+    gatherTodoComments(unit.getBeginToken(), null);
+  }
+
+  /**
+   * Search the comments preceding the tokens of the given node for to-do comments and report an
+   * error for each.
+   * 
+   * @param node the node containing the to-do comments
+   */
+  public void findInNode(ASTNode node) {
+    gatherTodoComments(node.getBeginToken(), node.getEndToken());
   }
 
   /**
@@ -54,8 +65,10 @@ public class ToDoFinder {
    * comment.
    * 
    * @param token the head of the list of tokens being searched
+   * @param endToken the last token whose comments are to be searched, or {@code null} if the search
+   *          is to continue to the end of the token stream
    */
-  private void gatherTodoComments(Token token) {
+  private void gatherTodoComments(Token token, Token endToken) {
     while (token != null && token.getType() != TokenType.EOF) {
       Token commentToken = token.getPrecedingComments();
       while (commentToken != null) {
@@ -65,6 +78,9 @@ public class ToDoFinder {
         }
         commentToken = commentToken.getNext();
       }
+      if (token == endToken) {
+        return;
+      }
       token = token.getNext();
     }
   }
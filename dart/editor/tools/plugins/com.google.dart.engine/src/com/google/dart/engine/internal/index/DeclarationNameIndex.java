@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.utilities.general.CharOperation;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Instances of the class {@code DeclarationNameIndex} index the locations of declarations by the
+ * name of the declared element, so that declarations can be found by a prefix of their name or by
+ * a camel-case pattern without looking at every declaration.
+ * <p>
+ * Each relationship has two sorted maps: one keyed by the lower-case name of the declared element
+ * and one keyed by the humps of the name, i.e. its first character followed by every character that
+ * starts a new camel-case part. Both lookups are conservative: they return every declaration that
+ * could match, and the caller is expected to check the exact pattern.
+ * 
+ * @coverage dart.engine.index
+ */
+class DeclarationNameIndex {
+  /**
+   * Return the key under which a declaration with the given name is found by its camel-case humps.
+   * Using the rules of {@link CharOperation#camelCaseMatch(char[], char[], boolean)}, a name can
+   * only be matched by a camel-case pattern if the humps of the pattern are a prefix of the humps
+   * of the name.
+   * 
+   * @param name the name of the declared element or a camel-case pattern
+   * @return the humps of the given name
+   */
+  static String getHumps(String name) {
+    int length = name.length();
+    if (length == 0) {
+      return name;
+    }
+    StringBuilder builder = new StringBuilder();
+    builder.append(name.charAt(0));
+    for (int i = 1; i < length; i++) {
+      char c = name.charAt(i);
+      if (Character.isUpperCase(c) || !Character.isJavaIdentifierPart(c)) {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Return the key under which a declaration with the given name is found by a case-insensitive
+   * prefix of its name.
+   * 
+   * @param name the name of the declared element or a prefix of it
+   * @return the lower-case version of the given name
+   */
+  static String getPrefixKey(String name) {
+    return name.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Add the locations whose keys in the given map start with the given prefix to the given list.
+   * 
+   * @param locations the list to which the locations are to be added
+   * @param map the map whose entries are to be searched
+   * @param prefix the prefix of the keys to be added
+   */
+  private static void addLocationsWithPrefix(List<Location> locations,
+      TreeMap<String, Set<Location>> map, String prefix) {
+    if (map == null) {
+      return;
+    }
+    for (Map.Entry<String, Set<Location>> entry : map.tailMap(prefix).entrySet()) {
+      if (!entry.getKey().startsWith(prefix)) {
+        break;
+      }
+      locations.addAll(entry.getValue());
+    }
+  }
+
+  /**
+   * Add the given location to the set of locations associated with the given key, creating the
+   * sorted map and the set if they do not already exist.
+   * 
+   * @param mapOfMaps the maps of keys to locations, one per relationship
+   * @param relationship the relationship of the location
+   * @param key the key with which the location is to be associated
+   * @param location the location being added
+   */
+  private static void put(Map<Relationship, TreeMap<String, Set<Location>>> mapOfMaps,
+      Relationship relationship, String key, Location location) {
+    TreeMap<String, Set<Location>> map = mapOfMaps.get(relationship);
+    if (map == null) {
+      map = Maps.newTreeMap();
+      mapOfMaps.put(relationship, map);
+    }
+    Set<Location> locations = map.get(key);
+    if (locations == null) {
+      locations = Sets.newSetFromMap(new IdentityHashMap<Location, Boolean>(4));
+      map.put(key, locations);
+    }
+    locations.add(location);
+  }
+
+  /**
+   * Remove the given location from the set of locations associated with the given key, removing the
+   * set if it becomes empty.
+   * 
+   * @param mapOfMaps the maps of keys to locations, one per relationship
+   * @param relationship the relationship of the location
+   * @param key the key with which the location is associated
+   * @param location the location being removed
+   */
+  private static void remove(Map<Relationship, TreeMap<String, Set<Location>>> mapOfMaps,
+      Relationship relationship, String key, Location location) {
+    SortedMap<String, Set<Location>> map = mapOfMaps.get(relationship);
+    if (map == null) {
+      return;
+    }
+    Set<Location> locations = map.get(key);
+    if (locations != null) {
+      locations.remove(location);
+      if (locations.isEmpty()) {
+        map.remove(key);
+      }
+    }
+  }
+
+  /**
+   * The mapping of relationships to the sorted maps of lower-case names to the locations of the
+   * declarations with those names.
+   */
+  private final Map<Relationship, TreeMap<String, Set<Location>>> nameMaps = Maps.newHashMap();
+
+  /**
+   * The mapping of relationships to the sorted maps of name humps to the locations of the
+   * declarations whose names have those humps.
+   */
+  private final Map<Relationship, TreeMap<String, Set<Location>>> humpMaps = Maps.newHashMap();
+
+  /**
+   * Record the location of a declaration with the given relationship.
+   * 
+   * @param relationship the relationship with which the declaration was recorded
+   * @param location the location of the declaration
+   */
+  public void add(Relationship relationship, Location location) {
+    String name = location.getElement().getDisplayName();
+    if (name == null) {
+      return;
+    }
+    put(nameMaps, relationship, getPrefixKey(name), location);
+    put(humpMaps, relationship, getHumps(name), location);
+  }
+
+  /**
+   * Return the locations of the declarations with the given relationship whose names could match
+   * the given camel-case pattern.
+   * 
+   * @param relationship the relationship with which the declarations were recorded
+   * @param pattern the camel-case pattern the names must match
+   * @return the locations of the declarations that could match the pattern
+   */
+  public Location[] getLocationsWithCamelCasePattern(Relationship relationship, String pattern) {
+    List<Location> locations = Lists.newArrayList();
+    addLocationsWithPrefix(locations, humpMaps.get(relationship), getHumps(pattern));
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  /**
+   * Return the locations of the declarations with the given relationship whose names start with
+   * the given prefix, ignoring case.
+   * 
+   * @param relationship the relationship with which the declarations were recorded
+   * @param prefix the prefix the names must start with
+   * @return the locations of the declarations whose names start with the prefix
+   */
+  public Location[] getLocationsWithPrefix(Relationship relationship, String prefix) {
+    List<Location> locations = Lists.newArrayList();
+    addLocationsWithPrefix(locations, nameMaps.get(relationship), getPrefixKey(prefix));
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  /**
+   * Return the number of distinct names that are recorded for the given relationship.
+   * 
+   * @param relationship the relationship with which the declarations were recorded
+   * @return the number of distinct names recorded for the relationship
+   */
+  public int getNameCount(Relationship relationship) {
+    SortedMap<String, Set<Location>> map = nameMaps.get(relationship);
+    return map != null ? map.size() : 0;
+  }
+
+  /**
+   * Remove the location of a declaration with the given relationship.
+   * 
+   * @param relationship the relationship with which the declaration was recorded
+   * @param location the location of the declaration
+   */
+  public void remove(Relationship relationship, Location location) {
+    String name = location.getElement().getDisplayName();
+    if (name == null) {
+      return;
+    }
+    remove(nameMaps, relationship, getPrefixKey(name), location);
+    remove(humpMaps, relationship, getHumps(name), location);
+  }
+}
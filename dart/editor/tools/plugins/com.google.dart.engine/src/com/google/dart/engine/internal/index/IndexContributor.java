@@ -77,10 +77,10 @@ import com.google.dart.engine.element.PrefixElement;
 import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.element.TypeParameterElement;
 import com.google.dart.engine.element.VariableElement;
-import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.LocationWithData;
 import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipRecorder;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.scope.NamespaceBuilder;
 import com.google.dart.engine.scanner.Token;
@@ -95,7 +95,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 /**
- * Visits resolved AST and adds relationships into {@link IndexStore}.
+ * Visits resolved AST and adds relationships into a {@link RelationshipRecorder}.
  * 
  * @coverage dart.engine.index
  */
@@ -351,7 +351,7 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
     return false;
   }
 
-  private final IndexStore store;
+  private final RelationshipRecorder store;
 
   private LibraryElement libraryElement;
 
@@ -363,7 +363,7 @@ public class IndexContributor extends GeneralizingASTVisitor<Void> {
    */
   private LinkedList<Element> elementStack = Lists.newLinkedList();
 
-  public IndexContributor(IndexStore store) {
+  public IndexContributor(RelationshipRecorder store) {
     this.store = store;
   }
 
@@ -21,6 +21,7 @@ import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.operation.GetDeclarationsOperation;
 import com.google.dart.engine.internal.index.operation.GetRelationshipsOperation;
 import com.google.dart.engine.internal.index.operation.IndexHtmlUnitOperation;
 import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
@@ -48,6 +49,18 @@ public class IndexImpl implements Index {
     this.processor = processor;
   }
 
+  @Override
+  public void getDeclarationsWithCamelCasePattern(Relationship relationship, String pattern,
+      RelationshipCallback callback) {
+    queue.enqueue(new GetDeclarationsOperation(store, relationship, pattern, true, callback));
+  }
+
+  @Override
+  public void getDeclarationsWithPrefix(Relationship relationship, String prefix,
+      RelationshipCallback callback) {
+    queue.enqueue(new GetDeclarationsOperation(store, relationship, prefix, false, callback));
+  }
+
   @Override
   public void getRelationships(Element element, Relationship relationship,
       RelationshipCallback callback) {
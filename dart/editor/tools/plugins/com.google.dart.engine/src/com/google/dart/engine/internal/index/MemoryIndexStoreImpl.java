@@ -180,6 +180,11 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
    */
   final Map<AnalysisContext, Map<Source, Set<Source>>> contextToUnitToLibraries = Maps.newHashMap();
 
+  /**
+   * The index of the names of the declarations recorded against {@link IndexConstants#UNIVERSE}.
+   */
+  final DeclarationNameIndex declarationNames = new DeclarationNameIndex();
+
   private int sourceCount;
   private int keyCount;
   private int locationCount;
@@ -277,6 +282,16 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     return true;
   }
 
+  @Override
+  public Location[] getDeclarationsWithCamelCasePattern(Relationship relationship, String pattern) {
+    return declarationNames.getLocationsWithCamelCasePattern(relationship, pattern);
+  }
+
+  @Override
+  public Location[] getDeclarationsWithPrefix(Relationship relationship, String prefix) {
+    return declarationNames.getLocationsWithPrefix(relationship, prefix);
+  }
+
   @Override
   public Location[] getRelationships(Element element, Relationship relationship) {
     ElementRelationKey key = new ElementRelationKey(element, relationship);
@@ -391,6 +406,10 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
       locations.add(location);
       locationCount++;
     }
+    // record: name -> declaration
+    if (element instanceof UniverseElementImpl) {
+      declarationNames.add(relationship, location);
+    }
     // record: location -> key
     location.internalKey = key;
     // prepare source pairs
@@ -566,6 +585,9 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
           if (relLocations != null) {
             relLocations.remove(location);
             locationCount--;
+            if (key.element instanceof UniverseElementImpl) {
+              declarationNames.remove(key.relationship, location);
+            }
             // no locations with this key
             if (relLocations.isEmpty()) {
               canonicalKeys.remove(key);
@@ -0,0 +1,1461 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.LocationWithData;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.SegmentIndexStore;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.element.member.Member;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.utilities.collection.IntList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * {@link SegmentIndexStore} which keeps every relationship as a row of {@code int}s in the segment
+ * of the unit containing its location. Elements and relationships are interned and referenced by
+ * their IDs, and a table maps each element/relationship pair to the rows recording it.
+ * <p>
+ * Segments read from a file are memory-mapped: their rows and their element/relationship table are
+ * read from the mapped file when relationships are requested, only the strings of the file (element
+ * locations and source encodings) are read when the file is mapped. {@link Element}s of locations
+ * are resolved using {@link AnalysisContext#getElement(ElementLocation) getElement()} the first
+ * time they are requested.
+ * <p>
+ * The declarations recorded against {@link IndexConstants#UNIVERSE} are also indexed by name. The
+ * declarations of mapped segments are added to this index the first time declarations are
+ * requested, because their names are only known once their elements are resolved.
+ * <p>
+ * The IDs of removed elements are reclaimed by renumbering the remaining elements once enough of
+ * them have been removed, and when a context is removed. A file is never written in place, because
+ * it may still be mapped; every write creates a new generation of the file instead.
+ *
+ * @coverage dart.engine.index
+ */
+public class SegmentIndexStoreImpl implements SegmentIndexStore {
+  /**
+   * Information about a file that has been mapped into memory.
+   */
+  private static class MappedIndex {
+    /**
+     * The contents of the file.
+     */
+    final IntBuffer buffer;
+
+    /**
+     * The global IDs of the elements of the file, indexed by their IDs in the file.
+     */
+    final int[] elementIds;
+
+    /**
+     * The IDs in the file of the elements of the file, keyed by their global IDs.
+     */
+    final HashMap<Integer, Integer> localElementIds = Maps.newHashMap();
+
+    /**
+     * The global IDs of the relationships of the file, indexed by their IDs in the file.
+     */
+    final int[] relationshipIds;
+
+    /**
+     * The IDs in the file of the relationships of the file, keyed by their global IDs.
+     */
+    final HashMap<Integer, Integer> localRelationshipIds = Maps.newHashMap();
+
+    /**
+     * The segments of the file, indexed by their index in the file.
+     */
+    Segment[] segments;
+
+    /**
+     * The number of segments of the file that have not been removed.
+     */
+    int liveSegmentCount;
+
+    /**
+     * The number of keys in the file.
+     */
+    int keyCount;
+
+    /**
+     * The offsets (in {@code int}s) of the keys, postings and rows in the file.
+     */
+    int keysOffset;
+    int postingsOffset;
+    int rowsOffset;
+
+    MappedIndex(IntBuffer buffer, int elementCount, int relationshipCount) {
+      this.buffer = buffer;
+      this.elementIds = new int[elementCount];
+      this.relationshipIds = new int[relationshipCount];
+    }
+
+    /**
+     * Return the index of the key with the given element and relationship IDs in the file, or
+     * {@code -1} if the file has no such key.
+     */
+    int findKey(int elementId, int relationshipId) {
+      int low = 0;
+      int high = keyCount - 1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        int offset = keysOffset + middle * KEY_SIZE;
+        int compare = compare(
+            buffer.get(offset),
+            buffer.get(offset + 1),
+            elementId,
+            relationshipId);
+        if (compare < 0) {
+          low = middle + 1;
+        } else if (compare > 0) {
+          high = middle - 1;
+        } else {
+          return middle;
+        }
+      }
+      return -1;
+    }
+
+    private int compare(int elementId1, int relationshipId1, int elementId2, int relationshipId2) {
+      if (elementId1 != elementId2) {
+        return elementId1 < elementId2 ? -1 : 1;
+      }
+      if (relationshipId1 != relationshipId2) {
+        return relationshipId1 < relationshipId2 ? -1 : 1;
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * A segment holds the relationships whose locations are in a single unit of a single library.
+   */
+  private static class Segment {
+    final AnalysisContext context;
+    final Source library;
+    final Source unit;
+
+    /**
+     * The rows of a segment that is in memory, or {@code null} if the segment is mapped.
+     */
+    IntList rows;
+
+    /**
+     * The data attached to the locations of a segment that is in memory, keyed by row, or
+     * {@code null} if there is no data.
+     */
+    HashMap<Integer, Object> rowData;
+
+    /**
+     * The file containing a mapped segment, or {@code null} if the segment is in memory.
+     */
+    MappedIndex mappedIndex;
+
+    /**
+     * The offset (in {@code int}s) in the file of the first row of a mapped segment.
+     */
+    int mappedOffset;
+
+    /**
+     * The number of rows of a mapped segment.
+     */
+    int mappedRowCount;
+
+    /**
+     * The index of a segment that is in memory in {@link SegmentIndexStoreImpl#liveSegments}.
+     */
+    int id = -1;
+
+    /**
+     * The relationships and locations of the declarations of the segment that have been added to
+     * {@link SegmentIndexStoreImpl#declarationNames}, so that they can be removed with the segment.
+     */
+    ArrayList<Relationship> declarationRelationships;
+    ArrayList<Location> declarationLocations;
+
+    Segment(AnalysisContext context, Source library, Source unit) {
+      this.context = context;
+      this.library = library;
+      this.unit = unit;
+    }
+
+    /**
+     * Add a row with the given values, returning the index of the row.
+     */
+    int addRow(int elementId, int relationshipId, int locationElementId, int offset, int length) {
+      rows.add(elementId);
+      rows.add(relationshipId);
+      rows.add(locationElementId);
+      rows.add(offset);
+      rows.add(length);
+      return rows.size() / ROW_SIZE - 1;
+    }
+
+    /**
+     * Return the data attached to the location in the given row, may be {@code null}.
+     */
+    Object getData(int row) {
+      return rowData != null ? rowData.get(row) : null;
+    }
+
+    /**
+     * Record that the given declaration of the segment has been added to the name index.
+     */
+    void addDeclaration(Relationship relationship, Location location) {
+      if (declarationLocations == null) {
+        declarationRelationships = Lists.newArrayList();
+        declarationLocations = Lists.newArrayList();
+      }
+      declarationRelationships.add(relationship);
+      declarationLocations.add(location);
+    }
+
+    /**
+     * Return the value of the given field of the given row. Element and relationship IDs are
+     * returned as global IDs.
+     */
+    int getField(int row, int field) {
+      if (mappedIndex == null) {
+        return rows.get(row * ROW_SIZE + field);
+      }
+      int value = mappedIndex.buffer.get(mappedOffset + row * ROW_SIZE + field);
+      if (field == ROW_ELEMENT || field == ROW_LOCATION_ELEMENT) {
+        return mappedIndex.elementIds[value];
+      }
+      if (field == ROW_RELATIONSHIP) {
+        return mappedIndex.relationshipIds[value];
+      }
+      return value;
+    }
+
+    int getRowCount() {
+      return mappedIndex == null ? rows.size() / ROW_SIZE : mappedRowCount;
+    }
+
+    void setData(int row, Object data) {
+      if (rowData == null) {
+        rowData = Maps.newHashMap();
+      }
+      rowData.put(row, data);
+    }
+  }
+
+  /**
+   * The number of {@code int}s in a row: the element, the relationship, the element containing the
+   * location, the offset and the length of the location.
+   */
+  private static final int ROW_SIZE = 5;
+  private static final int ROW_ELEMENT = 0;
+  private static final int ROW_RELATIONSHIP = 1;
+  private static final int ROW_LOCATION_ELEMENT = 2;
+  private static final int ROW_OFFSET = 3;
+  private static final int ROW_LENGTH = 4;
+
+  /**
+   * The number of {@code int}s of a key in a file: the element, the relationship, the index of the
+   * first posting and the number of postings.
+   */
+  private static final int KEY_SIZE = 4;
+
+  /**
+   * The number of {@code int}s of a segment in a file: the library and the unit, the index of the
+   * first row and the number of rows.
+   */
+  private static final int SEGMENT_SIZE = 4;
+
+  /**
+   * The number of {@code int}s in the header of a file.
+   */
+  private static final int HEADER_SIZE = 8;
+
+  /**
+   * The minimal number of rows of removed segments after which the postings are compacted.
+   */
+  private static final int MIN_GARBAGE_TO_COMPACT = 4096;
+
+  private static final int FILE_MAGIC = 0x44494458;
+
+  private static final int FILE_VERSION_NUMBER = 1;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final Object WEAK_SET_VALUE = new Object();
+
+  /**
+   * Return the generation of the given index file that has the given name, or {@code -1} if the
+   * name is not the name of a generation of the file.
+   */
+  private static int getGeneration(File file, String name) {
+    String prefix = file.getName() + ".";
+    if (!name.startsWith(prefix) || name.length() == prefix.length()) {
+      return -1;
+    }
+    for (int i = prefix.length(); i < name.length(); i++) {
+      if (!Character.isDigit(name.charAt(i))) {
+        return -1;
+      }
+    }
+    try {
+      return Integer.parseInt(name.substring(prefix.length()));
+    } catch (NumberFormatException exception) {
+      return -1;
+    }
+  }
+
+  /**
+   * Return the generations of the given index file, oldest first.
+   */
+  private static File[] getGenerations(final File file) {
+    File[] generations = file.getAbsoluteFile().getParentFile().listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File generation) {
+        return getGeneration(file, generation.getName()) != -1;
+      }
+    });
+    if (generations == null) {
+      return new File[0];
+    }
+    Arrays.sort(generations, new Comparator<File>() {
+      @Override
+      public int compare(File first, File second) {
+        return getGeneration(file, first.getName()) - getGeneration(file, second.getName());
+      }
+    });
+    return generations;
+  }
+
+  /**
+   * @return the {@link Source} of the enclosing {@link LibraryElement}, may be {@code null}.
+   */
+  private static Source getLibrarySourceOrNull(Element element) {
+    LibraryElement library = element.getLibrary();
+    return library != null ? library.getSource() : null;
+  }
+
+  /**
+   * @return the key used to find postings of the given element and relationship.
+   */
+  private static long getPostingsKey(int elementId, int relationshipId) {
+    return ((long) elementId << 32) | relationshipId;
+  }
+
+  /**
+   * We add {@link AnalysisContext} to this weak set to ensure that we don't continue to add
+   * relationships after some context was removed using {@link #removeContext(AnalysisContext)}.
+   */
+  private final Map<AnalysisContext, Object> removedContexts = new MapMaker().weakKeys().makeMap();
+
+  /**
+   * The IDs of the elements, keyed by the encodings of their locations.
+   */
+  private final HashMap<String, Integer> elementIds = Maps.newHashMap();
+
+  /**
+   * The encodings of the locations of the elements, indexed by their IDs.
+   */
+  private final ArrayList<String> elementEncodings = Lists.newArrayList();
+
+  /**
+   * The {@link Element}s containing locations, indexed by their IDs, for each context.
+   */
+  private final Map<AnalysisContext, ArrayList<Element>> contextToElements = Maps.newHashMap();
+
+  /**
+   * The IDs of the relationships.
+   */
+  private final HashMap<Relationship, Integer> relationshipIds = Maps.newHashMap();
+
+  /**
+   * The relationships, indexed by their IDs.
+   */
+  private final ArrayList<Relationship> relationships = Lists.newArrayList();
+
+  /**
+   * The pairs of segment IDs and rows of the segments in memory, keyed by the element and
+   * relationship recorded in the rows.
+   */
+  private final HashMap<Long, IntList> keyToPostings = Maps.newHashMap();
+
+  /**
+   * The segments in memory, indexed by their IDs. Removed segments are {@code null}.
+   */
+  private ArrayList<Segment> liveSegments = Lists.newArrayList();
+
+  /**
+   * The files that have been mapped and still have segments that have not been removed.
+   */
+  private final List<MappedIndex> mappedIndexes = Lists.newArrayList();
+
+  /**
+   * The segments of each unit, for each context.
+   */
+  private final Map<AnalysisContext, Map<Source, List<Segment>>> contextToUnitToSegments =
+      Maps.newHashMap();
+
+  /**
+   * The IDs of the elements declared in each unit, for each context.
+   */
+  private final Map<AnalysisContext, Map<Source, Set<Integer>>> contextToUnitToElements =
+      Maps.newHashMap();
+
+  /**
+   * The mapping of library {@link Source} to the {@link Source}s of part units.
+   */
+  private final Map<AnalysisContext, Map<Source, Set<Source>>> contextToLibraryToUnits =
+      Maps.newHashMap();
+
+  /**
+   * The index of the names of the declarations recorded against {@link IndexConstants#UNIVERSE}.
+   */
+  private final DeclarationNameIndex declarationNames = new DeclarationNameIndex();
+
+  /**
+   * The mapped segments whose declarations have not been added to {@link #declarationNames} yet.
+   * Their location elements are only resolved when declarations are requested for the first time.
+   */
+  private final Set<Segment> unnamedSegments = Sets.newLinkedHashSet();
+
+  private int liveRowCount;
+  private int mappedRowCount;
+  private int garbageRowCount;
+  private int retiredElementCount;
+
+  @Override
+  public boolean aboutToIndex(AnalysisContext context, CompilationUnitElement unitElement) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    // may be already removed in other thread
+    if (isRemovedContext(context)) {
+      return false;
+    }
+    // validate unit
+    if (unitElement == null) {
+      return false;
+    }
+    LibraryElement libraryElement = unitElement.getLibrary();
+    if (libraryElement == null) {
+      return false;
+    }
+    CompilationUnitElement definingUnitElement = libraryElement.getDefiningCompilationUnit();
+    if (definingUnitElement == null) {
+      return false;
+    }
+    // prepare sources
+    Source library = definingUnitElement.getSource();
+    Source unit = unitElement.getSource();
+    // special handling for the defining library unit
+    if (unit.equals(library)) {
+      // prepare new parts
+      Set<Source> newParts = Sets.newHashSet();
+      for (CompilationUnitElement part : libraryElement.getParts()) {
+        newParts.add(part.getSource());
+      }
+      // prepare old parts
+      Map<Source, Set<Source>> libraryToUnits = contextToLibraryToUnits.get(context);
+      if (libraryToUnits == null) {
+        libraryToUnits = Maps.newHashMap();
+        contextToLibraryToUnits.put(context, libraryToUnits);
+      }
+      Set<Source> oldParts = libraryToUnits.get(library);
+      // check if some parts are not in the library now
+      if (oldParts != null) {
+        Set<Source> noParts = Sets.difference(oldParts, newParts);
+        for (Source noPart : noParts) {
+          removeSegment(context, library, noPart);
+        }
+      }
+      // remember new parts
+      libraryToUnits.put(library, newParts);
+    }
+    // remove locations
+    removeSegment(context, library, unit);
+    // OK, we can index
+    return true;
+  }
+
+  @Override
+  public boolean aboutToIndex(AnalysisContext context, Source source) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    // may be already removed in other thread
+    if (isRemovedContext(context)) {
+      return false;
+    }
+    // remove locations
+    removeSegment(context, source, source);
+    // OK, we can index
+    return true;
+  }
+
+  @Override
+  public Location[] getDeclarationsWithCamelCasePattern(Relationship relationship, String pattern) {
+    nameMappedDeclarations();
+    return declarationNames.getLocationsWithCamelCasePattern(relationship, pattern);
+  }
+
+  @Override
+  public Location[] getDeclarationsWithPrefix(Relationship relationship, String prefix) {
+    nameMappedDeclarations();
+    return declarationNames.getLocationsWithPrefix(relationship, prefix);
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    Integer elementId = elementIds.get(element.getLocation().getEncoding());
+    Integer relationshipId = relationshipIds.get(relationship);
+    if (elementId == null || relationshipId == null) {
+      return Location.EMPTY_ARRAY;
+    }
+    List<Location> locations = Lists.newArrayList();
+    // segments in memory
+    IntList postings = keyToPostings.get(getPostingsKey(elementId, relationshipId));
+    if (postings != null) {
+      for (int i = 0; i < postings.size(); i += 2) {
+        Segment segment = liveSegments.get(postings.get(i));
+        if (segment != null) {
+          addLocation(locations, segment, postings.get(i + 1));
+        }
+      }
+    }
+    // mapped segments
+    for (MappedIndex mappedIndex : mappedIndexes) {
+      Integer localElementId = mappedIndex.localElementIds.get(elementId);
+      Integer localRelationshipId = mappedIndex.localRelationshipIds.get(relationshipId);
+      if (localElementId == null || localRelationshipId == null) {
+        continue;
+      }
+      int key = mappedIndex.findKey(localElementId, localRelationshipId);
+      if (key == -1) {
+        continue;
+      }
+      IntBuffer buffer = mappedIndex.buffer;
+      int keyOffset = mappedIndex.keysOffset + key * KEY_SIZE;
+      int postingOffset = mappedIndex.postingsOffset + buffer.get(keyOffset + 2) * 2;
+      int postingCount = buffer.get(keyOffset + 3);
+      for (int i = 0; i < postingCount; i++) {
+        Segment segment = mappedIndex.segments[buffer.get(postingOffset + i * 2)];
+        if (segment != null && segment.mappedIndex != null) {
+          addLocation(locations, segment, buffer.get(postingOffset + i * 2 + 1));
+        }
+      }
+    }
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  @Override
+  public String getStatistics() {
+    int keyCount = keyToPostings.size();
+    int sourceCount = 0;
+    for (Map<Source, List<Segment>> unitToSegments : contextToUnitToSegments.values()) {
+      for (List<Segment> segments : unitToSegments.values()) {
+        sourceCount += segments.size();
+      }
+    }
+    for (MappedIndex mappedIndex : mappedIndexes) {
+      keyCount += mappedIndex.keyCount;
+    }
+    return (liveRowCount + mappedRowCount) + " relationships in " + keyCount + " keys in "
+        + sourceCount + " sources";
+  }
+
+  @Override
+  public void readIndex(AnalysisContext context, File file) throws IOException {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    File[] generations = getGenerations(file);
+    if (generations.length == 0) {
+      throw new FileNotFoundException(file.getPath());
+    }
+    File latest = generations[generations.length - 1];
+    RandomAccessFile randomAccessFile = new RandomAccessFile(latest, "r");
+    try {
+      FileChannel channel = randomAccessFile.getChannel();
+      readIndex(context, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  @Override
+  public void readIndex(AnalysisContext context, InputStream input) throws IOException {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    readIndex(context, ByteBuffer.wrap(ByteStreams.toByteArray(input)));
+  }
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    // at the index level we don't care about Member(s)
+    if (element instanceof Member) {
+      element = ((Member) element).getBaseElement();
+    }
+    // prepare information
+    Element locationElement = location.getElement();
+    AnalysisContext elementContext = element.getContext();
+    AnalysisContext locationContext = locationElement.getContext();
+    Source elementSource = element.getSource();
+    Source locationSource = locationElement.getSource();
+    // sanity check
+    if (locationContext == null) {
+      return;
+    }
+    if (locationSource == null) {
+      return;
+    }
+    if (elementContext == null && !(element instanceof NameElementImpl)
+        && !(element instanceof UniverseElementImpl)) {
+      return;
+    }
+    if (elementSource == null && !(element instanceof NameElementImpl)
+        && !(element instanceof UniverseElementImpl)) {
+      return;
+    }
+    // may be already removed in other thread
+    if (isRemovedContext(elementContext)) {
+      return;
+    }
+    if (isRemovedContext(locationContext)) {
+      return;
+    }
+    // intern the elements and the relationship
+    int elementId = getElementId(element.getLocation().getEncoding());
+    int relationshipId = getRelationshipId(relationship);
+    int locationElementId = getElementId(locationElement.getLocation().getEncoding());
+    putLocationElement(locationContext, locationElementId, locationElement);
+    if (elementSource != null) {
+      recordElementSource(elementContext, elementSource, elementId);
+    }
+    // record the location in the segment of its unit
+    Segment segment = getLiveSegment(
+        locationContext,
+        getLibrarySourceOrNull(locationElement),
+        locationSource);
+    int row = segment.addRow(
+        elementId,
+        relationshipId,
+        locationElementId,
+        location.getOffset(),
+        location.getLength());
+    if (location instanceof LocationWithData<?>) {
+      segment.setData(row, ((LocationWithData<?>) location).getData());
+    }
+    addPosting(elementId, relationshipId, segment.id, row);
+    liveRowCount++;
+    // record: name -> declaration
+    if (element instanceof UniverseElementImpl) {
+      declarationNames.add(relationship, location);
+      segment.addDeclaration(relationship, location);
+    }
+  }
+
+  @Override
+  public void removeContext(AnalysisContext context) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    if (context == null) {
+      return;
+    }
+    // mark as removed
+    markRemovedContext(context);
+    removeSources(context, null);
+    // remove context
+    contextToUnitToSegments.remove(context);
+    contextToUnitToElements.remove(context);
+    contextToLibraryToUnits.remove(context);
+    contextToElements.remove(context);
+    // reclaim the IDs of the elements of the context
+    compact();
+  }
+
+  @Override
+  public void removeSource(AnalysisContext context, Source unit) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    if (context == null) {
+      return;
+    }
+    // remove locations defined in source
+    Map<Source, List<Segment>> unitToSegments = contextToUnitToSegments.get(context);
+    if (unitToSegments != null) {
+      List<Segment> segments = unitToSegments.remove(unit);
+      if (segments != null) {
+        for (Segment segment : segments) {
+          killSegment(segment);
+        }
+      }
+    }
+    // remove keys for elements defined in source
+    Map<Source, Set<Integer>> unitToElements = contextToUnitToElements.get(context);
+    if (unitToElements != null) {
+      Set<Integer> unitElementIds = unitToElements.remove(unit);
+      if (unitElementIds != null) {
+        for (Integer elementId : unitElementIds) {
+          retireElement(elementId);
+        }
+      }
+    }
+    compactIfNeeded();
+  }
+
+  @Override
+  public void removeSources(AnalysisContext context, SourceContainer container) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    if (context == null) {
+      return;
+    }
+    Set<Source> sources = Sets.newHashSet();
+    Map<Source, List<Segment>> unitToSegments = contextToUnitToSegments.get(context);
+    if (unitToSegments != null) {
+      sources.addAll(unitToSegments.keySet());
+    }
+    Map<Source, Set<Integer>> unitToElements = contextToUnitToElements.get(context);
+    if (unitToElements != null) {
+      sources.addAll(unitToElements.keySet());
+    }
+    for (Source source : sources) {
+      if (container == null || container.contains(source)) {
+        removeSource(context, source);
+      }
+    }
+  }
+
+  @Override
+  public void writeIndex(AnalysisContext context, File file) throws IOException {
+    File[] generations = getGenerations(file);
+    int generation = 0;
+    if (generations.length != 0) {
+      generation = getGeneration(file, generations[generations.length - 1].getName()) + 1;
+    }
+    File tempFile = File.createTempFile(
+        file.getName() + ".",
+        ".tmp",
+        file.getAbsoluteFile().getParentFile());
+    OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile));
+    try {
+      writeIndex(context, output);
+    } finally {
+      output.close();
+    }
+    // a previous generation may be mapped, so write a new one instead of replacing it
+    File generationFile = new File(file.getPath() + "." + generation);
+    if (!tempFile.renameTo(generationFile)) {
+      tempFile.delete();
+      throw new IOException("Cannot rename " + tempFile + " to " + generationFile);
+    }
+    // a generation that is still mapped cannot be deleted on some platforms, try again next time
+    for (File oldGeneration : generations) {
+      oldGeneration.delete();
+    }
+  }
+
+  @Override
+  public void writeIndex(AnalysisContext context, OutputStream output) throws IOException {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    // prepare segments
+    List<Segment> segments = Lists.newArrayList();
+    Map<Source, List<Segment>> unitToSegments = contextToUnitToSegments.get(context);
+    if (unitToSegments != null) {
+      for (List<Segment> unitSegments : unitToSegments.values()) {
+        segments.addAll(unitSegments);
+      }
+    }
+    // prepare element sources
+    Map<Integer, Source> elementSources = Maps.newHashMap();
+    Map<Source, Set<Integer>> unitToElements = contextToUnitToElements.get(context);
+    if (unitToElements != null) {
+      for (Map.Entry<Source, Set<Integer>> entry : unitToElements.entrySet()) {
+        for (Integer elementId : entry.getValue()) {
+          elementSources.put(elementId, entry.getKey());
+        }
+      }
+    }
+    // prepare local IDs, rows and postings
+    Map<String, Integer> strings = Maps.newLinkedHashMap();
+    Map<Integer, Integer> localElementIds = Maps.newLinkedHashMap();
+    Map<Integer, Integer> localRelationshipIds = Maps.newLinkedHashMap();
+    TreeMap<Long, IntList> localPostings = new TreeMap<Long, IntList>();
+    IntList segmentValues = new IntList();
+    IntList rowValues = new IntList();
+    for (int segmentIndex = 0; segmentIndex < segments.size(); segmentIndex++) {
+      Segment segment = segments.get(segmentIndex);
+      int firstRow = rowValues.size() / ROW_SIZE;
+      int rowCount = segment.getRowCount();
+      for (int row = 0; row < rowCount; row++) {
+        int elementId = segment.getField(row, ROW_ELEMENT);
+        int locationElementId = segment.getField(row, ROW_LOCATION_ELEMENT);
+        if (isRetiredElement(elementId) || isRetiredElement(locationElementId)) {
+          continue;
+        }
+        int localElementId = getLocalId(localElementIds, elementId);
+        int localRelationshipId = getLocalId(
+            localRelationshipIds,
+            segment.getField(row, ROW_RELATIONSHIP));
+        int localRow = rowValues.size() / ROW_SIZE - firstRow;
+        rowValues.add(localElementId);
+        rowValues.add(localRelationshipId);
+        rowValues.add(getLocalId(localElementIds, locationElementId));
+        rowValues.add(segment.getField(row, ROW_OFFSET));
+        rowValues.add(segment.getField(row, ROW_LENGTH));
+        long key = getPostingsKey(localElementId, localRelationshipId);
+        IntList postings = localPostings.get(key);
+        if (postings == null) {
+          postings = new IntList(8);
+          localPostings.put(key, postings);
+        }
+        postings.add(segmentIndex);
+        postings.add(localRow);
+      }
+      segmentValues.add(segment.library != null ? getLocalId(strings, segment.library.getEncoding())
+          : -1);
+      segmentValues.add(getLocalId(strings, segment.unit.getEncoding()));
+      segmentValues.add(firstRow);
+      segmentValues.add(rowValues.size() / ROW_SIZE - firstRow);
+    }
+    IntList elementValues = new IntList();
+    for (Integer elementId : localElementIds.keySet()) {
+      elementValues.add(getLocalId(strings, elementEncodings.get(elementId)));
+      Source source = elementSources.get(elementId);
+      elementValues.add(source != null ? getLocalId(strings, source.getEncoding()) : -1);
+    }
+    IntList relationshipValues = new IntList();
+    for (Integer relationshipId : localRelationshipIds.keySet()) {
+      String identifier = relationships.get(relationshipId).getIdentifier();
+      relationshipValues.add(getLocalId(strings, identifier));
+    }
+    IntList keyValues = new IntList();
+    IntList postingValues = new IntList();
+    for (Map.Entry<Long, IntList> entry : localPostings.entrySet()) {
+      long key = entry.getKey();
+      int[] postings = entry.getValue().toArray();
+      keyValues.add((int) (key >>> 32));
+      keyValues.add((int) key);
+      keyValues.add(postingValues.size() / 2);
+      keyValues.add(postings.length / 2);
+      for (int value : postings) {
+        postingValues.add(value);
+      }
+    }
+    // write
+    DataOutputStream dos = new DataOutputStream(output);
+    dos.writeInt(FILE_MAGIC);
+    dos.writeInt(FILE_VERSION_NUMBER);
+    dos.writeInt(localElementIds.size());
+    dos.writeInt(localRelationshipIds.size());
+    dos.writeInt(segments.size());
+    dos.writeInt(localPostings.size());
+    dos.writeInt(postingValues.size() / 2);
+    dos.writeInt(rowValues.size() / ROW_SIZE);
+    writeInts(dos, elementValues);
+    writeInts(dos, relationshipValues);
+    writeInts(dos, segmentValues);
+    writeInts(dos, keyValues);
+    writeInts(dos, postingValues);
+    writeInts(dos, rowValues);
+    dos.writeInt(strings.size());
+    for (String string : strings.keySet()) {
+      byte[] bytes = string.getBytes(UTF_8);
+      dos.writeInt(bytes.length);
+      dos.write(bytes);
+    }
+    dos.flush();
+  }
+
+  /**
+   * Return the number of element IDs in use, including the IDs of removed elements that have not
+   * been reclaimed yet.
+   */
+  @VisibleForTesting
+  int getElementCount() {
+    return elementEncodings.size();
+  }
+
+  /**
+   * Adds the {@link Location} recorded in the given row of the given segment to the given list.
+   */
+  private void addLocation(List<Location> locations, Segment segment, int row) {
+    int locationElementId = segment.getField(row, ROW_LOCATION_ELEMENT);
+    if (isRetiredElement(locationElementId)) {
+      return;
+    }
+    Element element = getLocationElement(segment.context, locationElementId);
+    if (element == null) {
+      return;
+    }
+    Location location = new Location(
+        element,
+        segment.getField(row, ROW_OFFSET),
+        segment.getField(row, ROW_LENGTH));
+    Object data = segment.getData(row);
+    if (data != null) {
+      location = new LocationWithData<Object>(location, data);
+    }
+    locations.add(location);
+  }
+
+  /**
+   * Records that the given row of the segment with the given ID records the given element and
+   * relationship.
+   */
+  private void addPosting(int elementId, int relationshipId, int segmentId, int row) {
+    long key = getPostingsKey(elementId, relationshipId);
+    IntList postings = keyToPostings.get(key);
+    if (postings == null) {
+      postings = new IntList(8);
+      keyToPostings.put(key, postings);
+    }
+    postings.add(segmentId);
+    postings.add(row);
+  }
+
+  /**
+   * Drops the rows of the removed elements from the segments in memory, rebuilds the postings and
+   * renumbers the elements that are still referenced, so that the IDs of the removed elements are
+   * reused.
+   */
+  private void compact() {
+    int[] newIds = new int[elementEncodings.size()];
+    Arrays.fill(newIds, -1);
+    ArrayList<String> newEncodings = Lists.newArrayList();
+    // segments in memory
+    ArrayList<Segment> segments = Lists.newArrayList();
+    keyToPostings.clear();
+    liveRowCount = 0;
+    for (Segment segment : liveSegments) {
+      if (segment == null) {
+        continue;
+      }
+      segment.id = segments.size();
+      segments.add(segment);
+      IntList rows = new IntList(segment.rows.size());
+      HashMap<Integer, Object> rowData = null;
+      int rowCount = segment.getRowCount();
+      for (int row = 0; row < rowCount; row++) {
+        int elementId = segment.getField(row, ROW_ELEMENT);
+        int locationElementId = segment.getField(row, ROW_LOCATION_ELEMENT);
+        if (isRetiredElement(elementId) || isRetiredElement(locationElementId)) {
+          continue;
+        }
+        elementId = renumberElement(newIds, newEncodings, elementId);
+        int relationshipId = segment.getField(row, ROW_RELATIONSHIP);
+        int newRow = rows.size() / ROW_SIZE;
+        rows.add(elementId);
+        rows.add(relationshipId);
+        rows.add(renumberElement(newIds, newEncodings, locationElementId));
+        rows.add(segment.getField(row, ROW_OFFSET));
+        rows.add(segment.getField(row, ROW_LENGTH));
+        Object data = segment.getData(row);
+        if (data != null) {
+          if (rowData == null) {
+            rowData = Maps.newHashMap();
+          }
+          rowData.put(newRow, data);
+        }
+        addPosting(elementId, relationshipId, segment.id, newRow);
+      }
+      segment.rows = rows;
+      segment.rowData = rowData;
+      liveRowCount += rows.size() / ROW_SIZE;
+    }
+    liveSegments = segments;
+    garbageRowCount = 0;
+    // mapped segments, the rows of removed elements are recognized by their ID of -1
+    for (MappedIndex mappedIndex : mappedIndexes) {
+      mappedIndex.localElementIds.clear();
+      for (int i = 0; i < mappedIndex.elementIds.length; i++) {
+        int elementId = mappedIndex.elementIds[i];
+        if (!isRetiredElement(elementId)) {
+          elementId = renumberElement(newIds, newEncodings, elementId);
+          mappedIndex.localElementIds.put(elementId, i);
+        } else {
+          elementId = -1;
+        }
+        mappedIndex.elementIds[i] = elementId;
+      }
+    }
+    // declared elements, elements that are not referenced anymore are forgotten
+    for (Map<Source, Set<Integer>> unitToElements : contextToUnitToElements.values()) {
+      for (Map.Entry<Source, Set<Integer>> entry : unitToElements.entrySet()) {
+        Set<Integer> unitElementIds = Sets.newHashSet();
+        for (Integer elementId : entry.getValue()) {
+          if (newIds[elementId] != -1) {
+            unitElementIds.add(newIds[elementId]);
+          }
+        }
+        entry.setValue(unitElementIds);
+      }
+    }
+    // resolved location elements
+    for (Map.Entry<AnalysisContext, ArrayList<Element>> entry : contextToElements.entrySet()) {
+      ArrayList<Element> elements = entry.getValue();
+      ArrayList<Element> newElements = Lists.newArrayList();
+      for (int elementId = 0; elementId < elements.size(); elementId++) {
+        Element element = elements.get(elementId);
+        if (element != null && newIds[elementId] != -1) {
+          while (newElements.size() <= newIds[elementId]) {
+            newElements.add(null);
+          }
+          newElements.set(newIds[elementId], element);
+        }
+      }
+      entry.setValue(newElements);
+    }
+    // interned elements
+    elementIds.clear();
+    elementEncodings.clear();
+    elementEncodings.addAll(newEncodings);
+    for (int elementId = 0; elementId < newEncodings.size(); elementId++) {
+      elementIds.put(newEncodings.get(elementId), elementId);
+    }
+    retiredElementCount = 0;
+  }
+
+  /**
+   * Compacts the store if many of the postings belong to the segments that have been removed, or
+   * many of the elements have been removed.
+   */
+  private void compactIfNeeded() {
+    boolean manyRemovedRows = garbageRowCount >= MIN_GARBAGE_TO_COMPACT
+        && garbageRowCount >= liveRowCount;
+    boolean manyRemovedElements = retiredElementCount >= MIN_GARBAGE_TO_COMPACT
+        && retiredElementCount >= elementIds.size();
+    if (manyRemovedRows || manyRemovedElements) {
+      compact();
+    }
+  }
+
+  /**
+   * Return the ID of the element with the given location encoding, interning it if needed.
+   */
+  private int getElementId(String encoding) {
+    Integer id = elementIds.get(encoding);
+    if (id == null) {
+      id = elementEncodings.size();
+      elementEncodings.add(encoding);
+      elementIds.put(encoding, id);
+    }
+    return id;
+  }
+
+  /**
+   * Return the segment in memory of the given library/unit pair, creating it if needed.
+   */
+  private Segment getLiveSegment(AnalysisContext context, Source library, Source unit) {
+    Map<Source, List<Segment>> unitToSegments = contextToUnitToSegments.get(context);
+    if (unitToSegments == null) {
+      unitToSegments = Maps.newHashMap();
+      contextToUnitToSegments.put(context, unitToSegments);
+    }
+    List<Segment> segments = unitToSegments.get(unit);
+    if (segments == null) {
+      segments = Lists.newArrayListWithCapacity(1);
+      unitToSegments.put(unit, segments);
+    }
+    for (Segment segment : segments) {
+      if (segment.rows != null && Objects.equal(segment.library, library)) {
+        return segment;
+      }
+    }
+    Segment segment = new Segment(context, library, unit);
+    segment.rows = new IntList(ROW_SIZE * 8);
+    segment.id = liveSegments.size();
+    liveSegments.add(segment);
+    segments.add(segment);
+    return segment;
+  }
+
+  /**
+   * Return the ID used in a file for the object with the given global ID or value, assigning the
+   * next ID if the object has not been assigned one yet.
+   */
+  private <K> int getLocalId(Map<K, Integer> localIds, K key) {
+    Integer localId = localIds.get(key);
+    if (localId == null) {
+      localId = localIds.size();
+      localIds.put(key, localId);
+    }
+    return localId;
+  }
+
+  /**
+   * Return the {@link Element} with the given ID that contains a location in the given context, or
+   * {@code null} if the element cannot be found.
+   */
+  private Element getLocationElement(AnalysisContext context, int elementId) {
+    ArrayList<Element> elements = contextToElements.get(context);
+    Element element = null;
+    if (elements != null && elementId < elements.size()) {
+      element = elements.get(elementId);
+    }
+    if (element == null) {
+      element = context.getElement(new ElementLocationImpl(elementEncodings.get(elementId)));
+      putLocationElement(context, elementId, element);
+    }
+    return element;
+  }
+
+  /**
+   * Return the ID of the given relationship, interning it if needed.
+   */
+  private int getRelationshipId(Relationship relationship) {
+    Integer id = relationshipIds.get(relationship);
+    if (id == null) {
+      id = relationships.size();
+      relationships.add(relationship);
+      relationshipIds.put(relationship, id);
+    }
+    return id;
+  }
+
+  /**
+   * Checks if given {@link AnalysisContext} is marked as removed.
+   */
+  private boolean isRemovedContext(AnalysisContext context) {
+    return removedContexts.containsKey(context);
+  }
+
+  /**
+   * Return {@code true} if the element with the given ID was removed, so its relationships should
+   * not be returned anymore.
+   */
+  private boolean isRetiredElement(int elementId) {
+    if (elementId == -1) {
+      return true;
+    }
+    Integer id = elementIds.get(elementEncodings.get(elementId));
+    return id == null || id.intValue() != elementId;
+  }
+
+  /**
+   * Marks the given segment as removed.
+   */
+  private void killSegment(Segment segment) {
+    if (segment.declarationLocations != null) {
+      for (int i = 0; i < segment.declarationLocations.size(); i++) {
+        declarationNames.remove(
+            segment.declarationRelationships.get(i),
+            segment.declarationLocations.get(i));
+      }
+      segment.declarationRelationships = null;
+      segment.declarationLocations = null;
+    }
+    unnamedSegments.remove(segment);
+    MappedIndex mappedIndex = segment.mappedIndex;
+    if (mappedIndex != null) {
+      segment.mappedIndex = null;
+      mappedRowCount -= segment.mappedRowCount;
+      if (--mappedIndex.liveSegmentCount == 0) {
+        mappedIndexes.remove(mappedIndex);
+      }
+    } else {
+      liveSegments.set(segment.id, null);
+      int rowCount = segment.getRowCount();
+      liveRowCount -= rowCount;
+      garbageRowCount += rowCount;
+    }
+  }
+
+  /**
+   * Marks given {@link AnalysisContext} as removed.
+   */
+  private void markRemovedContext(AnalysisContext context) {
+    removedContexts.put(context, WEAK_SET_VALUE);
+  }
+
+  /**
+   * Adds the declarations of the mapped segments that have not been named yet to
+   * {@link #declarationNames}.
+   */
+  private void nameMappedDeclarations() {
+    Integer universeId = elementIds.get(IndexConstants.UNIVERSE.getLocation().getEncoding());
+    if (universeId != null) {
+      List<Location> locations = Lists.newArrayListWithCapacity(1);
+      for (Segment segment : unnamedSegments) {
+        int rowCount = segment.getRowCount();
+        for (int row = 0; row < rowCount; row++) {
+          if (segment.getField(row, ROW_ELEMENT) != universeId.intValue()) {
+            continue;
+          }
+          locations.clear();
+          addLocation(locations, segment, row);
+          if (!locations.isEmpty()) {
+            Relationship relationship = relationships.get(segment.getField(row, ROW_RELATIONSHIP));
+            declarationNames.add(relationship, locations.get(0));
+            segment.addDeclaration(relationship, locations.get(0));
+          }
+        }
+      }
+    }
+    unnamedSegments.clear();
+  }
+
+  /**
+   * Remembers the {@link Element} with the given ID that contains a location in the given context.
+   */
+  private void putLocationElement(AnalysisContext context, int elementId, Element element) {
+    ArrayList<Element> elements = contextToElements.get(context);
+    if (elements == null) {
+      elements = Lists.newArrayList();
+      contextToElements.put(context, elements);
+    }
+    while (elements.size() <= elementId) {
+      elements.add(null);
+    }
+    elements.set(elementId, element);
+  }
+
+  /**
+   * Maps the index of the given context from the given buffer.
+   */
+  private void readIndex(AnalysisContext context, ByteBuffer byteBuffer) throws IOException {
+    try {
+      IntBuffer buffer = byteBuffer.asIntBuffer();
+      if (buffer.get(0) != FILE_MAGIC || buffer.get(1) != FILE_VERSION_NUMBER) {
+        throw new IOException(MessageFormat.format(
+            "Incompatible file version, expected: {0} found: {1}",
+            FILE_VERSION_NUMBER,
+            buffer.get(1)));
+      }
+      int elementCount = buffer.get(2);
+      int relationshipCount = buffer.get(3);
+      int segmentCount = buffer.get(4);
+      int keyCount = buffer.get(5);
+      int postingCount = buffer.get(6);
+      int rowCount = buffer.get(7);
+      MappedIndex mappedIndex = new MappedIndex(buffer, elementCount, relationshipCount);
+      int elementsOffset = HEADER_SIZE;
+      int relationshipsOffset = elementsOffset + elementCount * 2;
+      int segmentsOffset = relationshipsOffset + relationshipCount;
+      mappedIndex.keysOffset = segmentsOffset + segmentCount * SEGMENT_SIZE;
+      mappedIndex.postingsOffset = mappedIndex.keysOffset + keyCount * KEY_SIZE;
+      mappedIndex.rowsOffset = mappedIndex.postingsOffset + postingCount * 2;
+      mappedIndex.keyCount = keyCount;
+      // read strings
+      byteBuffer.position((mappedIndex.rowsOffset + rowCount * ROW_SIZE) * 4);
+      String[] strings = new String[byteBuffer.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        byte[] bytes = new byte[byteBuffer.getInt()];
+        byteBuffer.get(bytes);
+        strings[i] = new String(bytes, UTF_8);
+      }
+      // read elements
+      SourceFactory sourceFactory = context.getSourceFactory();
+      Map<String, Source> sources = Maps.newHashMap();
+      for (int i = 0; i < elementCount; i++) {
+        int elementId = getElementId(strings[buffer.get(elementsOffset + i * 2)]);
+        mappedIndex.elementIds[i] = elementId;
+        mappedIndex.localElementIds.put(elementId, i);
+        int sourceIndex = buffer.get(elementsOffset + i * 2 + 1);
+        if (sourceIndex != -1) {
+          Source source = readSource(sourceFactory, sources, strings[sourceIndex]);
+          if (source != null) {
+            recordElementSource(context, source, elementId);
+          }
+        }
+      }
+      // read relationships
+      for (int i = 0; i < relationshipCount; i++) {
+        String identifier = strings[buffer.get(relationshipsOffset + i)];
+        Relationship relationship = Relationship.getRelationship(identifier);
+        int relationshipId = getRelationshipId(relationship);
+        mappedIndex.relationshipIds[i] = relationshipId;
+        mappedIndex.localRelationshipIds.put(relationshipId, i);
+      }
+      // read segments
+      mappedIndex.segments = new Segment[segmentCount];
+      Map<Source, List<Segment>> unitToSegments = contextToUnitToSegments.get(context);
+      if (unitToSegments == null) {
+        unitToSegments = Maps.newHashMap();
+        contextToUnitToSegments.put(context, unitToSegments);
+      }
+      for (int i = 0; i < segmentCount; i++) {
+        int offset = segmentsOffset + i * SEGMENT_SIZE;
+        int libraryIndex = buffer.get(offset);
+        Source library = libraryIndex != -1 ? readSource(
+            sourceFactory,
+            sources,
+            strings[libraryIndex]) : null;
+        Source unit = readSource(sourceFactory, sources, strings[buffer.get(offset + 1)]);
+        if (unit == null) {
+          continue;
+        }
+        // segments in memory are more recent than the mapped ones
+        List<Segment> segments = unitToSegments.get(unit);
+        if (segments == null) {
+          segments = Lists.newArrayListWithCapacity(1);
+          unitToSegments.put(unit, segments);
+        }
+        boolean hasSegment = false;
+        for (Segment segment : segments) {
+          hasSegment |= Objects.equal(segment.library, library);
+        }
+        if (hasSegment) {
+          continue;
+        }
+        Segment segment = new Segment(context, library, unit);
+        segment.mappedIndex = mappedIndex;
+        segment.mappedOffset = mappedIndex.rowsOffset + buffer.get(offset + 2) * ROW_SIZE;
+        segment.mappedRowCount = buffer.get(offset + 3);
+        segments.add(segment);
+        unnamedSegments.add(segment);
+        mappedIndex.segments[i] = segment;
+        mappedIndex.liveSegmentCount++;
+        mappedRowCount += segment.mappedRowCount;
+      }
+      if (mappedIndex.liveSegmentCount != 0) {
+        mappedIndexes.add(mappedIndex);
+      }
+    } catch (BufferUnderflowException exception) {
+      throw new IOException("Truncated index file", exception);
+    } catch (IndexOutOfBoundsException exception) {
+      throw new IOException("Malformed index file", exception);
+    }
+  }
+
+  /**
+   * Return the {@link Source} with the given encoding, or {@code null} if it cannot be created.
+   */
+  private Source readSource(SourceFactory sourceFactory, Map<String, Source> sources,
+      String encoding) {
+    Source source = sources.get(encoding);
+    if (source == null && !sources.containsKey(encoding)) {
+      try {
+        source = sourceFactory.fromEncoding(encoding);
+      } catch (IllegalArgumentException exception) {
+        source = null;
+      }
+      sources.put(encoding, source);
+    }
+    return source;
+  }
+
+  /**
+   * Records that the element with the given ID is declared in the given unit.
+   */
+  private void recordElementSource(AnalysisContext context, Source unit, int elementId) {
+    Map<Source, Set<Integer>> unitToElements = contextToUnitToElements.get(context);
+    if (unitToElements == null) {
+      unitToElements = Maps.newHashMap();
+      contextToUnitToElements.put(context, unitToElements);
+    }
+    Set<Integer> unitElementIds = unitToElements.get(unit);
+    if (unitElementIds == null) {
+      unitElementIds = Sets.newHashSet();
+      unitToElements.put(unit, unitElementIds);
+    }
+    unitElementIds.add(elementId);
+  }
+
+  /**
+   * Removes the segment of the given library/unit pair.
+   */
+  private void removeSegment(AnalysisContext context, Source library, Source unit) {
+    Map<Source, List<Segment>> unitToSegments = contextToUnitToSegments.get(context);
+    if (unitToSegments != null) {
+      List<Segment> segments = unitToSegments.get(unit);
+      if (segments != null) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+          Segment segment = segments.get(i);
+          if (Objects.equal(segment.library, library)) {
+            segments.remove(i);
+            killSegment(segment);
+          }
+        }
+        if (segments.isEmpty()) {
+          unitToSegments.remove(unit);
+        }
+      }
+    }
+    compactIfNeeded();
+  }
+
+  /**
+   * Return the new ID of the element with the given old ID, assigning the next ID if the element
+   * has not been renumbered yet.
+   */
+  private int renumberElement(int[] newIds, ArrayList<String> newEncodings, int elementId) {
+    if (newIds[elementId] == -1) {
+      newIds[elementId] = newEncodings.size();
+      newEncodings.add(elementEncodings.get(elementId));
+    }
+    return newIds[elementId];
+  }
+
+  /**
+   * Removes all relationships of the element with the given ID. The element will get a new ID if it
+   * is recorded again, so rows referencing the old ID are ignored.
+   */
+  private void retireElement(int elementId) {
+    String encoding = elementEncodings.get(elementId);
+    Integer id = elementIds.get(encoding);
+    if (id == null || id.intValue() != elementId) {
+      return;
+    }
+    elementIds.remove(encoding);
+    retiredElementCount++;
+    for (int relationshipId = 0; relationshipId < relationships.size(); relationshipId++) {
+      IntList postings = keyToPostings.remove(getPostingsKey(elementId, relationshipId));
+      if (postings != null) {
+        garbageRowCount += postings.size() / 2;
+      }
+    }
+    for (ArrayList<Element> elements : contextToElements.values()) {
+      if (elementId < elements.size()) {
+        elements.set(elementId, null);
+      }
+    }
+  }
+
+  private void writeInts(DataOutputStream dos, IntList values) throws IOException {
+    int size = values.size();
+    for (int i = 0; i < size; i++) {
+      dos.writeInt(values.get(i));
+    }
+  }
+}
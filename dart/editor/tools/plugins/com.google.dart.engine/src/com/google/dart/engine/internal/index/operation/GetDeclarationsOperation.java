@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.IndexConstants;
+import com.google.dart.engine.source.Source;
+
+/**
+ * Instances of the {@link GetDeclarationsOperation} implement an operation used to access the
+ * locations of the declarations that have a specified relationship with the universe and whose
+ * names match either a prefix or a camel-case pattern.
+ * 
+ * @coverage dart.engine.index
+ */
+public class GetDeclarationsOperation implements IndexOperation {
+  private final IndexStore indexStore;
+  private final Relationship relationship;
+  private final String pattern;
+  private final boolean camelCase;
+  private final RelationshipCallback callback;
+
+  /**
+   * Initialize a newly created operation that will access the locations of the declarations whose
+   * names match the given pattern.
+   * 
+   * @param indexStore the index store to be queried
+   * @param relationship the relationship between the universe and the declarations
+   * @param pattern the prefix or the camel-case pattern the names of the declarations must match
+   * @param camelCase {@code true} if the pattern is a camel-case pattern rather than a prefix
+   * @param callback the callback that will be invoked when the locations are found
+   */
+  public GetDeclarationsOperation(IndexStore indexStore, Relationship relationship, String pattern,
+      boolean camelCase, RelationshipCallback callback) {
+    this.indexStore = indexStore;
+    this.relationship = relationship;
+    this.pattern = pattern;
+    this.camelCase = camelCase;
+    this.callback = callback;
+  }
+
+  @VisibleForTesting
+  public RelationshipCallback getCallback() {
+    return callback;
+  }
+
+  @VisibleForTesting
+  public String getPattern() {
+    return pattern;
+  }
+
+  @VisibleForTesting
+  public Relationship getRelationship() {
+    return relationship;
+  }
+
+  @VisibleForTesting
+  public boolean isCamelCase() {
+    return camelCase;
+  }
+
+  @Override
+  public boolean isQuery() {
+    return true;
+  }
+
+  @Override
+  public void performOperation() {
+    Location[] locations;
+    synchronized (indexStore) {
+      if (camelCase) {
+        locations = indexStore.getDeclarationsWithCamelCasePattern(relationship, pattern);
+      } else {
+        locations = indexStore.getDeclarationsWithPrefix(relationship, pattern);
+      }
+    }
+    callback.hasRelationships(IndexConstants.UNIVERSE, relationship, locations);
+  }
+
+  @Override
+  public boolean removeWhenSourceRemoved(Source source) {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "GetDeclarations(" + relationship + ", " + pattern + ", " + camelCase + ")";
+  }
+}
@@ -20,6 +20,7 @@ import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.RelationshipRecorder;
 import com.google.dart.engine.internal.html.angular.AngularDartIndexContributor;
 import com.google.dart.engine.internal.index.IndexContributor;
 import com.google.dart.engine.source.Source;
@@ -71,6 +72,18 @@ public class IndexUnitOperation implements IndexOperation {
     this.source = unitElement.getSource();
   }
 
+  /**
+   * Run the index contributors over the unit, recording the relationships into a new buffer. This
+   * method does not access the index store, so it can be invoked on any thread.
+   * 
+   * @return the buffer containing the relationships found in the unit
+   */
+  RelationshipBuffer contribute() {
+    RelationshipBuffer buffer = new RelationshipBuffer();
+    contribute(buffer);
+    return buffer;
+  }
+
   /**
    * @return the {@link Source} to be indexed.
    */
@@ -94,21 +107,58 @@ public class IndexUnitOperation implements IndexOperation {
   @Override
   public void performOperation() {
     synchronized (indexStore) {
-      try {
-        boolean mayIndex = indexStore.aboutToIndex(context, unitElement);
-        if (!mayIndex) {
-          return;
-        }
-        unit.accept(new IndexContributor(indexStore));
-        unit.accept(new AngularDartIndexContributor(indexStore));
-      } catch (Throwable exception) {
-        AnalysisEngine.getInstance().getLogger().logError(
-            "Could not index " + unit.getElement().getLocation(),
-            exception);
+      if (aboutToIndex()) {
+        contribute(indexStore);
+      }
+    }
+  }
+
+  /**
+   * Replace the information previously recorded for the unit in the index store with the
+   * relationships found by {@link #contribute()}. Both are done while holding the lock of the
+   * store, so queries never see the unit without its relationships.
+   * 
+   * @param buffer the buffer containing the relationships found in the unit
+   */
+  void record(RelationshipBuffer buffer) {
+    synchronized (indexStore) {
+      if (aboutToIndex()) {
+        buffer.recordInto(indexStore);
       }
     }
   }
 
+  /**
+   * Notify the index store that the unit is about to be indexed, so that the information previously
+   * recorded for the unit is removed. The caller must hold the lock of the store.
+   * 
+   * @return {@code true} if the unit may be indexed
+   */
+  private boolean aboutToIndex() {
+    try {
+      return indexStore.aboutToIndex(context, unitElement);
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
+      return false;
+    }
+  }
+
+  /**
+   * Run the index contributors over the unit, recording the relationships into the given recorder.
+   */
+  private void contribute(RelationshipRecorder recorder) {
+    try {
+      unit.accept(new IndexContributor(recorder));
+      unit.accept(new AngularDartIndexContributor(recorder));
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
+    }
+  }
+
   @Override
   public boolean removeWhenSourceRemoved(Source source) {
     return Objects.equal(this.source, source);
@@ -13,17 +13,31 @@
  */
 package com.google.dart.engine.internal.index.operation;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.source.Source;
 
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Instances of the {@link OperationProcessor} process the operations on a single
  * {@link OperationQueue operation queue}. Each processor can be run one time on a single thread.
+ * <p>
+ * If the processor is allowed to use more than one thread, then consecutive
+ * {@link IndexUnitOperation}s are performed as a batch: the index contributors of the units run
+ * concurrently, each into its own buffer, and the buffers are then recorded into the index store
+ * in the order in which the operations were queued. A batch is not extended while a query is
+ * waiting, so that queries are not delayed by more than one operation per thread.
  * 
  * @coverage dart.engine.index
  */
@@ -59,6 +73,17 @@ public class OperationProcessor {
    */
   private OperationQueue queue;
 
+  /**
+   * The number of threads used to run index contributors.
+   */
+  private final int threadCount;
+
+  /**
+   * The executor used to run index contributors concurrently, or {@code null} if the processor is
+   * not running or uses a single thread.
+   */
+  private ExecutorService executor;
+
   /**
    * The current state of the processor.
    */
@@ -76,7 +101,19 @@ public class OperationProcessor {
    * @param queue the queue containing the operations to be processed
    */
   public OperationProcessor(OperationQueue queue) {
+    this(queue, 1);
+  }
+
+  /**
+   * Initialize a newly created operation processor to process the operations on the given queue,
+   * running the index contributors of queued units on the given number of threads.
+   * 
+   * @param queue the queue containing the operations to be processed
+   * @param threadCount the number of threads used to run index contributors
+   */
+  public OperationProcessor(OperationQueue queue, int threadCount) {
     this.queue = queue;
+    this.threadCount = Math.max(1, threadCount);
   }
 
   /**
@@ -94,6 +131,16 @@ public class OperationProcessor {
       // OK, run.
       state = ProcessorState.RUNNING;
     }
+    if (threadCount > 1) {
+      executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "Index Worker");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
     try {
       while (isRunning()) {
         // wait for operation
@@ -104,16 +151,17 @@ public class OperationProcessor {
           // ignore
         }
         // perform operation
-        if (operation != null) {
-          try {
-            operation.performOperation();
-          } catch (Throwable exception) {
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
-          }
+        if (operation instanceof IndexUnitOperation && executor != null) {
+          performIndexUnitOperations((IndexUnitOperation) operation);
+        } else if (operation != null) {
+          performOperation(operation);
         }
       }
     } finally {
+      if (executor != null) {
+        executor.shutdown();
+        executor = null;
+      }
       synchronized (this) {
         state = ProcessorState.STOPPED;
       }
@@ -190,6 +238,66 @@ public class OperationProcessor {
     }
   }
 
+  /**
+   * Perform the given index operation together with the index operations that immediately follow
+   * it in the queue, at most one operation per thread. The contributors run concurrently, then the
+   * information previously recorded for each unit is replaced, in the order of the operations.
+   * 
+   * @param firstOperation the index operation that was removed from the queue
+   */
+  private void performIndexUnitOperations(IndexUnitOperation firstOperation) {
+    // collect consecutive operations, a unit may be indexed only once in a batch
+    List<IndexUnitOperation> operations = Lists.newArrayList(firstOperation);
+    Set<Source> sources = Sets.newHashSet(firstOperation.getSource());
+    while (operations.size() < threadCount) {
+      IndexUnitOperation operation = queue.dequeueIndexUnitOperation(sources);
+      if (operation == null) {
+        break;
+      }
+      operations.add(operation);
+      sources.add(operation.getSource());
+    }
+    // run contributors
+    List<Future<RelationshipBuffer>> futures = Lists.newArrayList();
+    for (final IndexUnitOperation operation : operations) {
+      futures.add(executor.submit(new Callable<RelationshipBuffer>() {
+        @Override
+        public RelationshipBuffer call() {
+          return operation.contribute();
+        }
+      }));
+    }
+    // record relationships
+    for (int i = 0; i < operations.size(); i++) {
+      Future<RelationshipBuffer> future = futures.get(i);
+      try {
+        operations.get(i).record(Uninterruptibles.getUninterruptibly(future));
+      } catch (ExecutionException exception) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Exception in indexing operation: " + operations.get(i), //$NON-NLS-1$
+            exception.getCause());
+      } catch (Throwable exception) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Exception in indexing operation: " + operations.get(i), //$NON-NLS-1$
+            exception);
+      }
+    }
+  }
+
+  /**
+   * Perform the given operation, logging any exception it throws.
+   * 
+   * @param operation the operation to be performed
+   */
+  private void performOperation(IndexOperation operation) {
+    try {
+      operation.performOperation();
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
+    }
+  }
+
   private void threadYield() {
     Thread.yield();
   }
@@ -19,6 +19,7 @@ import com.google.dart.engine.source.Source;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Instances of the {@link OperationQueue} represent a queue of operations against the index that
@@ -90,6 +91,37 @@ public class OperationQueue {
     }
   }
 
+  /**
+   * If the operation at the head of this queue is an {@link IndexUnitOperation} for a source that is
+   * not in the given set, and no query operation is waiting to be returned by
+   * {@link #dequeue(long)}, then remove it from this queue and return it. Otherwise return
+   * {@code null} without waiting. This allows consecutive index operations to be performed as a
+   * batch without changing the order in which they are performed relative to other non-query
+   * operations, and without making a waiting query wait for a longer batch.
+   * 
+   * @param excludedSources the sources whose index operations should not be returned
+   * @return the index operation that was removed from the queue
+   */
+  public IndexUnitOperation dequeueIndexUnitOperation(Set<Source> excludedSources) {
+    synchronized (nonQueryOperations) {
+      if (nonQueryOperations.isEmpty()) {
+        return null;
+      }
+      if (processQueries && !queryOperations.isEmpty()) {
+        return null;
+      }
+      IndexOperation operation = nonQueryOperations.getFirst();
+      if (!(operation instanceof IndexUnitOperation)) {
+        return null;
+      }
+      if (excludedSources.contains(((IndexUnitOperation) operation).getSource())) {
+        return null;
+      }
+      nonQueryOperations.removeFirst();
+      return (IndexUnitOperation) operation;
+    }
+  }
+
   /**
    * Add the given operation to the tail of this queue.
    * 
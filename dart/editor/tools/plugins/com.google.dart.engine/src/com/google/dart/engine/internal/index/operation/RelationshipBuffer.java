@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipRecorder;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code RelationshipBuffer} remember the recorded relationships, so that
+ * index contributors can run without holding the lock of the index store. The relationships are
+ * then copied into the store by {@link #recordInto(RelationshipRecorder)}.
+ * 
+ * @coverage dart.engine.index
+ */
+class RelationshipBuffer implements RelationshipRecorder {
+  /**
+   * The elements, relationships and locations that were recorded, in groups of three.
+   */
+  private final ArrayList<Object> records = new ArrayList<Object>();
+
+  /**
+   * Record all of the relationships recorded in this buffer into the given recorder, in the order
+   * in which they were recorded.
+   * 
+   * @param recorder the recorder into which the relationships are to be recorded
+   */
+  public void recordInto(RelationshipRecorder recorder) {
+    int size = records.size();
+    for (int i = 0; i < size; i += 3) {
+      recorder.recordRelationship(
+          (Element) records.get(i),
+          (Relationship) records.get(i + 1),
+          (Location) records.get(i + 2));
+    }
+  }
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    records.add(element);
+    records.add(relationship);
+    records.add(location);
+  }
+}
@@ -320,6 +320,12 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
    */
   private LibraryElement definingLibrary;
 
+  /**
+   * The manager for the inheritance mappings of the library being resolved, which remembers the
+   * results of looking up members in types.
+   */
+  private InheritanceManager inheritanceManager;
+
   /**
    * A flag indicating whether we should generate hints.
    */
@@ -365,6 +371,7 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
   public ElementResolver(ResolverVisitor resolver) {
     this.resolver = resolver;
     this.definingLibrary = resolver.getDefiningLibrary();
+    this.inheritanceManager = resolver.getInheritanceManager();
     AnalysisOptions options = definingLibrary.getContext().getAnalysisOptions();
     enableHints = options.getHint();
     dynamicType = resolver.getTypeProvider().getDynamicType();
@@ -1858,7 +1865,7 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
       if (target instanceof SuperExpression) {
         accessor = interfaceType.lookUpGetterInSuperclass(getterName, definingLibrary);
       } else {
-        accessor = interfaceType.lookUpGetter(getterName, definingLibrary);
+        accessor = inheritanceManager.lookUpGetter(interfaceType, getterName);
       }
       if (accessor != null) {
         return accessor;
@@ -1937,11 +1944,11 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
     type = resolveTypeParameter(type);
     if (type instanceof InterfaceType) {
       InterfaceType interfaceType = (InterfaceType) type;
-      ExecutableElement member = interfaceType.lookUpMethod(memberName, definingLibrary);
+      ExecutableElement member = inheritanceManager.lookUpMethod(interfaceType, memberName);
       if (member != null) {
         return member;
       }
-      member = interfaceType.lookUpGetter(memberName, definingLibrary);
+      member = inheritanceManager.lookUpGetter(interfaceType, memberName);
       if (member != null) {
         return member;
       }
@@ -2082,7 +2089,7 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
       if (target instanceof SuperExpression) {
         method = interfaceType.lookUpMethodInSuperclass(methodName, definingLibrary);
       } else {
-        method = interfaceType.lookUpMethod(methodName, definingLibrary);
+        method = inheritanceManager.lookUpMethod(interfaceType, methodName);
       }
       if (method != null) {
         return method;
@@ -2165,7 +2172,7 @@ public class ElementResolver extends SimpleASTVisitor<Void> {
       if (target instanceof SuperExpression) {
         accessor = interfaceType.lookUpSetterInSuperclass(setterName, definingLibrary);
       } else {
-        accessor = interfaceType.lookUpSetter(setterName, definingLibrary);
+        accessor = inheritanceManager.lookUpSetter(interfaceType, setterName);
       }
       if (accessor != null) {
         return accessor;
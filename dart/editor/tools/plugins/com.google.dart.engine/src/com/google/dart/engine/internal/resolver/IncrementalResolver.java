@@ -19,13 +19,22 @@ import com.google.dart.engine.ast.ClassTypeAlias;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.ast.ConstructorDeclaration;
 import com.google.dart.engine.ast.Declaration;
+import com.google.dart.engine.ast.FunctionBody;
 import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.FunctionExpression;
 import com.google.dart.engine.ast.FunctionTypeAlias;
 import com.google.dart.engine.ast.MethodDeclaration;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.element.LabelElement;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.LocalVariableElement;
 import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.builder.ElementBuilder;
+import com.google.dart.engine.internal.builder.ElementHolder;
+import com.google.dart.engine.internal.element.ExecutableElementImpl;
+import com.google.dart.engine.internal.scope.EnclosedScope;
 import com.google.dart.engine.internal.scope.Scope;
 import com.google.dart.engine.internal.scope.ScopeBuilder;
 import com.google.dart.engine.source.Source;
@@ -55,6 +64,22 @@ public class IncrementalResolver {
    */
   private AnalysisErrorListener errorListener;
 
+  /**
+   * The element of the method or function whose body was resolved by
+   * {@link #resolveBody(FunctionBody)}, or {@code null} if no body was resolved or its local
+   * elements have already been installed.
+   */
+  private ExecutableElementImpl bodyOwner;
+
+  /**
+   * The elements built for the local functions, labels and local variables of the body that was
+   * resolved, which are not recorded in {@link #bodyOwner} until {@link #installBodyElements()} is
+   * invoked.
+   */
+  private FunctionElement[] bodyFunctions;
+  private LabelElement[] bodyLabels;
+  private LocalVariableElement[] bodyLocalVariables;
+
   /**
    * Initialize a newly created incremental resolver to resolve a node in the given source in the
    * given library, reporting errors to the given error listener.
@@ -74,6 +99,23 @@ public class IncrementalResolver {
     this.errorListener = errorListener;
   }
 
+  /**
+   * Record the elements built for the local declarations of the body resolved by
+   * {@link #resolveBody(FunctionBody)} in the element of the enclosing method or function,
+   * replacing the ones that were previously recorded. This should only be invoked once the
+   * resolved body has been accepted, so that a result that is discarded does not change the element
+   * model.
+   */
+  public void installBodyElements() {
+    if (bodyOwner == null) {
+      return;
+    }
+    bodyOwner.setFunctions(bodyFunctions);
+    bodyOwner.setLabels(bodyLabels);
+    bodyOwner.setLocalVariables(bodyLocalVariables);
+    bodyOwner = null;
+  }
+
   /**
    * Resolve the given node, reporting any errors or warnings to the given listener.
    * 
@@ -88,7 +130,58 @@ public class IncrementalResolver {
     }
     resolveTypes(node, scope);
     resolveVariables(node, scope);
-    resolveReferences(node, scope);
+    ResolverVisitor visitor = new ResolverVisitor(
+        definingLibrary,
+        source,
+        typeProvider,
+        scope,
+        errorListener);
+    resolveReferences(node, visitor);
+  }
+
+  /**
+   * Resolve the given function body, which must be the body of a method or of a top-level function,
+   * reporting any errors or warnings to the given listener. Unlike {@link #resolve(ASTNode)}, the
+   * elements for the local variables, local functions and labels declared in the body are re-built
+   * first, so the body can contain declarations that did not exist when the element model was
+   * built. The new elements refer to the enclosing method or function, but they are only recorded
+   * in it by {@link #installBodyElements()}.
+   * 
+   * @param body the function body to be resolved
+   * @throws AnalysisException if the body could not be resolved
+   */
+  public void resolveBody(FunctionBody body) throws AnalysisException {
+    Declaration declaration = getDeclaration(body);
+    if (declaration == null) {
+      throw new AnalysisException("Cannot resolve body: not the body of a method or function");
+    }
+    Element element = declaration.getElement();
+    if (!(element instanceof ExecutableElementImpl)) {
+      throw new AnalysisException("Cannot resolve body: the declaration has no element");
+    }
+    ExecutableElementImpl function = (ExecutableElementImpl) element;
+    ElementHolder holder = new ElementHolder();
+    new ElementBuilder(holder).buildBodyElements(function, body);
+    bodyFunctions = holder.getFunctions();
+    bodyLabels = holder.getLabels();
+    bodyLocalVariables = holder.getLocalVariables();
+    holder.validate();
+    function.encloseLocalElements(bodyFunctions);
+    function.encloseLocalElements(bodyLabels);
+    function.encloseLocalElements(bodyLocalVariables);
+    bodyOwner = function;
+    Scope scope = ScopeBuilder.scopeFor(body, errorListener);
+    resolveTypes(body, scope);
+    // The variable resolver tracks the enclosing function itself, so it visits the declaration.
+    resolveVariables(declaration, ((EnclosedScope) scope).getEnclosingScope());
+    ResolverVisitor visitor = new ResolverVisitor(
+        definingLibrary,
+        source,
+        typeProvider,
+        scope,
+        errorListener);
+    visitor.initForIncrementalResolution(function);
+    resolveReferences(body, visitor);
   }
 
   /**
@@ -144,6 +237,27 @@ public class IncrementalResolver {
     return result;
   }
 
+  /**
+   * Return the declaration of the method or top-level function whose body is the given body, or
+   * {@code null} if the body is not the body of either.
+   * 
+   * @param body the function body whose declaration is to be returned
+   * @return the declaration of the method or function whose body is given
+   */
+  private Declaration getDeclaration(FunctionBody body) {
+    ASTNode parent = body.getParent();
+    if (parent instanceof MethodDeclaration) {
+      return (MethodDeclaration) parent;
+    } else if (parent instanceof FunctionExpression) {
+      ASTNode declaration = parent.getParent();
+      if (declaration instanceof FunctionDeclaration
+          && declaration.getParent() instanceof CompilationUnit) {
+        return (FunctionDeclaration) declaration;
+      }
+    }
+    return null;
+  }
+
   /**
    * Return the element defined by the given node, or {@code null} if the node does not define an
    * element.
@@ -160,13 +274,7 @@ public class IncrementalResolver {
     return null;
   }
 
-  private void resolveReferences(ASTNode node, Scope scope) {
-    ResolverVisitor visitor = new ResolverVisitor(
-        definingLibrary,
-        source,
-        typeProvider,
-        scope,
-        errorListener);
+  private void resolveReferences(ASTNode node, ResolverVisitor visitor) {
     node.accept(visitor);
     for (ProxyConditionalAnalysisError conditionalCode : visitor.getProxyConditionalAnalysisErrors()) {
       if (conditionalCode.shouldIncludeErrorCode()) {
@@ -66,6 +66,24 @@ public class InheritanceManager {
    */
   private HashMap<ClassElement, HashSet<AnalysisError>> errorsInClassElement = new HashMap<ClassElement, HashSet<AnalysisError>>();
 
+  /**
+   * A table mapping interface types to a table mapping getter names to the result of looking up the
+   * getter in the type, used to memoize {@link #lookUpGetter(InterfaceType, String)}.
+   */
+  private HashMap<InterfaceType, HashMap<String, PropertyAccessorElement>> getterLookup = new HashMap<InterfaceType, HashMap<String, PropertyAccessorElement>>();
+
+  /**
+   * A table mapping interface types to a table mapping method names to the result of looking up the
+   * method in the type, used to memoize {@link #lookUpMethod(InterfaceType, String)}.
+   */
+  private HashMap<InterfaceType, HashMap<String, MethodElement>> methodLookup = new HashMap<InterfaceType, HashMap<String, MethodElement>>();
+
+  /**
+   * A table mapping interface types to a table mapping setter names to the result of looking up the
+   * setter in the type, used to memoize {@link #lookUpSetter(InterfaceType, String)}.
+   */
+  private HashMap<InterfaceType, HashMap<String, PropertyAccessorElement>> setterLookup = new HashMap<InterfaceType, HashMap<String, PropertyAccessorElement>>();
+
   /**
    * Initialize a newly created inheritance manager.
    * 
@@ -113,6 +131,28 @@ public class InheritanceManager {
     return computeInterfaceLookupMap(classElt, new HashSet<ClassElement>());
   }
 
+  /**
+   * Return the result of invoking {@link InterfaceType#lookUpGetter(String, LibraryElement)} on the
+   * given type with the library managed by this manager. The result is remembered, so the
+   * hierarchy of the type is only searched the first time a given getter is looked up in it.
+   * 
+   * @param type the type in which the getter is to be looked up
+   * @param getterName the name of the getter being looked up
+   * @return the getter that was found, or {@code null} if there is no such getter
+   */
+  public PropertyAccessorElement lookUpGetter(InterfaceType type, String getterName) {
+    HashMap<String, PropertyAccessorElement> getters = getterLookup.get(type);
+    if (getters == null) {
+      getters = new HashMap<String, PropertyAccessorElement>();
+      getterLookup.put(type, getters);
+    } else if (getters.containsKey(getterName)) {
+      return getters.get(getterName);
+    }
+    PropertyAccessorElement getter = type.lookUpGetter(getterName, library);
+    getters.put(getterName, getter);
+    return getter;
+  }
+
   /**
    * Given some {@link ClassElement class element} and some member name, this returns the
    * {@link ExecutableElement executable element} that the class inherits from the mixins,
@@ -176,6 +216,50 @@ public class InheritanceManager {
         interfaceType);
   }
 
+  /**
+   * Return the result of invoking {@link InterfaceType#lookUpMethod(String, LibraryElement)} on the
+   * given type with the library managed by this manager. The result is remembered, so the
+   * hierarchy of the type is only searched the first time a given method is looked up in it.
+   * 
+   * @param type the type in which the method is to be looked up
+   * @param methodName the name of the method being looked up
+   * @return the method that was found, or {@code null} if there is no such method
+   */
+  public MethodElement lookUpMethod(InterfaceType type, String methodName) {
+    HashMap<String, MethodElement> methods = methodLookup.get(type);
+    if (methods == null) {
+      methods = new HashMap<String, MethodElement>();
+      methodLookup.put(type, methods);
+    } else if (methods.containsKey(methodName)) {
+      return methods.get(methodName);
+    }
+    MethodElement method = type.lookUpMethod(methodName, library);
+    methods.put(methodName, method);
+    return method;
+  }
+
+  /**
+   * Return the result of invoking {@link InterfaceType#lookUpSetter(String, LibraryElement)} on the
+   * given type with the library managed by this manager. The result is remembered, so the
+   * hierarchy of the type is only searched the first time a given setter is looked up in it.
+   * 
+   * @param type the type in which the setter is to be looked up
+   * @param setterName the name of the setter being looked up
+   * @return the setter that was found, or {@code null} if there is no such setter
+   */
+  public PropertyAccessorElement lookUpSetter(InterfaceType type, String setterName) {
+    HashMap<String, PropertyAccessorElement> setters = setterLookup.get(type);
+    if (setters == null) {
+      setters = new HashMap<String, PropertyAccessorElement>();
+      setterLookup.put(type, setters);
+    } else if (setters.containsKey(setterName)) {
+      return setters.get(setterName);
+    }
+    PropertyAccessorElement setter = type.lookUpSetter(setterName, library);
+    setters.put(setterName, setter);
+    return setter;
+  }
+
   /**
    * Set the new library element context.
    * 
@@ -183,6 +267,10 @@ public class InheritanceManager {
    */
   public void setLibraryElement(LibraryElement library) {
     this.library = library;
+    // Accessibility depends on the library, so the remembered look-ups are no longer valid.
+    getterLookup.clear();
+    methodLookup.clear();
+    setterLookup.clear();
   }
 
   /**
@@ -576,6 +664,25 @@ public class InheritanceManager {
    * @return the found {@link ExecutableElement}, or {@code null} if no such member was found
    */
   private ExecutableElement lookupMemberInClass(ClassElement classElt, String memberName) {
+    //
+    // The class can find the first member with the given name without scanning its members. Only
+    // if that member is static or inaccessible do we need to scan for a later one.
+    //
+    MethodElement firstMethod = classElt.getMethod(memberName);
+    PropertyAccessorElement firstAccessor;
+    if (memberName.endsWith("=")) {
+      firstAccessor = classElt.getSetter(memberName);
+    } else {
+      firstAccessor = classElt.getGetter(memberName);
+    }
+    if (firstMethod != null && firstMethod.isAccessibleIn(library) && !firstMethod.isStatic()) {
+      return firstMethod;
+    } else if (firstMethod == null && firstAccessor == null) {
+      return null;
+    } else if (firstMethod == null && firstAccessor.isAccessibleIn(library)
+        && !firstAccessor.isStatic()) {
+      return firstAccessor;
+    }
     MethodElement[] methods = classElt.getMethods();
     for (MethodElement method : methods) {
       if (memberName.equals(method.getName()) && method.isAccessibleIn(library)
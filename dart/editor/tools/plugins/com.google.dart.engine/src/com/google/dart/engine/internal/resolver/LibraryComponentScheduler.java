@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.resolver;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.source.Source;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Instances of the class {@code LibraryComponentScheduler} resolve the libraries that a library
+ * depends on before that library is resolved. The libraries are grouped into the strongly connected
+ * components of the graph formed by their imports and exports, and each component is resolved as
+ * soon as all of the components it depends on have been resolved, so components that do not depend
+ * on each other are resolved concurrently.
+ * <p>
+ * Every component is resolved through the analysis context, which records the results in its
+ * cache. Because a component is only scheduled once its dependencies have been recorded, no library
+ * is ever resolved by more than one thread.
+ * 
+ * @coverage dart.engine.resolver
+ */
+class LibraryComponentScheduler {
+  /**
+   * Instances of the class {@code ComponentBuilder} compute the strongly connected components of a
+   * library graph using Tarjan's algorithm.
+   */
+  private static class ComponentBuilder {
+    /**
+     * The object representing the core library, which every other library implicitly imports.
+     */
+    private Library coreLibrary;
+
+    /**
+     * A table mapping the libraries that have been visited to the order in which they were visited.
+     */
+    private HashMap<Library, Integer> indexMap = new HashMap<Library, Integer>();
+
+    /**
+     * A table mapping the libraries that have been visited to the smallest index of any library on
+     * the stack that is reachable from them.
+     */
+    private HashMap<Library, Integer> lowLinkMap = new HashMap<Library, Integer>();
+
+    /**
+     * The libraries that have been visited but not yet assigned to a component.
+     */
+    private ArrayList<Library> stack = new ArrayList<Library>();
+
+    /**
+     * The libraries in the {@link #stack}.
+     */
+    private HashSet<Library> librariesOnStack = new HashSet<Library>();
+
+    /**
+     * The components that have been computed, in the order in which they were completed.
+     */
+    private ArrayList<Set<Library>> components = new ArrayList<Set<Library>>();
+
+    /**
+     * Initialize a newly created builder.
+     * 
+     * @param coreLibrary the object representing the core library
+     */
+    public ComponentBuilder(Library coreLibrary) {
+      this.coreLibrary = coreLibrary;
+    }
+
+    /**
+     * Visit the given library and every library reachable from it that has not yet been visited.
+     * 
+     * @param library the library to be visited
+     */
+    public void visit(Library library) {
+      int index = indexMap.size();
+      indexMap.put(library, index);
+      lowLinkMap.put(library, index);
+      stack.add(library);
+      librariesOnStack.add(library);
+      for (Library dependency : getDependencies(library, coreLibrary)) {
+        if (!indexMap.containsKey(dependency)) {
+          visit(dependency);
+          updateLowLink(library, lowLinkMap.get(dependency));
+        } else if (librariesOnStack.contains(dependency)) {
+          updateLowLink(library, indexMap.get(dependency));
+        }
+      }
+      if (lowLinkMap.get(library).intValue() == index) {
+        HashSet<Library> component = new HashSet<Library>();
+        Library member;
+        do {
+          member = stack.remove(stack.size() - 1);
+          librariesOnStack.remove(member);
+          component.add(member);
+        } while (member != library);
+        components.add(component);
+      }
+    }
+
+    /**
+     * Lower the low link of the given library to the given value if it is smaller.
+     * 
+     * @param library the library whose low link is to be updated
+     * @param value the value that might become the new low link
+     */
+    private void updateLowLink(Library library, int value) {
+      if (value < lowLinkMap.get(library).intValue()) {
+        lowLinkMap.put(library, value);
+      }
+    }
+  }
+
+  /**
+   * Return the strongly connected components of the graph formed by the given library and every
+   * library reachable from it. Every component appears after all of the components that it depends
+   * on.
+   * 
+   * @param library the library from which the graph is to be computed
+   * @param coreLibrary the object representing the core library, or {@code null} if it is not known
+   * @return the strongly connected components in the order in which they can be resolved
+   */
+  static ArrayList<Set<Library>> computeComponents(Library library, Library coreLibrary) {
+    ComponentBuilder builder = new ComponentBuilder(coreLibrary);
+    builder.visit(library);
+    return builder.components;
+  }
+
+  /**
+   * Return the libraries that the given library directly depends on, including the core library if
+   * it is implicitly imported.
+   * 
+   * @param library the library whose dependencies are to be returned
+   * @param coreLibrary the object representing the core library, or {@code null} if it is not known
+   * @return the libraries that the given library directly depends on
+   */
+  private static ArrayList<Library> getDependencies(Library library, Library coreLibrary) {
+    ArrayList<Library> dependencies = new ArrayList<Library>();
+    for (Library dependency : library.getImportsAndExports()) {
+      dependencies.add(dependency);
+    }
+    if (coreLibrary != null && library != coreLibrary && !library.getExplicitlyImportsCore()) {
+      dependencies.add(coreLibrary);
+    }
+    return dependencies;
+  }
+
+  /**
+   * The analysis context through which the components are resolved.
+   */
+  private InternalAnalysisContext analysisContext;
+
+  /**
+   * The object representing the core library.
+   */
+  private Library coreLibrary;
+
+  /**
+   * The executor used to resolve the components.
+   */
+  private ExecutorService executor;
+
+  /**
+   * Initialize a newly created scheduler to resolve libraries within the given context.
+   * 
+   * @param analysisContext the analysis context through which the components are resolved
+   * @param coreLibrary the object representing the core library
+   * @param executor the executor used to resolve the components
+   */
+  public LibraryComponentScheduler(InternalAnalysisContext analysisContext, Library coreLibrary,
+      ExecutorService executor) {
+    this.analysisContext = analysisContext;
+    this.coreLibrary = coreLibrary;
+    this.executor = executor;
+  }
+
+  /**
+   * Resolve every component reachable from the given library, other than the component containing
+   * the library itself, that has not already been resolved. This method does not return until all
+   * of the components that were scheduled have been resolved. A component whose resolution fails
+   * unexpectedly is not waited for by the components that depend on it; those components are left
+   * to be resolved on demand.
+   * 
+   * @param library the library whose dependencies are to be resolved
+   * @return the number of components that were resolved
+   */
+  public int resolveDependencies(Library library) {
+    ArrayList<Set<Library>> components = computeComponents(library, coreLibrary);
+    int componentCount = components.size();
+    HashMap<Library, Integer> componentIndices = new HashMap<Library, Integer>();
+    boolean[] unresolved = new boolean[componentCount];
+    for (int i = 0; i < componentCount; i++) {
+      Set<Library> component = components.get(i);
+      for (Library member : component) {
+        componentIndices.put(member, i);
+      }
+      unresolved[i] = !component.contains(library) && !isResolved(component);
+    }
+    //
+    // Count the unresolved components that each unresolved component is waiting for.
+    //
+    int[] waitCounts = new int[componentCount];
+    ArrayList<ArrayList<Integer>> dependents = new ArrayList<ArrayList<Integer>>(componentCount);
+    for (int i = 0; i < componentCount; i++) {
+      dependents.add(new ArrayList<Integer>());
+    }
+    for (int i = 0; i < componentCount; i++) {
+      if (!unresolved[i]) {
+        continue;
+      }
+      HashSet<Integer> dependencies = new HashSet<Integer>();
+      for (Library member : components.get(i)) {
+        for (Library dependency : getDependencies(member, coreLibrary)) {
+          Integer dependencyIndex = componentIndices.get(dependency);
+          if (dependencyIndex.intValue() != i && unresolved[dependencyIndex.intValue()]
+              && dependencies.add(dependencyIndex)) {
+            waitCounts[i]++;
+            dependents.get(dependencyIndex.intValue()).add(i);
+          }
+        }
+      }
+    }
+    //
+    // Resolve the components, scheduling each one as soon as it is no longer waiting.
+    //
+    ExecutorCompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(
+        executor);
+    int outstandingCount = 0;
+    for (int i = 0; i < componentCount; i++) {
+      if (unresolved[i] && waitCounts[i] == 0) {
+        submit(completionService, components.get(i), i);
+        outstandingCount++;
+      }
+    }
+    int resolvedCount = 0;
+    boolean interrupted = false;
+    while (outstandingCount > 0) {
+      Future<Integer> future;
+      try {
+        future = completionService.take();
+      } catch (InterruptedException exception) {
+        // Components that are being resolved own cache entries, so keep waiting for them.
+        interrupted = true;
+        continue;
+      }
+      outstandingCount--;
+      int index;
+      try {
+        index = future.get().intValue();
+      } catch (InterruptedException exception) {
+        interrupted = true;
+        continue;
+      } catch (ExecutionException exception) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Internal error while resolving the dependencies of "
+                + library.getLibrarySource().getFullName(),
+            exception.getCause());
+        continue;
+      }
+      resolvedCount++;
+      if (interrupted) {
+        continue;
+      }
+      for (Integer dependent : dependents.get(index)) {
+        int dependentIndex = dependent.intValue();
+        if (--waitCounts[dependentIndex] == 0) {
+          submit(completionService, components.get(dependentIndex), dependentIndex);
+          outstandingCount++;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return resolvedCount;
+  }
+
+  /**
+   * Return {@code true} if the context already has an element model for every library in the given
+   * component.
+   * 
+   * @param component the component being tested
+   * @return {@code true} if every library in the component has already been resolved
+   */
+  private boolean isResolved(Set<Library> component) {
+    for (Library library : component) {
+      if (analysisContext.getLibraryElement(library.getLibrarySource()) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Schedule the resolution of the given component. Resolving any library in the component causes
+   * the whole component to be resolved.
+   * 
+   * @param completionService the service through which the component is to be resolved
+   * @param component the component to be resolved
+   * @param index the index of the component, which is the result of the scheduled work
+   */
+  private void submit(ExecutorCompletionService<Integer> completionService,
+      Set<Library> component, final int index) {
+    final Source librarySource = component.iterator().next().getLibrarySource();
+    completionService.submit(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        try {
+          analysisContext.computeLibraryElement(librarySource);
+        } catch (AnalysisException exception) {
+          // The failure has been recorded in the cache, so the dependents will not retry it.
+          AnalysisEngine.getInstance().getLogger().logError(
+              "Could not compute library element for " + librarySource.getFullName(),
+              exception);
+        }
+        return index;
+      }
+    });
+  }
+}
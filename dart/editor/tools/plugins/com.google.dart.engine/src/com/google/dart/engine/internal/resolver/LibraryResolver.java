@@ -58,6 +58,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Instances of the class {@code LibraryResolver} are used to resolve one or more mutually dependent
@@ -78,6 +82,12 @@ public class LibraryResolver {
    */
   private RecordingErrorListener errorListener;
 
+  /**
+   * The executor used to resolve independent libraries concurrently, or {@code null} if libraries
+   * are resolved one at a time on the calling thread.
+   */
+  private ExecutorService executor;
+
   /**
    * A source object representing the core library (dart:core).
    */
@@ -109,7 +119,25 @@ public class LibraryResolver {
    * @param analysisContext the analysis context in which the library is being analyzed
    */
   public LibraryResolver(InternalAnalysisContext analysisContext) {
+    this(analysisContext, null);
+  }
+
+  /**
+   * Initialize a newly created library resolver to resolve libraries within the given context. If
+   * an executor is given, the libraries that the library being resolved depends on are resolved
+   * before it, with the libraries that do not depend on each other being resolved concurrently, and
+   * the element models of the libraries in a cycle are built concurrently.
+   * <p>
+   * The tasks submitted to the executor never wait for other tasks, so the executor can have any
+   * number of threads, but the resolver must not itself be used by a task running on the executor.
+   * 
+   * @param analysisContext the analysis context in which the library is being analyzed
+   * @param executor the executor used to resolve independent libraries concurrently, or
+   *          {@code null} if libraries are to be resolved one at a time
+   */
+  public LibraryResolver(InternalAnalysisContext analysisContext, ExecutorService executor) {
     this.analysisContext = analysisContext;
+    this.executor = executor;
     this.errorListener = new RecordingErrorListener();
     coreLibrarySource = analysisContext.getSourceFactory().forUri(DartSdk.DART_CORE);
   }
@@ -176,6 +204,17 @@ public class LibraryResolver {
       //
       computeLibraryDependencies(targetLibrary, unit);
       librariesInCycles = computeLibrariesInCycles(targetLibrary);
+      if (executor != null) {
+        //
+        // Resolve the libraries outside the cycle before building anything, so that their element
+        // models are already cached when they are needed below.
+        //
+        LibraryComponentScheduler scheduler = new LibraryComponentScheduler(
+            analysisContext,
+            coreLibrary,
+            executor);
+        scheduler.resolveDependencies(targetLibrary);
+      }
       //
       // Build the element models representing the libraries being resolved. This is done in three
       // steps:
@@ -261,6 +300,17 @@ public class LibraryResolver {
       //
       computeLibraryDependencies(targetLibrary);
       librariesInCycles = computeLibrariesInCycles(targetLibrary);
+      if (executor != null) {
+        //
+        // Resolve the libraries outside the cycle before building anything, so that their element
+        // models are already cached when they are needed below.
+        //
+        LibraryComponentScheduler scheduler = new LibraryComponentScheduler(
+            analysisContext,
+            coreLibrary,
+            executor);
+        scheduler.resolveDependencies(targetLibrary);
+      }
       //
       // Build the element models representing the libraries being resolved. This is done in three
       // steps:
@@ -508,6 +558,10 @@ public class LibraryResolver {
    * @throws AnalysisException if any of the element models cannot be built
    */
   private void buildElementModels() throws AnalysisException {
+    if (executor != null && librariesInCycles.size() > 1) {
+      buildElementModelsConcurrently();
+      return;
+    }
     for (Library library : librariesInCycles) {
       LibraryElementBuilder builder = new LibraryElementBuilder(this);
       LibraryElementImpl libraryElement = builder.buildLibrary(library);
@@ -515,6 +569,54 @@ public class LibraryResolver {
     }
   }
 
+  /**
+   * Build element models for all of the libraries in the current cycle, building the models of
+   * different libraries concurrently. Each builder only touches the ASTs of its own library, and
+   * errors are reported to the {@link #errorListener}, which is thread-safe.
+   * 
+   * @throws AnalysisException if any of the element models cannot be built
+   */
+  private void buildElementModelsConcurrently() throws AnalysisException {
+    ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>(librariesInCycles.size());
+    for (final Library library : librariesInCycles) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws AnalysisException {
+          LibraryElementBuilder builder = new LibraryElementBuilder(LibraryResolver.this);
+          LibraryElementImpl libraryElement = builder.buildLibrary(library);
+          library.setLibraryElement(libraryElement);
+          return null;
+        }
+      }));
+    }
+    //
+    // Wait for every builder, even after a failure, so that no builder is still running when the
+    // remaining steps of the resolution are performed.
+    //
+    Throwable failure = null;
+    boolean interrupted = false;
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (InterruptedException exception) {
+        interrupted = true;
+        i--;
+      } catch (ExecutionException exception) {
+        if (failure == null) {
+          failure = exception.getCause();
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof AnalysisException) {
+      throw (AnalysisException) failure;
+    } else if (failure != null) {
+      throw new AnalysisException("Could not build the element models", failure);
+    }
+  }
+
   /**
    * Resolve the type hierarchy across all of the types declared in the libraries in the current
    * cycle.
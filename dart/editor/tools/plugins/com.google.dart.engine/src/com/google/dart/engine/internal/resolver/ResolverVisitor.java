@@ -200,6 +200,15 @@ public class ResolverVisitor extends ScopedVisitor {
     this.typeAnalyzer = new StaticTypeAnalyzer(this);
   }
 
+  /**
+   * Return the manager for the inheritance mappings of the library being resolved.
+   * 
+   * @return the manager for the inheritance mappings of the library being resolved
+   */
+  public InheritanceManager getInheritanceManager() {
+    return inheritanceManager;
+  }
+
   /**
    * Return the object keeping track of which elements have had their types overridden.
    * 
@@ -222,6 +231,21 @@ public class ResolverVisitor extends ScopedVisitor {
     return proxyConditionalAnalysisErrors;
   }
 
+  /**
+   * Prepare this visitor to resolve the body of the given method or function without visiting the
+   * declaration of the method or function, as is done when a single function body is re-resolved.
+   * 
+   * @param function the element of the method or function whose body is to be resolved
+   */
+  public void initForIncrementalResolution(ExecutableElement function) {
+    enclosingFunction = function;
+    Element enclosingElement = function.getEnclosingElement();
+    if (enclosingElement instanceof ClassElement) {
+      enclosingClass = (ClassElement) enclosingElement;
+      typeAnalyzer.setThisType(enclosingClass.getType());
+    }
+  }
+
   @Override
   public Void visitAsExpression(AsExpression node) {
     super.visitAsExpression(node);
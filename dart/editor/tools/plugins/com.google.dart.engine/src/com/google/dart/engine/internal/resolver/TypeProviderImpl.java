@@ -26,7 +26,9 @@ import com.google.dart.engine.type.Type;
 
 /**
  * Instances of the class {@code TypeProviderImpl} provide access to types defined by the language
- * by looking for those types in the element model for the core library.
+ * by looking for those types in the element model for the core library. The types are looked up
+ * when the provider is created and never change, so a provider can be shared by threads resolving
+ * different libraries.
  * 
  * @coverage dart.engine.resolver
  */
@@ -15,7 +15,6 @@ package com.google.dart.engine.internal.search;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ConstructorElement;
@@ -44,11 +43,13 @@ import com.google.dart.engine.internal.search.listener.CountingSearchListener;
 import com.google.dart.engine.internal.search.listener.FilteredSearchListener;
 import com.google.dart.engine.internal.search.listener.GatheringSearchListener;
 import com.google.dart.engine.internal.search.listener.NameMatchingSearchListener;
+import com.google.dart.engine.internal.search.pattern.IndexableSearchPattern;
 import com.google.dart.engine.internal.search.scope.LibrarySearchScope;
 import com.google.dart.engine.search.MatchKind;
 import com.google.dart.engine.search.MatchQuality;
 import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.search.SearchFilter;
+import com.google.dart.engine.search.SearchIncompleteException;
 import com.google.dart.engine.search.SearchListener;
 import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.search.SearchPattern;
@@ -60,6 +61,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of {@link SearchEngine}.
@@ -185,13 +187,32 @@ public class SearchEngineImpl implements SearchEngine {
    */
   private Index index;
 
+  /**
+   * The maximum number of milliseconds a synchronous search waits for its results, or zero if it
+   * waits until the search is complete.
+   */
+  private final long timeout;
+
   /**
    * Initialize a newly created search engine to use the given index.
    * 
    * @param index the index used to respond to the search requests
    */
   public SearchEngineImpl(Index index) {
+    this(index, 0L);
+  }
+
+  /**
+   * Initialize a newly created search engine to use the given index. Synchronous searches that do
+   * not complete within the given timeout throw a {@link SearchIncompleteException}.
+   * 
+   * @param index the index used to respond to the search requests
+   * @param timeout the maximum number of milliseconds a synchronous search waits for its results,
+   *          or zero if it waits until the search is complete
+   */
+  public SearchEngineImpl(Index index, long timeout) {
     this.index = index;
+    this.timeout = timeout;
   }
 
   @Override
@@ -204,7 +225,9 @@ public class SearchEngineImpl implements SearchEngine {
     class Callback implements RelationshipCallback {
       @Override
       public void hasRelationships(Element element, Relationship relationship, Location[] locs) {
-        Collections.addAll(locations, locs);
+        synchronized (locations) {
+          Collections.addAll(locations, locs);
+        }
         latch.countDown();
       }
     }
@@ -214,10 +237,14 @@ public class SearchEngineImpl implements SearchEngine {
     }
     index.getRelationships(variable, IndexConstants.IS_REFERENCED_BY, new Callback());
     index.getRelationships(variable, IndexConstants.IS_DEFINED_BY, new Callback());
-    Uninterruptibles.awaitUninterruptibly(latch);
+    waitForLatch(latch, "assigned types of " + variable.getName());
     // get types from locations
     Set<Type> types = Sets.newHashSet();
-    for (Location location : locations) {
+    Location[] foundLocations;
+    synchronized (locations) {
+      foundLocations = locations.toArray(new Location[locations.size()]);
+    }
+    for (Location location : foundLocations) {
       // check scope
       if (scope != null) {
         Element targetElement = location.getElement();
@@ -278,16 +305,13 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchFunctionDeclarations(SearchScope scope, SearchPattern pattern,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
-    Element[] elements = createElements(scope);
-    listener = applyPattern(pattern, listener);
-    listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(elements.length, listener);
-    for (Element element : elements) {
-      index.getRelationships(
-          element,
-          IndexConstants.DEFINES_FUNCTION,
-          newCallback(MatchKind.FUNCTION_DECLARATION, scope, listener));
-    }
+    searchDeclarations(
+        scope,
+        pattern,
+        filter,
+        listener,
+        new Relationship[] {IndexConstants.DEFINES_FUNCTION},
+        new MatchKind[] {MatchKind.FUNCTION_DECLARATION});
   }
 
   @Override
@@ -431,24 +455,11 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchTypeDeclarations(SearchScope scope, SearchPattern pattern, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
-    Element[] elements = createElements(scope);
-    listener = applyPattern(pattern, listener);
-    listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(elements.length * 3, listener);
-    for (Element element : elements) {
-      index.getRelationships(
-          element,
-          IndexConstants.DEFINES_CLASS,
-          newCallback(MatchKind.CLASS_DECLARATION, scope, listener));
-      index.getRelationships(
-          element,
-          IndexConstants.DEFINES_CLASS_ALIAS,
-          newCallback(MatchKind.CLASS_ALIAS_DECLARATION, scope, listener));
-      index.getRelationships(
-          element,
-          IndexConstants.DEFINES_FUNCTION_TYPE,
-          newCallback(MatchKind.FUNCTION_TYPE_DECLARATION, scope, listener));
-    }
+    searchDeclarations(scope, pattern, filter, listener, new Relationship[] {
+        IndexConstants.DEFINES_CLASS, IndexConstants.DEFINES_CLASS_ALIAS,
+        IndexConstants.DEFINES_FUNCTION_TYPE}, new MatchKind[] {
+        MatchKind.CLASS_DECLARATION, MatchKind.CLASS_ALIAS_DECLARATION,
+        MatchKind.FUNCTION_TYPE_DECLARATION});
   }
 
   @Override
@@ -466,16 +477,13 @@ public class SearchEngineImpl implements SearchEngine {
   public void searchVariableDeclarations(SearchScope scope, SearchPattern pattern,
       SearchFilter filter, SearchListener listener) {
     assert listener != null;
-    Element[] elements = createElements(scope);
-    listener = applyPattern(pattern, listener);
-    listener = applyFilter(filter, listener);
-    listener = new CountingSearchListener(elements.length, listener);
-    for (Element element : elements) {
-      index.getRelationships(
-          element,
-          IndexConstants.DEFINES_VARIABLE,
-          newCallback(MatchKind.VARIABLE_DECLARATION, scope, listener));
-    }
+    searchDeclarations(
+        scope,
+        pattern,
+        filter,
+        listener,
+        new Relationship[] {IndexConstants.DEFINES_VARIABLE},
+        new MatchKind[] {MatchKind.VARIABLE_DECLARATION});
   }
 
   /**
@@ -483,18 +491,67 @@ public class SearchEngineImpl implements SearchEngine {
    * search has completed and return the results that were produced.
    * 
    * @param runner the runner used to perform an asynchronous search
-   * @return the results that were produced @ if the results of at least one of the searched could
-   *         not be computed
+   * @return the results that were produced
+   * @throws SearchIncompleteException if the search does not complete before the timeout or if the
+   *           current thread is interrupted while waiting, in which case the interrupted status of
+   *           the thread is restored
    */
   private List<SearchMatch> gatherResults(SearchRunner runner) {
     GatheringSearchListener listener = new GatheringSearchListener();
     runner.performSearch(listener);
-    while (!listener.isComplete()) {
-      Thread.yield();
+    try {
+      if (!listener.waitForCompletion(timeout)) {
+        listener.cancel();
+        throw new SearchIncompleteException("Search did not complete within " + timeout + " ms");
+      }
+    } catch (InterruptedException exception) {
+      listener.cancel();
+      Thread.currentThread().interrupt();
+      throw new SearchIncompleteException("Search was interrupted", exception);
     }
     return listener.getMatches();
   }
 
+  /**
+   * Search for the declarations that have one of the given relationships with the elements of the
+   * given scope. If the search is not restricted to some libraries and the pattern can use the
+   * declaration-name index, only the declarations whose names might match the pattern are looked
+   * at; otherwise every declaration in the scope is matched against the pattern.
+   * 
+   * @param scope the scope containing the declarations to be returned
+   * @param pattern the pattern to be used to find declarations, may be {@code null}
+   * @param filter the filter to be used to filter the declarations, may be {@code null}
+   * @param listener the listener that will be notified when matches are found
+   * @param relationships the relationships between the scope and the declarations
+   * @param matchKinds the kinds of the matches, one for each relationship
+   */
+  private void searchDeclarations(SearchScope scope, SearchPattern pattern, SearchFilter filter,
+      SearchListener listener, Relationship[] relationships, MatchKind[] matchKinds) {
+    listener = applyPattern(pattern, listener);
+    listener = applyFilter(filter, listener);
+    if (pattern instanceof IndexableSearchPattern && !(scope instanceof LibrarySearchScope)) {
+      IndexableSearchPattern indexablePattern = (IndexableSearchPattern) pattern;
+      listener = new CountingSearchListener(relationships.length, listener);
+      for (int i = 0; i < relationships.length; i++) {
+        indexablePattern.findCandidates(
+            index,
+            relationships[i],
+            newCallback(matchKinds[i], scope, listener));
+      }
+      return;
+    }
+    Element[] elements = createElements(scope);
+    listener = new CountingSearchListener(elements.length * relationships.length, listener);
+    for (Element element : elements) {
+      for (int i = 0; i < relationships.length; i++) {
+        index.getRelationships(
+            element,
+            relationships[i],
+            newCallback(matchKinds[i], scope, listener));
+      }
+    }
+  }
+
   private void searchReferences(AngularElement element, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
     assert listener != null;
@@ -720,4 +777,29 @@ public class SearchEngineImpl implements SearchEngine {
         IndexConstants.IS_WRITTEN_BY,
         newCallback(MatchKind.VARIABLE_WRITE, scope, listener));
   }
+
+  /**
+   * Wait until the given latch is released.
+   * 
+   * @param latch the latch to wait for
+   * @param description the description of the search, used if the search does not complete
+   * @throws SearchIncompleteException if the latch is not released before the timeout or if the
+   *           current thread is interrupted while waiting, in which case the interrupted status of
+   *           the thread is restored
+   */
+  private void waitForLatch(CountDownLatch latch, String description) {
+    try {
+      if (timeout <= 0) {
+        latch.await();
+      } else if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+        throw new SearchIncompleteException("Search for " + description
+            + " did not complete within " + timeout + " ms");
+      }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new SearchIncompleteException(
+          "Search for " + description + " was interrupted",
+          exception);
+    }
+  }
 }
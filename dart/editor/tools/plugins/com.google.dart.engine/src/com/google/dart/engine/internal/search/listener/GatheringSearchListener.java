@@ -20,6 +20,8 @@ import com.google.dart.engine.search.SearchMatch;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link SearchListener} used by {@link SearchEngineImpl} internally to gather asynchronous results
@@ -29,21 +31,40 @@ import java.util.List;
  */
 public class GatheringSearchListener implements SearchListener {
   /**
-   * A list containing the matches that have been found so far.
+   * A list containing the matches that have been found so far. Synchronize against this list before
+   * accessing it.
    */
   private final List<SearchMatch> matches = Lists.newArrayList();
 
   /**
-   * A flag indicating whether the search is complete.
+   * The latch that is released when the search is complete.
    */
-  private volatile boolean isComplete = false;
+  private final CountDownLatch completionLatch = new CountDownLatch(1);
+
+  /**
+   * A flag indicating whether the search has been cancelled, in which case any matches found
+   * after the cancellation are ignored.
+   */
+  private volatile boolean isCancelled = false;
+
+  /**
+   * Stop gathering matches. Matches found after this method is invoked are ignored, and the matches
+   * that were already gathered are not affected.
+   */
+  public void cancel() {
+    isCancelled = true;
+  }
 
   /**
    * @return the the matches that have been found.
    */
   public List<SearchMatch> getMatches() {
-    Collections.sort(matches, SearchMatch.SORT_BY_ELEMENT_NAME);
-    return matches;
+    List<SearchMatch> result;
+    synchronized (matches) {
+      result = Lists.newArrayList(matches);
+    }
+    Collections.sort(result, SearchMatch.SORT_BY_ELEMENT_NAME);
+    return result;
   }
 
   /**
@@ -52,16 +73,37 @@ public class GatheringSearchListener implements SearchListener {
    * @return {@code true} if the search is complete
    */
   public boolean isComplete() {
-    return isComplete;
+    return completionLatch.getCount() == 0;
   }
 
   @Override
   public void matchFound(SearchMatch match) {
-    matches.add(match);
+    if (isCancelled) {
+      return;
+    }
+    synchronized (matches) {
+      matches.add(match);
+    }
   }
 
   @Override
   public void searchComplete() {
-    isComplete = true;
+    completionLatch.countDown();
+  }
+
+  /**
+   * Block the current thread until the search is complete or the given amount of time has elapsed.
+   * 
+   * @param timeout the maximum number of milliseconds to wait, or a value less than or equal to
+   *          zero to wait until the search is complete
+   * @return {@code true} if the search is complete, or {@code false} if the time elapsed first
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
+  public boolean waitForCompletion(long timeout) throws InterruptedException {
+    if (timeout <= 0) {
+      completionLatch.await();
+      return true;
+    }
+    return completionLatch.await(timeout, TimeUnit.MILLISECONDS);
   }
 }
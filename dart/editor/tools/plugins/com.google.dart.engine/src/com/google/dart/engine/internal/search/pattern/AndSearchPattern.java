@@ -14,6 +14,9 @@
 package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
 import com.google.dart.engine.search.SearchPattern;
 
@@ -23,7 +26,7 @@ import com.google.dart.engine.search.SearchPattern;
  * 
  * @coverage dart.engine.search
  */
-public class AndSearchPattern implements SearchPattern {
+public class AndSearchPattern implements IndexableSearchPattern {
   /**
    * The patterns used to determine whether this pattern matches an element.
    */
@@ -39,6 +42,19 @@ public class AndSearchPattern implements SearchPattern {
     this.patterns = patterns;
   }
 
+  @Override
+  public void findCandidates(Index index, Relationship relationship,
+      RelationshipCallback callback) {
+    // every matching element is matched by each of the patterns
+    for (SearchPattern pattern : patterns) {
+      if (pattern instanceof IndexableSearchPattern) {
+        ((IndexableSearchPattern) pattern).findCandidates(index, relationship, callback);
+        return;
+      }
+    }
+    index.getDeclarationsWithPrefix(relationship, "", callback);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     MatchQuality highestQuality = null;
@@ -14,8 +14,10 @@
 package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
 import com.google.dart.engine.utilities.general.CharOperation;
 
 /**
@@ -25,7 +27,7 @@ import com.google.dart.engine.utilities.general.CharOperation;
  * 
  * @coverage dart.engine.search
  */
-public class CamelCaseSearchPattern implements SearchPattern {
+public class CamelCaseSearchPattern implements IndexableSearchPattern {
   /**
    * The pattern that matching elements must match.
    */
@@ -50,6 +52,12 @@ public class CamelCaseSearchPattern implements SearchPattern {
     this.samePartCount = samePartCount;
   }
 
+  @Override
+  public void findCandidates(Index index, Relationship relationship,
+      RelationshipCallback callback) {
+    index.getDeclarationsWithCamelCasePattern(relationship, new String(pattern), callback);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     String name = element.getDisplayName();
@@ -14,8 +14,10 @@
 package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
 
 /**
  * Instances of the class <code>ExactSearchPattern</code> implement a search pattern that matches
@@ -23,7 +25,7 @@ import com.google.dart.engine.search.SearchPattern;
  * 
  * @coverage dart.engine.search
  */
-public class ExactSearchPattern implements SearchPattern {
+public class ExactSearchPattern implements IndexableSearchPattern {
   /**
    * The identifier that matching elements must be equal to.
    */
@@ -46,6 +48,12 @@ public class ExactSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public void findCandidates(Index index, Relationship relationship,
+      RelationshipCallback callback) {
+    index.getDeclarationsWithPrefix(relationship, identifier, callback);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     String name = element.getDisplayName();
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.search.pattern;
+
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.search.SearchPattern;
+
+/**
+ * The interface <code>IndexableSearchPattern</code> defines the behavior of search patterns that
+ * can use the declaration-name index of an {@link Index} to find the declarations they might match,
+ * rather than being matched against every declaration.
+ * 
+ * @coverage dart.engine.search
+ */
+public interface IndexableSearchPattern extends SearchPattern {
+  /**
+   * Ask the given index for the locations of the declarations that have the given relationship with
+   * the universe and whose names might match this pattern. The callback will be invoked exactly
+   * once. The locations passed to it include every declaration matching this pattern, but may also
+   * include some that do not match it.
+   * 
+   * @param index the index to be asked for the declarations
+   * @param relationship the relationship between the universe and the declarations
+   * @param callback the callback that will be invoked when the locations are found
+   */
+  void findCandidates(Index index, Relationship relationship, RelationshipCallback callback);
+}
@@ -14,8 +14,10 @@
 package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
 
 import static org.apache.commons.lang3.StringUtils.startsWith;
 import static org.apache.commons.lang3.StringUtils.startsWithIgnoreCase;
@@ -26,7 +28,7 @@ import static org.apache.commons.lang3.StringUtils.startsWithIgnoreCase;
  * 
  * @coverage dart.engine.search
  */
-public class PrefixSearchPattern implements SearchPattern {
+public class PrefixSearchPattern implements IndexableSearchPattern {
   /**
    * The prefix that matching elements must start with.
    */
@@ -49,6 +51,12 @@ public class PrefixSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public void findCandidates(Index index, Relationship relationship,
+      RelationshipCallback callback) {
+    index.getDeclarationsWithPrefix(relationship, prefix, callback);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
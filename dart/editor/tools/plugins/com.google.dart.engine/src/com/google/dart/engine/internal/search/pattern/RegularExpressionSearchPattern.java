@@ -14,8 +14,10 @@
 package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
 
 import java.util.regex.Pattern;
 
@@ -25,12 +27,55 @@ import java.util.regex.Pattern;
  * 
  * @coverage dart.engine.search
  */
-public class RegularExpressionSearchPattern implements SearchPattern {
+public class RegularExpressionSearchPattern implements IndexableSearchPattern {
+  /**
+   * Return the longest string that the names matched by the given regular expression must start
+   * with, ignoring case. Only the letters, digits and underscores at the start of the regular
+   * expression are considered, and an empty string is returned if the regular expression contains
+   * an alternation.
+   * 
+   * @param regularExpression the regular expression whose literal prefix is to be returned
+   * @return the literal prefix of the names matched by the regular expression
+   */
+  private static String getLiteralPrefix(String regularExpression) {
+    if (regularExpression.indexOf('|') != -1) {
+      return "";
+    }
+    int length = 0;
+    while (length < regularExpression.length()
+        && isLiteralCharacter(regularExpression.charAt(length))) {
+      length++;
+    }
+    // the last character might be optional or repeated
+    if (length < regularExpression.length() && length > 0) {
+      char next = regularExpression.charAt(length);
+      if (next == '?' || next == '*' || next == '{') {
+        length--;
+      }
+    }
+    return regularExpression.substring(0, length);
+  }
+
+  /**
+   * Return {@code true} if the given character in a regular expression matches only itself.
+   * 
+   * @param c the character being tested
+   * @return {@code true} if the character matches only itself
+   */
+  private static boolean isLiteralCharacter(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
   /**
    * The regular expression pattern that matching elements must match.
    */
   private Pattern pattern;
 
+  /**
+   * The string that the names of matching elements must start with, ignoring case.
+   */
+  private final String literalPrefix;
+
   /**
    * Initialize a newly created search pattern to match elements whose names begin with the given
    * prefix.
@@ -40,6 +85,13 @@ public class RegularExpressionSearchPattern implements SearchPattern {
    */
   public RegularExpressionSearchPattern(String regularExpression, boolean caseSensitive) {
     pattern = Pattern.compile(regularExpression, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+    literalPrefix = getLiteralPrefix(regularExpression);
+  }
+
+  @Override
+  public void findCandidates(Index index, Relationship relationship,
+      RelationshipCallback callback) {
+    index.getDeclarationsWithPrefix(relationship, literalPrefix, callback);
   }
 
   @Override
@@ -14,8 +14,10 @@
 package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
-import com.google.dart.engine.search.SearchPattern;
 import com.google.dart.engine.utilities.general.CharOperation;
 
 /**
@@ -26,7 +28,7 @@ import com.google.dart.engine.utilities.general.CharOperation;
  * 
  * @coverage dart.engine.search
  */
-public class WildcardSearchPattern implements SearchPattern {
+public class WildcardSearchPattern implements IndexableSearchPattern {
   /**
    * The pattern that matching elements must match.
    */
@@ -49,6 +51,16 @@ public class WildcardSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  @Override
+  public void findCandidates(Index index, Relationship relationship,
+      RelationshipCallback callback) {
+    int length = 0;
+    while (length < pattern.length && pattern[length] != '*' && pattern[length] != '?') {
+      length++;
+    }
+    index.getDeclarationsWithPrefix(relationship, new String(pattern, 0, length), callback);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
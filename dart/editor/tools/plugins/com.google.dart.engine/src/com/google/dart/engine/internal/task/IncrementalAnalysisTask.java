@@ -13,24 +13,52 @@
  */
 package com.google.dart.engine.internal.task;
 
+import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.ClassDeclaration;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.FunctionBody;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.FunctionExpression;
+import com.google.dart.engine.ast.MethodDeclaration;
+import com.google.dart.engine.ast.visitor.NodeLocator;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.error.BooleanErrorListener;
+import com.google.dart.engine.error.ErrorType;
 import com.google.dart.engine.internal.context.IncrementalAnalysisCache;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.internal.context.RecordingErrorListener;
+import com.google.dart.engine.internal.error.ErrorReporter;
+import com.google.dart.engine.internal.hint.BestPracticesVerifier;
+import com.google.dart.engine.internal.hint.Dart2JSVerifier;
+import com.google.dart.engine.internal.hint.DeadCodeVerifier;
+import com.google.dart.engine.internal.hint.ToDoFinder;
 import com.google.dart.engine.internal.resolver.IncrementalResolver;
+import com.google.dart.engine.internal.resolver.InheritanceManager;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.verifier.ConstantVerifier;
+import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.parser.IncrementalParser;
 import com.google.dart.engine.scanner.CharSequenceReader;
 import com.google.dart.engine.scanner.CharacterReader;
 import com.google.dart.engine.scanner.IncrementalScanner;
+import com.google.dart.engine.scanner.Scanner;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import java.util.ArrayList;
 
 /**
  * Instances of the class {@code IncrementalAnalysisTask} incrementally update existing analysis.
+ * <p>
+ * Only changes that are contained in the body of a single method or top-level function are
+ * analyzed incrementally. The body is re-parsed as needed and then re-resolved, and if the errors
+ * associated with the original compilation unit are known, the errors and hints within the body are
+ * re-computed and merged with the errors outside the body.
  */
 public class IncrementalAnalysisTask extends AnalysisTask {
 
@@ -44,6 +72,25 @@ public class IncrementalAnalysisTask extends AnalysisTask {
    */
   private CompilationUnit updatedUnit;
 
+  /**
+   * The errors associated with the updated compilation unit, or {@code null} if the errors could
+   * not be updated.
+   */
+  private AnalysisError[] updatedErrors;
+
+  /**
+   * The line information for the updated contents, or {@code null} if the errors could not be
+   * updated.
+   */
+  private LineInfo lineInfo;
+
+  /**
+   * The resolver used to re-resolve the body, which holds the elements built for the local
+   * declarations of the body until they are installed, or {@code null} if the body was not
+   * re-resolved.
+   */
+  private IncrementalResolver resolver;
+
   /**
    * Initialize a newly created task to perform analysis within the given context.
    * 
@@ -80,6 +127,27 @@ public class IncrementalAnalysisTask extends AnalysisTask {
     return updatedUnit;
   }
 
+  /**
+   * Return the errors associated with the updated compilation unit, or {@code null} if the task has
+   * not yet been performed, could not be performed, if an exception occurred, or if the errors
+   * associated with the original compilation unit were not known.
+   * 
+   * @return the errors associated with the updated compilation unit
+   */
+  public AnalysisError[] getErrors() {
+    return updatedErrors;
+  }
+
+  /**
+   * Return the line information for the updated contents, or {@code null} if the errors associated
+   * with the updated compilation unit were not computed.
+   * 
+   * @return the line information for the updated contents
+   */
+  public LineInfo getLineInfo() {
+    return lineInfo;
+  }
+
   /**
    * Return the source that is to be incrementally analyzed.
    * 
@@ -89,6 +157,18 @@ public class IncrementalAnalysisTask extends AnalysisTask {
     return cache != null ? cache.getSource() : null;
   }
 
+  /**
+   * Record the elements built for the local declarations of the re-resolved body in the element
+   * model, replacing the ones built for the original body. This must only be invoked once the
+   * updated compilation unit has been accepted, because the element model is shared with the
+   * original compilation unit.
+   */
+  public void installElements() {
+    if (resolver != null) {
+      resolver.installBodyElements();
+    }
+  }
+
   @Override
   protected String getTaskDescription() {
     return "incremental analysis " + (cache != null ? cache.getSource() : "null");
@@ -99,53 +179,199 @@ public class IncrementalAnalysisTask extends AnalysisTask {
     if (cache == null) {
       return;
     }
+    Source source = cache.getSource();
+    CompilationUnit originalUnit = cache.getResolvedUnit();
+    int offset = cache.getOffset();
+    int oldLength = cache.getOldLength();
+    int delta = cache.getNewLength() - oldLength;
 
-    // Only handle small changes
-    if (cache.getOldLength() > 0 || cache.getNewLength() > 30) {
+    // Only handle changes within the body of a single method or top-level function
+    ASTNode changedNode;
+    if (oldLength == 0) {
+      changedNode = new NodeLocator(offset).searchWithin(originalUnit);
+    } else {
+      changedNode = new NodeLocator(offset, offset + oldLength - 1).searchWithin(originalUnit);
+    }
+    FunctionBody originalBody = findMemberBody(changedNode);
+    if (originalBody == null || offset <= originalBody.getOffset()
+        || offset + oldLength >= originalBody.getEnd()) {
       return;
     }
 
     // Produce an updated token stream
     CharacterReader reader = new CharSequenceReader(cache.getNewContents());
-    BooleanErrorListener errorListener = new BooleanErrorListener();
-    IncrementalScanner scanner = new IncrementalScanner(cache.getSource(), reader, errorListener);
-    scanner.rescan(
-        cache.getResolvedUnit().getBeginToken(),
-        cache.getOffset(),
-        cache.getOldLength(),
-        cache.getNewLength());
-    if (errorListener.getErrorReported()) {
+    BooleanErrorListener scanErrorListener = new BooleanErrorListener();
+    IncrementalScanner scanner = new IncrementalScanner(source, reader, scanErrorListener);
+    scanner.setSymbolTable(getContext().getSymbolTable());
+    scanner.rescan(originalUnit.getBeginToken(), offset, oldLength, cache.getNewLength());
+    if (scanErrorListener.getErrorReported()) {
       return;
     }
 
     // Produce an updated AST
+    RecordingErrorListener parseErrorListener = new RecordingErrorListener();
     IncrementalParser parser = new IncrementalParser(
-        cache.getSource(),
+        source,
         scanner.getTokenMap(),
-        AnalysisErrorListener.NULL_LISTENER);
-    updatedUnit = parser.reparse(
-        cache.getResolvedUnit(),
+        parseErrorListener);
+    CompilationUnit unit = parser.reparse(
+        originalUnit,
         scanner.getLeftToken(),
         scanner.getRightToken(),
-        cache.getOffset(),
-        cache.getOffset() + cache.getOldLength());
+        offset,
+        offset + oldLength - 1);
+    ASTNode updatedNode = parser.getUpdatedNode();
+    if (unit == null || updatedNode == null) {
+      return;
+    }
+    FunctionBody body = findMemberBody(updatedNode);
+    if (body == null || body.getOffset() != originalBody.getOffset()
+        || body.getEnd() != originalBody.getEnd() + delta) {
+      return;
+    }
 
-    // Update the resolution 
+    // Update the resolution of the body
     TypeProvider typeProvider = getTypeProvider();
-    if (updatedUnit != null && typeProvider != null) {
-      CompilationUnitElement element = updatedUnit.getElement();
-      if (element != null) {
-        LibraryElement library = element.getLibrary();
-        if (library != null) {
-          IncrementalResolver resolver = new IncrementalResolver(
-              library,
-              cache.getSource(),
-              typeProvider,
-              errorListener);
-          resolver.resolve(parser.getUpdatedNode());
+    CompilationUnitElement unitElement = unit.getElement();
+    if (typeProvider == null || unitElement == null || unitElement.getLibrary() == null) {
+      return;
+    }
+    LibraryElement library = unitElement.getLibrary();
+    RecordingErrorListener errorListener = new RecordingErrorListener();
+    resolver = new IncrementalResolver(
+        library,
+        source,
+        typeProvider,
+        errorListener);
+    resolver.resolveBody(body);
+    updatedUnit = unit;
+
+    // Update the errors and hints within the body
+    AnalysisError[] originalErrors = cache.getErrors();
+    if (originalErrors == null) {
+      return;
+    }
+    ErrorReporter errorReporter = new ErrorReporter(errorListener, source);
+    ASTNode declaration = body.getParent() instanceof MethodDeclaration ? body.getParent()
+        : body.getParent().getParent();
+    generateErrors(declaration, errorReporter, library, typeProvider);
+    AnalysisOptions options = getContext().getAnalysisOptions();
+    if (options.getHint()) {
+      generateHints(declaration, body, errorReporter, options);
+    }
+    ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>();
+    for (AnalysisError error : originalErrors) {
+      int errorOffset = error.getOffset();
+      if (errorOffset >= offset + oldLength) {
+        error = error.copyWithDelta(delta);
+        errorOffset += delta;
+      } else if (errorOffset + error.getLength() > offset) {
+        // The error overlaps the text that was replaced
+        continue;
+      }
+      ASTNode replacedNode = error.getErrorCode().getType() == ErrorType.SYNTACTIC_ERROR
+          ? updatedNode : body;
+      if (!contains(replacedNode, errorOffset)) {
+        errors.add(error);
+      }
+    }
+    for (AnalysisError error : parseErrorListener.getErrors()) {
+      errors.add(error);
+    }
+    for (AnalysisError error : errorListener.getErrors(source)) {
+      if (error.getErrorCode().getType() != ErrorType.SYNTACTIC_ERROR
+          && contains(body, error.getOffset())) {
+        errors.add(error);
+      }
+    }
+    updatedErrors = errors.toArray(new AnalysisError[errors.size()]);
+    // The incremental scanner only records the starts of the lines that it rescanned.
+    Scanner lineScanner = new Scanner(
+        source,
+        new CharSequenceReader(cache.getNewContents()),
+        AnalysisErrorListener.NULL_LISTENER);
+    lineScanner.tokenize();
+    lineInfo = new LineInfo(lineScanner.getLineStarts());
+  }
+
+  /**
+   * Return {@code true} if the given offset is within the range of the given node.
+   * 
+   * @param node the node whose range is being tested
+   * @param offset the offset being tested
+   * @return {@code true} if the given offset is within the range of the given node
+   */
+  private boolean contains(ASTNode node, int offset) {
+    return node.getOffset() <= offset && offset < node.getEnd();
+  }
+
+  /**
+   * Return the body of the method or top-level function containing the given node, or {@code null}
+   * if the node is not contained in the body of a method or a top-level function. Constructor
+   * bodies are not included because they cannot be verified without their initializers.
+   * 
+   * @param node the node whose enclosing body is to be returned
+   * @return the body of the method or top-level function containing the given node
+   */
+  private FunctionBody findMemberBody(ASTNode node) {
+    while (node != null) {
+      if (node instanceof FunctionBody) {
+        ASTNode parent = node.getParent();
+        if (parent instanceof MethodDeclaration) {
+          return (FunctionBody) node;
+        } else if (parent instanceof FunctionExpression
+            && parent.getParent() instanceof FunctionDeclaration
+            && parent.getParent().getParent() instanceof CompilationUnit) {
+          return (FunctionBody) node;
         }
       }
+      node = node.getParent();
+    }
+    return null;
+  }
+
+  /**
+   * Compute the errors in the given method or function declaration the same way they are computed
+   * by the {@link GenerateDartErrorsTask}.
+   * 
+   * @param declaration the method or function declaration being verified
+   * @param errorReporter the error reporter to which errors are to be reported
+   * @param library the library containing the declaration
+   * @param typeProvider the type provider used to verify the declaration
+   */
+  private void generateErrors(ASTNode declaration, ErrorReporter errorReporter,
+      LibraryElement library, TypeProvider typeProvider) {
+    declaration.accept(new ConstantVerifier(errorReporter, typeProvider));
+    ErrorVerifier errorVerifier = new ErrorVerifier(
+        errorReporter,
+        library,
+        typeProvider,
+        new InheritanceManager(library));
+    ASTNode parent = declaration.getParent();
+    if (parent instanceof ClassDeclaration) {
+      errorVerifier.initForIncrementalVerification((ClassDeclaration) parent);
+    }
+    declaration.accept(errorVerifier);
+  }
+
+  /**
+   * Compute the hints in the given method or function declaration the same way they are computed
+   * for a compilation unit by the {@link GenerateDartHintsTask}. Hints that depend on the whole
+   * library, such as unused imports, are not re-computed.
+   * 
+   * @param declaration the method or function declaration being analyzed
+   * @param body the body of the declaration
+   * @param errorReporter the error reporter to which hints are to be reported
+   * @param options the analysis options controlling which hints are generated
+   */
+  private void generateHints(ASTNode declaration, FunctionBody body, ErrorReporter errorReporter,
+      AnalysisOptions options) {
+    declaration.accept(new DeadCodeVerifier(errorReporter));
+    if (options.getDart2jsHint()) {
+      declaration.accept(new Dart2JSVerifier(errorReporter));
     }
+    declaration.accept(new BestPracticesVerifier(errorReporter));
+    new ToDoFinder(errorReporter).findInNode(body);
   }
 
   /**
@@ -29,7 +29,9 @@ import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.engine.internal.context.PerformanceStatistics;
 import com.google.dart.engine.internal.context.RecordingErrorListener;
 import com.google.dart.engine.parser.Parser;
+import com.google.dart.engine.scanner.CharBufferReader;
 import com.google.dart.engine.scanner.CharSequenceReader;
+import com.google.dart.engine.scanner.CharacterReader;
 import com.google.dart.engine.scanner.Scanner;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.source.Source;
@@ -229,20 +231,21 @@ public class ParseDartTask extends AnalysisTask {
     Source.ContentReceiver receiver = new Source.ContentReceiver() {
       @Override
       public void accept(CharBuffer contents, long modificationTime) {
-        doScan(contents, modificationTime);
+        doScan(new CharBufferReader(contents), modificationTime);
       }
 
       @Override
       public void accept(String contents, long modificationTime) {
-        doScan(contents, modificationTime);
+        doScan(new CharSequenceReader(contents), modificationTime);
       }
 
-      private void doScan(CharSequence contents, long modificationTime) {
+      private void doScan(CharacterReader reader, long modificationTime) {
         ParseDartTask.this.modificationTime = modificationTime;
         TimeCounterHandle timeCounterScan = PerformanceStatistics.scan.start();
         try {
-          Scanner scanner = new Scanner(source, new CharSequenceReader(contents), errorListener);
+          Scanner scanner = new Scanner(source, reader, errorListener);
           scanner.setPreserveComments(getContext().getAnalysisOptions().getPreserveComments());
+          scanner.setSymbolTable(getContext().getSymbolTable());
           token[0] = scanner.tokenize();
           lineInfo = new LineInfo(scanner.getLineStarts());
         } finally {
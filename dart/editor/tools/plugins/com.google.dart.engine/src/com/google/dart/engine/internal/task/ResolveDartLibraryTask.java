@@ -18,6 +18,8 @@ import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.engine.internal.resolver.LibraryResolver;
 import com.google.dart.engine.source.Source;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Instances of the class {@code ResolveDartLibraryTask} parse a specific Dart library.
  */
@@ -32,6 +34,12 @@ public class ResolveDartLibraryTask extends AnalysisTask {
    */
   private Source librarySource;
 
+  /**
+   * The executor used to resolve independent libraries concurrently, or {@code null} if libraries
+   * are to be resolved one at a time on the thread performing this task.
+   */
+  private ExecutorService executor;
+
   /**
    * The library resolver holding information about the libraries that were resolved.
    */
@@ -46,9 +54,24 @@ public class ResolveDartLibraryTask extends AnalysisTask {
    */
   public ResolveDartLibraryTask(InternalAnalysisContext context, Source unitSource,
       Source librarySource) {
+    this(context, unitSource, librarySource, null);
+  }
+
+  /**
+   * Initialize a newly created task to perform analysis within the given context.
+   * 
+   * @param context the context in which the task is to be performed
+   * @param unitSource the source representing the file whose compilation unit is to be returned
+   * @param librarySource the source representing the library to be resolved
+   * @param executor the executor used to resolve independent libraries concurrently, or
+   *          {@code null} if libraries are to be resolved one at a time
+   */
+  public ResolveDartLibraryTask(InternalAnalysisContext context, Source unitSource,
+      Source librarySource, ExecutorService executor) {
     super(context);
     this.unitSource = unitSource;
     this.librarySource = librarySource;
+    this.executor = executor;
   }
 
   @Override
@@ -93,7 +116,7 @@ public class ResolveDartLibraryTask extends AnalysisTask {
 
   @Override
   protected void internalPerform() throws AnalysisException {
-    resolver = new LibraryResolver(getContext());
+    resolver = new LibraryResolver(getContext(), executor);
     resolver.resolveLibrary(librarySource, true);
   }
 }
@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.type;
+
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class {@code SubtypeCache} records the results of the subtype and more-specific-than tests
+ * performed on interface types so that they do not need to be recomputed every time the same
+ * question is asked.
+ * <p>
+ * Types are not canonicalized, so the results are keyed on a canonical form of each type that
+ * consists of the identity of its element and the canonical forms of its type arguments. Elements
+ * are compared by identity rather than by equality because equal elements from different element
+ * models can have different supertypes. Only types whose type arguments are themselves interface
+ * types or {@code dynamic}, and which provide an argument for every type parameter of their class,
+ * are cached, so the cached results depend only on the class hierarchy. The recorded results only
+ * refer to elements weakly, so the cache, which is shared by every analysis context, never keeps
+ * an element model alive.
+ * <p>
+ * Every class whose hierarchy a cached result might depend on is marked with the generation of the
+ * table holding the result. A change to the hierarchy of a marked class discards every cached
+ * result, but changes to classes that no cached result depends on, which is what happens while the
+ * element model of a library is being built, leave the cached results in place.
+ * <p>
+ * The cache is safe to use from multiple threads. Results are recorded in the table that was
+ * current when the question was asked, so a result computed while the hierarchy was changing is
+ * never visible after the cache has been invalidated.
+ * 
+ * @coverage dart.engine.type
+ */
+public final class SubtypeCache {
+  /**
+   * Instances of the class {@code Query} represent a single question asked of the cache.
+   */
+  public static final class Query {
+    /**
+     * The table that was current when the question was asked.
+     */
+    private final Table table;
+
+    /**
+     * The key identifying the question.
+     */
+    private final RelationKey key;
+
+    /**
+     * Initialize a newly created query.
+     * 
+     * @param table the table that was current when the question was asked
+     * @param key the key identifying the question
+     */
+    private Query(Table table, RelationKey key) {
+      this.table = table;
+      this.key = key;
+    }
+
+    /**
+     * Return the cached answer to the question, or {@code null} if it has not been cached.
+     * 
+     * @return the cached answer to the question
+     */
+    public Boolean getResult() {
+      Boolean result = table.results.get(key);
+      if (result == null) {
+        missCount.incrementAndGet();
+      } else {
+        hitCount.incrementAndGet();
+      }
+      return result;
+    }
+
+    /**
+     * Record the answer to the question.
+     * 
+     * @param result the answer to the question
+     */
+    public void setResult(boolean result) {
+      if (table.results.put(key.toRecordedKey(), Boolean.valueOf(result)) == null
+          && table.size.incrementAndGet() > MAX_SIZE) {
+        // Start over rather than tracking which results are the least recently used.
+        replaceTable(table);
+      }
+    }
+  }
+
+  /**
+   * Instances of the class {@code RelationKey} identify a question about two types.
+   */
+  private static final class RelationKey {
+    private final int relation;
+
+    private final TypeKey firstType;
+
+    private final TypeKey secondType;
+
+    private final int hashCode;
+
+    RelationKey(int relation, TypeKey firstType, TypeKey secondType) {
+      this.relation = relation;
+      this.firstType = firstType;
+      this.secondType = secondType;
+      hashCode = (relation * 31 + firstType.hashCode) * 31 + secondType.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof RelationKey)) {
+        return false;
+      }
+      RelationKey key = (RelationKey) object;
+      return relation == key.relation && firstType.equals(key.firstType)
+          && secondType.equals(key.secondType);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    /**
+     * Return a key equal to this key that only refers to elements weakly.
+     * 
+     * @return a key equal to this key that can be recorded in a table
+     */
+    RelationKey toRecordedKey() {
+      return new RelationKey(relation, firstType.toRecordedKey(), secondType.toRecordedKey());
+    }
+  }
+
+  /**
+   * Instances of the class {@code Table} hold the results recorded since the cache was last
+   * invalidated.
+   */
+  private static final class Table {
+    private final ConcurrentHashMap<RelationKey, Boolean> results = new ConcurrentHashMap<RelationKey, Boolean>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * The generation of this table, with which the classes whose hierarchy the results in this
+     * table depend on are marked.
+     */
+    private final int generation;
+
+    Table(int generation) {
+      this.generation = generation;
+    }
+  }
+
+  /**
+   * Instances of the class {@code TypeKey} are the canonical form of a type. The keys used to look
+   * up results refer to their element directly, but the keys recorded in a table only refer to it
+   * weakly. A recorded key whose element has been garbage collected is not equal to any other key.
+   */
+  private static final class TypeKey {
+    /**
+     * The element of the type, or {@code null} if the type is {@code dynamic} or if this key has
+     * been recorded in a table.
+     */
+    private final ClassElement element;
+
+    /**
+     * A weak reference to the element of the type if this key has been recorded in a table, or
+     * {@code null} otherwise.
+     */
+    private final WeakReference<ClassElement> elementReference;
+
+    private final TypeKey[] arguments;
+
+    private final int hashCode;
+
+    TypeKey(ClassElement element, TypeKey[] arguments) {
+      this.element = element;
+      this.elementReference = null;
+      this.arguments = arguments;
+      hashCode = System.identityHashCode(element) * 31 + Arrays.hashCode(arguments);
+    }
+
+    /**
+     * Initialize a newly created key to be a copy of the given key that only refers to its elements
+     * weakly.
+     * 
+     * @param key the key being copied
+     */
+    private TypeKey(TypeKey key) {
+      element = null;
+      elementReference = new WeakReference<ClassElement>(key.element);
+      arguments = new TypeKey[key.arguments.length];
+      for (int i = 0; i < arguments.length; i++) {
+        arguments[i] = key.arguments[i].toRecordedKey();
+      }
+      hashCode = key.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof TypeKey)) {
+        return false;
+      }
+      TypeKey key = (TypeKey) object;
+      if (hashCode != key.hashCode || this == DYNAMIC_KEY || key == DYNAMIC_KEY) {
+        return false;
+      }
+      ClassElement element = getElement();
+      return element != null && element == key.getElement()
+          && Arrays.equals(arguments, key.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    /**
+     * Return the element of the type, or {@code null} if the type is {@code dynamic} or if the
+     * element has been garbage collected.
+     * 
+     * @return the element of the type
+     */
+    ClassElement getElement() {
+      return elementReference != null ? elementReference.get() : element;
+    }
+
+    /**
+     * Return a key equal to this key that only refers to elements weakly.
+     * 
+     * @return a key equal to this key that can be recorded in a table
+     */
+    TypeKey toRecordedKey() {
+      if (this == DYNAMIC_KEY || elementReference != null) {
+        return this;
+      }
+      return new TypeKey(this);
+    }
+  }
+
+  /**
+   * The relation "is a subtype of".
+   */
+  public static final int SUBTYPE = 0;
+
+  /**
+   * The relation "is more specific than", in which {@code dynamic} is not more specific than other
+   * types.
+   */
+  public static final int MORE_SPECIFIC = 1;
+
+  /**
+   * The relation "is more specific than", in which {@code dynamic} is more specific than any type.
+   */
+  public static final int MORE_SPECIFIC_WITH_DYNAMIC = 2;
+
+  /**
+   * The maximum number of results that are cached before the cache is emptied.
+   */
+  private static final int MAX_SIZE = 1 << 16;
+
+  /**
+   * The canonical form of the type {@code dynamic}.
+   */
+  private static final TypeKey DYNAMIC_KEY = new TypeKey(null, new TypeKey[0]);
+
+  /**
+   * The table holding the results recorded since the cache was last invalidated.
+   */
+  private static volatile Table currentTable = new Table(0);
+
+  /**
+   * A flag indicating whether results should be cached.
+   */
+  private static volatile boolean enabled = true;
+
+  /**
+   * The number of questions whose answer was found in the cache.
+   */
+  private static final AtomicLong hitCount = new AtomicLong();
+
+  /**
+   * The number of questions whose answer was not found in the cache.
+   */
+  private static final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * Return a query representing the question of whether the first type is related to the second
+   * type by the given relation, or {@code null} if the answer to the question cannot be cached.
+   * 
+   * @param relation the relation being tested, one of {@link #SUBTYPE}, {@link #MORE_SPECIFIC} or
+   *          {@link #MORE_SPECIFIC_WITH_DYNAMIC}
+   * @param firstType the type on the left of the relation
+   * @param secondType the type on the right of the relation
+   * @return the query used to access the cached answer
+   */
+  public static Query createQuery(int relation, Type firstType, Type secondType) {
+    if (!enabled || !(firstType instanceof InterfaceTypeImpl)
+        || !(secondType instanceof InterfaceTypeImpl)) {
+      return null;
+    }
+    TypeKey firstKey = createKey(firstType);
+    if (firstKey == null) {
+      return null;
+    }
+    TypeKey secondKey = createKey(secondType);
+    if (secondKey == null) {
+      return null;
+    }
+    Table table = currentTable;
+    markHierarchy((InterfaceType) firstType, table.generation);
+    markHierarchy((InterfaceType) secondType, table.generation);
+    return new Query(table, new RelationKey(relation, firstKey, secondKey));
+  }
+
+  /**
+   * Return the number of questions whose answer was found in the cache.
+   * 
+   * @return the number of questions whose answer was found in the cache
+   */
+  public static long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Return the number of questions whose answer was not found in the cache.
+   * 
+   * @return the number of questions whose answer was not found in the cache
+   */
+  public static long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Record that the hierarchy of the given class has changed. If any cached result might depend
+   * on the hierarchy of the class, all of the cached results are discarded. This method must be
+   * invoked after any change to the supertypes, type parameters or members of a class.
+   * 
+   * @param element the class whose hierarchy has changed
+   */
+  public static void hierarchyChanged(ClassElementImpl element) {
+    Table table = currentTable;
+    if (element.getSubtypeCacheGeneration() == table.generation) {
+      // A query might still be computing its answer using the old hierarchy.
+      replaceTable(table);
+    }
+  }
+
+  /**
+   * Return {@code true} if results are being cached.
+   * 
+   * @return {@code true} if results are being cached
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Set whether results should be cached. Disabling the cache is only expected to be useful when
+   * measuring its effect.
+   * 
+   * @param enabled {@code true} if results should be cached
+   */
+  public static void setEnabled(boolean enabled) {
+    SubtypeCache.enabled = enabled;
+    replaceTable(currentTable);
+  }
+
+  /**
+   * Return the canonical form of the given type, or {@code null} if results involving the type are
+   * not cached.
+   * 
+   * @param type the type whose canonical form is to be returned
+   * @return the canonical form of the given type
+   */
+  private static TypeKey createKey(Type type) {
+    if (type instanceof DynamicTypeImpl) {
+      return DYNAMIC_KEY;
+    } else if (!(type instanceof InterfaceTypeImpl)) {
+      return null;
+    }
+    InterfaceTypeImpl interfaceType = (InterfaceTypeImpl) type;
+    ClassElement element = interfaceType.getElement();
+    Type[] typeArguments = interfaceType.getTypeArguments();
+    int argumentCount = typeArguments.length;
+    if (element == null || argumentCount != element.getTypeParameters().length) {
+      // The supertypes of a raw type still refer to the type parameters of its class.
+      return null;
+    }
+    TypeKey[] arguments = new TypeKey[argumentCount];
+    for (int i = 0; i < argumentCount; i++) {
+      arguments[i] = createKey(typeArguments[i]);
+      if (arguments[i] == null) {
+        return null;
+      }
+    }
+    return new TypeKey(element, arguments);
+  }
+
+  /**
+   * Mark the class of the given type, the classes of its type arguments and, transitively, the
+   * classes of their supertypes with the given generation. Classes that are already marked with
+   * the generation are not visited again.
+   * 
+   * @param type the type whose hierarchy is to be marked
+   * @param generation the generation of the table in which results are being recorded
+   */
+  private static void markHierarchy(InterfaceType type, int generation) {
+    for (Type argument : type.getTypeArguments()) {
+      if (argument instanceof InterfaceType) {
+        markHierarchy((InterfaceType) argument, generation);
+      }
+    }
+    ClassElement element = type.getElement();
+    if (!(element instanceof ClassElementImpl)) {
+      return;
+    }
+    ClassElementImpl classElement = (ClassElementImpl) element;
+    if (classElement.getSubtypeCacheGeneration() == generation) {
+      return;
+    }
+    classElement.setSubtypeCacheGeneration(generation);
+    InterfaceType supertype = classElement.getSupertype();
+    if (supertype != null) {
+      markHierarchy(supertype, generation);
+    }
+    for (InterfaceType mixin : classElement.getMixins()) {
+      markHierarchy(mixin, generation);
+    }
+    for (InterfaceType interfaceType : classElement.getInterfaces()) {
+      markHierarchy(interfaceType, generation);
+    }
+  }
+
+  /**
+   * Replace the given table with an empty table of the next generation, unless it has already been
+   * replaced.
+   * 
+   * @param table the table to be replaced
+   */
+  private static synchronized void replaceTable(Table table) {
+    if (currentTable == table) {
+      currentTable = new Table(table.generation + 1);
+    }
+  }
+
+  /**
+   * Prevent the creation of instances of this class.
+   */
+  private SubtypeCache() {
+  }
+}
@@ -206,6 +206,18 @@ public abstract class TypeImpl implements Type {
    */
   public final boolean isMoreSpecificThan(Type type, boolean withDynamic,
       Set<TypePair> visitedTypePairs) {
+    // Only answers that were not cut short by the check for infinite loops can be cached
+    SubtypeCache.Query query = null;
+    if (visitedTypePairs.isEmpty()) {
+      query = SubtypeCache.createQuery(withDynamic ? SubtypeCache.MORE_SPECIFIC_WITH_DYNAMIC
+          : SubtypeCache.MORE_SPECIFIC, this, type);
+      if (query != null) {
+        Boolean cachedResult = query.getResult();
+        if (cachedResult != null) {
+          return cachedResult.booleanValue();
+        }
+      }
+    }
     // If the visitedTypePairs already has the pair (this, type), return false
     TypePair typePair = new TypePair(this, type);
     if (!visitedTypePairs.add(typePair)) {
@@ -213,6 +225,9 @@ public abstract class TypeImpl implements Type {
     }
     boolean result = internalIsMoreSpecificThan(type, withDynamic, visitedTypePairs);
     visitedTypePairs.remove(typePair);
+    if (query != null) {
+      query.setResult(result);
+    }
     return result;
   }
 
@@ -238,6 +253,17 @@ public abstract class TypeImpl implements Type {
    * @return {@code true} if this type is a subtype of the given type
    */
   public final boolean isSubtypeOf(Type type, Set<TypePair> visitedTypePairs) {
+    // Only answers that were not cut short by the check for infinite loops can be cached
+    SubtypeCache.Query query = null;
+    if (visitedTypePairs.isEmpty()) {
+      query = SubtypeCache.createQuery(SubtypeCache.SUBTYPE, this, type);
+      if (query != null) {
+        Boolean cachedResult = query.getResult();
+        if (cachedResult != null) {
+          return cachedResult.booleanValue();
+        }
+      }
+    }
     // If the visitedTypePairs already has the pair (this, type), return false
     TypePair typePair = new TypePair(this, type);
     if (!visitedTypePairs.add(typePair)) {
@@ -245,6 +271,9 @@ public abstract class TypeImpl implements Type {
     }
     boolean result = internalIsSubtypeOf(type, visitedTypePairs);
     visitedTypePairs.remove(typePair);
+    if (query != null) {
+      query.setResult(result);
+    }
     return result;
   }
 
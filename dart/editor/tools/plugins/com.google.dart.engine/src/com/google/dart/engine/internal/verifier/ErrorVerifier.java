@@ -365,6 +365,17 @@ public class ErrorVerifier extends RecursiveASTVisitor<Void> {
         typeProvider.getDoubleType(), boolType, typeProvider.getStringType()};
   }
 
+  /**
+   * Prepare this verifier to verify a member of the given class without visiting the class itself,
+   * as is done when a single method is re-verified. The class-level checks are not performed.
+   * 
+   * @param node the declaration of the class containing the member to be verified
+   */
+  public void initForIncrementalVerification(ClassDeclaration node) {
+    isInNativeClass = node.getNativeClause() != null;
+    enclosingClass = node.getElement();
+  }
+
   @Override
   public Void visitArgumentDefinitionTest(ArgumentDefinitionTest node) {
     checkForArgumentDefinitionTestNonParameter(node);
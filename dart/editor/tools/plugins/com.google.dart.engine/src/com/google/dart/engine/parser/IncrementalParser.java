@@ -14,8 +14,16 @@
 package com.google.dart.engine.parser;
 
 import com.google.dart.engine.ast.ASTNode;
+import com.google.dart.engine.ast.DoStatement;
+import com.google.dart.engine.ast.ForEachStatement;
+import com.google.dart.engine.ast.ForStatement;
+import com.google.dart.engine.ast.FunctionBody;
+import com.google.dart.engine.ast.SwitchStatement;
+import com.google.dart.engine.ast.WhileStatement;
 import com.google.dart.engine.ast.visitor.NodeLocator;
+import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.internal.context.RecordingErrorListener;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.scanner.TokenType;
 import com.google.dart.engine.source.Source;
@@ -113,19 +121,24 @@ public class IncrementalParser {
       return null;
     }
     //
-    // Parse the appropriate AST structure starting at the appropriate place.
+    // Parse the appropriate AST structure starting at the appropriate place. The errors found while
+    // parsing a node that is then discarded are discarded with it.
     //
-    Parser parser = new Parser(source, errorListener);
-    parser.setCurrentToken(parseToken);
+    RecordingErrorListener attemptListener = null;
     while (newNode == null) {
       ASTNode parent = oldNode.getParent();
       if (parent == null) {
         parseToken = findFirstToken(parseToken);
+        Parser parser = new Parser(source, errorListener);
         parser.setCurrentToken(parseToken);
         return (E) parser.parseCompilationUnit();
       }
       boolean advanceToParent = false;
       try {
+        attemptListener = new RecordingErrorListener();
+        Parser parser = new Parser(source, attemptListener);
+        parser.setCurrentToken(parseToken);
+        setParserContext(parser, oldNode);
         IncrementalParseDispatcher dispatcher = new IncrementalParseDispatcher(parser, oldNode);
         newNode = parent.accept(dispatcher);
         //
@@ -147,10 +160,12 @@ public class IncrementalParser {
         oldNode = parent;
         originalOffset = oldNode.getOffset();
         parseToken = findTokenAt(parseToken, originalOffset);
-        parser.setCurrentToken(parseToken);
       }
     }
     updatedNode = newNode;
+    for (AnalysisError error : attemptListener.getErrors()) {
+      errorListener.onError(error);
+    }
     //
     // Replace the old node with the new node in a copy of the original AST structure.
     //
@@ -191,4 +206,27 @@ public class IncrementalParser {
     }
     return firstToken;
   }
+
+  /**
+   * Prepare the given parser to parse a replacement for the given node by telling it whether the
+   * node is in the body of a loop or in a switch statement within the enclosing function body.
+   * 
+   * @param parser the parser that will parse the replacement
+   * @param node the node being replaced
+   */
+  private void setParserContext(Parser parser, ASTNode node) {
+    boolean inLoop = false;
+    boolean inSwitch = false;
+    ASTNode parent = node.getParent();
+    while (parent != null && !(parent instanceof FunctionBody)) {
+      if (parent instanceof DoStatement || parent instanceof ForEachStatement
+          || parent instanceof ForStatement || parent instanceof WhileStatement) {
+        inLoop = true;
+      } else if (parent instanceof SwitchStatement) {
+        inSwitch = true;
+      }
+      parent = parent.getParent();
+    }
+    parser.setInLoopAndSwitch(inLoop, inSwitch);
+  }
 }
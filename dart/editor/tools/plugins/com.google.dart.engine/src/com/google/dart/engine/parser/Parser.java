@@ -1469,6 +1469,19 @@ public class Parser {
     this.currentToken = currentToken;
   }
 
+  /**
+   * Set whether the tokens about to be parsed are in the body of a loop and whether they are in a
+   * switch statement. This is used when a statement is re-parsed without re-parsing the function
+   * body containing it.
+   * 
+   * @param inLoop {@code true} if the tokens are in the body of a loop
+   * @param inSwitch {@code true} if the tokens are in a switch statement
+   */
+  void setInLoopAndSwitch(boolean inLoop, boolean inSwitch) {
+    this.inLoop = inLoop;
+    this.inSwitch = inSwitch;
+  }
+
   /**
    * Advance to the next token in the token stream.
    */
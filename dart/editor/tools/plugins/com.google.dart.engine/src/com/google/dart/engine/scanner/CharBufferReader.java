@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import java.nio.CharBuffer;
+
+/**
+ * Instances of the class {@code CharBufferReader} implement a {@link CharacterReader} that reads
+ * characters from a character buffer. If the buffer is backed by an array, the characters are read
+ * directly from the array.
+ */
+public class CharBufferReader implements CharacterReader {
+  /**
+   * The array backing the buffer, or {@code null} if the buffer is not backed by an accessible
+   * array.
+   */
+  private final char[] array;
+
+  /**
+   * The buffer from which characters will be read, used if the buffer is not backed by an array.
+   */
+  private final CharBuffer buffer;
+
+  /**
+   * The index in the array of the first character of the buffer.
+   */
+  private final int arrayOffset;
+
+  /**
+   * The number of characters in the buffer.
+   */
+  private final int bufferLength;
+
+  /**
+   * The index, relative to the buffer, of the last character that was read.
+   */
+  private int charOffset;
+
+  /**
+   * Initialize a newly created reader to read the characters between the position and the limit of
+   * the given buffer.
+   * 
+   * @param buffer the buffer from which characters will be read
+   */
+  public CharBufferReader(CharBuffer buffer) {
+    if (buffer.hasArray()) {
+      this.array = buffer.array();
+      this.arrayOffset = buffer.arrayOffset() + buffer.position();
+    } else {
+      this.array = null;
+      this.arrayOffset = 0;
+    }
+    this.buffer = buffer.slice();
+    this.bufferLength = buffer.remaining();
+    this.charOffset = -1;
+  }
+
+  @Override
+  public int advance() {
+    if (charOffset + 1 >= bufferLength) {
+      return -1;
+    }
+    charOffset++;
+    if (array != null) {
+      return array[arrayOffset + charOffset];
+    }
+    return buffer.get(charOffset);
+  }
+
+  @Override
+  public int getOffset() {
+    return charOffset;
+  }
+
+  @Override
+  public String getString(int start, int endDelta) {
+    int end = charOffset + 1 + endDelta;
+    if (array != null) {
+      return new String(array, arrayOffset + start, end - start);
+    }
+    return buffer.subSequence(start, end).toString();
+  }
+
+  @Override
+  public String internString(SymbolTable symbolTable, int start, int endDelta) {
+    int end = charOffset + 1 + endDelta;
+    if (array != null) {
+      return symbolTable.intern(array, arrayOffset + start, arrayOffset + end);
+    }
+    return symbolTable.intern(buffer, start, end);
+  }
+
+  @Override
+  public int peek() {
+    if (charOffset + 1 >= bufferLength) {
+      return -1;
+    }
+    if (array != null) {
+      return array[arrayOffset + charOffset + 1];
+    }
+    return buffer.get(charOffset + 1);
+  }
+
+  @Override
+  public void setOffset(int offset) {
+    charOffset = offset;
+  }
+}
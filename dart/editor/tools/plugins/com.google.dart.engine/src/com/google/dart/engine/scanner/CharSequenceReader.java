@@ -62,6 +62,11 @@ public class CharSequenceReader implements CharacterReader {
     return sequence.subSequence(start, charOffset + 1 + endDelta).toString();
   }
 
+  @Override
+  public String internString(SymbolTable symbolTable, int start, int endDelta) {
+    return symbolTable.intern(sequence, start, charOffset + 1 + endDelta);
+  }
+
   @Override
   public int peek() {
     if (charOffset + 1 >= sequence.length()) {
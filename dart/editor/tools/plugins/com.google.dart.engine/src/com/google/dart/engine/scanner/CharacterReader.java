@@ -45,6 +45,21 @@ public interface CharacterReader {
    */
   public String getString(int start, int endDelta);
 
+  /**
+   * Return the canonical string from the given symbol table whose characters are the characters of
+   * the source code between the start offset and the modified current position. Unlike
+   * {@link #getString(int, int)}, no substring is created if the symbol table already contains the
+   * string.
+   * 
+   * @param symbolTable the symbol table used to canonicalize the string
+   * @param start the offset to the beginning of the string, relative to the start of the file
+   * @param endDelta the number of characters after the current location to be included in the
+   *          string, or the number of characters before the current location to be excluded if the
+   *          offset is negative
+   * @return the canonical string for the specified substring of the source code
+   */
+  public String internString(SymbolTable symbolTable, int start, int endDelta);
+
   /**
    * Return the character at the current position without changing the current position.
    * 
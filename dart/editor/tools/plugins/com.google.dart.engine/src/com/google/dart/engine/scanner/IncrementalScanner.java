@@ -233,7 +233,7 @@ public class IncrementalScanner extends Scanner {
     appendToken(copiedToken);
 
     Token originalComment = originalToken.getPrecedingComments();
-    Token copiedComment = originalToken.getPrecedingComments();
+    Token copiedComment = copiedToken.getPrecedingComments();
     while (originalComment != null) {
       tokenMap.put(originalComment, copiedComment);
       originalComment = originalComment.getNext();
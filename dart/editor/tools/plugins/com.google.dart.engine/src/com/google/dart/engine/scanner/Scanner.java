@@ -55,6 +55,12 @@ public class Scanner {
    */
   private boolean preserveComments = true;
 
+  /**
+   * The symbol table used to canonicalize the lexemes of identifiers and numeric literals, or
+   * {@code null} if a new string should be created for every such lexeme.
+   */
+  private SymbolTable symbolTable;
+
   /**
    * The token pointing to the head of the linked list of tokens.
    */
@@ -168,6 +174,17 @@ public class Scanner {
     lineStarts.add(offset - column + 1);
   }
 
+  /**
+   * Set the symbol table used to canonicalize the lexemes of identifiers and numeric literals. The
+   * symbol table can be shared with other scanners, including scanners running on other threads.
+   * 
+   * @param symbolTable the symbol table used to canonicalize lexemes, or {@code null} if a new
+   *          string should be created for every lexeme
+   */
+  public void setSymbolTable(SymbolTable symbolTable) {
+    this.symbolTable = symbolTable;
+  }
+
   /**
    * Scan the source code to produce a list of tokens representing the source.
    * 
@@ -547,6 +564,24 @@ public class Scanner {
     return null;
   }
 
+  /**
+   * Return the lexeme of an identifier or numeric literal, which is the source between the start
+   * offset and the modified current position. The lexeme is canonicalized by the symbol table if
+   * there is one, in which case no new string is created for a lexeme that has already been seen.
+   * 
+   * @param start the offset to the beginning of the lexeme
+   * @param endDelta the number of characters after the current location to be included in the
+   *          lexeme, or the number of characters before the current location to be excluded if the
+   *          offset is negative
+   * @return the lexeme of the identifier or numeric literal
+   */
+  private String getLexeme(int start, int endDelta) {
+    if (symbolTable == null) {
+      return reader.getString(start, endDelta);
+    }
+    return reader.internString(symbolTable, start, endDelta);
+  }
+
   /**
    * Return the source being scanned.
    * 
@@ -702,7 +737,7 @@ public class Scanner {
       next = reader.advance();
     }
     if (!hasDigit) {
-      appendStringToken(TokenType.INT, reader.getString(start, -2));
+      appendStringToken(TokenType.INT, getLexeme(start, -2));
       if ('.' == next) {
         return select(
             '.',
@@ -713,7 +748,7 @@ public class Scanner {
       appendToken(TokenType.PERIOD, reader.getOffset() - 1);
       return bigSwitch(next);
     }
-    appendStringToken(TokenType.DOUBLE, reader.getString(start, next < 0 ? 0 : -1));
+    appendStringToken(TokenType.DOUBLE, getLexeme(start, next < 0 ? 0 : -1));
     return next;
   }
 
@@ -750,7 +785,7 @@ public class Scanner {
         if (!hasDigits) {
           reportError(ScannerErrorCode.MISSING_HEX_DIGIT);
         }
-        appendStringToken(TokenType.HEXADECIMAL, reader.getString(start, next < 0 ? 0 : -1));
+        appendStringToken(TokenType.HEXADECIMAL, getLexeme(start, next < 0 ? 0 : -1));
         return next;
       }
     }
@@ -770,7 +805,7 @@ public class Scanner {
         || ('0' <= next && next <= '9') || next == '_' || (next == '$' && allowDollar)) {
       next = reader.advance();
     }
-    appendStringToken(TokenType.IDENTIFIER, reader.getString(start, next < 0 ? 0 : -1));
+    appendStringToken(TokenType.IDENTIFIER, getLexeme(start, next < 0 ? 0 : -1));
     return next;
   }
 
@@ -1016,7 +1051,7 @@ public class Scanner {
       } else if (next == 'e' || next == 'E') {
         return tokenizeFractionPart(next, start);
       } else {
-        appendStringToken(TokenType.INT, reader.getString(start, next < 0 ? 0 : -1));
+        appendStringToken(TokenType.INT, getLexeme(start, next < 0 ? 0 : -1));
         return next;
       }
     }
@@ -34,7 +34,23 @@ public class StringTokenWithComment extends StringToken {
    * @param precedingComment the first comment in the list of comments that precede this token
    */
   public StringTokenWithComment(TokenType type, String value, int offset, Token precedingComment) {
-    super(type, value, offset);
+    this(type, value, offset, precedingComment, false);
+  }
+
+  /**
+   * Initialize a newly created token to have the given type and offset and to be preceded by the
+   * comments reachable from the given comment.
+   * 
+   * @param type the type of the token
+   * @param value the lexeme represented by this token
+   * @param offset the offset from the beginning of the file to the first character in the token
+   * @param precedingComment the first comment in the list of comments that precede this token
+   * @param isCanonical {@code true} if the value is already the canonical representation of the
+   *          lexeme and does not need to be interned again
+   */
+  StringTokenWithComment(TokenType type, String value, int offset, Token precedingComment,
+      boolean isCanonical) {
+    super(type, value, offset, isCanonical);
     this.precedingComment = precedingComment;
   }
 
@@ -44,7 +60,8 @@ public class StringTokenWithComment extends StringToken {
         getType(),
         getLexeme(),
         getOffset(),
-        copyComments(precedingComment));
+        copyComments(precedingComment),
+        true);
   }
 
   @Override
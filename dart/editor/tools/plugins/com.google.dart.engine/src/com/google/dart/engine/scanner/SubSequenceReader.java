@@ -46,6 +46,11 @@ public class SubSequenceReader extends CharSequenceReader {
     return super.getString(start - offsetDelta, endDelta);
   }
 
+  @Override
+  public String internString(SymbolTable symbolTable, int start, int endDelta) {
+    return super.internString(symbolTable, start - offsetDelta, endDelta);
+  }
+
   @Override
   public void setOffset(int offset) {
     super.setOffset(offset - offsetDelta);
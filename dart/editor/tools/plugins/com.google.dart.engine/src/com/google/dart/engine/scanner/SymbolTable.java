@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.utilities.general.StringUtilities;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Instances of the class {@code SymbolTable} canonicalize the lexemes produced by a
+ * {@link Scanner} so that all of the tokens (and therefore all of the elements) with the same name
+ * share a single string. A lexeme that is already in the table is found directly from the
+ * characters of the source, without creating a substring.
+ * <p>
+ * The strings in the table are the canonical strings returned by
+ * {@link StringUtilities#intern(String)}, so they are identical to the names of elements and to the
+ * lexemes of tokens that were created without a symbol table.
+ * <p>
+ * The strings are only weakly referenced by the table, so a string is removed from the table once
+ * no token or element uses it any longer, rather than being retained for as long as the table is.
+ * This allows a table to be shared by all of the sources in an analysis context without holding on
+ * to the names of sources that have been flushed from the cache.
+ * <p>
+ * A symbol table can be shared by any number of scanners running concurrently. Lookups do not
+ * acquire a lock; only the addition of a new string is synchronized.
+ * 
+ * @coverage dart.engine.parser
+ */
+public final class SymbolTable {
+  /**
+   * Instances of the class {@code Entry} represent a weak reference to a single string in a bucket
+   * of the table. Entries are immutable so that they can be safely read without synchronization.
+   */
+  private static final class Entry extends WeakReference<String> {
+    /**
+     * The hash code of the string.
+     */
+    private final int hash;
+
+    /**
+     * The next entry in the same bucket, or {@code null} if this is the last entry.
+     */
+    private final Entry next;
+
+    /**
+     * Initialize a newly created entry.
+     * 
+     * @param string the string represented by this entry
+     * @param hash the hash code of the string
+     * @param next the next entry in the same bucket
+     * @param queue the queue with which the entry is registered
+     */
+    public Entry(String string, int hash, Entry next, ReferenceQueue<String> queue) {
+      super(string, queue);
+      this.hash = hash;
+      this.next = next;
+    }
+  }
+
+  /**
+   * The initial number of buckets in the table. Must be a power of two.
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * The buckets of the table. The array is replaced, never modified in place, when the table grows;
+   * the individual buckets are only ever replaced by a new chain, either with an entry added or
+   * with the entries for collected strings removed, so the chains themselves are never modified.
+   */
+  private volatile Entry[] buckets = new Entry[INITIAL_CAPACITY];
+
+  /**
+   * The queue to which entries are added once their strings have been garbage collected.
+   */
+  private final ReferenceQueue<String> queue = new ReferenceQueue<String>();
+
+  /**
+   * The number of entries in the table, including entries whose strings have been garbage
+   * collected but that have not yet been removed.
+   */
+  private int size = 0;
+
+  /**
+   * Initialize a newly created, empty symbol table.
+   */
+  public SymbolTable() {
+    super();
+  }
+
+  /**
+   * Return the canonical string whose characters are the characters in the given array between
+   * the given start (inclusive) and end (exclusive) indices.
+   * 
+   * @param chars the array containing the characters of the string
+   * @param start the index of the first character of the string
+   * @param end the index of the character after the last character of the string
+   * @return the canonical string with the given characters
+   */
+  public String intern(char[] chars, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    Entry[] table = buckets;
+    for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+      String string = entry.get();
+      if (entry.hash == hash && matches(string, chars, start, end)) {
+        return string;
+      }
+    }
+    return add(new String(chars, start, end - start), hash);
+  }
+
+  /**
+   * Return the canonical string whose characters are the characters in the given sequence between
+   * the given start (inclusive) and end (exclusive) indices.
+   * 
+   * @param sequence the sequence containing the characters of the string
+   * @param start the index of the first character of the string
+   * @param end the index of the character after the last character of the string
+   * @return the canonical string with the given characters
+   */
+  public String intern(CharSequence sequence, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + sequence.charAt(i);
+    }
+    Entry[] table = buckets;
+    for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+      String string = entry.get();
+      if (entry.hash == hash && matches(string, sequence, start, end)) {
+        return string;
+      }
+    }
+    return add(sequence.subSequence(start, end).toString(), hash);
+  }
+
+  /**
+   * Return the canonical string that is equal to the given string.
+   * 
+   * @param string the string to be canonicalized
+   * @return the canonical string that is equal to the given string
+   */
+  public String intern(String string) {
+    int hash = string.hashCode();
+    Entry[] table = buckets;
+    for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+      String entryString = entry.get();
+      if (entry.hash == hash && string.equals(entryString)) {
+        return entryString;
+      }
+    }
+    return add(string, hash);
+  }
+
+  /**
+   * Return the number of strings in the table.
+   * 
+   * @return the number of strings in the table
+   */
+  public synchronized int size() {
+    removeCollectedEntries();
+    return size;
+  }
+
+  /**
+   * Add the given string to the table unless an equal string was added by another thread since the
+   * unsynchronized lookup failed, and return the canonical string.
+   * 
+   * @param string the string to be added
+   * @param hash the hash code of the string
+   * @return the canonical string that is equal to the given string
+   */
+  private synchronized String add(String string, int hash) {
+    removeCollectedEntries();
+    Entry[] table = buckets;
+    int index = hash & (table.length - 1);
+    for (Entry entry = table[index]; entry != null; entry = entry.next) {
+      String entryString = entry.get();
+      if (entry.hash == hash && string.equals(entryString)) {
+        return entryString;
+      }
+    }
+    string = StringUtilities.intern(string);
+    table[index] = new Entry(string, hash, table[index], queue);
+    size++;
+    if (size > table.length - (table.length >> 2)) {
+      grow(table);
+    }
+    return string;
+  }
+
+  /**
+   * Replace the given bucket array by one that is twice as large, dropping the entries whose
+   * strings have been garbage collected. The new array is fully populated before it is published so
+   * that concurrent lookups always see a complete table.
+   * 
+   * @param table the current bucket array
+   */
+  private void grow(Entry[] table) {
+    Entry[] newTable = new Entry[table.length * 2];
+    int mask = newTable.length - 1;
+    int newSize = 0;
+    for (Entry bucket : table) {
+      for (Entry entry = bucket; entry != null; entry = entry.next) {
+        String string = entry.get();
+        if (string != null) {
+          int index = entry.hash & mask;
+          newTable[index] = new Entry(string, entry.hash, newTable[index], queue);
+          newSize++;
+        }
+      }
+    }
+    size = newSize;
+    buckets = newTable;
+  }
+
+  /**
+   * Return {@code true} if the given string consists of the characters in the given array between
+   * the given start (inclusive) and end (exclusive) indices.
+   * 
+   * @param string the string being compared
+   * @param chars the array containing the characters
+   * @param start the index of the first character
+   * @param end the index of the character after the last character
+   * @return {@code true} if the string consists of the given characters
+   */
+  private boolean matches(String string, char[] chars, int start, int end) {
+    if (string == null || string.length() != end - start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (string.charAt(i - start) != chars[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return {@code true} if the given string consists of the characters in the given sequence
+   * between the given start (inclusive) and end (exclusive) indices.
+   * 
+   * @param string the string being compared
+   * @param sequence the sequence containing the characters
+   * @param start the index of the first character
+   * @param end the index of the character after the last character
+   * @return {@code true} if the string consists of the given characters
+   */
+  private boolean matches(String string, CharSequence sequence, int start, int end) {
+    if (string == null || string.length() != end - start) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (string.charAt(i - start) != sequence.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Remove from the table the entries whose strings have been garbage collected. Each bucket that
+   * contains such an entry is replaced by a chain of new entries for the strings that remain, so
+   * that concurrent lookups that are walking the old chain are not affected.
+   */
+  private void removeCollectedEntries() {
+    if (queue.poll() == null) {
+      return;
+    }
+    while (queue.poll() != null) {
+      // Drain the queue; all of the buckets are checked below.
+    }
+    Entry[] table = buckets;
+    for (int index = 0; index < table.length; index++) {
+      Entry bucket = table[index];
+      boolean hasCollectedEntry = false;
+      for (Entry entry = bucket; entry != null; entry = entry.next) {
+        if (entry.get() == null) {
+          hasCollectedEntry = true;
+          break;
+        }
+      }
+      if (hasCollectedEntry) {
+        Entry newBucket = null;
+        for (Entry entry = bucket; entry != null; entry = entry.next) {
+          String string = entry.get();
+          if (string == null) {
+            size--;
+          } else {
+            newBucket = new Entry(string, entry.hash, newBucket, queue);
+          }
+        }
+        table[index] = newBucket;
+      }
+    }
+  }
+}
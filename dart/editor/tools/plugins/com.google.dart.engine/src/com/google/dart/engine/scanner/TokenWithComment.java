@@ -40,11 +40,21 @@ public class TokenWithComment extends Token {
 
   @Override
   public Token copy() {
-    return new TokenWithComment(getType(), getOffset(), precedingComment);
+    return new TokenWithComment(getType(), getOffset(), copyComments(precedingComment));
   }
 
   @Override
   public Token getPrecedingComments() {
     return precedingComment;
   }
+
+  @Override
+  protected void applyDelta(int delta) {
+    super.applyDelta(delta);
+    Token token = precedingComment;
+    while (token != null) {
+      token.applyDelta(delta);
+      token = token.getNext();
+    }
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.search;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * Instances of the class {@code PagingSearchListener} collect the matches of an asynchronous search
+ * so that they can be consumed in pages while the search is still running. This allows a client to
+ * display the first matches as soon as they are found, for example:
+ * 
+ * <pre>
+ * PagingSearchListener listener = new PagingSearchListener();
+ * searchEngine.searchReferences(element, scope, filter, listener);
+ * while (!listener.isExhausted()) {
+ *   show(listener.nextPage(50, 200));
+ * }
+ * </pre>
+ * Matches are returned in the order in which they were found.
+ * 
+ * @coverage dart.engine.search
+ */
+public class PagingSearchListener implements SearchListener {
+  /**
+   * The matches that have been found so far. Synchronize against this listener before accessing
+   * this field.
+   */
+  private final List<SearchMatch> matches = Lists.newArrayList();
+
+  /**
+   * The index in {@link #matches} of the first match that has not yet been returned.
+   */
+  private int nextIndex = 0;
+
+  /**
+   * The number of matches for which a thread waiting in {@link #nextPage(int, long)} is waiting, or
+   * {@link Integer#MAX_VALUE} if no thread is waiting.
+   */
+  private int awaitedCount = Integer.MAX_VALUE;
+
+  /**
+   * A flag indicating whether the search is complete.
+   */
+  private boolean isComplete = false;
+
+  /**
+   * A flag indicating whether the search has been cancelled.
+   */
+  private boolean isCancelled = false;
+
+  /**
+   * Cancel the consumption of matches. Matches found after this method is invoked are ignored, and
+   * threads waiting for the next page are released.
+   */
+  public synchronized void cancel() {
+    isCancelled = true;
+    notifyAll();
+  }
+
+  /**
+   * Return the number of matches that have been found so far, including the matches that have
+   * already been returned.
+   * 
+   * @return the number of matches that have been found so far
+   */
+  public synchronized int getMatchCount() {
+    return matches.size();
+  }
+
+  /**
+   * Return {@code true} if the consumption of matches has been cancelled.
+   * 
+   * @return {@code true} if the consumption of matches has been cancelled
+   */
+  public synchronized boolean isCancelled() {
+    return isCancelled;
+  }
+
+  /**
+   * Return {@code true} if the search is complete.
+   * 
+   * @return {@code true} if the search is complete
+   */
+  public synchronized boolean isComplete() {
+    return isComplete;
+  }
+
+  /**
+   * Return {@code true} if no more matches will be returned by {@link #nextPage(int, long)}
+   * because all of the matches have been returned and either the search is complete or the
+   * consumption of matches has been cancelled.
+   * 
+   * @return {@code true} if no more matches will be returned
+   */
+  public synchronized boolean isExhausted() {
+    return (isComplete || isCancelled) && nextIndex >= matches.size();
+  }
+
+  @Override
+  public synchronized void matchFound(SearchMatch match) {
+    if (isCancelled) {
+      return;
+    }
+    matches.add(match);
+    if (matches.size() >= awaitedCount) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Return the next matches that have not yet been returned, waiting until the given number of
+   * matches is available, the search is complete or the given amount of time has elapsed, whichever
+   * comes first. The returned list is empty if no new match was found in time.
+   * 
+   * @param pageSize the maximum number of matches to be returned
+   * @param timeout the maximum number of milliseconds to wait for a full page, or a value less than
+   *          or equal to zero to wait until a full page is available or the search is complete
+   * @return the next matches, at most {@code pageSize} of them
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
+  public synchronized List<SearchMatch> nextPage(int pageSize, long timeout)
+      throws InterruptedException {
+    long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+    awaitedCount = nextIndex + pageSize;
+    try {
+      while (!isCancelled && !isComplete && matches.size() < awaitedCount) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          break;
+        }
+        wait(timeout > 0 ? remaining : 0L);
+      }
+    } finally {
+      awaitedCount = Integer.MAX_VALUE;
+    }
+    int endIndex = Math.min(matches.size(), nextIndex + pageSize);
+    List<SearchMatch> page = Lists.newArrayList(matches.subList(nextIndex, endIndex));
+    nextIndex = endIndex;
+    return page;
+  }
+
+  @Override
+  public synchronized void searchComplete() {
+    isComplete = true;
+    notifyAll();
+  }
+}
@@ -24,6 +24,10 @@ import java.util.Set;
 /**
  * The interface <code>SearchEngine</code> defines the behavior of objects that can be used to
  * search for various pieces of information.
+ * <p>
+ * The synchronous methods throw a {@link SearchIncompleteException} rather than return partial
+ * results if the search is stopped before it is complete, either by the timeout of the search
+ * engine or by the interruption of the searching thread.
  * 
  * @coverage dart.engine.search
  */
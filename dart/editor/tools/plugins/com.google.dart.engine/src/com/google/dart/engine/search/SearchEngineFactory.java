@@ -28,4 +28,13 @@ public final class SearchEngineFactory {
   public static SearchEngine createSearchEngine(Index index) {
     return new SearchEngineImpl(index);
   }
+
+  /**
+   * @return the new {@link SearchEngine} instance based on the given {@link Index}, whose
+   *         synchronous searches throw a {@link SearchIncompleteException} if they do not
+   *         complete within the given number of milliseconds.
+   */
+  public static SearchEngine createSearchEngine(Index index, long timeout) {
+    return new SearchEngineImpl(index, timeout);
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.search;
+
+/**
+ * Instances of the class {@code SearchIncompleteException} are thrown by the synchronous methods
+ * of a {@link SearchEngine} when the search stopped before it was complete, either because it did
+ * not complete within the timeout of the search engine or because the searching thread was
+ * interrupted. In the latter case the interrupted status of the thread has been restored.
+ * 
+ * @coverage dart.engine.search
+ */
+public class SearchIncompleteException extends RuntimeException {
+  /**
+   * Initialize a newly created exception to have the given message and to be its own cause.
+   * 
+   * @param message the message describing the reason for the exception
+   */
+  public SearchIncompleteException(String message) {
+    super(message);
+  }
+
+  /**
+   * Initialize a newly created exception to have the given message and cause.
+   * 
+   * @param message the message describing the reason for the exception
+   * @param cause the exception that caused this exception
+   */
+  public SearchIncompleteException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -22,9 +22,12 @@ import java.io.InputStreamReader;
 import java.io.RandomAccessFile;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 
 /**
  * Instances of the class {@code FileBasedSource} implement a source that represents a file.
@@ -58,6 +61,36 @@ public class FileBasedSource implements Source {
    */
   private static final Charset UTF_8_CHARSET = Charset.forName("UTF-8");
 
+  /**
+   * The character set used to decode files that start with a UTF-16 byte order mark.
+   */
+  private static final Charset UTF_16_CHARSET = Charset.forName("UTF-16");
+
+  /**
+   * The length of the largest file that is read into a {@link #READ_BUFFER buffer}. Longer files
+   * are memory-mapped instead. Small files are not mapped because mapping is more expensive than
+   * reading for them, and because a mapped file cannot be modified on some platforms until the
+   * mapping has been garbage collected.
+   */
+  private static final int MAX_BUFFERED_LENGTH = 1024 * 1024;
+
+  /**
+   * The initial length of the {@link #READ_BUFFER buffers}.
+   */
+  private static final int INITIAL_READ_BUFFER_LENGTH = 64 * 1024;
+
+  /**
+   * The buffer into which each thread reads files, so that reading many files does not allocate a
+   * new array of bytes for each file.
+   */
+  private static final ThreadLocal<ByteBuffer> READ_BUFFER = new ThreadLocal<ByteBuffer>();
+
+  /**
+   * The decoder used by each thread to decode UTF-8 bytes into characters.
+   */
+  private static final ThreadLocal<CharsetDecoder> UTF_8_DECODER =
+      new ThreadLocal<CharsetDecoder>();
+
   /**
    * Initialize a newly created source object. The source object is assumed to not be in a system
    * library.
@@ -185,7 +218,7 @@ public class FileBasedSource implements Source {
     long modificationTime = this.file.lastModified();
     RandomAccessFile file = new RandomAccessFile(this.file, "r");
     FileChannel channel = null;
-    ByteBuffer byteBuffer = null;
+    CharBuffer charBuffer = null;
     try {
       channel = file.getChannel();
       long size = channel.size();
@@ -193,13 +226,19 @@ public class FileBasedSource implements Source {
         throw new IllegalStateException("File is too long to be read");
       }
       int length = (int) size;
-      byte[] bytes = new byte[length];
-      byteBuffer = ByteBuffer.wrap(bytes);
-      byteBuffer.position(0);
-      byteBuffer.limit(length);
-      channel.read(byteBuffer);
+      ByteBuffer byteBuffer;
+      if (length > MAX_BUFFERED_LENGTH) {
+        byteBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+      } else {
+        byteBuffer = getReadBuffer(length);
+        while (byteBuffer.hasRemaining() && channel.read(byteBuffer) >= 0) {
+          // keep reading
+        }
+        byteBuffer.flip();
+      }
+      charBuffer = decode(byteBuffer);
     } catch (ClosedByInterruptException exception) {
-      byteBuffer = null;
+      charBuffer = null;
     } finally {
       try {
         file.close();
@@ -207,9 +246,8 @@ public class FileBasedSource implements Source {
         // Ignored
       }
     }
-    if (byteBuffer != null) {
-      byteBuffer.rewind();
-      receiver.accept(UTF_8_CHARSET.decode(byteBuffer), modificationTime);
+    if (charBuffer != null) {
+      receiver.accept(charBuffer, modificationTime);
       return;
     }
     //
@@ -241,4 +279,54 @@ public class FileBasedSource implements Source {
   File getFile() {
     return file;
   }
+
+  /**
+   * Decode the bytes between the position and the limit of the given buffer into characters. The
+   * bytes are decoded as UTF-8 unless they start with a UTF-16 byte order mark.
+   * 
+   * @param bytes the bytes to be decoded
+   * @return a buffer containing the decoded characters
+   */
+  private CharBuffer decode(ByteBuffer bytes) {
+    int first = bytes.remaining() >= 2 ? bytes.get(bytes.position()) & 0xFF : 0;
+    int second = bytes.remaining() >= 2 ? bytes.get(bytes.position() + 1) & 0xFF : 0;
+    CharsetDecoder decoder;
+    if ((first == 0xFE && second == 0xFF) || (first == 0xFF && second == 0xFE)) {
+      decoder = UTF_16_CHARSET.newDecoder();
+    } else {
+      decoder = UTF_8_DECODER.get();
+      if (decoder == null) {
+        decoder = UTF_8_CHARSET.newDecoder();
+        UTF_8_DECODER.set(decoder);
+      }
+      decoder.reset();
+    }
+    decoder.onMalformedInput(CodingErrorAction.REPLACE);
+    decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+    int capacity = (int) (bytes.remaining() * (double) decoder.maxCharsPerByte()) + 1;
+    CharBuffer chars = CharBuffer.allocate(capacity);
+    decoder.decode(bytes, chars, true);
+    decoder.flush(chars);
+    chars.flip();
+    return chars;
+  }
+
+  /**
+   * Return a buffer, owned by the current thread, that is ready to receive the given number of
+   * bytes. The buffer is reused by later reads on the same thread, so its contents are only valid
+   * until then.
+   * 
+   * @param length the number of bytes to be read
+   * @return a buffer whose limit is the given number of bytes
+   */
+  private ByteBuffer getReadBuffer(int length) {
+    ByteBuffer buffer = READ_BUFFER.get();
+    if (buffer == null || buffer.capacity() < length) {
+      buffer = ByteBuffer.allocate(Math.max(length, INITIAL_READ_BUFFER_LENGTH));
+      READ_BUFFER.set(buffer);
+    }
+    buffer.clear();
+    buffer.limit(length);
+    return buffer;
+  }
 }
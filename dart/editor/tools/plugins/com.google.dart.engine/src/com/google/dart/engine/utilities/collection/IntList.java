@@ -62,6 +62,19 @@ public class IntList {
     values[count++] = value;
   }
 
+  /**
+   * Return the element at the given index.
+   * 
+   * @param index the index of the element to be returned
+   * @return the element at the given index
+   */
+  public int get(int index) {
+    if (index >= count) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+    }
+    return values[index];
+  }
+
   /**
    * Return the number of elements in this list.
    * 
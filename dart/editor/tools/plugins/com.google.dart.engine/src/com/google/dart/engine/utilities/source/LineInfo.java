@@ -87,18 +87,90 @@ public class LineInfo {
   }
 
   /**
-   * Return the location information for the character at the given offset.
+   * Return the one-based index of the column containing the character at the given offset.
+   * 
+   * @param offset the offset of the character whose column is to be returned
+   * @return the one-based index of the column containing the character at the given offset
+   */
+  public int getColumnNumber(int offset) {
+    return offset - lineStarts[getLineNumber(offset) - 1] + 1;
+  }
+
+  /**
+   * Return the one-based index of the line containing the character at the given offset.
+   * 
+   * @param offset the offset of the character whose line is to be returned
+   * @return the one-based index of the line containing the character at the given offset
+   */
+  public int getLineNumber(int offset) {
+    return Math.max(countLineStarts(offset, 0), 1);
+  }
+
+  /**
+   * Return the one-based indices of the lines containing the characters at the given offsets. The
+   * offsets are expected to be sorted in ascending order, in which case each search starts from the
+   * line found for the previous offset. Unsorted offsets are still handled correctly, but less
+   * efficiently.
+   * 
+   * @param offsets the offsets of the characters whose lines are to be returned
+   * @return the one-based indices of the lines containing the characters at the given offsets
+   */
+  public int[] getLineNumbers(int[] offsets) {
+    int count = offsets.length;
+    int[] lineNumbers = new int[count];
+    int lineStartCount = 0;
+    for (int i = 0; i < count; i++) {
+      int offset = offsets[i];
+      if (i > 0 && offset < offsets[i - 1]) {
+        lineStartCount = 0;
+      }
+      lineStartCount = countLineStarts(offset, lineStartCount);
+      lineNumbers[i] = Math.max(lineStartCount, 1);
+    }
+    return lineNumbers;
+  }
+
+  /**
+   * Return an array containing the offsets of the first character of each line in the source code.
+   * Clients should not modify the returned array.
+   * 
+   * @return the offsets of the first character of each line in the source code
+   */
+  public int[] getLineStarts() {
+    return lineStarts;
+  }
+
+  /**
+   * Return the location information for the character at the given offset. Clients that only need
+   * the line or the column should use {@link #getLineNumber(int)} or {@link #getColumnNumber(int)},
+   * which do not allocate.
    * 
    * @param offset the offset of the character for which location information is to be returned
    * @return the location information for the character at the given offset
    */
   public Location getLocation(int offset) {
-    int lineCount = lineStarts.length;
-    for (int i = 1; i < lineCount; i++) {
-      if (offset < lineStarts[i]) {
-        return new Location(i, offset - lineStarts[i - 1] + 1);
+    int lineNumber = getLineNumber(offset);
+    return new Location(lineNumber, offset - lineStarts[lineNumber - 1] + 1);
+  }
+
+  /**
+   * Return the number of lines that start at or before the given offset, using a binary search of
+   * the line starts.
+   * 
+   * @param offset the offset being searched for
+   * @param low the number of lines that are already known to start at or before the offset
+   * @return the number of lines that start at or before the given offset
+   */
+  private int countLineStarts(int offset, int low) {
+    int high = lineStarts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (lineStarts[middle] <= offset) {
+        low = middle + 1;
+      } else {
+        high = middle;
       }
     }
-    return new Location(lineCount, offset - lineStarts[lineCount - 1] + 1);
+    return low;
   }
 }
@@ -16,6 +16,7 @@ package com.google.dart.engine.index;
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.internal.index.IndexImpl;
 import com.google.dart.engine.internal.index.MemoryIndexStoreImpl;
+import com.google.dart.engine.internal.index.SegmentIndexStoreImpl;
 
 import static org.mockito.Mockito.mock;
 
@@ -30,4 +31,9 @@ public class IndexFactoryTest extends EngineTestCase {
     MemoryIndexStore store = IndexFactory.newMemoryIndexStore();
     assertInstanceOf(MemoryIndexStoreImpl.class, store);
   }
+
+  public void test_newSegmentIndexStore() throws Exception {
+    SegmentIndexStore store = IndexFactory.newSegmentIndexStore();
+    assertInstanceOf(SegmentIndexStoreImpl.class, store);
+  }
 }
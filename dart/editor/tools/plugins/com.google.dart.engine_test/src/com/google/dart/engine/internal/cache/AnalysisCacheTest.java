@@ -15,11 +15,13 @@ package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceKind;
 import com.google.dart.engine.source.TestSource;
 
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -28,6 +30,36 @@ public class AnalysisCacheTest extends EngineTestCase {
     assertNotNull(new AnalysisCache(8, null));
   }
 
+  public void test_accessed_counts() {
+    AnalysisCache cache = new AnalysisCache(2, null);
+    Source[] sources = createSources(cache, 3);
+    cache.accessed(sources[0]);
+    cache.accessed(sources[1]);
+    cache.accessed(sources[0]);
+    cache.accessed(sources[2]);
+    assertEquals(1, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+    assertEquals(1, cache.getFlushCount());
+    assertEquals(CacheState.FLUSHED, cache.get(sources[1]).getState(DartEntry.PARSED_UNIT));
+  }
+
+  public void test_accessed_flushLowPriorityFirst() {
+    final HashSet<Source> mediumSources = new HashSet<Source>();
+    AnalysisCache cache = new AnalysisCache(3, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        return mediumSources.contains(source) ? RetentionPriority.MEDIUM : RetentionPriority.LOW;
+      }
+    });
+    Source[] sources = createSources(cache, 4);
+    mediumSources.add(sources[0]);
+    for (Source source : sources) {
+      cache.accessed(source);
+    }
+    assertEquals(CacheState.VALID, cache.get(sources[0]).getState(DartEntry.PARSED_UNIT));
+    assertEquals(CacheState.FLUSHED, cache.get(sources[1]).getState(DartEntry.PARSED_UNIT));
+  }
+
   public void test_entrySet() {
     AnalysisCache cache = new AnalysisCache(8, null);
     TestSource source = new TestSource();
@@ -46,6 +78,98 @@ public class AnalysisCacheTest extends EngineTestCase {
     assertNull(cache.get(source));
   }
 
+  public void test_getHtmlFilesReferencing() {
+    AnalysisCache cache = new AnalysisCache(8, null);
+    Source[] sources = createSources(cache, 3);
+    Source htmlSource = new TestSource(null, createFile("/test.html"), "");
+    putLibrary(
+        cache,
+        sources[0],
+        Source.EMPTY_ARRAY,
+        Source.EMPTY_ARRAY,
+        new Source[] {sources[1]});
+    putPart(cache, sources[1]);
+    HtmlEntryImpl htmlEntry = new HtmlEntryImpl();
+    htmlEntry.setValue(HtmlEntry.REFERENCED_LIBRARIES, new Source[] {sources[0]});
+    cache.put(htmlSource, htmlEntry);
+    assertEqualsIgnoreOrder(new Source[] {htmlSource}, cache.getHtmlFilesReferencing(sources[0]));
+    assertEqualsIgnoreOrder(new Source[] {htmlSource}, cache.getHtmlFilesReferencing(sources[1]));
+    assertLength(0, cache.getHtmlFilesReferencing(sources[2]));
+  }
+
+  public void test_getLibrariesContaining() {
+    AnalysisCache cache = new AnalysisCache(8, null);
+    Source[] sources = createSources(cache, 3);
+    putLibrary(
+        cache,
+        sources[0],
+        Source.EMPTY_ARRAY,
+        Source.EMPTY_ARRAY,
+        new Source[] {sources[2]});
+    putLibrary(
+        cache,
+        sources[1],
+        Source.EMPTY_ARRAY,
+        Source.EMPTY_ARRAY,
+        new Source[] {sources[2]});
+    putPart(cache, sources[2]);
+    assertEqualsIgnoreOrder(
+        new Source[] {sources[0], sources[1]},
+        cache.getLibrariesContaining(sources[2]));
+    // replaced entry
+    putLibrary(cache, sources[1], Source.EMPTY_ARRAY, Source.EMPTY_ARRAY, Source.EMPTY_ARRAY);
+    assertEqualsIgnoreOrder(new Source[] {sources[0]}, cache.getLibrariesContaining(sources[2]));
+    // removed entry
+    cache.remove(sources[0]);
+    assertLength(0, cache.getLibrariesContaining(sources[2]));
+  }
+
+  public void test_getLibrariesDependingOn() {
+    AnalysisCache cache = new AnalysisCache(8, null);
+    Source[] sources = createSources(cache, 4);
+    putLibrary(
+        cache,
+        sources[0],
+        new Source[] {sources[3]},
+        Source.EMPTY_ARRAY,
+        Source.EMPTY_ARRAY);
+    putLibrary(
+        cache,
+        sources[1],
+        Source.EMPTY_ARRAY,
+        new Source[] {sources[3]},
+        Source.EMPTY_ARRAY);
+    putLibrary(cache, sources[2], Source.EMPTY_ARRAY, Source.EMPTY_ARRAY, Source.EMPTY_ARRAY);
+    putLibrary(cache, sources[3], Source.EMPTY_ARRAY, Source.EMPTY_ARRAY, Source.EMPTY_ARRAY);
+    assertEqualsIgnoreOrder(
+        new Source[] {sources[0], sources[1]},
+        cache.getLibrariesDependingOn(sources[3]));
+    assertLength(0, cache.getLibrariesDependingOn(sources[2]));
+    // a dependent source that is no longer a library
+    putPart(cache, sources[0]);
+    assertEqualsIgnoreOrder(new Source[] {sources[1]}, cache.getLibrariesDependingOn(sources[3]));
+  }
+
+  public void test_priorityChanged() {
+    final HashSet<Source> highSources = new HashSet<Source>();
+    AnalysisCache cache = new AnalysisCache(2, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        return highSources.contains(source) ? RetentionPriority.HIGH : RetentionPriority.LOW;
+      }
+    });
+    Source[] sources = createSources(cache, 3);
+    highSources.add(sources[0]);
+    highSources.add(sources[1]);
+    cache.accessed(sources[0]);
+    cache.accessed(sources[1]);
+    highSources.remove(sources[1]);
+    cache.priorityChanged(sources[1]);
+    cache.accessed(sources[2]);
+    assertEquals(CacheState.VALID, cache.get(sources[0]).getState(DartEntry.PARSED_UNIT));
+    assertEquals(CacheState.FLUSHED, cache.get(sources[1]).getState(DartEntry.PARSED_UNIT));
+  }
+
   public void test_put_noFlush() {
     AnalysisCache cache = new AnalysisCache(8, null);
     TestSource source = new TestSource();
@@ -86,6 +210,58 @@ public class AnalysisCacheTest extends EngineTestCase {
     assertEquals(size, cache.size());
   }
 
+  public void test_removeFirstChangedSource() {
+    AnalysisCache cache = new AnalysisCache(8, null);
+    Source[] sources = createSources(cache, 3);
+    cache.put(sources[0], new DartEntryImpl());
+    assertSame(sources[0], cache.removeFirstChangedSource());
+    assertSame(sources[1], cache.removeFirstChangedSource());
+    assertSame(sources[2], cache.removeFirstChangedSource());
+    assertNull(cache.removeFirstChangedSource());
+    cache.put(sources[2], new DartEntryImpl());
+    assertSame(sources[2], cache.removeFirstChangedSource());
+    assertNull(cache.removeFirstChangedSource());
+  }
+
+  public void test_removeFirstChangedSource_afterAllSourcesChanged() {
+    AnalysisCache cache = new AnalysisCache(8, null);
+    Source[] sources = createSources(cache, 2);
+    while (cache.removeFirstChangedSource() != null) {
+      // Nothing else to do.
+    }
+    cache.allSourcesChanged();
+    assertEqualsIgnoreOrder(
+        sources,
+        new Source[] {cache.removeFirstChangedSource(), cache.removeFirstChangedSource()});
+    assertNull(cache.removeFirstChangedSource());
+  }
+
+  public void test_removeFirstChangedSource_partOfChangedLibrary() {
+    AnalysisCache cache = new AnalysisCache(8, null);
+    Source[] sources = createSources(cache, 2);
+    putPart(cache, sources[1]);
+    while (cache.removeFirstChangedSource() != null) {
+      // Nothing else to do.
+    }
+    putLibrary(cache, sources[0], Source.EMPTY_ARRAY, Source.EMPTY_ARRAY, new Source[] {sources[1]});
+    assertEqualsIgnoreOrder(
+        sources,
+        new Source[] {cache.removeFirstChangedSource(), cache.removeFirstChangedSource()});
+    assertNull(cache.removeFirstChangedSource());
+  }
+
+  public void test_remove() {
+    AnalysisCache cache = new AnalysisCache(2, null);
+    Source[] sources = createSources(cache, 3);
+    cache.accessed(sources[0]);
+    cache.accessed(sources[1]);
+    cache.remove(sources[0]);
+    cache.accessed(sources[2]);
+    assertNull(cache.get(sources[0]));
+    assertEquals(0, cache.getFlushCount());
+    assertNonFlushedCount(2, cache);
+  }
+
   private void assertNonFlushedCount(int expectedCount, AnalysisCache cache) {
     int nonFlushedCount = 0;
     for (Map.Entry<Source, SourceEntry> entry : cache.entrySet()) {
@@ -95,4 +271,32 @@ public class AnalysisCacheTest extends EngineTestCase {
     }
     assertEquals(expectedCount, nonFlushedCount);
   }
+
+  private void putLibrary(AnalysisCache cache, Source source, Source[] importedLibraries,
+      Source[] exportedLibraries, Source[] parts) {
+    DartEntryImpl entry = new DartEntryImpl();
+    entry.setValue(DartEntry.SOURCE_KIND, SourceKind.LIBRARY);
+    entry.setValue(DartEntry.IMPORTED_LIBRARIES, importedLibraries);
+    entry.setValue(DartEntry.EXPORTED_LIBRARIES, exportedLibraries);
+    entry.setValue(DartEntry.INCLUDED_PARTS, parts);
+    cache.put(source, entry);
+  }
+
+  private void putPart(AnalysisCache cache, Source source) {
+    DartEntryImpl entry = new DartEntryImpl();
+    entry.setValue(DartEntry.SOURCE_KIND, SourceKind.PART);
+    cache.put(source, entry);
+  }
+
+  private Source[] createSources(AnalysisCache cache, int count) {
+    Source[] sources = new Source[count];
+    for (int i = 0; i < count; i++) {
+      Source source = new TestSource(null, createFile("/test" + i + ".dart"), "");
+      DartEntryImpl entry = new DartEntryImpl();
+      entry.setValue(DartEntry.PARSED_UNIT, null);
+      cache.put(source, entry);
+      sources[i] = source;
+    }
+    return sources;
+  }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.cache;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.HintCode;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.source.SourceKind;
+import com.google.dart.engine.utilities.io.FileUtilities2;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.HashMap;
+
+public class DartEntryStoreTest extends EngineTestCase {
+  private SourceFactory factory;
+
+  private DartEntryStore store;
+
+  private Source source;
+
+  public void test_delete() throws Exception {
+    assertTrue(store.write(
+        source,
+        createEntry(source),
+        new Source[] {source},
+        createDependencies(source)));
+    store.delete();
+    assertFalse(store.getDirectory().exists());
+    assertNull(store.read(source, factory));
+  }
+
+  public void test_read_differentKey() throws Exception {
+    assertTrue(store.write(
+        source,
+        createEntry(source),
+        new Source[] {source},
+        createDependencies(source)));
+    DartEntryStore otherStore = new DartEntryStore(store.getDirectory(), "other");
+    assertNull(otherStore.read(source, factory));
+    // the entries computed against the previous key have been deleted
+    assertLength(1, store.getDirectory().listFiles());
+    assertNull(new DartEntryStore(store.getDirectory(), "key").read(source, factory));
+  }
+
+  public void test_read_missing() throws Exception {
+    assertNull(store.read(source, factory));
+  }
+
+  public void test_read_modified() throws Exception {
+    assertTrue(store.write(
+        source,
+        createEntry(source),
+        new Source[] {source},
+        createDependencies(source)));
+    File file = new File(source.getFullName());
+    assertTrue(file.setLastModified(file.lastModified() + 10000L));
+    assertNull(store.read(source, factory));
+  }
+
+  public void test_remove() throws Exception {
+    assertTrue(store.write(
+        source,
+        createEntry(source),
+        new Source[] {source},
+        createDependencies(source)));
+    store.remove(source);
+    assertNull(store.read(source, factory));
+  }
+
+  public void test_write_incomplete() throws Exception {
+    DartEntryImpl entry = createEntry(source);
+    entry.setState(DartEntry.VERIFICATION_ERRORS, source, CacheState.INVALID);
+    assertFalse(store.write(source, entry, new Source[] {source}, createDependencies(source)));
+    assertNull(store.read(source, factory));
+  }
+
+  public void test_writeAndRead() throws Exception {
+    DartEntryImpl entry = createEntry(source);
+    assertTrue(store.write(source, entry, new Source[] {source}, createDependencies(source)));
+    DartEntryImpl result = store.read(source, factory);
+    assertNotNull(result);
+    assertEquals(entry.getModificationTime(), result.getModificationTime());
+    assertSame(SourceKind.LIBRARY, result.getValue(DartEntry.SOURCE_KIND));
+    assertSame(CacheState.FLUSHED, result.getState(DartEntry.PARSED_UNIT));
+    assertSame(CacheState.FLUSHED, result.getState(DartEntry.ELEMENT));
+    assertSame(CacheState.FLUSHED, result.getState(DartEntry.RESOLVED_UNIT, source));
+    assertSame(CacheState.VALID, result.getState(DartEntry.VERIFICATION_ERRORS, source));
+    assertTrue(result.getValue(DartEntry.IS_LAUNCHABLE));
+    assertFalse(result.getValue(DartEntry.IS_CLIENT));
+    assertLength(0, result.getValue(DartEntry.IMPORTED_LIBRARIES));
+    assertEquals(2, result.getValue(SourceEntry.LINE_INFO).getLineStarts().length);
+    AnalysisError[] hints = result.getValue(DartEntry.HINTS, source);
+    assertLength(1, hints);
+    assertEquals(entry.getValue(DartEntry.HINTS, source)[0], hints[0]);
+  }
+
+  public void test_writeAndRead_sameHashCode() throws Exception {
+    // "Aa" and "BB" have the same hash code, and so do the encodings of these sources
+    File directory = new File(source.getFullName()).getParentFile();
+    Source source1 = createSource(new File(directory, "Aa.dart"));
+    Source source2 = createSource(new File(directory, "BB.dart"));
+    assertEquals(source1.getEncoding().hashCode(), source2.getEncoding().hashCode());
+    assertTrue(store.write(
+        source1,
+        createEntry(source1),
+        new Source[] {source1},
+        createDependencies(source1)));
+    assertTrue(store.write(
+        source2,
+        createEntry(source2),
+        new Source[] {source2},
+        createDependencies(source2)));
+    assertNotNull(store.read(source1, factory));
+    assertNotNull(store.read(source2, factory));
+    // the two entries and the key
+    assertLength(3, store.getDirectory().listFiles());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    File directory = FileUtilities2.createTempDir("store");
+    factory = new SourceFactory(new FileUriResolver());
+    store = new DartEntryStore(directory, "key");
+    source = createSource(new File(FileUtilities2.createTempDir("src"), "lib.dart"));
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtilities2.deleteTempDir();
+    super.tearDown();
+  }
+
+  private HashMap<Source, Long> createDependencies(Source source) {
+    HashMap<Source, Long> dependencies = new HashMap<Source, Long>();
+    dependencies.put(source, source.getModificationStamp());
+    return dependencies;
+  }
+
+  private DartEntryImpl createEntry(Source source) {
+    DartEntryImpl entry = new DartEntryImpl();
+    entry.setModificationTime(source.getModificationStamp());
+    entry.setValue(DartEntry.SOURCE_KIND, SourceKind.LIBRARY);
+    entry.setValue(SourceEntry.LINE_INFO, new LineInfo(new int[] {0, 13}));
+    entry.setValue(DartEntry.PARSE_ERRORS, AnalysisError.NO_ERRORS);
+    entry.setValue(DartEntry.IMPORTED_LIBRARIES, Source.EMPTY_ARRAY);
+    entry.setValue(DartEntry.EXPORTED_LIBRARIES, Source.EMPTY_ARRAY);
+    entry.setValue(DartEntry.INCLUDED_PARTS, Source.EMPTY_ARRAY);
+    entry.setValue(DartEntry.IS_CLIENT, false);
+    entry.setValue(DartEntry.IS_LAUNCHABLE, true);
+    entry.setValue(DartEntry.RESOLUTION_ERRORS, source, AnalysisError.NO_ERRORS);
+    entry.setValue(DartEntry.VERIFICATION_ERRORS, source, AnalysisError.NO_ERRORS);
+    entry.setValue(DartEntry.HINTS, source, new AnalysisError[] {new AnalysisError(
+        source,
+        13,
+        9,
+        HintCode.DEAD_CODE)});
+    return entry;
+  }
+
+  private Source createSource(File file) throws Exception {
+    FileWriter writer = new FileWriter(file);
+    try {
+      writer.write("library lib;\nmain() {}\n");
+    } finally {
+      writer.close();
+    }
+    return new FileBasedSource(factory.getContentCache(), file);
+  }
+}
@@ -23,6 +23,7 @@ public class TestAll {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(AnalysisCacheTest.class);
     suite.addTestSuite(DartEntryImplTest.class);
+    suite.addTestSuite(DartEntryStoreTest.class);
     suite.addTestSuite(HtmlEntryImplTest.class);
     return suite;
   }
@@ -15,6 +15,11 @@ package com.google.dart.engine.internal.context;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.Expression;
+import com.google.dart.engine.ast.ExpressionFunctionBody;
+import com.google.dart.engine.ast.FunctionBody;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.MethodInvocation;
 import com.google.dart.engine.ast.SimpleIdentifier;
 import com.google.dart.engine.ast.TopLevelVariableDeclaration;
 import com.google.dart.engine.context.AnalysisContextFactory;
@@ -26,30 +31,42 @@ import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.HtmlElement;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.ParameterElement;
 import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.ErrorCode;
+import com.google.dart.engine.error.HintCode;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.DartEntry;
+import com.google.dart.engine.internal.cache.DartEntryStore;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.task.ResolveDartLibraryTask;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.PackageUriResolver;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
+import com.google.dart.engine.utilities.io.FileUtilities2;
 import com.google.dart.engine.utilities.source.LineInfo;
 
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AnalysisContextImplTest extends EngineTestCase {
   /**
@@ -91,6 +108,143 @@ public class AnalysisContextImplTest extends EngineTestCase {
     context.applyChanges(changeSet);
   }
 
+  public void test_applyChanges_change_api() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source libASource = addSource("/libA.dart", createSource(//
+        "library libA;",
+        "int f() => 0;"));
+    Source libBSource = addSource("/libB.dart", createSource(//
+        "library libB;",
+        "import 'libA.dart';",
+        "int g() => f();"));
+    context.computeLibraryElement(libASource);
+    assertNotNull(context.computeLibraryElement(libBSource));
+
+    context.setContents(libASource, createSource(//
+        "library libA;",
+        "String f() => '';"));
+    context.computeLibraryElement(libASource);
+    assertNull(context.getLibraryElement(libBSource));
+    assertEquals(1, context.getStatistics().getDependentInvalidationCount());
+    assertEquals(0, context.getStatistics().getPreservedDependentCount());
+  }
+
+  public void test_applyChanges_change_body() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source libASource = addSource("/libA.dart", createSource(//
+        "library libA;",
+        "int f() => 0;"));
+    Source libBSource = addSource("/libB.dart", createSource(//
+        "library libB;",
+        "import 'libA.dart';",
+        "int g() => f();"));
+    context.computeLibraryElement(libASource);
+    LibraryElement libB = context.computeLibraryElement(libBSource);
+
+    context.setContents(libASource, createSource(//
+        "library libA;",
+        "",
+        "int f() => 1 + 2;"));
+    assertNull(context.getLibraryElement(libASource));
+    context.computeLibraryElement(libASource);
+    assertSame(libB, context.getLibraryElement(libBSource));
+    assertEquals(0, context.getStatistics().getDependentInvalidationCount());
+    assertEquals(1, context.getStatistics().getPreservedDependentCount());
+  }
+
+  public void test_applyChanges_change_declarationOffset() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source libASource = addSource("/libA.dart", createSource(//
+        "library libA;",
+        "int f() => 0;"));
+    Source libBSource = addSource("/libB.dart", createSource(//
+        "library libB;",
+        "import 'libA.dart';",
+        "int g() => f();"));
+    context.computeLibraryElement(libASource);
+    LibraryElement libB = context.computeLibraryElement(libBSource);
+
+    context.setContents(libASource, createSource(//
+        "library libA;",
+        "",
+        "int f() => 0;"));
+    LibraryElement libA = context.computeLibraryElement(libASource);
+    assertSame(libB, context.getLibraryElement(libBSource));
+    assertEquals(0, context.getStatistics().getDependentInvalidationCount());
+    assertEquals(1, context.getStatistics().getPreservedDependentCount());
+    // the preserved library refers to an element whose offset has been updated
+    Element f = getInvokedElement(libBSource, libB);
+    FunctionElement newF = libA.getDefiningCompilationUnit().getFunctions()[0];
+    assertEquals(newF.getNameOffset(), f.getNameOffset());
+    assertEquals(newF, f);
+  }
+
+  public void test_applyChanges_change_declarationOffset_member() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source libASource = addSource("/libA.dart", createSource(//
+        "library libA;",
+        "class A {",
+        "  int m(int p) => p;",
+        "}"));
+    Source libBSource = addSource("/libB.dart", createSource(//
+        "library libB;",
+        "import 'libA.dart';",
+        "int g() => new A().m(0);"));
+    context.computeLibraryElement(libASource);
+    LibraryElement libB = context.computeLibraryElement(libBSource);
+
+    context.setContents(libASource, createSource(//
+        "library libA;",
+        "",
+        "class A {",
+        "  int m(int p) => p + 1;",
+        "}"));
+    LibraryElement libA = context.computeLibraryElement(libASource);
+    assertSame(libB, context.getLibraryElement(libBSource));
+    assertEquals(1, context.getStatistics().getPreservedDependentCount());
+    MethodElement m = (MethodElement) getInvokedElement(libBSource, libB);
+    MethodElement newM = libA.getType("A").getMethods()[0];
+    assertEquals(newM.getNameOffset(), m.getNameOffset());
+    Element newA = newM.getEnclosingElement();
+    assertEquals(newA.getNameOffset(), m.getEnclosingElement().getNameOffset());
+    ParameterElement p = m.getParameters()[0];
+    ParameterElement newP = newM.getParameters()[0];
+    assertEquals(newP.getNameOffset(), p.getNameOffset());
+    assertEquals(newP.getVisibleRange(), p.getVisibleRange());
+  }
+
+  public void test_applyChanges_change_declarationOrder() throws Exception {
+    context = AnalysisContextFactory.contextWithCore();
+    sourceFactory = context.getSourceFactory();
+    Source libASource = addSource("/libA.dart", createSource(//
+        "library libA;",
+        "int f() => 0;",
+        "int h() => 1;"));
+    Source libBSource = addSource("/libB.dart", createSource(//
+        "library libB;",
+        "import 'libA.dart';",
+        "int g() => f();"));
+    context.computeLibraryElement(libASource);
+    assertNotNull(context.computeLibraryElement(libBSource));
+
+    context.setContents(libASource, createSource(//
+        "library libA;",
+        "int h() => 1;",
+        "int f() => 0;"));
+    LibraryElement libA = context.computeLibraryElement(libASource);
+    // the declarations cannot be matched, so the library is resolved again
+    assertNull(context.getLibraryElement(libBSource));
+    assertEquals(1, context.getStatistics().getDependentInvalidationCount());
+    assertEquals(0, context.getStatistics().getPreservedDependentCount());
+    LibraryElement libB = context.computeLibraryElement(libBSource);
+    Element f = getInvokedElement(libBSource, libB);
+    assertSame(libA.getDefiningCompilationUnit().getFunctions()[1], f);
+  }
+
   public void test_applyChanges_change_flush_element() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -780,6 +934,58 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNotNull(unit);
   }
 
+  public void test_performAnalysisTask_concurrent() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setConcurrencyLevel(4);
+    context.setAnalysisOptions(options);
+    int sourceCount = 8;
+    ArrayList<Source> sources = new ArrayList<Source>(sourceCount);
+    for (int i = 0; i < sourceCount; i++) {
+      sources.add(addSource("/lib" + i + ".dart", "library lib" + i + "; int f" + i + "() => 0;"));
+    }
+    for (int i = 0; i < 1000; i++) {
+      ChangeNotice[] notice = context.performAnalysisTask().getChangeNotices();
+      if (notice == null) {
+        break;
+      }
+    }
+    ChangeNotice[] notice = context.performAnalysisTask().getChangeNotices();
+    if (notice != null) {
+      fail("performAnalysisTask failed to terminate after analyzing all sources");
+    }
+    for (Source source : sources) {
+      assertNotNull(
+          "performAnalysisTask failed to compute an element model",
+          context.getLibraryElement(source));
+      assertNotNull(
+          "performAnalysisTask failed to compute errors",
+          context.getErrors(source).getErrors());
+    }
+  }
+
+  public void test_performAnalysisTask_concurrent_parseDart() throws Exception {
+    assertTrue(countConcurrentReads(".dart", "library lib;") > 1);
+  }
+
+  public void test_performAnalysisTask_concurrent_parseHtml() throws Exception {
+    assertTrue(countConcurrentReads(".html", "<html></html>") > 1);
+  }
+
+  public void test_performAnalysisTask_concurrent_sameErrors() throws Exception {
+    List<String> sequentialErrors = analyzeLibraries(1);
+    List<String> concurrentErrors = analyzeLibraries(4);
+    assertEquals(sequentialErrors, concurrentErrors);
+    // Make sure that the comparison covers both errors and hints.
+    boolean foundHint = false;
+    boolean foundWarning = false;
+    for (String error : sequentialErrors) {
+      foundHint |= error.contains("HintCode.");
+      foundWarning |= error.contains("StaticWarningCode.");
+    }
+    assertTrue(foundHint);
+    assertTrue(foundWarning);
+  }
+
   public void test_performAnalysisTask_modifiedAfterParse() throws Exception {
     Source source = addSource("/test.dart", "library lib;");
     long initialTime = source.getModificationStamp();
@@ -852,15 +1058,47 @@ public class AnalysisContextImplTest extends EngineTestCase {
   public void test_setAnalysisOptions() {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl();
     options.setCacheSize(42);
+    options.setConcurrencyLevel(3);
     options.setDart2jsHint(false);
     options.setHint(false);
     context.setAnalysisOptions(options);
     AnalysisOptions result = context.getAnalysisOptions();
     assertEquals(options.getCacheSize(), result.getCacheSize());
+    assertEquals(options.getConcurrencyLevel(), result.getConcurrencyLevel());
     assertEquals(options.getDart2jsHint(), result.getDart2jsHint());
     assertEquals(options.getHint(), result.getHint());
   }
 
+  public void test_setAnalysisOptions_enableHints() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setHint(false);
+    context.setAnalysisOptions(options);
+    Source source = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "f() {",
+        "  return;",
+        "  f();",
+        "}"));
+    for (int i = 0; i < 1000; i++) {
+      if (context.performAnalysisTask().getChangeNotices() == null) {
+        break;
+      }
+    }
+    assertLength(0, context.getErrors(source).getErrors());
+    // enabling hints does not change any entry, but creates work for the source
+    options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setHint(true);
+    context.setAnalysisOptions(options);
+    for (int i = 0; i < 1000; i++) {
+      if (context.performAnalysisTask().getChangeNotices() == null) {
+        break;
+      }
+    }
+    AnalysisError[] errors = context.getErrors(source).getErrors();
+    assertLength(1, errors);
+    assertSame(HintCode.DEAD_CODE, errors[0].getErrorCode());
+  }
+
   public void test_setAnalysisOptions_reduceAnalysisPriorityOrder() throws Exception {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
     ArrayList<Source> sources = new ArrayList<Source>();
@@ -965,6 +1203,7 @@ public class AnalysisContextImplTest extends EngineTestCase {
         null,
         null,
         null,
+        null,
         0,
         0,
         0);
@@ -993,6 +1232,7 @@ public class AnalysisContextImplTest extends EngineTestCase {
         null,
         null,
         null,
+        null,
         0,
         0,
         0);
@@ -1004,6 +1244,75 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertNull(getIncrementalAnalysisCache(context));
   }
 
+  public void test_setEntryStore() throws Exception {
+    File packagesDirectory = FileUtilities2.createTempDir("packages");
+    File packageDirectory = new File(packagesDirectory, "pkg");
+    assertTrue(packageDirectory.mkdirs());
+    FileWriter writer = new FileWriter(new File(packageDirectory, "pkg.dart"));
+    try {
+      writer.write(createSource(//
+          "library pkg;",
+          "f() {",
+          "  return;",
+          "  f();",
+          "}"));
+    } finally {
+      writer.close();
+    }
+    File storeDirectory = FileUtilities2.createTempDir("store");
+    DartEntryStore store = new DartEntryStore(storeDirectory, "key");
+    try {
+      sourceFactory = new SourceFactory(new DartUriResolver(
+          DirectoryBasedDartSdk.getDefaultSdk()), new PackageUriResolver(packagesDirectory));
+      context.setSourceFactory(sourceFactory);
+      context.setEntryStore(store);
+      Source source = sourceFactory.forUri("package:pkg/pkg.dart");
+      ChangeSet changeSet = new ChangeSet();
+      changeSet.added(source);
+      context.applyChanges(changeSet);
+      analyzeAll();
+      assertNotNull(store.read(source, sourceFactory));
+      // entries that have not changed since they were written are not written again
+      for (File file : storeDirectory.listFiles()) {
+        assertTrue(file.delete());
+      }
+      analyzeAll();
+      assertLength(0, storeDirectory.listFiles());
+      // changed entries are written again
+      context.setContents(source, createSource(//
+          "library pkg;",
+          "f() {",
+          "  return;",
+          "  f();",
+          "}",
+          "g() {}"));
+      context.setContents(source, null);
+      analyzeAll();
+      assertNotNull(store.read(source, sourceFactory));
+      // the entries of sources added before the store was set are restored from the store
+      setUp();
+      sourceFactory = new SourceFactory(new DartUriResolver(
+          DirectoryBasedDartSdk.getDefaultSdk()), new PackageUriResolver(packagesDirectory));
+      context.setSourceFactory(sourceFactory);
+      source = sourceFactory.forUri("package:pkg/pkg.dart");
+      changeSet = new ChangeSet();
+      changeSet.added(source);
+      context.applyChanges(changeSet);
+      assertLength(0, context.getErrors(source).getErrors());
+      context.setEntryStore(store);
+      AnalysisError[] errors = context.getErrors(source).getErrors();
+      assertLength(1, errors);
+      assertSame(HintCode.DEAD_CODE, errors[0].getErrorCode());
+      // the entries of removed sources are removed from the store
+      changeSet = new ChangeSet();
+      changeSet.removed(source);
+      context.applyChanges(changeSet);
+      assertNull(store.read(source, sourceFactory));
+    } finally {
+      FileUtilities2.deleteTempDir();
+    }
+  }
+
   public void test_setSourceFactory() {
     assertEquals(sourceFactory, context.getSourceFactory());
     SourceFactory factory = new SourceFactory();
@@ -1075,6 +1384,116 @@ public class AnalysisContextImplTest extends EngineTestCase {
     return source;
   }
 
+  /**
+   * Perform analysis tasks until there is no more work to be done.
+   */
+  private void analyzeAll() {
+    for (int i = 0; i < 1000; i++) {
+      if (context.performAnalysisTask().getChangeNotices() == null) {
+        return;
+      }
+    }
+    fail("performAnalysisTask failed to terminate after analyzing all sources");
+  }
+
+  /**
+   * Analyze a set of libraries that import each other in a fresh context with the given concurrency
+   * level, and return a description of the errors and hints reported for them.
+   * 
+   * @param concurrencyLevel the concurrency level used to analyze the libraries
+   * @return a description of each error and hint, ordered by library and then by offset
+   */
+  private List<String> analyzeLibraries(int concurrencyLevel) throws Exception {
+    setUp();
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setConcurrencyLevel(concurrencyLevel);
+    context.setAnalysisOptions(options);
+    int sourceCount = 8;
+    ArrayList<Source> sources = new ArrayList<Source>(sourceCount);
+    for (int i = 0; i < sourceCount; i++) {
+      sources.add(addSource("/lib" + i + ".dart", createSource(//
+          "library lib" + i + ";",
+          "import 'lib" + ((i + 1) % sourceCount) + ".dart';",
+          "import 'dart:math';",
+          "int f" + i + "() {",
+          "  String s = f" + ((i + 1) % sourceCount) + "();",
+          "  return undefined" + i + ";",
+          "}",
+          "g" + i + "() {",
+          "  return;",
+          "  f" + i + "();",
+          "}")));
+    }
+    for (int i = 0; i < 1000; i++) {
+      if (context.performAnalysisTask().getChangeNotices() == null) {
+        break;
+      }
+    }
+    List<String> errors = new ArrayList<String>();
+    for (Source source : sources) {
+      ArrayList<String> sourceErrors = new ArrayList<String>();
+      for (AnalysisError error : context.getErrors(source).getErrors()) {
+        ErrorCode errorCode = error.getErrorCode();
+        sourceErrors.add(String.format(
+            "%06d %s %s.%s %d",
+            error.getOffset(),
+            source.getShortName(),
+            errorCode.getClass().getSimpleName(),
+            errorCode,
+            error.getLength()));
+      }
+      Collections.sort(sourceErrors);
+      errors.addAll(sourceErrors);
+    }
+    return errors;
+  }
+
+  /**
+   * Analyze a set of sources with the given extension and contents using a concurrency level of 4,
+   * and return the largest number of sources whose contents were being read at the same time. Each
+   * read waits for a short time for another read to start so that the result does not depend on how
+   * quickly the worker threads are scheduled.
+   * 
+   * @param extension the extension of the names of the sources
+   * @param contents the contents of each of the sources
+   * @return the largest number of sources that were read at the same time
+   */
+  private int countConcurrentReads(String extension, String contents) {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setConcurrencyLevel(4);
+    context.setAnalysisOptions(options);
+    final AtomicInteger activeReads = new AtomicInteger();
+    final AtomicInteger maxActiveReads = new AtomicInteger();
+    ChangeSet changeSet = new ChangeSet();
+    for (int i = 0; i < 8; i++) {
+      File file = createFile("/source" + i + extension);
+      Source source = new FileBasedSource(sourceFactory.getContentCache(), file) {
+        @Override
+        public void getContents(ContentReceiver receiver) throws Exception {
+          int active = activeReads.incrementAndGet();
+          try {
+            int max = maxActiveReads.get();
+            while (active > max && !maxActiveReads.compareAndSet(max, active)) {
+              max = maxActiveReads.get();
+            }
+            long endTime = System.currentTimeMillis() + 1000;
+            while (maxActiveReads.get() < 2 && System.currentTimeMillis() < endTime) {
+              Thread.sleep(1);
+            }
+            super.getContents(receiver);
+          } finally {
+            activeReads.decrementAndGet();
+          }
+        }
+      };
+      sourceFactory.setContents(source, contents);
+      changeSet.added(source);
+    }
+    context.applyChanges(changeSet);
+    analyzeAll();
+    return maxActiveReads.get();
+  }
+
   /**
    * Search the given compilation unit for a class with the given name. Return the class with the
    * given name, or {@code null} if the class cannot be found.
@@ -1099,6 +1518,22 @@ public class AnalysisContextImplTest extends EngineTestCase {
     return (IncrementalAnalysisCache) field.get(context2);
   }
 
+  /**
+   * Return the element invoked by the body of the first declaration in the given library, which
+   * must be a function whose body is an invocation.
+   * 
+   * @param source the source of the library
+   * @param library the element of the library
+   * @return the element invoked by the first declaration
+   */
+  private Element getInvokedElement(Source source, LibraryElement library) throws Exception {
+    CompilationUnit unit = context.getResolvedCompilationUnit(source, library);
+    FunctionDeclaration function = (FunctionDeclaration) unit.getDeclarations().get(0);
+    FunctionBody body = function.getFunctionExpression().getBody();
+    Expression invocation = ((ExpressionFunctionBody) body).getExpression();
+    return ((MethodInvocation) invocation).getMethodName().getStaticElement();
+  }
+
   private Source[] getPriorityOrder(AnalysisContextImpl context2) throws Exception {
     Field field = AnalysisContextImpl.class.getDeclaredField("priorityOrder");
     field.setAccessible(true);
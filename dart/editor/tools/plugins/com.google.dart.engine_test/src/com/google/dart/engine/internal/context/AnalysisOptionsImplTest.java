@@ -16,6 +16,15 @@ package com.google.dart.engine.internal.context;
 import com.google.dart.engine.EngineTestCase;
 
 public class AnalysisOptionsImplTest extends EngineTestCase {
+  public void test_getConcurrencyLevel() {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    assertEquals(AnalysisOptionsImpl.DEFAULT_CONCURRENCY_LEVEL, options.getConcurrencyLevel());
+    options.setConcurrencyLevel(4);
+    assertEquals(4, options.getConcurrencyLevel());
+    options.setConcurrencyLevel(0);
+    assertEquals(1, options.getConcurrencyLevel());
+  }
+
   public void test_getHint() {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl();
     boolean value = !options.getHint();
@@ -14,7 +14,9 @@
 package com.google.dart.engine.internal.context;
 
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.error.HintCode;
 import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.cache.DartEntryImpl;
 import com.google.dart.engine.parser.Parser;
@@ -45,11 +47,17 @@ public class IncrementalAnalysisCacheTest extends TestCase {
   public void test_cacheResult() throws Exception {
     IncrementalAnalysisCache cache = update(null, source, "hello", "hbazlo", 1, 2, 3, entry);
     CompilationUnit newUnit = mock(CompilationUnit.class);
+    AnalysisError[] errors = new AnalysisError[] {new AnalysisError(
+        source,
+        1,
+        3,
+        HintCode.DEAD_CODE)};
 
-    result = cacheResult(cache, newUnit);
+    result = cacheResult(cache, newUnit, errors);
     assertNotNull(result);
     assertSame(source, result.getSource());
     assertSame(newUnit, result.getResolvedUnit());
+    assertSame(errors, result.getErrors());
     assertEquals("hbazlo", result.getOldContents());
     assertEquals("hbazlo", result.getNewContents());
     assertEquals(0, result.getOffset());
@@ -61,7 +69,7 @@ public class IncrementalAnalysisCacheTest extends TestCase {
     IncrementalAnalysisCache cache = null;
     CompilationUnit newUnit = mock(CompilationUnit.class);
 
-    result = cacheResult(cache, newUnit);
+    result = cacheResult(cache, newUnit, null);
     assertNull(result);
   }
 
@@ -69,7 +77,7 @@ public class IncrementalAnalysisCacheTest extends TestCase {
     IncrementalAnalysisCache cache = null;
     CompilationUnit newUnit = null;
 
-    result = cacheResult(cache, newUnit);
+    result = cacheResult(cache, newUnit, null);
     assertNull(result);
   }
 
@@ -77,7 +85,7 @@ public class IncrementalAnalysisCacheTest extends TestCase {
     IncrementalAnalysisCache cache = update(null, source, "hello", "hbazlo", 1, 2, 3, entry);
     CompilationUnit newUnit = null;
 
-    result = cacheResult(cache, newUnit);
+    result = cacheResult(cache, newUnit, null);
     assertNull(result);
   }
 
@@ -123,7 +131,7 @@ public class IncrementalAnalysisCacheTest extends TestCase {
   public void test_update_appendToCachedResult() throws Exception {
     IncrementalAnalysisCache cache = update(null, source, "hello", "hbazlo", 1, 2, 3, entry);
     CompilationUnit newUnit = mock(CompilationUnit.class);
-    cache = cacheResult(cache, newUnit);
+    cache = cacheResult(cache, newUnit, null);
     assertNotNull(cache);
     DartEntryImpl newEntry = new DartEntryImpl();
 
@@ -188,6 +196,34 @@ public class IncrementalAnalysisCacheTest extends TestCase {
     assertEquals(1, result.getNewLength());
   }
 
+  public void test_update_delete_pastEnd() throws Exception {
+    IncrementalAnalysisCache cache = update(null, source, "hello", "hbazlo", 1, 2, 3, entry);
+
+    DartEntryImpl newEntry = new DartEntryImpl();
+
+    result = update(cache, source, "hbazlo", "hba", 3, 3, 0, newEntry);
+    assertNotNull(result);
+    assertEquals("hello", result.getOldContents());
+    assertEquals("hba", result.getNewContents());
+    assertEquals(1, result.getOffset());
+    assertEquals(4, result.getOldLength());
+    assertEquals(2, result.getNewLength());
+  }
+
+  public void test_update_errors() throws Exception {
+    assertNull(update(null, source, "hello", "hbazlo", 1, 2, 3, entry).getErrors());
+
+    AnalysisError error = new AnalysisError(source, 1, 3, HintCode.DEAD_CODE);
+    entry.setValue(DartEntry.RESOLUTION_ERRORS, source, AnalysisError.NO_ERRORS);
+    entry.setValue(DartEntry.VERIFICATION_ERRORS, source, new AnalysisError[] {error});
+    result = update(null, source, "hello", "hbazlo", 1, 2, 3, entry);
+    assertNotNull(result);
+    AnalysisError[] errors = result.getErrors();
+    assertNotNull(errors);
+    assertEquals(1, errors.length);
+    assertSame(error, errors[0]);
+  }
+
   public void test_update_insert_nonContiguous_after() throws Exception {
     IncrementalAnalysisCache cache = update(null, source, "hello", "hbazlo", 1, 2, 3, entry);
 
@@ -100,6 +100,26 @@ public class ClassElementImplTest extends EngineTestCase {
     assertSame(method, classA.getMethod(methodName));
   }
 
+  public void test_getMethod_duplicate() {
+    ClassElementImpl classA = classElement("A");
+    String methodName = "m";
+    MethodElement method1 = methodElement(methodName, null);
+    MethodElement method2 = methodElement(methodName, null);
+    classA.setMethods(new MethodElement[] {method1, method2});
+    assertSame(method1, classA.getMethod(methodName));
+  }
+
+  public void test_getMethod_reset() {
+    ClassElementImpl classA = classElement("A");
+    String methodName = "m";
+    MethodElement method1 = methodElement(methodName, null);
+    classA.setMethods(new MethodElement[] {method1});
+    assertSame(method1, classA.getMethod(methodName));
+    MethodElement method2 = methodElement(methodName, null);
+    classA.setMethods(new MethodElement[] {method2});
+    assertSame(method2, classA.getMethod(methodName));
+  }
+
   public void test_getMethod_undeclared() {
     ClassElementImpl classA = classElement("A");
     String methodName = "m";
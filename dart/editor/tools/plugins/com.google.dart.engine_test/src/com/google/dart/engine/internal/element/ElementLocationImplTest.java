@@ -14,6 +14,12 @@
 package com.google.dart.engine.internal.element;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 public class ElementLocationImplTest extends EngineTestCase {
   public void test_create_encoding() {
@@ -68,6 +74,20 @@ public class ElementLocationImplTest extends EngineTestCase {
     assertEquals(encoding, location.getEncoding());
   }
 
+  public void test_getLibrarySource() {
+    SourceFactory sourceFactory = new SourceFactory(new FileUriResolver());
+    Source source = new FileBasedSource(sourceFactory.getContentCache(), createFile("/l.dart"));
+    ElementLocationImpl location = new ElementLocationImpl(source.getEncoding() + ";c");
+    Source librarySource = location.getLibrarySource(sourceFactory);
+    assertEquals(source, librarySource);
+    assertSame(librarySource, location.getLibrarySource(sourceFactory));
+
+    SourceFactory otherFactory = new SourceFactory(new FileUriResolver());
+    Source otherSource = location.getLibrarySource(otherFactory);
+    assertEquals(source, otherSource);
+    assertNotSame(librarySource, otherSource);
+  }
+
   public void test_hashCode_equal() {
     String encoding = "a;b;c";
     ElementLocationImpl first = new ElementLocationImpl(encoding);
@@ -15,23 +15,117 @@ package com.google.dart.engine.internal.element;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ElementFactory;
+import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.ImportElement;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.LocalVariableElement;
+import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.element.ParameterElement;
 import com.google.dart.engine.element.PrefixElement;
+import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.source.SourceFactory;
 
 import static com.google.dart.engine.ast.ASTFactory.identifier;
 import static com.google.dart.engine.ast.ASTFactory.libraryIdentifier;
+import static com.google.dart.engine.element.ElementFactory.classElement;
 import static com.google.dart.engine.element.ElementFactory.exportFor;
+import static com.google.dart.engine.element.ElementFactory.functionElement;
 import static com.google.dart.engine.element.ElementFactory.importFor;
 import static com.google.dart.engine.element.ElementFactory.library;
+import static com.google.dart.engine.element.ElementFactory.localVariableElement;
+import static com.google.dart.engine.element.ElementFactory.methodElement;
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 public class LibraryElementImplTest extends EngineTestCase {
   public void test_creation() {
     assertNotNull(new LibraryElementImpl(createAnalysisContext(), libraryIdentifier("l")));
   }
 
+  public void test_getElement() {
+    AnalysisContext context = createAnalysisContext();
+    LibraryElementImpl library = library(context, "l1");
+    ClassElementImpl classA = classElement("A");
+    MethodElementImpl method = methodElement("m", null, classA.getType());
+    classA.setMethods(new MethodElement[] {method});
+    CompilationUnitElementImpl unit = new CompilationUnitElementImpl("/l1.dart");
+    unit.setSource(library.getSource());
+    unit.setTypes(new ClassElement[] {classA});
+    library.setDefiningCompilationUnit(unit);
+
+    assertSame(library, library.getElement(library.getLocation()));
+    assertSame(unit, library.getElement(unit.getLocation()));
+    assertSame(classA, library.getElement(classA.getLocation()));
+    assertSame(method, library.getElement(method.getLocation()));
+    ParameterElement parameter = method.getParameters()[0];
+    assertSame(parameter, library.getElement(parameter.getLocation()));
+    String encoding = classA.getLocation().getEncoding();
+    assertNull(library.getElement(new ElementLocationImpl(encoding + ";n")));
+  }
+
+  public void test_getElement_duplicate() {
+    AnalysisContext context = createAnalysisContext();
+    LibraryElementImpl library = library(context, "l1");
+    ClassElementImpl firstClass = classElement("A");
+    ClassElementImpl secondClass = classElement("A");
+    CompilationUnitElementImpl unit = new CompilationUnitElementImpl("/l1.dart");
+    unit.setSource(library.getSource());
+    unit.setTypes(new ClassElement[] {firstClass, secondClass});
+    library.setDefiningCompilationUnit(unit);
+
+    assertSame(firstClass, library.getElement(secondClass.getLocation()));
+  }
+
+  public void test_getElement_setLocalVariables() {
+    AnalysisContext context = createAnalysisContext();
+    LibraryElementImpl library = library(context, "l1");
+    FunctionElementImpl function = functionElement("f");
+    LocalVariableElementImpl variable = localVariableElement("v");
+    function.setLocalVariables(new LocalVariableElement[] {variable});
+    CompilationUnitElementImpl unit = new CompilationUnitElementImpl("/l1.dart");
+    unit.setSource(library.getSource());
+    unit.setFunctions(new FunctionElement[] {function});
+    library.setDefiningCompilationUnit(unit);
+    assertSame(variable, library.getElement(variable.getLocation()));
+
+    LocalVariableElementImpl newVariable = localVariableElement("v");
+    function.setLocalVariables(new LocalVariableElement[] {newVariable});
+    assertSame(newVariable, library.getElement(variable.getLocation()));
+  }
+
+  public void test_getElement_setMethods() {
+    AnalysisContext context = createAnalysisContext();
+    LibraryElementImpl library = library(context, "l1");
+    ClassElementImpl classA = classElement("A");
+    MethodElementImpl method = methodElement("m", null);
+    classA.setMethods(new MethodElement[] {method});
+    CompilationUnitElementImpl unit = new CompilationUnitElementImpl("/l1.dart");
+    unit.setSource(library.getSource());
+    unit.setTypes(new ClassElement[] {classA});
+    library.setDefiningCompilationUnit(unit);
+    assertSame(method, library.getElement(method.getLocation()));
+
+    classA.setMethods(new MethodElement[] {});
+    assertNull(library.getElement(method.getLocation()));
+  }
+
+  public void test_getElement_setParts() {
+    AnalysisContext context = createAnalysisContext();
+    LibraryElementImpl library = library(context, "l1");
+    assertSame(library, library.getElement(library.getLocation()));
+    CompilationUnitElementImpl part = new CompilationUnitElementImpl("/p.dart");
+    part.setSource(new FileBasedSource(
+        context.getSourceFactory().getContentCache(),
+        createFile("/p.dart")));
+    ClassElementImpl classA = classElement("A");
+    part.setTypes(new ClassElement[] {classA});
+    library.setParts(new CompilationUnitElement[] {part});
+
+    assertSame(classA, library.getElement(classA.getLocation()));
+  }
+
   public void test_getImportedLibraries() {
     AnalysisContext context = createAnalysisContext();
     LibraryElementImpl library1 = library(context, "l1");
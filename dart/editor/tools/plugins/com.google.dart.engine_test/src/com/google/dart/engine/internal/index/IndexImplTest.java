@@ -23,6 +23,7 @@ import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.operation.GetDeclarationsOperation;
 import com.google.dart.engine.internal.index.operation.GetRelationshipsOperation;
 import com.google.dart.engine.internal.index.operation.IndexHtmlUnitOperation;
 import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
@@ -48,6 +49,32 @@ public class IndexImplTest extends EngineTestCase {
   private OperationProcessor processor = mock(OperationProcessor.class);
   private IndexImpl index = new IndexImpl(store, queue, processor);
 
+  public void test_getDeclarationsWithCamelCasePattern() throws Exception {
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    index.getDeclarationsWithCamelCasePattern(relationship, "HM", callback);
+    // verify
+    ArgumentCaptor<GetDeclarationsOperation> argument = ArgumentCaptor.forClass(GetDeclarationsOperation.class);
+    verify(queue).enqueue(argument.capture());
+    assertSame(relationship, argument.getValue().getRelationship());
+    assertEquals("HM", argument.getValue().getPattern());
+    assertTrue(argument.getValue().isCamelCase());
+    assertSame(callback, argument.getValue().getCallback());
+  }
+
+  public void test_getDeclarationsWithPrefix() throws Exception {
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    index.getDeclarationsWithPrefix(relationship, "Ha", callback);
+    // verify
+    ArgumentCaptor<GetDeclarationsOperation> argument = ArgumentCaptor.forClass(GetDeclarationsOperation.class);
+    verify(queue).enqueue(argument.capture());
+    assertSame(relationship, argument.getValue().getRelationship());
+    assertEquals("Ha", argument.getValue().getPattern());
+    assertFalse(argument.getValue().isCamelCase());
+    assertSame(callback, argument.getValue().getCallback());
+  }
+
   public void test_getIndexStatistics() throws Exception {
     String stats = "40 relationships in 20 elements in 10 sources";
     when(store.getStatistics()).thenReturn(stats);
@@ -317,6 +317,67 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     assertLocations(locations, locationC);
   }
 
+  public void test_getDeclarationsWithCamelCasePattern() throws Exception {
+    Location locationA = mockLocation(elementA);
+    Location locationB = mockLocation(elementB);
+    Location locationC = mockLocation(elementC);
+    when(elementA.getDisplayName()).thenReturn("HashMap");
+    when(elementB.getDisplayName()).thenReturn("HashMapEntry");
+    when(elementC.getDisplayName()).thenReturn("HashSet");
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationA);
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationB);
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationC);
+    assertLocations(
+        store.getDeclarationsWithCamelCasePattern(relationship, "HM"),
+        locationA,
+        locationB);
+    assertLocations(store.getDeclarationsWithCamelCasePattern(relationship, "HaMaE"), locationB);
+    assertLocations(
+        store.getDeclarationsWithCamelCasePattern(relationship, "H"),
+        locationA,
+        locationB,
+        locationC);
+    assertThat(store.getDeclarationsWithCamelCasePattern(relationship, "hM")).isEmpty();
+  }
+
+  public void test_getDeclarationsWithPrefix() throws Exception {
+    Location locationA = mockLocation(elementA);
+    Location locationB = mockLocation(elementB);
+    Location locationC = mockLocation(elementC);
+    when(elementA.getDisplayName()).thenReturn("HashMap");
+    when(elementB.getDisplayName()).thenReturn("hashCode");
+    when(elementC.getDisplayName()).thenReturn("Map");
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationA);
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationB);
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationC);
+    // not in the universe
+    store.recordRelationship(elementD, relationship, mockLocation(elementD));
+    assertLocations(store.getDeclarationsWithPrefix(relationship, "HASH"), locationA, locationB);
+    assertLocations(store.getDeclarationsWithPrefix(relationship, "HashM"), locationA);
+    assertLocations(
+        store.getDeclarationsWithPrefix(relationship, ""),
+        locationA,
+        locationB,
+        locationC);
+    assertThat(
+        store.getDeclarationsWithPrefix(Relationship.getRelationship("no-such"), "")).isEmpty();
+  }
+
+  public void test_getDeclarationsWithPrefix_removeSource() throws Exception {
+    Location locationA = mockLocation(elementA);
+    Location locationB = mockLocation(elementB);
+    when(elementA.getDisplayName()).thenReturn("HashMap");
+    when(elementB.getDisplayName()).thenReturn("HashSet");
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationA);
+    store.recordRelationship(IndexConstants.UNIVERSE, relationship, locationB);
+    assertLocations(store.getDeclarationsWithPrefix(relationship, "Hash"), locationA, locationB);
+    // remove "A"
+    store.removeSource(contextA, sourceA);
+    assertLocations(store.getDeclarationsWithPrefix(relationship, "Hash"), locationB);
+    assertLocations(store.getDeclarationsWithCamelCasePattern(relationship, "HS"), locationB);
+    assertEquals(1, store.declarationNames.getNameCount(relationship));
+  }
+
   public void test_getRelationships_hasOne() throws Exception {
     store.recordRelationship(elementA, relationship, location);
     Location[] locations = store.getRelationships(elementA, relationship);
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.LocationWithData;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.utilities.io.FileUtilities2;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class SegmentIndexStoreImplTest extends EngineTestCase {
+  /**
+   * Asserts that the "actual" locations are the same as the "expected" ones, which are sorted by
+   * offset.
+   */
+  private static void assertLocations(Location[] actual, Location... expected) {
+    assertLength(expected.length, actual);
+    Arrays.sort(actual, new Comparator<Location>() {
+      @Override
+      public int compare(Location first, Location second) {
+        return first.getOffset() - second.getOffset();
+      }
+    });
+    for (int i = 0; i < expected.length; i++) {
+      assertSame(expected[i].getElement(), actual[i].getElement());
+      assertEquals(expected[i].getOffset(), actual[i].getOffset());
+      assertEquals(expected[i].getLength(), actual[i].getLength());
+    }
+  }
+
+  private SegmentIndexStoreImpl store = new SegmentIndexStoreImpl();
+  private AnalysisContext contextA = mock(AnalysisContext.class);
+  private SourceFactory sourceFactory = mock(SourceFactory.class);
+  private ElementLocation elementLocationA = new ElementLocationImpl("elementLocationA");
+  private ElementLocation elementLocationB = new ElementLocationImpl("elementLocationB");
+  private ElementLocation elementLocationC = new ElementLocationImpl("elementLocationC");
+  private Element elementA = mock(Element.class);
+  private Element elementB = mock(Element.class);
+  private Element elementC = mock(Element.class);
+  private Source librarySource = mock(Source.class);
+  private Source sourceA = mock(Source.class);
+  private Source sourceB = mock(Source.class);
+  private Source sourceC = mock(Source.class);
+  private LibraryElement libraryElement = mock(LibraryElement.class);
+  private CompilationUnitElement libraryUnitElement = mock(CompilationUnitElement.class);
+  private CompilationUnitElement unitElementA = mock(CompilationUnitElement.class);
+  private CompilationUnitElement unitElementB = mock(CompilationUnitElement.class);
+  private CompilationUnitElement unitElementC = mock(CompilationUnitElement.class);
+  private Relationship relationship = Relationship.getRelationship("test-relationship");
+
+  public void test_aboutToIndex_shouldRemoveLocations() throws Exception {
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    store.recordRelationship(elementA, relationship, new Location(elementC, 3, 4));
+    store.aboutToIndex(contextA, unitElementB);
+    assertLocations(store.getRelationships(elementA, relationship), new Location(elementC, 3, 4));
+  }
+
+  public void test_getDeclarations() throws Exception {
+    Element universe = IndexConstants.UNIVERSE;
+    when(elementB.getDisplayName()).thenReturn("fooBar");
+    when(elementC.getDisplayName()).thenReturn("fooBaz");
+    store.recordRelationship(universe, relationship, new Location(elementB, 1, 2));
+    store.recordRelationship(universe, relationship, new Location(elementC, 3, 4));
+    assertLocations(
+        store.getDeclarationsWithPrefix(relationship, "FOO"),
+        new Location(elementB, 1, 2),
+        new Location(elementC, 3, 4));
+    assertLocations(
+        store.getDeclarationsWithCamelCasePattern(relationship, "fB"),
+        new Location(elementB, 1, 2),
+        new Location(elementC, 3, 4));
+    assertLength(0, store.getDeclarationsWithPrefix(relationship, "bar"));
+    // the declarations of a removed unit are removed
+    store.removeSource(contextA, sourceB);
+    assertLocations(
+        store.getDeclarationsWithPrefix(relationship, "foo"),
+        new Location(elementC, 3, 4));
+  }
+
+  public void test_getDeclarations_mapped() throws Exception {
+    Element universe = IndexConstants.UNIVERSE;
+    when(elementB.getDisplayName()).thenReturn("fooBar");
+    when(elementC.getDisplayName()).thenReturn("fooBaz");
+    store.recordRelationship(universe, relationship, new Location(elementB, 1, 2));
+    store.recordRelationship(universe, relationship, new Location(elementC, 3, 4));
+    File file = new File(FileUtilities2.createTempDir("index"), "index.bin");
+    store.writeIndex(contextA, file);
+    store = new SegmentIndexStoreImpl();
+    store.readIndex(contextA, file);
+    // "B" is removed before its declarations are named
+    store.removeSource(contextA, sourceB);
+    assertLocations(
+        store.getDeclarationsWithPrefix(relationship, "foo"),
+        new Location(elementC, 3, 4));
+    // "C" is removed after its declarations are named
+    store.removeSource(contextA, sourceC);
+    assertLength(0, store.getDeclarationsWithCamelCasePattern(relationship, "fB"));
+  }
+
+  public void test_getRelationships() throws Exception {
+    Location locationB = new Location(elementB, 1, 2);
+    Location locationC = new Location(elementC, 3, 4);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationC);
+    assertLocations(store.getRelationships(elementA, relationship), locationB, locationC);
+    assertLength(0, store.getRelationships(elementB, relationship));
+    assertLength(
+        0,
+        store.getRelationships(elementA, Relationship.getRelationship("no-such-relationship")));
+  }
+
+  public void test_getRelationships_withData() throws Exception {
+    store.recordRelationship(elementA, relationship, new LocationWithData<String>(new Location(
+        elementB,
+        1,
+        2), "data"));
+    Location[] locations = store.getRelationships(elementA, relationship);
+    assertLength(1, locations);
+    assertEquals("data", ((LocationWithData<?>) locations[0]).getData());
+  }
+
+  public void test_getStatistics() throws Exception {
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    store.recordRelationship(elementA, relationship, new Location(elementC, 3, 4));
+    assertEquals("2 relationships in 1 keys in 2 sources", store.getStatistics());
+  }
+
+  public void test_readIndex_invalidVersion() throws Exception {
+    try {
+      store.readIndex(contextA, new ByteArrayInputStream(new byte[] {0, 0, 0, 0}));
+      fail();
+    } catch (IOException exception) {
+      // expected
+    }
+  }
+
+  public void test_readIndex_noFile() throws Exception {
+    try {
+      store.readIndex(contextA, new File(FileUtilities2.createTempDir("index"), "index.bin"));
+      fail();
+    } catch (FileNotFoundException exception) {
+      // expected
+    }
+  }
+
+  public void test_removeContext() throws Exception {
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    store.removeContext(contextA);
+    assertLength(0, store.getRelationships(elementA, relationship));
+    // the context is removed, so this record request is ignored
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    assertLength(0, store.getRelationships(elementA, relationship));
+  }
+
+  public void test_removeContext_reclaimsElementIds() throws Exception {
+    AnalysisContext contextB = mock(AnalysisContext.class);
+    ElementLocation elementLocationD = new ElementLocationImpl("elementLocationD");
+    Element elementD = mock(Element.class);
+    CompilationUnitElement unitElementD = mock(CompilationUnitElement.class);
+    Source sourceD = mock(Source.class);
+    mockElement(elementD, elementLocationD, unitElementD, sourceD, "sourceD");
+    when(elementD.getContext()).thenReturn(contextB);
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    store.recordRelationship(elementA, relationship, new Location(elementD, 3, 4));
+    store.recordRelationship(elementD, relationship, new LocationWithData<String>(new Location(
+        elementD,
+        5,
+        6), "data"));
+    assertEquals(3, store.getElementCount());
+    // "A" and "B" are not referenced anymore, "D" is renumbered
+    store.removeContext(contextA);
+    assertEquals(1, store.getElementCount());
+    assertLength(0, store.getRelationships(elementA, relationship));
+    Location[] locations = store.getRelationships(elementD, relationship);
+    assertLocations(locations, new Location(elementD, 5, 6));
+    assertEquals("data", ((LocationWithData<?>) locations[0]).getData());
+    // the renumbered element is still known
+    store.recordRelationship(elementD, relationship, new Location(elementD, 7, 8));
+    assertEquals(1, store.getElementCount());
+    assertLocations(
+        store.getRelationships(elementD, relationship),
+        new Location(elementD, 5, 6),
+        new Location(elementD, 7, 8));
+  }
+
+  public void test_removeSource_withDeclaration() throws Exception {
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    store.removeSource(contextA, sourceA);
+    assertLength(0, store.getRelationships(elementA, relationship));
+    // recorded again
+    store.recordRelationship(elementA, relationship, new Location(elementC, 3, 4));
+    assertLocations(store.getRelationships(elementA, relationship), new Location(elementC, 3, 4));
+  }
+
+  public void test_removeSource_withRelationship() throws Exception {
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    store.recordRelationship(elementA, relationship, new Location(elementC, 3, 4));
+    store.removeSource(contextA, sourceB);
+    assertLocations(store.getRelationships(elementA, relationship), new Location(elementC, 3, 4));
+  }
+
+  public void test_writeAndReadIndex() throws Exception {
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    store.recordRelationship(elementA, relationship, new Location(elementC, 3, 4));
+    store.recordRelationship(elementB, relationship, new Location(elementC, 5, 6));
+    File file = new File(FileUtilities2.createTempDir("index"), "index.bin");
+    store.writeIndex(contextA, file);
+    // read into a new store, elements are resolved lazily
+    store = new SegmentIndexStoreImpl();
+    store.readIndex(contextA, file);
+    assertLocations(
+        store.getRelationships(elementA, relationship),
+        new Location(elementB, 1, 2),
+        new Location(elementC, 3, 4));
+    assertLocations(store.getRelationships(elementB, relationship), new Location(elementC, 5, 6));
+    assertEquals("3 relationships in 2 keys in 2 sources", store.getStatistics());
+    // re-index mapped unit
+    store.aboutToIndex(contextA, unitElementB);
+    store.recordRelationship(elementA, relationship, new Location(elementB, 7, 8));
+    assertLocations(
+        store.getRelationships(elementA, relationship),
+        new Location(elementC, 3, 4),
+        new Location(elementB, 7, 8));
+    // remove declaration
+    store.removeSource(contextA, sourceA);
+    assertLength(0, store.getRelationships(elementA, relationship));
+    assertLocations(store.getRelationships(elementB, relationship), new Location(elementC, 5, 6));
+    // reclaim the ID of "A", the mapped rows are still found
+    store.removeContext(mock(AnalysisContext.class));
+    assertEquals(2, store.getElementCount());
+    assertLength(0, store.getRelationships(elementA, relationship));
+    assertLocations(store.getRelationships(elementB, relationship), new Location(elementC, 5, 6));
+  }
+
+  public void test_writeIndex_newGeneration() throws Exception {
+    store.recordRelationship(elementA, relationship, new Location(elementB, 1, 2));
+    File directory = FileUtilities2.createTempDir("index");
+    File file = new File(directory, "index.bin");
+    store.writeIndex(contextA, file);
+    store.readIndex(contextA, file);
+    // the mapped file is not replaced, a new generation is written
+    store.recordRelationship(elementA, relationship, new Location(elementC, 3, 4));
+    store.writeIndex(contextA, file);
+    assertFalse(file.exists());
+    assertEquals(Arrays.asList("index.bin.1"), Arrays.asList(directory.list()));
+    // the latest generation is read
+    store = new SegmentIndexStoreImpl();
+    store.readIndex(contextA, file);
+    assertLocations(
+        store.getRelationships(elementA, relationship),
+        new Location(elementB, 1, 2),
+        new Location(elementC, 3, 4));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    when(contextA.getSourceFactory()).thenReturn(sourceFactory);
+    when(contextA.getElement(eq(elementLocationA))).thenReturn(elementA);
+    when(contextA.getElement(eq(elementLocationB))).thenReturn(elementB);
+    when(contextA.getElement(eq(elementLocationC))).thenReturn(elementC);
+    mockElement(elementA, elementLocationA, unitElementA, sourceA, "sourceA");
+    mockElement(elementB, elementLocationB, unitElementB, sourceB, "sourceB");
+    mockElement(elementC, elementLocationC, unitElementC, sourceC, "sourceC");
+    // library
+    mockSource(librarySource, "librarySource");
+    when(libraryUnitElement.getSource()).thenReturn(librarySource);
+    when(libraryElement.getSource()).thenReturn(librarySource);
+    when(libraryElement.getDefiningCompilationUnit()).thenReturn(libraryUnitElement);
+    when(libraryElement.getParts()).thenReturn(
+        new CompilationUnitElement[] {unitElementA, unitElementB, unitElementC});
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtilities2.deleteTempDir();
+    super.tearDown();
+  }
+
+  private void mockElement(Element element, ElementLocation location,
+      CompilationUnitElement unitElement, Source source, String encoding) {
+    mockSource(source, encoding);
+    when(element.getContext()).thenReturn(contextA);
+    when(element.getLocation()).thenReturn(location);
+    when(element.getEnclosingElement()).thenReturn(unitElement);
+    when(element.getSource()).thenReturn(source);
+    when(element.getLibrary()).thenReturn(libraryElement);
+    when(unitElement.getSource()).thenReturn(source);
+    when(unitElement.getLibrary()).thenReturn(libraryElement);
+  }
+
+  private void mockSource(Source source, String encoding) {
+    when(source.getEncoding()).thenReturn(encoding);
+    when(sourceFactory.fromEncoding(encoding)).thenReturn(source);
+  }
+}
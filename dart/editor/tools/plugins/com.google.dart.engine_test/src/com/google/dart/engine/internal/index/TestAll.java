@@ -26,6 +26,7 @@ public class TestAll {
     suite.addTestSuite(IndexImplTest.class);
     suite.addTestSuite(MemoryIndexStoreImplTest.class);
     suite.addTestSuite(NameElementImplTest.class);
+    suite.addTestSuite(SegmentIndexStoreImplTest.class);
     suite.addTestSuite(UniverseElementImplTest.class);
     return suite;
   }
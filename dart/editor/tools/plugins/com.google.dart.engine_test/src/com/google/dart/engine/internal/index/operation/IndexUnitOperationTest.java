@@ -23,9 +23,12 @@ import com.google.dart.engine.internal.index.IndexContributor;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import org.mockito.InOrder;
+
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -80,6 +83,21 @@ public class IndexUnitOperationTest extends EngineTestCase {
     }
   }
 
+  public void test_record() throws Exception {
+    RelationshipBuffer buffer = mock(RelationshipBuffer.class);
+    operation.record(buffer);
+    InOrder inOrder = inOrder(store, buffer);
+    inOrder.verify(store).aboutToIndex(context, unitElement);
+    inOrder.verify(buffer).recordInto(store);
+  }
+
+  public void test_record_aboutToIndex_false() throws Exception {
+    when(store.aboutToIndex(context, unitElement)).thenReturn(false);
+    RelationshipBuffer buffer = mock(RelationshipBuffer.class);
+    operation.record(buffer);
+    verify(buffer, never()).recordInto(store);
+  }
+
   public void test_removeWhenSourceRemoved() throws Exception {
     Source someSource = mock(Source.class);
     assertFalse(operation.removeWhenSourceRemoved(someSource));
@@ -21,6 +21,7 @@ import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
@@ -29,7 +30,9 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -88,12 +91,61 @@ public class OperationProcessorTest extends EngineTestCase {
     return processor.stop(waitStop);
   }
 
+  /**
+   * @return the new {@link IndexUnitOperation} mock, which contributes into the given buffer.
+   */
+  private static IndexUnitOperation mockIndexUnitOperation(RelationshipBuffer buffer) {
+    IndexUnitOperation operation = mock(IndexUnitOperation.class);
+    when(operation.getSource()).thenReturn(mock(Source.class));
+    when(operation.contribute()).thenReturn(buffer);
+    return operation;
+  }
+
   public void test_performOperation() throws Exception {
     IndexOperation operation = mock(IndexOperation.class);
     runOperationProcessor(new IndexOperation[] {operation}, false, new IndexOperation[] {});
     verify(operation).performOperation();
   }
 
+  public void test_performIndexUnitOperations() throws Exception {
+    final CountDownLatch stopLatch = new CountDownLatch(1);
+    RelationshipBuffer bufferA = mock(RelationshipBuffer.class);
+    RelationshipBuffer bufferB = mock(RelationshipBuffer.class);
+    RelationshipBuffer bufferC = mock(RelationshipBuffer.class);
+    IndexUnitOperation operationA = mockIndexUnitOperation(bufferA);
+    IndexUnitOperation operationB = mockIndexUnitOperation(bufferB);
+    IndexUnitOperation operationC = mockIndexUnitOperation(bufferC);
+    IndexOperation stopOperation = mock(IndexOperation.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        stopLatch.countDown();
+        return null;
+      }
+    }).when(stopOperation).performOperation();
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(operationA);
+    queue.enqueue(operationB);
+    queue.enqueue(operationC);
+    queue.enqueue(stopOperation);
+    // run processor
+    final OperationProcessor processor = new OperationProcessor(queue, 2);
+    new Thread() {
+      @Override
+      public void run() {
+        processor.run();
+      }
+    }.start();
+    stopLatch.await();
+    processor.stop(true);
+    // relationships are recorded in the order of operations
+    InOrder inOrder = inOrder(operationA, operationB, operationC);
+    inOrder.verify(operationA).record(bufferA);
+    inOrder.verify(operationB).record(bufferB);
+    inOrder.verify(operationC).record(bufferC);
+    verify(operationA, never()).performOperation();
+  }
+
   public void test_performOperation_throwException() throws Exception {
     Logger oldLogger = AnalysisEngine.getInstance().getLogger();
     try {
@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.internal.index.operation;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.source.Source;
 
@@ -47,6 +48,44 @@ public class OperationQueueTest extends EngineTestCase {
     assertSame(null, queue.dequeue(-1));
   }
 
+  public void test_dequeueIndexUnitOperation() throws Exception {
+    Source sourceA = mock(Source.class);
+    Source sourceB = mock(Source.class);
+    IndexUnitOperation operationA = mock(IndexUnitOperation.class);
+    IndexUnitOperation operationB = mock(IndexUnitOperation.class);
+    IndexOperation otherOperation = mock(IndexOperation.class);
+    when(operationA.getSource()).thenReturn(sourceA);
+    when(operationB.getSource()).thenReturn(sourceB);
+    // enqueue operations
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(operationA);
+    queue.enqueue(operationB);
+    queue.enqueue(otherOperation);
+    // "A" is excluded
+    assertSame(null, queue.dequeueIndexUnitOperation(ImmutableSet.of(sourceA)));
+    assertSame(operationA, queue.dequeueIndexUnitOperation(ImmutableSet.<Source> of()));
+    assertSame(operationB, queue.dequeueIndexUnitOperation(ImmutableSet.of(sourceA)));
+    // not an index operation
+    assertSame(null, queue.dequeueIndexUnitOperation(ImmutableSet.<Source> of()));
+    assertSame(otherOperation, queue.dequeue(0));
+    assertSame(null, queue.dequeueIndexUnitOperation(ImmutableSet.<Source> of()));
+  }
+
+  public void test_dequeueIndexUnitOperation_queryWaiting() throws Exception {
+    IndexUnitOperation operation = mock(IndexUnitOperation.class);
+    IndexOperation queryOperation = mock(IndexOperation.class);
+    when(operation.getSource()).thenReturn(mock(Source.class));
+    when(queryOperation.isQuery()).thenReturn(true);
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(operation);
+    queue.enqueue(queryOperation);
+    // the batch is not extended while the query is waiting
+    assertSame(null, queue.dequeueIndexUnitOperation(ImmutableSet.<Source> of()));
+    // unless queries are not processed
+    queue.setProcessQueries(false);
+    assertSame(operation, queue.dequeueIndexUnitOperation(ImmutableSet.<Source> of()));
+  }
+
   public void test_enqueue_isQuery() throws Exception {
     IndexOperation notQueryOperation = mock(IndexOperation.class);
     IndexOperation isQueryOperation = mock(IndexOperation.class);
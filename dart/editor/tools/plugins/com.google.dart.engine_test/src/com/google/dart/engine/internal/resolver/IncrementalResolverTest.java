@@ -22,6 +22,7 @@ import com.google.dart.engine.ast.ReturnStatement;
 import com.google.dart.engine.ast.SimpleIdentifier;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.LocalVariableElement;
 import com.google.dart.engine.error.GatheringErrorListener;
 import com.google.dart.engine.internal.context.ResolutionEraser;
 import com.google.dart.engine.resolver.ResolverTestCase;
@@ -46,6 +47,45 @@ public class IncrementalResolverTest extends ResolverTestCase {
     assertSame(leftElement, rightElement);
   }
 
+  public void test_resolveBody() throws Exception {
+    Source source = addSource(createSource(//
+        "class C {",
+        "  int f;",
+        "  int m() {",
+        "    var v = this.f;",
+        "    return v;",
+        "  }",
+        "}"));
+    LibraryElement library = resolve(source);
+    CompilationUnit unit = resolveCompilationUnit(source, library);
+    ClassDeclaration classNode = (ClassDeclaration) unit.getDeclarations().get(0);
+    MethodDeclaration method = (MethodDeclaration) classNode.getMembers().get(1);
+    LocalVariableElement[] originalVariables = method.getElement().getLocalVariables();
+    BlockFunctionBody body = (BlockFunctionBody) method.getBody();
+    body.accept(new ResolutionEraser());
+    GatheringErrorListener errorListener = new GatheringErrorListener();
+    IncrementalResolver resolver = new IncrementalResolver(
+        library,
+        source,
+        getTypeProvider(),
+        errorListener);
+    resolver.resolveBody(body);
+    errorListener.assertNoErrors();
+
+    ReturnStatement statement = (ReturnStatement) body.getBlock().getStatements().get(1);
+    SimpleIdentifier identifier = (SimpleIdentifier) statement.getExpression();
+    LocalVariableElement variable = (LocalVariableElement) identifier.getStaticElement();
+    assertNotSame(originalVariables[0], variable);
+    assertSame(method.getElement(), variable.getEnclosingElement());
+    assertSame(originalVariables, method.getElement().getLocalVariables());
+
+    resolver.installBodyElements();
+    LocalVariableElement[] variables = method.getElement().getLocalVariables();
+    assertLength(1, variables);
+    assertSame(variable, variables[0]);
+    assertSame(getTypeProvider().getIntType(), identifier.getPropagatedType());
+  }
+
   private MethodDeclaration resolveMethod(String content) throws Exception {
     Source source = addSource(content);
     LibraryElement library = resolve(source);
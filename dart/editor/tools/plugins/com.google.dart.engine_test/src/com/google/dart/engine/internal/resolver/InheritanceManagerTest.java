@@ -28,6 +28,7 @@ import com.google.dart.engine.internal.element.ClassElementImpl;
 import com.google.dart.engine.internal.element.CompilationUnitElementImpl;
 import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.internal.element.MethodElementImpl;
+import com.google.dart.engine.internal.element.PropertyAccessorElementImpl;
 import com.google.dart.engine.source.ContentCache;
 import com.google.dart.engine.source.FileBasedSource;
 import com.google.dart.engine.type.InterfaceType;
@@ -295,6 +296,19 @@ public class InheritanceManagerTest extends EngineTestCase {
     assertNoErrors(classB);
   }
 
+  public void test_lookUpGetter_memoized() throws Exception {
+    ClassElementImpl classA = classElement("A");
+    String getterName = "g";
+    PropertyAccessorElement getterG = getterElement(getterName, false, typeProvider.getIntType());
+    classA.setAccessors(new PropertyAccessorElement[] {getterG});
+
+    ClassElementImpl classB = classElement("B", classA.getType());
+    assertSame(getterG, inheritanceManager.lookUpGetter(classB.getType(), getterName));
+    classA.setAccessors(PropertyAccessorElementImpl.EMPTY_ARRAY);
+    assertSame(getterG, inheritanceManager.lookUpGetter(classB.getType(), getterName));
+    assertNull(inheritanceManager.lookUpGetter(classB.getType(), "x"));
+  }
+
   public void test_lookupInheritance_interface_getter() throws Exception {
     ClassElementImpl classA = classElement("A");
     String getterName = "g";
@@ -596,6 +610,16 @@ public class InheritanceManagerTest extends EngineTestCase {
     assertNoErrors(classA);
   }
 
+  public void test_lookupMember_method_instanceAfterStatic() throws Exception {
+    ClassElementImpl classA = classElement("A");
+    String methodName = "m";
+    MethodElement staticM = methodElement(methodName, typeProvider.getIntType());
+    ((MethodElementImpl) staticM).setStatic(true);
+    MethodElement methodM = methodElement(methodName, typeProvider.getIntType());
+    classA.setMethods(new MethodElement[] {staticM, methodM});
+    assertSame(methodM, inheritanceManager.lookupMember(classA, methodName));
+  }
+
   public void test_lookupMember_method_static() throws Exception {
     ClassElementImpl classA = classElement("A");
     String methodName = "m";
@@ -630,6 +654,32 @@ public class InheritanceManagerTest extends EngineTestCase {
     assertNoErrors(classA);
   }
 
+  public void test_lookUpMethod_memoized() throws Exception {
+    ClassElementImpl classA = classElement("A");
+    String methodName = "m";
+    MethodElement methodM = methodElement(methodName, typeProvider.getIntType());
+    classA.setMethods(new MethodElement[] {methodM});
+
+    ClassElementImpl classB = classElement("B", classA.getType());
+    assertSame(methodM, inheritanceManager.lookUpMethod(classB.getType(), methodName));
+    classA.setMethods(MethodElementImpl.EMPTY_ARRAY);
+    assertSame(methodM, inheritanceManager.lookUpMethod(classB.getType(), methodName));
+    assertNull(inheritanceManager.lookUpMethod(classB.getType(), "x"));
+  }
+
+  public void test_lookUpSetter_memoized() throws Exception {
+    ClassElementImpl classA = classElement("A");
+    String setterName = "s";
+    PropertyAccessorElement setterS = setterElement(setterName, false, typeProvider.getIntType());
+    classA.setAccessors(new PropertyAccessorElement[] {setterS});
+
+    ClassElementImpl classB = classElement("B", classA.getType());
+    assertSame(setterS, inheritanceManager.lookUpSetter(classB.getType(), setterName));
+    classA.setAccessors(PropertyAccessorElementImpl.EMPTY_ARRAY);
+    assertSame(setterS, inheritanceManager.lookUpSetter(classB.getType(), setterName));
+    assertNull(inheritanceManager.lookUpSetter(classB.getType(), "x"));
+  }
+
   private void assertErrors(ClassElement classElt, ErrorCode... expectedErrorCodes) {
     GatheringErrorListener errorListener = new GatheringErrorListener();
     HashSet<AnalysisError> actualErrors = inheritanceManager.getErrors(classElt);
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.resolver;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContextFactory;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.error.GatheringErrorListener;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.Source;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LibraryComponentSchedulerTest extends EngineTestCase {
+  /**
+   * The analysis context in which the libraries are resolved.
+   */
+  private AnalysisContextImpl analysisContext;
+
+  /**
+   * The executor used to resolve libraries concurrently.
+   */
+  private ExecutorService executor;
+
+  @Override
+  public void setUp() {
+    analysisContext = AnalysisContextFactory.contextWithCore();
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    executor.shutdown();
+    super.tearDown();
+  }
+
+  public void test_computeComponents_cycle() {
+    Library core = library("/core.dart");
+    Library a = library("/a.dart");
+    Library b = library("/b.dart");
+    Library c = library("/c.dart");
+    c.setImportedLibraries(new Library[] {a});
+    a.setImportedLibraries(new Library[] {b});
+    b.setExportedLibraries(new Library[] {a});
+    ArrayList<Set<Library>> components = LibraryComponentScheduler.computeComponents(c, core);
+    assertSize(3, components);
+    assertSize(1, components.get(0));
+    assertTrue(components.get(0).contains(core));
+    assertSize(2, components.get(1));
+    assertTrue(components.get(1).contains(a));
+    assertTrue(components.get(1).contains(b));
+    assertSize(1, components.get(2));
+    assertTrue(components.get(2).contains(c));
+  }
+
+  public void test_computeComponents_dependenciesFirst() {
+    Library core = library("/core.dart");
+    Library a = library("/a.dart");
+    Library b = library("/b.dart");
+    Library c = library("/c.dart");
+    a.setImportedLibraries(new Library[] {b, c});
+    b.setImportedLibraries(new Library[] {c});
+    ArrayList<Set<Library>> components = LibraryComponentScheduler.computeComponents(a, core);
+    assertSize(4, components);
+    assertTrue(components.get(0).contains(core));
+    assertTrue(components.get(1).contains(c));
+    assertTrue(components.get(2).contains(b));
+    assertTrue(components.get(3).contains(a));
+  }
+
+  public void test_resolveLibrary_concurrently() throws Exception {
+    Source source = addSource("/a.dart", createSource(//
+        "library a;",
+        "import 'b.dart';",
+        "import 'c.dart';",
+        "class A extends B implements C {}"));
+    Source sourceB = addSource("/b.dart", createSource(//
+        "library b;",
+        "import 'd.dart';",
+        "class B extends D {}"));
+    Source sourceC = addSource("/c.dart", createSource(//
+        "library c;",
+        "import 'd.dart';",
+        "class C extends D {}"));
+    Source sourceD = addSource("/d.dart", createSource(//
+        "library d;",
+        "class D {}"));
+    LibraryResolver resolver = new LibraryResolver(analysisContext, executor);
+    LibraryElement library = resolver.resolveLibrary(source, true);
+    assertNotNull(library);
+    assertSize(1, resolver.getResolvedLibraries());
+    LibraryElement libraryB = analysisContext.getLibraryElement(sourceB);
+    LibraryElement libraryC = analysisContext.getLibraryElement(sourceC);
+    assertNotNull(libraryB);
+    assertNotNull(libraryC);
+    assertNotNull(analysisContext.getLibraryElement(sourceD));
+    assertSame(
+        libraryB.getImports()[0].getImportedLibrary(),
+        libraryC.getImports()[0].getImportedLibrary());
+    for (ImportElement importElement : library.getImports()) {
+      LibraryElement importedLibrary = importElement.getImportedLibrary();
+      assertSame(
+          analysisContext.getLibraryElement(importedLibrary.getSource()),
+          importedLibrary);
+    }
+    assertSame(
+        libraryB.getDefiningCompilationUnit().getTypes()[0],
+        library.getDefiningCompilationUnit().getTypes()[0].getSupertype().getElement());
+    GatheringErrorListener listener = new GatheringErrorListener();
+    listener.addAll(resolver.getErrorListener());
+    listener.assertNoErrors();
+  }
+
+  public void test_resolveLibrary_cycle() throws Exception {
+    Source source = addSource("/a.dart", createSource(//
+        "library a;",
+        "import 'b.dart';",
+        "import 'c.dart';",
+        "class A extends B {}"));
+    addSource("/b.dart", createSource(//
+        "library b;",
+        "import 'a.dart';",
+        "class B {}"));
+    Source sourceC = addSource("/c.dart", createSource(//
+        "library c;",
+        "class C {}"));
+    LibraryResolver resolver = new LibraryResolver(analysisContext, executor);
+    LibraryElement library = resolver.resolveLibrary(source, true);
+    assertNotNull(library);
+    Set<Library> resolvedLibraries = resolver.getResolvedLibraries();
+    assertSize(2, resolvedLibraries);
+    for (Library resolvedLibrary : resolvedLibraries) {
+      assertNotNull(resolvedLibrary.getLibraryElement());
+    }
+    assertNotNull(analysisContext.getLibraryElement(sourceC));
+    GatheringErrorListener listener = new GatheringErrorListener();
+    listener.addAll(resolver.getErrorListener());
+    listener.assertNoErrors();
+  }
+
+  /**
+   * Add a source file to the context. The file path should be absolute.
+   * 
+   * @param filePath the path of the file being added
+   * @param contents the contents of the file
+   * @return the source object representing the added file
+   */
+  private Source addSource(String filePath, String contents) {
+    Source source = new FileBasedSource(
+        analysisContext.getSourceFactory().getContentCache(),
+        createFile(filePath));
+    analysisContext.setContents(source, contents);
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.added(source);
+    analysisContext.applyChanges(changeSet);
+    return source;
+  }
+
+  private Library library(String definingCompilationUnitPath) {
+    return new Library(analysisContext, new GatheringErrorListener(), new FileBasedSource(
+        analysisContext.getSourceFactory().getContentCache(),
+        createFile(definingCompilationUnitPath)));
+  }
+}
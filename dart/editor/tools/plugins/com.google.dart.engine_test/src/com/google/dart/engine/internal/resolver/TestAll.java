@@ -25,6 +25,7 @@ public class TestAll {
     suite.addTestSuite(ElementResolverTest.class);
     suite.addTestSuite(IncrementalResolverTest.class);
     suite.addTestSuite(InheritanceManagerTest.class);
+    suite.addTestSuite(LibraryComponentSchedulerTest.class);
     suite.addTestSuite(LibraryElementBuilderTest.class);
     suite.addTestSuite(LibraryTest.class);
     suite.addTestSuite(StaticTypeAnalyzerTest.class);
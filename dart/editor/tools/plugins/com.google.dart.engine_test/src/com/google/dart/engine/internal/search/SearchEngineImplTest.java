@@ -52,6 +52,7 @@ import com.google.dart.engine.search.MatchQuality;
 import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.search.SearchEngineFactory;
 import com.google.dart.engine.search.SearchFilter;
+import com.google.dart.engine.search.SearchIncompleteException;
 import com.google.dart.engine.search.SearchListener;
 import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.search.SearchPattern;
@@ -299,6 +300,48 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementB, MatchKind.FUNCTION_DECLARATION, 10, 20));
   }
 
+  public void test_searchFunctionDeclarations_inUniverse_usePattern() throws Exception {
+    when(elementA.getDisplayName()).thenReturn("hashCode");
+    when(elementB.getDisplayName()).thenReturn("hashMap");
+    when(elementC.getDisplayName()).thenReturn("map");
+    indexStore.recordRelationship(
+        IndexConstants.UNIVERSE,
+        IndexConstants.DEFINES_FUNCTION,
+        new Location(elementA, 1, 2));
+    indexStore.recordRelationship(
+        IndexConstants.UNIVERSE,
+        IndexConstants.DEFINES_FUNCTION,
+        new Location(elementB, 10, 20));
+    indexStore.recordRelationship(
+        IndexConstants.UNIVERSE,
+        IndexConstants.DEFINES_FUNCTION,
+        new Location(elementC, 100, 200));
+    scope = SearchScopeFactory.createUniverseScope();
+    // search "hash"
+    {
+      pattern = SearchPatternFactory.createPrefixPattern("hash", true);
+      List<SearchMatch> matches = searchFunctionDeclarationsSync();
+      assertMatches(
+          matches,
+          new ExpectedMatch(elementA, MatchKind.FUNCTION_DECLARATION, 1, 2),
+          new ExpectedMatch(elementB, MatchKind.FUNCTION_DECLARATION, 10, 20));
+    }
+    // search "hM"
+    {
+      pattern = SearchPatternFactory.createCamelCasePattern("hM", false);
+      List<SearchMatch> matches = searchFunctionDeclarationsSync();
+      assertMatches(matches, new ExpectedMatch(elementB, MatchKind.FUNCTION_DECLARATION, 10, 20));
+    }
+    // search "m.*"
+    {
+      pattern = SearchPatternFactory.createRegularExpressionPattern("m.*", true);
+      List<SearchMatch> matches = searchFunctionDeclarationsSync();
+      assertMatches(
+          matches,
+          new ExpectedMatch(elementC, MatchKind.FUNCTION_DECLARATION, 100, 200));
+    }
+  }
+
   public void test_searchFunctionDeclarations_useFilter() throws Exception {
     LibraryElement library = mockElement(LibraryElement.class, ElementKind.LIBRARY);
     defineFunctionsAB(library);
@@ -834,6 +877,33 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementC, MatchKind.VARIABLE_READ_WRITE, 3, 30));
   }
 
+  public void test_searchReferences_interrupted() throws Exception {
+    Index index = mock(Index.class);
+    SearchEngine engine = SearchEngineFactory.createSearchEngine(index);
+    ClassElement referencedElement = mockElement(ClassElement.class, ElementKind.CLASS);
+    Thread.currentThread().interrupt();
+    try {
+      engine.searchReferences(referencedElement, scope, filter);
+      fail("Expected SearchIncompleteException");
+    } catch (SearchIncompleteException exception) {
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  public void test_searchReferences_timeout() throws Exception {
+    Index index = mock(Index.class);
+    SearchEngine engine = SearchEngineFactory.createSearchEngine(index, 10L);
+    ClassElement referencedElement = mockElement(ClassElement.class, ElementKind.CLASS);
+    try {
+      engine.searchReferences(referencedElement, scope, filter);
+      fail("Expected SearchIncompleteException");
+    } catch (SearchIncompleteException exception) {
+      assertFalse(Thread.currentThread().isInterrupted());
+    }
+  }
+
   public void test_searchSubtypes() throws Exception {
     final ClassElement referencedElement = mockElement(ClassElement.class, ElementKind.CLASS);
     {
@@ -26,6 +26,13 @@ public class GatheringSearchListenerTest extends EngineTestCase {
   private final SearchMatch matchB = mock(SearchMatch.class);
   private final GatheringSearchListener gatheringListener = new GatheringSearchListener();
 
+  public void test_cancel() throws Exception {
+    gatheringListener.matchFound(matchA);
+    gatheringListener.cancel();
+    gatheringListener.matchFound(matchB);
+    assertThat(gatheringListener.getMatches()).containsExactly(matchA);
+  }
+
   public void test_matchFound() throws Exception {
     Element elementA = mock(Element.class);
     Element elementB = mock(Element.class);
@@ -49,4 +56,21 @@ public class GatheringSearchListenerTest extends EngineTestCase {
     gatheringListener.searchComplete();
     assertTrue(gatheringListener.isComplete());
   }
+
+  public void test_waitForCompletion() throws Exception {
+    new Thread() {
+      @Override
+      public void run() {
+        gatheringListener.matchFound(matchA);
+        gatheringListener.searchComplete();
+      }
+    }.start();
+    assertTrue(gatheringListener.waitForCompletion(0L));
+    assertThat(gatheringListener.getMatches()).containsExactly(matchA);
+  }
+
+  public void test_waitForCompletion_timeout() throws Exception {
+    assertFalse(gatheringListener.waitForCompletion(10L));
+    assertFalse(gatheringListener.isComplete());
+  }
 }
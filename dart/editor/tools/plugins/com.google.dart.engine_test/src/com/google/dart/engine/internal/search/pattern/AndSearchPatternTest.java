@@ -15,10 +15,14 @@ package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
 import com.google.dart.engine.search.SearchPattern;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AndSearchPatternTest extends EngineTestCase {
@@ -48,6 +52,19 @@ public class AndSearchPatternTest extends EngineTestCase {
     assertSame(MatchQuality.EXACT, pattern.matches(element));
   }
 
+  public void test_findCandidates() throws Exception {
+    Index index = mock(Index.class);
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    IndexableSearchPattern patternC = mock(IndexableSearchPattern.class);
+    // use the first indexable pattern
+    new AndSearchPattern(patternA, patternC).findCandidates(index, relationship, callback);
+    verify(patternC).findCandidates(index, relationship, callback);
+    // no indexable patterns, so all declarations
+    pattern.findCandidates(index, relationship, callback);
+    verify(index).getDeclarationsWithPrefix(relationship, "", callback);
+  }
+
   public void test_oneNull() throws Exception {
     when(patternA.matches(element)).thenReturn(MatchQuality.EXACT);
     when(patternB.matches(element)).thenReturn(null);
@@ -15,12 +15,26 @@ package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class CamelCaseSearchPatternTest extends EngineTestCase {
+  public void test_findCandidates() throws Exception {
+    Index index = mock(Index.class);
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    //
+    CamelCaseSearchPattern pattern = new CamelCaseSearchPattern("HaMa", false);
+    pattern.findCandidates(index, relationship, callback);
+    verify(index).getDeclarationsWithCamelCasePattern(relationship, "HaMa", callback);
+  }
+
   public void test_matchExact_samePartCount() throws Exception {
     Element element = mock(Element.class);
     when(element.getDisplayName()).thenReturn("HashMap");
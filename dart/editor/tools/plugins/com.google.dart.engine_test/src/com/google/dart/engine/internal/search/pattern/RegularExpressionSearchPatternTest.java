@@ -15,10 +15,14 @@ package com.google.dart.engine.internal.search.pattern;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.Index;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.search.MatchQuality;
 import com.google.dart.engine.search.SearchPattern;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RegularExpressionSearchPatternTest extends EngineTestCase {
@@ -59,6 +63,42 @@ public class RegularExpressionSearchPatternTest extends EngineTestCase {
     assertSame(MatchQuality.EXACT, pattern.matches(element));
   }
 
+  public void test_findCandidates() throws Exception {
+    Index index = mock(Index.class);
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    // validate
+    new RegularExpressionSearchPattern("Has[a-z]*Map", true).findCandidates(
+        index,
+        relationship,
+        callback);
+    verify(index).getDeclarationsWithPrefix(relationship, "Has", callback);
+  }
+
+  public void test_findCandidates_alternation() throws Exception {
+    Index index = mock(Index.class);
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    // validate
+    new RegularExpressionSearchPattern("Hash|Map", true).findCandidates(
+        index,
+        relationship,
+        callback);
+    verify(index).getDeclarationsWithPrefix(relationship, "", callback);
+  }
+
+  public void test_findCandidates_optional() throws Exception {
+    Index index = mock(Index.class);
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    // validate
+    new RegularExpressionSearchPattern("Hash?Map", true).findCandidates(
+        index,
+        relationship,
+        callback);
+    verify(index).getDeclarationsWithPrefix(relationship, "Has", callback);
+  }
+
   public void test_nullElement() throws Exception {
     SearchPattern pattern = new RegularExpressionSearchPattern("H.*Map", true);
     // validate
@@ -21,9 +21,15 @@ import com.google.dart.engine.ast.ExpressionStatement;
 import com.google.dart.engine.ast.FunctionDeclaration;
 import com.google.dart.engine.ast.NodeList;
 import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.ast.Statement;
 import com.google.dart.engine.ast.TopLevelVariableDeclaration;
+import com.google.dart.engine.ast.VariableDeclarationStatement;
 import com.google.dart.engine.context.AnalysisContextFactory;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.error.StaticWarningCode;
 import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.cache.DartEntryImpl;
 import com.google.dart.engine.internal.context.IncrementalAnalysisCache;
@@ -73,8 +79,79 @@ public class IncrementalAnalysisTaskTest extends EngineTestCase {
     assertNotNull(fooName.getStaticElement()); // assert element reference is preserved
   }
 
+  public void test_perform_declarationChanged() throws Exception {
+    // main() {} foo() {}
+    // main2() {} foo() {}
+    IncrementalAnalysisTask task = performTask("main", "", "2", "() {} foo() {}", false);
+    assertNull(task.getCompilationUnit());
+    assertNull(task.getErrors());
+  }
+
+  public void test_perform_delete() throws Exception {
+    // main() {int x = 0; x; x;}
+    // main() {int x = 0; x;}
+    CompilationUnit newUnit = assertTask("main() {int x = 0; x;", " x;", "", "}");
+
+    FunctionDeclaration main = (FunctionDeclaration) newUnit.getDeclarations().get(0);
+    BlockFunctionBody body = (BlockFunctionBody) main.getFunctionExpression().getBody();
+    assertSize(2, body.getBlock().getStatements());
+    ExpressionStatement statement = (ExpressionStatement) body.getBlock().getStatements().get(1);
+    SimpleIdentifier identifier = (SimpleIdentifier) statement.getExpression();
+    assertSame(ElementKind.LOCAL_VARIABLE, identifier.getStaticElement().getKind());
+  }
+
+  public void test_perform_errors() throws Exception {
+    // f() {return x;} g() {return y;}
+    // f() {return g();} g() {return y;}
+    IncrementalAnalysisTask task = performTask(
+        "f() {return ",
+        "x",
+        "g()",
+        ";} g() {return y;}",
+        true);
+    assertNotNull(task.getCompilationUnit());
+    AnalysisError[] errors = task.getErrors();
+    assertNotNull(errors);
+    assertLength(1, errors);
+    assertSame(StaticWarningCode.UNDEFINED_IDENTIFIER, errors[0].getErrorCode());
+    assertEquals("f() {return g();} g() {return ".length(), errors[0].getOffset());
+    assertNotNull(task.getLineInfo());
+  }
+
+  public void test_perform_newLocalVariable() throws Exception {
+    // main() {x;}
+    // main() {int x = 0; x;}
+    IncrementalAnalysisTask task = performTask("main() {", "", "int x = 0; ", "x;}", false);
+    CompilationUnit newUnit = task.getCompilationUnit();
+    assertNotNull(newUnit);
+
+    FunctionDeclaration main = (FunctionDeclaration) newUnit.getDeclarations().get(0);
+    BlockFunctionBody body = (BlockFunctionBody) main.getFunctionExpression().getBody();
+    NodeList<Statement> statements = body.getBlock().getStatements();
+    VariableDeclarationStatement declaration = (VariableDeclarationStatement) statements.get(0);
+    SimpleIdentifier name = declaration.getVariables().getVariables().get(0).getName();
+    ExpressionStatement statement = (ExpressionStatement) statements.get(1);
+    SimpleIdentifier identifier = (SimpleIdentifier) statement.getExpression();
+    assertNotNull(name.getStaticElement());
+    assertSame(name.getStaticElement(), identifier.getStaticElement());
+    ExecutableElement function = main.getElement();
+    // the element model is only updated once the result has been accepted
+    assertLength(0, function.getLocalVariables());
+    task.installElements();
+    assertLength(1, function.getLocalVariables());
+    assertSame(name.getStaticElement(), function.getLocalVariables()[0]);
+  }
+
   private CompilationUnit assertTask(String prefix, String removed, String added, String suffix)
       throws AnalysisException {
+    IncrementalAnalysisTask task = performTask(prefix, removed, added, suffix, false);
+    CompilationUnit newUnit = task.getCompilationUnit();
+    assertNotNull(newUnit);
+    return newUnit;
+  }
+
+  private IncrementalAnalysisTask performTask(String prefix, String removed, String added,
+      String suffix, boolean withErrors) throws AnalysisException {
     String oldCode = createSource(prefix + removed + suffix);
     String newCode = createSource(prefix + added + suffix);
 
@@ -87,6 +164,10 @@ public class IncrementalAnalysisTaskTest extends EngineTestCase {
     CompilationUnit oldUnit = context.resolveCompilationUnit(source, source);
     assertNotNull(oldUnit);
     entry.setValue(DartEntry.RESOLVED_UNIT, source, oldUnit);
+    if (withErrors) {
+      entry.setValue(DartEntry.RESOLUTION_ERRORS, source, AnalysisError.NO_ERRORS);
+      entry.setValue(DartEntry.VERIFICATION_ERRORS, source, context.getErrors(source).getErrors());
+    }
 
     IncrementalAnalysisCache cache = update(
         null,
@@ -100,14 +181,12 @@ public class IncrementalAnalysisTaskTest extends EngineTestCase {
     assertNotNull(cache);
 
     final IncrementalAnalysisTask task = new IncrementalAnalysisTask(context, cache);
-    CompilationUnit newUnit = task.perform(new TestTaskVisitor<CompilationUnit>() {
+    return task.perform(new TestTaskVisitor<IncrementalAnalysisTask>() {
       @Override
-      public CompilationUnit visitIncrementalAnalysisTask(
+      public IncrementalAnalysisTask visitIncrementalAnalysisTask(
           IncrementalAnalysisTask incrementalAnalysisTask) throws AnalysisException {
-        return task.getCompilationUnit();
+        return task;
       }
     });
-    assertNotNull(newUnit);
-    return newUnit;
   }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.type;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.internal.element.ClassElementImpl;
+import com.google.dart.engine.type.InterfaceType;
+import com.google.dart.engine.type.Type;
+
+import static com.google.dart.engine.element.ElementFactory.classElement;
+
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+
+public class SubtypeCacheTest extends EngineTestCase {
+  public void test_createQuery_disabled() {
+    ClassElement classA = classElement("A");
+    InterfaceType typeA = classA.getType();
+    SubtypeCache.setEnabled(false);
+    try {
+      assertNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeA, typeA));
+    } finally {
+      SubtypeCache.setEnabled(true);
+    }
+    assertNotNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeA, typeA));
+  }
+
+  public void test_createQuery_dynamicArgument() {
+    ClassElement classA = classElement("A", "E");
+    InterfaceType typeA_dynamic = classA.getType().substitute(
+        new Type[] {DynamicTypeImpl.getInstance()});
+    assertNotNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeA_dynamic, typeA_dynamic));
+  }
+
+  public void test_createQuery_rawType() {
+    ClassElement classA = classElement("A", "E");
+    InterfaceTypeImpl typeA = new InterfaceTypeImpl(classA);
+    assertNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeA, typeA));
+  }
+
+  public void test_createQuery_typeParameterArgument() {
+    ClassElement classA = classElement("A", "E");
+    InterfaceType typeA = classA.getType();
+    assertNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeA, typeA));
+  }
+
+  public void test_getHitCount() {
+    ClassElement classA = classElement("A");
+    ClassElement classB = classElement("B", classA.getType());
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+    long hitCount = SubtypeCache.getHitCount();
+    long missCount = SubtypeCache.getMissCount();
+
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertEquals(hitCount, SubtypeCache.getHitCount());
+    assertEquals(missCount + 1, SubtypeCache.getMissCount());
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertEquals(hitCount + 1, SubtypeCache.getHitCount());
+    assertEquals(missCount + 1, SubtypeCache.getMissCount());
+  }
+
+  public void test_isMoreSpecificThan_cachedPerRelation() {
+    ClassElement classA = classElement("A", "E");
+    ClassElement classI = classElement("I");
+    InterfaceType typeA_dynamic = classA.getType().substitute(
+        new Type[] {DynamicTypeImpl.getInstance()});
+    InterfaceType typeAI = classA.getType().substitute(new Type[] {classI.getType()});
+
+    assertFalse(typeA_dynamic.isMoreSpecificThan(typeAI));
+    assertTrue(((TypeImpl) typeA_dynamic).isMoreSpecificThan(
+        typeAI,
+        true,
+        new HashSet<TypeImpl.TypePair>()));
+    assertFalse(typeA_dynamic.isMoreSpecificThan(typeAI));
+    assertEquals(Boolean.FALSE, SubtypeCache.createQuery(
+        SubtypeCache.MORE_SPECIFIC,
+        typeA_dynamic,
+        typeAI).getResult());
+    assertEquals(Boolean.TRUE, SubtypeCache.createQuery(
+        SubtypeCache.MORE_SPECIFIC_WITH_DYNAMIC,
+        typeA_dynamic,
+        typeAI).getResult());
+  }
+
+  public void test_isSubtypeOf_cached() {
+    ClassElement classA = classElement("A");
+    ClassElement classB = classElement("B", classA.getType());
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertEquals(
+        Boolean.TRUE,
+        SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeB, typeA).getResult());
+    // A different type object with the same element and arguments shares the result.
+    InterfaceType otherTypeB = new InterfaceTypeImpl(classB);
+    assertEquals(
+        Boolean.TRUE,
+        SubtypeCache.createQuery(SubtypeCache.SUBTYPE, otherTypeB, typeA).getResult());
+  }
+
+  public void test_isSubtypeOf_distinctElements() {
+    ClassElement classA = classElement("A");
+    ClassElement classB = classElement("B", classA.getType());
+    ClassElement otherClassB = classElement("B");
+    InterfaceType typeA = classA.getType();
+    InterfaceType otherTypeB = otherClassB.getType();
+
+    assertTrue(classB.getType().isSubtypeOf(typeA));
+    assertNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, otherTypeB, typeA).getResult());
+    assertFalse(otherTypeB.isSubtypeOf(typeA));
+  }
+
+  public void test_isSubtypeOf_doesNotRetainElements() throws Exception {
+    WeakReference<ClassElement> reference = cacheResultForNewClass();
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(reference.get());
+  }
+
+  public void test_isSubtypeOf_setInterfaces() {
+    ClassElement classA = classElement("A");
+    ClassElementImpl classB = classElement("B");
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+
+    assertFalse(typeB.isSubtypeOf(typeA));
+    classB.setInterfaces(new InterfaceType[] {typeA});
+    assertNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeB, typeA).getResult());
+    assertTrue(typeB.isSubtypeOf(typeA));
+  }
+
+  public void test_isSubtypeOf_setInterfacesOfSupertype() {
+    ClassElement classA = classElement("A");
+    ClassElementImpl classB = classElement("B");
+    ClassElement classC = classElement("C", classB.getType());
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeC = classC.getType();
+
+    assertFalse(typeC.isSubtypeOf(typeA));
+    classB.setInterfaces(new InterfaceType[] {typeA});
+    assertNull(SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeC, typeA).getResult());
+    assertTrue(typeC.isSubtypeOf(typeA));
+  }
+
+  public void test_isSubtypeOf_setInterfacesOfUnrelatedClass() {
+    ClassElement classA = classElement("A");
+    ClassElement classB = classElement("B", classA.getType());
+    ClassElementImpl classC = classElement("C");
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+
+    assertTrue(typeB.isSubtypeOf(typeA));
+    classC.setInterfaces(new InterfaceType[] {typeA});
+    assertEquals(
+        Boolean.TRUE,
+        SubtypeCache.createQuery(SubtypeCache.SUBTYPE, typeB, typeA).getResult());
+  }
+
+  public void test_isSubtypeOf_setSupertype() {
+    ClassElement classA = classElement("A");
+    ClassElementImpl classB = classElement("B");
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+
+    assertFalse(typeB.isSubtypeOf(typeA));
+    classB.setSupertype(typeA);
+    assertTrue(typeB.isSubtypeOf(typeA));
+  }
+
+  /**
+   * Cache a result involving a class that is not referenced once this method returns.
+   * 
+   * @return a weak reference to the class
+   */
+  private WeakReference<ClassElement> cacheResultForNewClass() {
+    ClassElement classA = classElement("A");
+    ClassElement classB = classElement("B", classA.getType());
+    assertTrue(classB.getType().isSubtypeOf(classA.getType()));
+    return new WeakReference<ClassElement>(classB);
+  }
+}
@@ -79,6 +79,12 @@ public class IncrementalParserTest extends EngineTestCase {
     assertParse("f() => a + ", "", "x", "b;");
   }
 
+  public void test_insert_breakInLoop() {
+    // "f() {while (true) {}}"
+    // "f() {while (true) {break;}}"
+    assertParse("f() {while (true) {", "", "break;", "}}").assertNoErrors();
+  }
+
   public void test_insert_convertOneFunctionToTwo() {
     // "f() {}"
     // "f() => 0; g() {}"
@@ -226,7 +232,8 @@ public class IncrementalParserTest extends EngineTestCase {
    * @param added the text that was added to the modified contents
    * @param suffix the unchanged text after the edit region
    */
-  private void assertParse(String prefix, String removed, String added, String suffix) {
+  private GatheringErrorListener assertParse(String prefix, String removed, String added,
+      String suffix) {
     //
     // Compute the information needed to perform the test.
     //
@@ -289,5 +296,6 @@ public class IncrementalParserTest extends EngineTestCase {
     //
     assertTrue(ASTComparator.equals(modifiedUnit, incrementalUnit));
     // TODO(brianwilkerson) Verify that the errors are correct?
+    return incrementalListener;
   }
 }
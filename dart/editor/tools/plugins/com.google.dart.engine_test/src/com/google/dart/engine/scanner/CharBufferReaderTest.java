@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import junit.framework.TestCase;
+
+import java.nio.CharBuffer;
+
+public class CharBufferReaderTest extends TestCase {
+  public void test_advance() {
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("x".toCharArray()));
+    assertEquals('x', reader.advance());
+    assertEquals(-1, reader.advance());
+    assertEquals(-1, reader.advance());
+  }
+
+  public void test_advance_noArray() {
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("xy"));
+    assertEquals('x', reader.advance());
+    assertEquals('y', reader.advance());
+    assertEquals(-1, reader.advance());
+  }
+
+  public void test_getOffset() {
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("x".toCharArray()));
+    assertEquals(-1, reader.getOffset());
+    reader.advance();
+    assertEquals(0, reader.getOffset());
+    reader.advance();
+    assertEquals(0, reader.getOffset());
+  }
+
+  public void test_getString() {
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("xyzzy".toCharArray()));
+    reader.setOffset(3);
+    assertEquals("yzz", reader.getString(1, 0));
+    assertEquals("zzy", reader.getString(2, 1));
+  }
+
+  public void test_getString_noArray() {
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("xyzzy"));
+    reader.setOffset(3);
+    assertEquals("yzz", reader.getString(1, 0));
+    assertEquals("zzy", reader.getString(2, 1));
+  }
+
+  public void test_getString_position() {
+    CharBuffer buffer = CharBuffer.wrap("-xyzzy-".toCharArray());
+    buffer.position(1);
+    buffer.limit(6);
+    CharBufferReader reader = new CharBufferReader(buffer);
+    reader.setOffset(3);
+    assertEquals("yzz", reader.getString(1, 0));
+    reader.setOffset(4);
+    assertEquals(-1, reader.peek());
+  }
+
+  public void test_internString() {
+    SymbolTable symbolTable = new SymbolTable();
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("xyzzy".toCharArray()));
+    reader.setOffset(3);
+    String string = reader.internString(symbolTable, 1, 0);
+    assertEquals("yzz", string);
+    assertSame(string, reader.internString(symbolTable, 1, 0));
+    assertEquals("zzy", reader.internString(symbolTable, 2, 1));
+  }
+
+  public void test_internString_noArray() {
+    SymbolTable symbolTable = new SymbolTable();
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("xyzzy"));
+    reader.setOffset(3);
+    String string = reader.internString(symbolTable, 1, 0);
+    assertEquals("yzz", string);
+    assertSame(string, reader.internString(symbolTable, 1, 0));
+    assertEquals("zzy", reader.internString(symbolTable, 2, 1));
+  }
+
+  public void test_peek() {
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("xy".toCharArray()));
+    assertEquals('x', reader.peek());
+    assertEquals('x', reader.peek());
+    reader.advance();
+    assertEquals('y', reader.peek());
+    assertEquals('y', reader.peek());
+    reader.advance();
+    assertEquals(-1, reader.peek());
+    assertEquals(-1, reader.peek());
+  }
+
+  public void test_setOffset() {
+    CharBufferReader reader = new CharBufferReader(CharBuffer.wrap("xyz".toCharArray()));
+    reader.setOffset(2);
+    assertEquals(2, reader.getOffset());
+  }
+}
@@ -43,6 +43,16 @@ public class CharSequenceReaderTest extends TestCase {
     assertEquals("zzy", reader.getString(2, 1));
   }
 
+  public void test_internString() {
+    SymbolTable symbolTable = new SymbolTable();
+    CharSequenceReader reader = new CharSequenceReader("xyzzy");
+    reader.setOffset(3);
+    String string = reader.internString(symbolTable, 1, 0);
+    assertEquals("yzz", string);
+    assertSame(string, reader.internString(symbolTable, 1, 0));
+    assertEquals("zzy", reader.internString(symbolTable, 2, 1));
+  }
+
   public void test_peek() {
     CharSequenceReader reader = new CharSequenceReader("xy");
     assertEquals('x', reader.peek());
@@ -87,6 +87,20 @@ public class IncrementalScannerTest extends EngineTestCase {
     assertTrue(incrementalScanner.hasNonWhitespaceChange());
   }
 
+  public void test_insert_beforeComment() {
+    // "a //c\n;"
+    // "ba //c\n;"
+    scan("", "", "b", "a //c\n;");
+    assertTokens(-1, 1, "ba", ";");
+    Token oldComment = originalTokens.getNext().getPrecedingComments();
+    Token newComment = incrementalTokens.getNext().getPrecedingComments();
+    assertNotNull(newComment);
+    assertNotSame(oldComment, newComment);
+    assertEquals(2, oldComment.getOffset());
+    assertEquals(3, newComment.getOffset());
+    assertSame(newComment, incrementalScanner.getTokenMap().get(oldComment));
+  }
+
   public void test_insert_beforeIdentifier() {
     // "a + b;"
     // "a + xb;")
@@ -789,6 +789,24 @@ public class ScannerTest extends TestCase {
     assertError(ScannerErrorCode.UNTERMINATED_STRING_LITERAL, 7, "'string\r");
   }
 
+  public void test_symbolTable() throws Exception {
+    SymbolTable symbolTable = new SymbolTable();
+    Token first = scan("a 12 a 0x1F 'a' 12 1.5", symbolTable);
+    Token second = scan("1.5 0x1F a", symbolTable);
+    String a = first.getLexeme();
+    String twelve = first.getNext().getLexeme();
+    String hex = first.getNext().getNext().getNext().getLexeme();
+    assertSame(a, first.getNext().getNext().getLexeme());
+    assertSame(twelve, first.getNext().getNext().getNext().getNext().getNext().getLexeme());
+    assertSame(second.getNext().getLexeme(), hex);
+    assertSame(second.getNext().getNext().getLexeme(), a);
+    assertSame(
+        second.getLexeme(),
+        first.getNext().getNext().getNext().getNext().getNext().getNext().getLexeme());
+    assertEquals("'a'", first.getNext().getNext().getNext().getNext().getLexeme());
+    assertEquals(4, symbolTable.size());
+  }
+
   public void test_tilde() throws Exception {
     assertToken(TokenType.TILDE, "~");
   }
@@ -985,4 +1003,13 @@ public class ScannerTest extends TestCase {
     listener.setLineInfo(new TestSource(), scanner.getLineStarts());
     return result;
   }
+
+  private Token scan(String source, SymbolTable symbolTable) {
+    GatheringErrorListener listener = new GatheringErrorListener();
+    Scanner scanner = new Scanner(null, new CharSequenceReader(source), listener);
+    scanner.setSymbolTable(symbolTable);
+    Token result = scanner.tokenize();
+    listener.assertNoErrors();
+    return result;
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.utilities.general.StringUtilities;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class SymbolTableTest extends TestCase {
+  public void test_intern_chars() {
+    SymbolTable symbolTable = new SymbolTable();
+    char[] chars = "-length-length-".toCharArray();
+    String first = symbolTable.intern(chars, 1, 7);
+    assertEquals("length", first);
+    assertSame(first, symbolTable.intern(chars, 8, 14));
+    assertEquals(1, symbolTable.size());
+  }
+
+  public void test_intern_collected() throws Exception {
+    SymbolTable symbolTable = new SymbolTable();
+    String kept = symbolTable.intern("kept" + System.nanoTime());
+    for (int i = 0; i < 100; i++) {
+      symbolTable.intern("collected" + i);
+    }
+    for (int i = 0; i < 50 && symbolTable.size() > 1; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(1, symbolTable.size());
+    assertSame(kept, symbolTable.intern(new String(kept)));
+  }
+
+  public void test_intern_mixed() {
+    SymbolTable symbolTable = new SymbolTable();
+    String first = symbolTable.intern("toString");
+    assertSame(first, symbolTable.intern("x.toString".toCharArray(), 2, 10));
+    assertSame(first, symbolTable.intern(new StringBuilder("x.toString"), 2, 10));
+    assertEquals(1, symbolTable.size());
+  }
+
+  public void test_intern_sequence() {
+    SymbolTable symbolTable = new SymbolTable();
+    String first = symbolTable.intern("a.b.a", 0, 1);
+    assertEquals("a", first);
+    assertSame(first, symbolTable.intern("a.b.a", 4, 5));
+    String second = symbolTable.intern("a.b.a", 2, 3);
+    assertEquals("b", second);
+    String third = symbolTable.intern("a.b.a", 1, 1);
+    assertEquals("", third);
+    assertEquals(3, symbolTable.size());
+  }
+
+  public void test_intern_string() {
+    SymbolTable symbolTable = new SymbolTable();
+    String first = symbolTable.intern(new String("String"));
+    assertEquals("String", first);
+    assertSame(first, symbolTable.intern(new String("String")));
+    assertSame(first, StringUtilities.intern(new String("String")));
+  }
+
+  public void test_intern_threads() throws Exception {
+    final SymbolTable symbolTable = new SymbolTable();
+    final int count = 5000;
+    final AtomicReferenceArray<String> results = new AtomicReferenceArray<String>(count);
+    final AssertionError[] failure = {null};
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < count; j++) {
+            char[] chars = ("name" + j).toCharArray();
+            String string = symbolTable.intern(chars, 0, chars.length);
+            if (!results.compareAndSet(j, null, string) && results.get(j) != string) {
+              failure[0] = new AssertionError("Different strings for name" + j);
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+    assertEquals(count, symbolTable.size());
+  }
+
+  public void test_size_grow() {
+    SymbolTable symbolTable = new SymbolTable();
+    String[] strings = new String[10000];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = symbolTable.intern("s" + i);
+    }
+    assertEquals(strings.length, symbolTable.size());
+    for (int i = 0; i < strings.length; i++) {
+      assertSame(strings[i], symbolTable.intern("s" + i));
+    }
+    assertEquals(strings.length, symbolTable.size());
+  }
+}
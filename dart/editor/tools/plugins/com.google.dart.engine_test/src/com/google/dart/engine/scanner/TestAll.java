@@ -21,10 +21,12 @@ import junit.framework.TestSuite;
 public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(CharBufferReaderTest.class);
     suite.addTestSuite(CharSequenceReaderTest.class);
     suite.addTestSuite(IncrementalScannerTest.class);
     suite.addTestSuite(KeywordStateTest.class);
     suite.addTestSuite(ScannerTest.class);
+    suite.addTestSuite(SymbolTableTest.class);
     suite.addTestSuite(TokenTypeTest.class);
     return suite;
   }
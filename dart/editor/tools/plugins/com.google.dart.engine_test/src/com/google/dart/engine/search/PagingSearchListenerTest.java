@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.search;
+
+import com.google.dart.engine.EngineTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class PagingSearchListenerTest extends EngineTestCase {
+  private final SearchMatch matchA = mock(SearchMatch.class);
+  private final SearchMatch matchB = mock(SearchMatch.class);
+  private final SearchMatch matchC = mock(SearchMatch.class);
+  private final PagingSearchListener listener = new PagingSearchListener();
+
+  public void test_cancel() throws Exception {
+    listener.matchFound(matchA);
+    listener.cancel();
+    listener.matchFound(matchB);
+    assertTrue(listener.isCancelled());
+    assertFalse(listener.isExhausted());
+    assertThat(listener.nextPage(10, 0L)).containsExactly(matchA);
+    assertTrue(listener.isExhausted());
+  }
+
+  public void test_nextPage_complete() throws Exception {
+    listener.matchFound(matchA);
+    listener.matchFound(matchB);
+    listener.matchFound(matchC);
+    listener.searchComplete();
+    assertThat(listener.nextPage(2, 0L)).containsExactly(matchA, matchB);
+    assertFalse(listener.isExhausted());
+    assertThat(listener.nextPage(2, 0L)).containsExactly(matchC);
+    assertTrue(listener.isExhausted());
+    assertThat(listener.nextPage(2, 0L)).isEmpty();
+    assertEquals(3, listener.getMatchCount());
+  }
+
+  public void test_nextPage_fullPageBeforeCompletion() throws Exception {
+    new Thread() {
+      @Override
+      public void run() {
+        listener.matchFound(matchA);
+        listener.matchFound(matchB);
+      }
+    }.start();
+    assertThat(listener.nextPage(2, 0L)).containsExactly(matchA, matchB);
+    assertFalse(listener.isComplete());
+    assertFalse(listener.isExhausted());
+  }
+
+  public void test_nextPage_timeout() throws Exception {
+    listener.matchFound(matchA);
+    assertThat(listener.nextPage(2, 10L)).containsExactly(matchA);
+    assertThat(listener.nextPage(2, 10L)).isEmpty();
+    assertFalse(listener.isExhausted());
+  }
+}
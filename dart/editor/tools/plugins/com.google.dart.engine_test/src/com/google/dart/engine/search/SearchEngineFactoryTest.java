@@ -24,4 +24,10 @@ public class SearchEngineFactoryTest extends EngineTestCase {
     SearchEngine searchEngine = SearchEngineFactory.createSearchEngine(index);
     assertNotNull(searchEngine);
   }
+
+  public void test_createSearchEngine_timeout() throws Exception {
+    Index index = mock(Index.class);
+    SearchEngine searchEngine = SearchEngineFactory.createSearchEngine(index, 1000L);
+    assertNotNull(searchEngine);
+  }
 }
@@ -21,7 +21,9 @@ import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 import junit.framework.TestCase;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.net.URI;
+import java.nio.CharBuffer;
 
 public class FileBasedSourceTest extends TestCase {
   public void test_equals_false_differentFiles() {
@@ -49,6 +51,41 @@ public class FileBasedSourceTest extends TestCase {
     assertTrue(source1.equals(source2));
   }
 
+  public void test_getContents_large() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    while (builder.length() <= 2 * 1024 * 1024) {
+      builder.append("var v = '\u00e9';\n");
+    }
+    String contents = builder.toString();
+    File file = createTempFile(contents.getBytes("UTF-8"));
+    FileBasedSource source = new FileBasedSource(new ContentCache(), file);
+    assertEquals(contents, getContents(source));
+  }
+
+  public void test_getContents_overridden() throws Exception {
+    ContentCache contentCache = new ContentCache();
+    File file = createTempFile("main() {}".getBytes("UTF-8"));
+    FileBasedSource source = new FileBasedSource(contentCache, file);
+    contentCache.setContents(source, "library lib;");
+    assertEquals("library lib;", getContents(source));
+  }
+
+  public void test_getContents_utf16() throws Exception {
+    File file = createTempFile("main() {}".getBytes("UTF-16"));
+    FileBasedSource source = new FileBasedSource(new ContentCache(), file);
+    assertEquals("main() {}", getContents(source));
+  }
+
+  public void test_getContents_utf8() throws Exception {
+    File file = createTempFile("main() { print('\u00e9'); }".getBytes("UTF-8"));
+    FileBasedSource source = new FileBasedSource(new ContentCache(), file);
+    assertEquals("main() { print('\u00e9'); }", getContents(source));
+    // read again, the read buffer is reused
+    File file2 = createTempFile("f() {}".getBytes("UTF-8"));
+    FileBasedSource source2 = new FileBasedSource(new ContentCache(), file2);
+    assertEquals("f() {}", getContents(source2));
+  }
+
   public void test_getEncoding() {
     ContentCache contentCache = new ContentCache();
     SourceFactory factory = new SourceFactory(contentCache, new FileUriResolver());
@@ -146,4 +183,32 @@ public class FileBasedSourceTest extends TestCase {
     assertEquals(file.getAbsolutePath(), source.getFullName());
     assertTrue(source.isInSystemLibrary());
   }
+
+  private File createTempFile(byte[] bytes) throws Exception {
+    File file = File.createTempFile("source", ".dart");
+    file.deleteOnExit();
+    FileOutputStream stream = new FileOutputStream(file);
+    try {
+      stream.write(bytes);
+    } finally {
+      stream.close();
+    }
+    return file;
+  }
+
+  private String getContents(Source source) throws Exception {
+    final String[] result = {null};
+    source.getContents(new Source.ContentReceiver() {
+      @Override
+      public void accept(CharBuffer contents, long modificationTime) {
+        result[0] = contents.toString();
+      }
+
+      @Override
+      public void accept(String contents, long modificationTime) {
+        result[0] = contents;
+      }
+    });
+    return result[0];
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.internal.context.PerformanceStatistics;
+import com.google.dart.engine.internal.type.SubtypeCache;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+/**
+ * Measures the effect of the {@link SubtypeCache} on the time spent resolving the SDK and computing
+ * the errors in it. The SDK is analyzed alternately with and without the cache so that the JIT has
+ * warmed up equally for both configurations. Every analysis uses a newly created SDK, whose own
+ * context analyzes the SDK libraries, so that nothing is reused from an earlier analysis.
+ * <p>
+ * The SDK is found using the {@code com.google.dart.sdk} system property; nothing is measured if
+ * the property is not set.
+ */
+public class SubtypeCacheTimingTest extends TestCase {
+  /**
+   * The totals accumulated over the analyses performed with one configuration of the cache.
+   */
+  private static class Totals {
+    private long elapsedTime;
+
+    private long resolveTime;
+
+    private long errorsTime;
+
+    private long hitCount;
+
+    private long missCount;
+
+    @Override
+    public String toString() {
+      long queryCount = hitCount + missCount;
+      return "total " + elapsedTime + " ms, resolve " + resolveTime + " ms, errors " + errorsTime
+          + " ms, cache hits " + hitCount + " of " + queryCount + " ("
+          + (queryCount == 0 ? 0 : hitCount * 100 / queryCount) + "%)";
+    }
+  }
+
+  public void test_sdkAnalysis() throws AnalysisException {
+    File sdkDirectory = DirectoryBasedDartSdk.getDefaultSdkDirectory();
+    if (sdkDirectory == null) {
+      System.out.println("No SDK: set the com.google.dart.sdk system property");
+      return;
+    }
+    //Number of iterations to test
+    int iterations = 3;
+    // Warm up the JIT before measuring anything.
+    analyzeSdk(sdkDirectory, new Totals());
+
+    Totals withoutCache = new Totals();
+    Totals withCache = new Totals();
+    boolean wasEnabled = SubtypeCache.isEnabled();
+    try {
+      for (int i = 0; i < iterations; i++) {
+        SubtypeCache.setEnabled(false);
+        analyzeSdk(sdkDirectory, withoutCache);
+        SubtypeCache.setEnabled(true);
+        analyzeSdk(sdkDirectory, withCache);
+      }
+    } finally {
+      SubtypeCache.setEnabled(wasEnabled);
+    }
+
+    System.out.println("Iterations: " + String.valueOf(iterations));
+    System.out.println("  without cache: " + withoutCache);
+    System.out.println("  with cache:    " + withCache);
+  }
+
+  /**
+   * Resolve every library in a newly created SDK and compute the errors in it, adding the time
+   * spent and the use made of the cache to the given totals.
+   * 
+   * @param sdkDirectory the directory containing the SDK to be analyzed
+   * @param totals the totals to which the measurements are to be added
+   */
+  private void analyzeSdk(File sdkDirectory, Totals totals) throws AnalysisException {
+    long resolveTime = PerformanceStatistics.resolve.getResult();
+    long errorsTime = PerformanceStatistics.errors.getResult();
+    long hitCount = SubtypeCache.getHitCount();
+    long missCount = SubtypeCache.getMissCount();
+    long startTime = System.currentTimeMillis();
+
+    DirectoryBasedDartSdk sdk = new DirectoryBasedDartSdk(sdkDirectory);
+    AnalysisContext context = sdk.getContext();
+    SourceFactory sourceFactory = context.getSourceFactory();
+    for (String dartUri : sdk.getUris()) {
+      Source source = sourceFactory.forUri(dartUri);
+      context.computeLibraryElement(source);
+      context.computeErrors(source);
+    }
+
+    totals.elapsedTime += System.currentTimeMillis() - startTime;
+    totals.resolveTime += PerformanceStatistics.resolve.getResult() - resolveTime;
+    totals.errorsTime += PerformanceStatistics.errors.getResult() - errorsTime;
+    totals.hitCount += SubtypeCache.getHitCount() - hitCount;
+    totals.missCount += SubtypeCache.getMissCount() - missCount;
+  }
+}
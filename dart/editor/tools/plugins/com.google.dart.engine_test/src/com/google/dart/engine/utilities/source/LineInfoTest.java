@@ -45,6 +45,52 @@ public class LineInfoTest extends TestCase {
     assertEquals(5, location.getColumnNumber());
   }
 
+  public void test_getColumnNumber() {
+    LineInfo info = new LineInfo(new int[] {0, 12, 34});
+    assertEquals(1, info.getColumnNumber(0));
+    assertEquals(12, info.getColumnNumber(11));
+    assertEquals(1, info.getColumnNumber(12));
+    assertEquals(3, info.getColumnNumber(36));
+  }
+
+  public void test_getLineNumber() {
+    LineInfo info = new LineInfo(new int[] {0, 12, 34});
+    assertEquals(1, info.getLineNumber(0));
+    assertEquals(1, info.getLineNumber(11));
+    assertEquals(2, info.getLineNumber(12));
+    assertEquals(2, info.getLineNumber(33));
+    assertEquals(3, info.getLineNumber(34));
+    assertEquals(3, info.getLineNumber(1000));
+  }
+
+  public void test_getLineNumber_emptyLines() {
+    LineInfo info = new LineInfo(new int[] {0, 1, 1, 2});
+    assertEquals(1, info.getLineNumber(0));
+    assertEquals(3, info.getLineNumber(1));
+    assertEquals(4, info.getLineNumber(2));
+  }
+
+  public void test_getLineNumbers() {
+    LineInfo info = new LineInfo(new int[] {0, 12, 34});
+    int[] lineNumbers = info.getLineNumbers(new int[] {0, 4, 12, 12, 35, 100});
+    assertEquals(6, lineNumbers.length);
+    assertEquals(1, lineNumbers[0]);
+    assertEquals(1, lineNumbers[1]);
+    assertEquals(2, lineNumbers[2]);
+    assertEquals(2, lineNumbers[3]);
+    assertEquals(3, lineNumbers[4]);
+    assertEquals(3, lineNumbers[5]);
+  }
+
+  public void test_getLineNumbers_unsorted() {
+    LineInfo info = new LineInfo(new int[] {0, 12, 34});
+    int[] lineNumbers = info.getLineNumbers(new int[] {35, 4, 20});
+    assertEquals(3, lineNumbers.length);
+    assertEquals(3, lineNumbers[0]);
+    assertEquals(1, lineNumbers[1]);
+    assertEquals(2, lineNumbers[2]);
+  }
+
   public void test_lastLine() {
     LineInfo info = new LineInfo(new int[] {0, 12, 34});
     LineInfo.Location location = info.getLocation(36);
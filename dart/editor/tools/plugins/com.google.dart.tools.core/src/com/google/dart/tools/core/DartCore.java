@@ -41,6 +41,7 @@ import com.google.dart.tools.core.model.DartSdkListener;
 import com.google.dart.tools.core.model.DartSdkManager;
 import com.google.dart.tools.core.model.ElementChangedListener;
 import com.google.dart.tools.core.utilities.general.StringUtilities;
+import com.google.dart.tools.core.utilities.io.FileUtilities;
 import com.google.dart.tools.core.utilities.performance.PerformanceManager;
 
 import org.eclipse.core.resources.IContainer;
@@ -205,6 +206,14 @@ public class DartCore extends Plugin implements DartSdkListener {
    */
   private static final String[] DART_GENERATED_FILE_EXTENSIONS = {"api", "deps", "js", "map"};
 
+  /**
+   * The names of the directories, in the plug-in's state location, in which earlier builds stored
+   * the analysis results of the SDK and of package sources. Those results did not include element
+   * models, so they did not save resolving the SDK again, and they are no longer written.
+   */
+  private static final String[] OBSOLETE_ENTRY_STORE_DIRECTORY_NAMES = {
+      "project-entries", "sdk-entries"};
+
   /**
    * Cached extensions for image files.
    */
@@ -1270,6 +1279,18 @@ public class DartCore extends Plugin implements DartSdkListener {
 
   }
 
+  /**
+   * Delete the directories in which earlier builds stored analysis results.
+   */
+  private static void deleteObsoleteEntryStores() {
+    for (String name : OBSOLETE_ENTRY_STORE_DIRECTORY_NAMES) {
+      File directory = getPlugin().getStateLocation().append(name).toFile();
+      if (directory.exists()) {
+        FileUtilities.delete(directory);
+      }
+    }
+  }
+
   private static void instrumentationLogErrorImpl(String message, Throwable exception) {
     if (instrumentationLogErrorEnabled) {
 
@@ -1496,6 +1517,7 @@ public class DartCore extends Plugin implements DartSdkListener {
       @Override
       protected IStatus run(IProgressMonitor monitor) {
         getProjectManager().start();
+        deleteObsoleteEntryStores();
         return Status.OK_STATUS;
       }
     };
@@ -101,7 +101,7 @@ public class AnalysisMarkerManager {
           continue;
         }
 
-        int lineNum = lineInfo.getLocation(error.getOffset()).getLineNumber();
+        int lineNum = lineInfo.getLineNumber(error.getOffset());
         boolean isHint = errorCode.getType() == ErrorType.HINT;
 
         String markerType = DartCore.DART_PROBLEM_MARKER_TYPE;
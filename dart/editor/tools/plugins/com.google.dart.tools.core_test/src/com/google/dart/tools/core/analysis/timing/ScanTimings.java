@@ -92,6 +92,18 @@ public class ScanTimings extends TestCase {
   }
 
   private final class MockIndexForScan implements Index {
+    @Override
+    public void getDeclarationsWithCamelCasePattern(Relationship relationship, String pattern,
+        RelationshipCallback callback) {
+      // ignored
+    }
+
+    @Override
+    public void getDeclarationsWithPrefix(Relationship relationship, String prefix,
+        RelationshipCallback callback) {
+      // ignored
+    }
+
     @Override
     public void getRelationships(
         Element element, Relationship relationship, RelationshipCallback callback) {
@@ -31,10 +31,12 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -94,6 +96,52 @@ public class SourceMapManager implements ResourceChangeParticipant {
     }
   }
 
+  /**
+   * The source maps shared by all of the managers, so that a map used by several debug sessions is
+   * only parsed once. A map is parsed again when the modification stamp of its file changes. The
+   * maps are held softly, so that a map is only kept alive by the managers using it and can be
+   * reclaimed once they have all been disposed.
+   */
+  private static final Map<IFile, SoftReference<SourceMap>> sharedSourceMaps =
+      new HashMap<IFile, SoftReference<SourceMap>>();
+
+  /**
+   * Return the source map read from the given file, parsing the file only if it has changed since
+   * it was last parsed.
+   * 
+   * @param file the .map file
+   * @return the source map read from the given file
+   */
+  static SourceMap getSharedSourceMap(IFile file) throws IOException, CoreException {
+    long modificationStamp = file.getModificationStamp();
+
+    synchronized (sharedSourceMaps) {
+      SoftReference<SourceMap> reference = sharedSourceMaps.get(file);
+      SourceMap sourceMap = reference == null ? null : reference.get();
+
+      if (sourceMap != null && sourceMap.getModificationStamp() == modificationStamp) {
+        return sourceMap;
+      }
+    }
+
+    SourceMap sourceMap = SourceMap.createFrom(file);
+
+    synchronized (sharedSourceMaps) {
+      // Drop the entries whose maps have been reclaimed.
+      Iterator<SoftReference<SourceMap>> iter = sharedSourceMaps.values().iterator();
+
+      while (iter.hasNext()) {
+        if (iter.next().get() == null) {
+          iter.remove();
+        }
+      }
+
+      sharedSourceMaps.put(file, new SoftReference<SourceMap>(sourceMap));
+    }
+
+    return sourceMap;
+  }
+
   private Map<IFile, SourceMap> sourceMaps = new HashMap<IFile, SourceMap>();
 
   public SourceMapManager(IProject project) {
@@ -126,6 +174,11 @@ public class SourceMapManager implements ResourceChangeParticipant {
 
   public void dispose() {
     ResourceChangeManager.removeChangeParticipant(this);
+
+    // Release the shared maps, so that they can be reclaimed once no other manager uses them.
+    synchronized (sourceMaps) {
+      sourceMaps.clear();
+    }
   }
 
   /**
@@ -140,7 +193,7 @@ public class SourceMapManager implements ResourceChangeParticipant {
   public SourceLocation getMappingFor(IFile file, int line, int column) {
     IFile mapFile = file.getParent().getFile(new Path(file.getName() + SourceMap.SOURCE_MAP_EXT));
 
-    SourceMap map = sourceMaps.get(mapFile);
+    SourceMap map = getCurrentSourceMap(mapFile);
 
     if (map != null) {
       SourceMapInfo mapping = map.getMappingFor(line, column);
@@ -168,27 +221,29 @@ public class SourceMapManager implements ResourceChangeParticipant {
   public List<SourceLocation> getReverseMappingsFor(IFile targetFile, int line) {
     List<SourceLocation> mappings = new ArrayList<SourceMapManager.SourceLocation>();
 
-    synchronized (sourceMaps) {
-      for (IFile sourceFile : sourceMaps.keySet()) {
-        SourceMap map = sourceMaps.get(sourceFile);
+    for (IFile sourceFile : getMapFiles()) {
+      SourceMap map = getCurrentSourceMap(sourceFile);
 
-        for (String path : map.getSourceNames()) {
-          // TODO(devoncarew): the files in the maps should all be pre-resolved
-          IFile file = resolveFile(sourceFile, path);
+      if (map == null) {
+        continue;
+      }
 
-          if (file != null && file.equals(targetFile)) {
-            List<SourceMapInfo> reverseMappings = map.getReverseMappingsFor(path, line);
-
-            for (SourceMapInfo reverseMapping : reverseMappings) {
-              if (reverseMapping != null) {
-                IFile mapSource = map.getMapSource();
-
-                if (mapSource != null) {
-                  mappings.add(new SourceLocation(
-                      mapSource,
-                      reverseMapping.getLine(),
-                      reverseMapping.getColumn()));
-                }
+      for (String path : map.getSourceNames()) {
+        // TODO(devoncarew): the files in the maps should all be pre-resolved
+        IFile file = resolveFile(sourceFile, path);
+
+        if (file != null && file.equals(targetFile)) {
+          List<SourceMapInfo> reverseMappings = map.getReverseMappingsFor(path, line);
+
+          for (SourceMapInfo reverseMapping : reverseMappings) {
+            if (reverseMapping != null) {
+              IFile mapSource = map.getMapSource();
+
+              if (mapSource != null) {
+                mappings.add(new SourceLocation(
+                    mapSource,
+                    reverseMapping.getLine(),
+                    reverseMapping.getColumn()));
               }
             }
           }
@@ -209,7 +264,7 @@ public class SourceMapManager implements ResourceChangeParticipant {
     if (isMapFileName(file)) {
       try {
         // We speculatively parse the .map file to determine if it is indeed a source map.
-        SourceMap sourceMap = SourceMap.createFrom(file);
+        SourceMap sourceMap = getSharedSourceMap(file);
 
         synchronized (sourceMaps) {
           // It's a source map file; put it in the source map map.
@@ -231,6 +286,10 @@ public class SourceMapManager implements ResourceChangeParticipant {
           sourceMaps.remove(file);
         }
       }
+
+      synchronized (sharedSourceMaps) {
+        sharedSourceMaps.remove(file);
+      }
     }
   }
 
@@ -255,17 +314,19 @@ public class SourceMapManager implements ResourceChangeParticipant {
 
   public boolean isMapTarget(IFile targetFile) {
     if (targetFile != null) {
-      synchronized (sourceMaps) {
-        for (IFile sourceFile : sourceMaps.keySet()) {
-          SourceMap map = sourceMaps.get(sourceFile);
+      for (IFile sourceFile : getMapFiles()) {
+        SourceMap map = getCurrentSourceMap(sourceFile);
 
-          for (String path : map.getSourceNames()) {
-            // TODO(devoncarew): the files in the maps should all be pre-resolved
-            IFile file = resolveFile(sourceFile, path);
+        if (map == null) {
+          continue;
+        }
 
-            if (file != null && file.equals(targetFile)) {
-              return true;
-            }
+        for (String path : map.getSourceNames()) {
+          // TODO(devoncarew): the files in the maps should all be pre-resolved
+          IFile file = resolveFile(sourceFile, path);
+
+          if (file != null && file.equals(targetFile)) {
+            return true;
           }
         }
       }
@@ -274,6 +335,38 @@ public class SourceMapManager implements ResourceChangeParticipant {
     return false;
   }
 
+  /**
+   * Return the map for the given .map file, first parsing the file again if it has changed since
+   * the map was read. Return null if this manager does not know about the file.
+   */
+  private SourceMap getCurrentSourceMap(IFile mapFile) {
+    SourceMap map;
+
+    synchronized (sourceMaps) {
+      map = sourceMaps.get(mapFile);
+    }
+
+    if (map != null && map.getModificationStamp() != mapFile.getModificationStamp()) {
+      if (mapFile.exists()) {
+        handleFileChanged(mapFile);
+      } else {
+        handleFileRemoved(mapFile);
+      }
+
+      synchronized (sourceMaps) {
+        map = sourceMaps.get(mapFile);
+      }
+    }
+
+    return map;
+  }
+
+  private List<IFile> getMapFiles() {
+    synchronized (sourceMaps) {
+      return new ArrayList<IFile>(sourceMaps.keySet());
+    }
+  }
+
   private boolean isMapFileName(IFile file) {
     return file.getName().endsWith(SourceMap.SOURCE_MAP_EXT);
   }
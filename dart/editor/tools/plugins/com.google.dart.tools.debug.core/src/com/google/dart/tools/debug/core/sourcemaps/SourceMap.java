@@ -35,7 +35,9 @@ import java.io.Reader;
 import java.text.NumberFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 // //@ sourceMappingURL=/path/to/file.js.map
 
@@ -60,12 +62,16 @@ public class SourceMap {
   }
 
   public static SourceMap createFrom(IFile file) throws IOException, CoreException {
+    // Read the stamp first, so that a change made while reading is noticed later.
+    long modificationStamp = file.getModificationStamp();
     Reader reader = new InputStreamReader(file.getContents(), file.getCharset());
 
     try {
       String contents = CharStreams.toString(reader);
 
-      return createFrom(file.getFullPath(), contents);
+      SourceMap map = createFrom(file.getFullPath(), contents);
+      map.modificationStamp = modificationStamp;
+      return map;
     } catch (JSONException e) {
       throw new IOException(e);
     } finally {
@@ -121,9 +127,28 @@ public class SourceMap {
   private String sourcesContent[];
 
   /**
-   * The full list of source map entries.
+   * The decoder holding the source map entries, which are decoded one generated line at a time.
    */
-  private SourceMapInfoEntry[] entries;
+  private SourceMapDecoder decoder;
+
+  /**
+   * A table mapping the names of the original sources to the keys of the entries that map to them,
+   * sorted in ascending order. Each key holds the original line in its upper half and the index of
+   * the entry in its lower half, so the first key for a line identifies the first entry in the
+   * generated file that maps to that line. This is computed the first time it is needed.
+   */
+  private Map<String, long[]> reverseIndex;
+
+  /**
+   * The number of lines in the generated file.
+   */
+  private int lineCount;
+
+  /**
+   * The modification stamp of the file from which this map was read, or
+   * {@link IResource#NULL_STAMP} if it is not known.
+   */
+  private long modificationStamp = IResource.NULL_STAMP;
 
   public SourceMap() {
 
@@ -158,8 +183,8 @@ public class SourceMap {
 
     String mapStr = obj.getString("mappings");
 
-    List<SourceMapInfoEntry> result = SourceMapDecoder.decode(sources, names, mapStr);
-    entries = result.toArray(new SourceMapInfoEntry[result.size()]);
+    decoder = new SourceMapDecoder(mapStr);
+    lineCount = countLines(mapStr);
   }
 
   public String getFile() {
@@ -173,35 +198,39 @@ public class SourceMap {
    * @param column the column in the generated source; -1 means the column is not interesting
    * @return the corresponding location in the original source
    */
-  public SourceMapInfo getMappingFor(int line, int column) {
-    int index = findIndexForLine(line);
-
-    if (index == -1) {
+  public synchronized SourceMapInfo getMappingFor(int line, int column) {
+    if (!decoder.decodeThrough(line)) {
       return null;
     }
 
-    SourceMapInfoEntry entry = entries[index];
+    int index = decoder.getLineStart(line);
+
+    if (index == decoder.getLineStart(line + 1)) {
+      return null;
+    }
 
     // If column == -1, return the first mapping for that line.
     if (column == -1) {
-      return entry.getInfo();
+      return getInfo(index);
     }
 
     // Search for a matching mapping.
-    while (index < entries.length) {
-      entry = entries[index];
-
-      if (entry.column <= column) {
-        if (entry.endColumn == -1) {
-          return entry.getInfo();
+    while (index < decoder.getSegmentCount() || decoder.decodeNextLine()) {
+      if (index < decoder.getSegmentCount()) {
+        if (decoder.get(index, SourceMapDecoder.COLUMN) <= column) {
+          int endColumn = decoder.get(index, SourceMapDecoder.END_COLUMN);
+
+          if (endColumn == -1) {
+            return getInfo(index);
+          }
+
+          if (column < endColumn) {
+            return getInfo(index);
+          }
         }
 
-        if (column < entry.endColumn) {
-          return entry.getInfo();
-        }
+        index++;
       }
-
-      index++;
     }
 
     // no mapping found
@@ -238,26 +267,35 @@ public class SourceMap {
    * @param column
    * @return
    */
-  public List<SourceMapInfo> getReverseMappingsFor(String file, int line) {
-    // TODO(devoncarew): calculate this information once for O(1) lookup
-    for (SourceMapInfoEntry entry : entries) {
-      SourceMapInfo info = entry.getInfo();
+  public synchronized List<SourceMapInfo> getReverseMappingsFor(String file, int line) {
+    if (reverseIndex == null) {
+      reverseIndex = createReverseIndex();
+    }
 
-      if (info == null) {
-        continue;
-      }
+    long[] keys = reverseIndex.get(file);
 
-      if (line == info.getLine()) {
-        if (file.equals(info.getFile())) {
-          // TODO(devoncarew): there will be several entries on this line
-          // We need to choose one that has a non-zero range, or is a catch-all entry
+    if (keys == null) {
+      return Collections.emptyList();
+    }
 
-          return Collections.singletonList(new SourceMapInfo(
-              path.toString(),
-              entry.line,
-              entry.column));
-        }
-      }
+    // Find the first key for the line.
+    long lineKey = (long) line << 32;
+    int location = Arrays.binarySearch(keys, lineKey);
+
+    if (location < 0) {
+      location = -(location + 1);
+    }
+
+    if (location < keys.length && (int) (keys[location] >> 32) == line) {
+      // TODO(devoncarew): there will be several entries on this line
+      // We need to choose one that has a non-zero range, or is a catch-all entry
+
+      int index = (int) keys[location];
+
+      return Collections.singletonList(new SourceMapInfo(
+          path.toString(),
+          decoder.getLine(index),
+          decoder.get(index, SourceMapDecoder.COLUMN)));
     }
 
     return Collections.emptyList();
@@ -267,6 +305,14 @@ public class SourceMap {
     return sources;
   }
 
+  /**
+   * Return the modification stamp of the file from which this map was read, or
+   * {@link IResource#NULL_STAMP} if the map was not read from a workspace file.
+   */
+  public long getModificationStamp() {
+    return modificationStamp;
+  }
+
   /**
    * The format version; must be a positive integer. The current version of the specification is 3.
    */
@@ -277,38 +323,92 @@ public class SourceMap {
   @Override
   public String toString() {
     return "[" + getPath().lastSegment() + ", "
-        + NumberFormat.getNumberInstance().format(entries.length) + " lines]";
+        + NumberFormat.getNumberInstance().format(lineCount) + " lines]";
   }
 
-  private int findIndexForLine(int line) {
-    // TODO(devoncarew): test this binary search
+  private int countLines(String mapStr) {
+    int count = 1;
 
-    int location = Arrays.binarySearch(
-        entries,
-        SourceMapInfoEntry.forLine(line),
-        SourceMapInfoEntry.lineComparator());
+    for (int i = 0; i < mapStr.length(); i++) {
+      if (mapStr.charAt(i) == ';') {
+        count++;
+      }
+    }
 
-    if (location < 0) {
-      return -1;
+    return count;
+  }
+
+  /**
+   * Decode all of the entries and index them by original source and line.
+   */
+  private Map<String, long[]> createReverseIndex() {
+    decoder.decodeAll();
+
+    int segmentCount = decoder.getSegmentCount();
+    int[] counts = new int[sources.length];
+
+    for (int i = 0; i < segmentCount; i++) {
+      int source = decoder.get(i, SourceMapDecoder.SOURCE);
+
+      if (source >= 0 && source < sources.length) {
+        counts[source]++;
+      }
+    }
+
+    // Sources can be listed more than once, so the keys are grouped by name.
+    Map<String, long[]> index = new HashMap<String, long[]>();
+    Map<String, Integer> sizes = new HashMap<String, Integer>();
+
+    for (int source = 0; source < sources.length; source++) {
+      Integer size = sizes.get(sources[source]);
+      sizes.put(sources[source], (size == null ? 0 : size.intValue()) + counts[source]);
     }
 
-    while (location > 0 && entries[location - 1].line == line) {
-      location--;
+    for (Map.Entry<String, Integer> entry : sizes.entrySet()) {
+      index.put(entry.getKey(), new long[entry.getValue().intValue()]);
     }
 
-    return location;
-
-//    for (int i = 0; i < entries.length; i++) {
-//      SourceMapInfoEntry entry = entries[i];
-//
-//      if (entry.line == line) {
-//        return i;
-//      } else if (entry.line > line) {
-//        return -1;
-//      }
-//    }
-//
-//    return -1;
+    for (int i = segmentCount - 1; i >= 0; i--) {
+      int source = decoder.get(i, SourceMapDecoder.SOURCE);
+
+      if (source >= 0 && source < sources.length) {
+        String name = sources[source];
+        int size = sizes.get(name).intValue() - 1;
+        long line = decoder.get(i, SourceMapDecoder.SOURCE_LINE);
+
+        index.get(name)[size] = (line << 32) | i;
+        sizes.put(name, size);
+      }
+    }
+
+    for (long[] keys : index.values()) {
+      Arrays.sort(keys);
+    }
+
+    return index;
+  }
+
+  private SourceMapInfo getInfo(int index) {
+    SourceMapInfo info = new SourceMapInfo(
+        getString(sources, decoder.get(index, SourceMapDecoder.SOURCE)),
+        decoder.get(index, SourceMapDecoder.SOURCE_LINE),
+        decoder.get(index, SourceMapDecoder.SOURCE_COLUMN));
+
+    int name = decoder.get(index, SourceMapDecoder.NAME);
+
+    if (name != -1) {
+      info.setName(getString(names, name));
+    }
+
+    return info;
+  }
+
+  private String getString(String[] strs, int index) {
+    if (index >= 0 && index < strs.length) {
+      return strs[index];
+    } else {
+      return null;
+    }
   }
 
   private String[] parseStringArray(JSONArray arr) throws JSONException {
@@ -14,94 +14,248 @@
 
 package com.google.dart.tools.debug.core.sourcemaps;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Decodes the "mappings" entry of a source map into a packed array of ints. Generated lines are
+ * decoded on demand and in order, so only the lines up to the last one asked for are ever decoded.
+ * <p>
+ * Each segment that maps to an original location takes {@link #SEGMENT_SIZE} consecutive ints,
+ * indexed by the field constants below. Segments are numbered in the order in which they appear in
+ * the generated file.
+ */
 class SourceMapDecoder {
 
-  public static List<SourceMapInfoEntry> decode(String[] sources, String[] names, String mapStr) {
-    return new SourceMapDecoder(sources, names).decodeLines(mapStr);
-  }
+  /**
+   * The field holding the generated column at which a segment starts.
+   */
+  static final int COLUMN = 0;
+
+  /**
+   * The field holding the generated column at which a segment ends (exclusive), or -1 if the
+   * segment extends to the end of the line.
+   */
+  static final int END_COLUMN = 1;
+
+  /**
+   * The field holding the index of the original source in the "sources" list.
+   */
+  static final int SOURCE = 2;
+
+  /**
+   * The field holding the line in the original source.
+   */
+  static final int SOURCE_LINE = 3;
+
+  /**
+   * The field holding the column in the original source.
+   */
+  static final int SOURCE_COLUMN = 4;
+
+  /**
+   * The field holding the index of the name in the "names" list, or -1 if the segment has no name.
+   */
+  static final int NAME = 5;
+
+  /**
+   * The number of ints used to represent a segment.
+   */
+  static final int SEGMENT_SIZE = 6;
+
+  private String mappings;
+
+  /**
+   * The offset in {@link #mappings} of the first line that has not been decoded.
+   */
+  private int offset = 0;
+
+  /**
+   * The number of generated lines that have been decoded.
+   */
+  private int lineCount = 0;
+
+  /**
+   * The index of the first segment of each decoded line, followed by the number of segments.
+   */
+  private int[] lineStarts = new int[64];
+
+  private int[] segments = new int[SEGMENT_SIZE * 64];
 
-  private String[] sources;
-  private String[] names;
+  private int segmentCount = 0;
 
-  private List<SourceMapInfoEntry> entries;
+  // The values of the original locations are relative to the previous segment, across lines.
+  private int sourceIndex = 0;
+  private int sourceLine = 0;
+  private int sourceColumn = 0;
+  private int nameIndex = 0;
 
-  int originalFileIndex = 0;
-  int originalLine = 0;
-  int originalColumn = 0;
-  int nameIndex = 0;
+  private int[] values = new int[5];
 
-  private SourceMapDecoder(String[] sources, String[] names) {
-    this.sources = sources;
-    this.names = names;
+  SourceMapDecoder(String mappings) {
+    this.mappings = mappings;
   }
 
-  List<SourceMapInfoEntry> decodeLines(String mapStr) {
+  /**
+   * Decode all of the remaining lines.
+   */
+  void decodeAll() {
+    while (decodeNextLine()) {
+      // Keep decoding.
+    }
+  }
+
+  /**
+   * Decode the next line, if there is one.
+   * 
+   * @return true if a line was decoded
+   */
+  boolean decodeNextLine() {
     // In the given string, semi-colons demarcate lines and commas demarcate groups.
     // A;A;;;;;;;A;A;;A;A;A,mB,W,C,C,I,C,C;A,cAyVEA;AAAiB,QAAK,MAAFC
 
-    entries = new ArrayList<SourceMapInfoEntry>();
+    int length = mappings.length();
 
-    int lineNumber = 0;
+    if (offset > length) {
+      return false;
+    }
 
-    for (String line : mapStr.split(";")) {
-      if (line.length() > 0) {
-        decodeLine(line.split(","), lineNumber);
-      }
+    int lineEnd = mappings.indexOf(';', offset);
 
-      lineNumber++;
+    if (lineEnd == -1) {
+      lineEnd = length;
     }
 
-    return entries;
-  }
-
-  private void decodeLine(String[] mappings, int line) {
     int generatedColumn = 0;
+    int previousSegment = -1;
 
-    SourceMapInfoEntry previousEntry = null;
+    while (offset < lineEnd) {
+      int groupEnd = mappings.indexOf(',', offset);
 
-    for (String mapping : mappings) {
-      int[] indexes = VlqDecoder.decode(mapping);
+      if (groupEnd == -1 || groupEnd > lineEnd) {
+        groupEnd = lineEnd;
+      }
+
+      int count = VlqDecoder.decode(mappings, offset, groupEnd, values);
+
+      offset = groupEnd + 1;
 
-      if (indexes.length == 1 || indexes.length == 4 || indexes.length == 5) {
-        generatedColumn += indexes[0];
+      if (count == 1 || count == 4 || count == 5) {
+        generatedColumn += values[0];
 
-        if (previousEntry != null) {
-          previousEntry.setEndColumn(generatedColumn);
+        if (previousSegment != -1) {
+          segments[previousSegment * SEGMENT_SIZE + END_COLUMN] = generatedColumn;
         }
 
-        if (indexes.length < 4) {
+        if (count < 4) {
           continue;
         }
 
-        originalFileIndex += indexes[1];
-        originalLine += indexes[2];
-        originalColumn += indexes[3];
+        sourceIndex += values[1];
+        sourceLine += values[2];
+        sourceColumn += values[3];
 
-        String originalFile = getString(sources, originalFileIndex);
+        int name = -1;
 
-        SourceMapInfo info = new SourceMapInfo(originalFile, originalLine, originalColumn);
-
-        if (indexes.length > 4) {
-          nameIndex += indexes[4];
-          info.setName(getString(names, nameIndex));
+        if (count > 4) {
+          nameIndex += values[4];
+          name = nameIndex;
         }
 
-        previousEntry = new SourceMapInfoEntry(line, generatedColumn, info);
+        previousSegment = addSegment(generatedColumn, name);
+      }
+    }
+
+    offset = lineEnd + 1;
+
+    if (lineCount + 1 >= lineStarts.length) {
+      lineStarts = grow(lineStarts);
+    }
+
+    lineCount++;
+    lineStarts[lineCount] = segmentCount;
 
-        entries.add(previousEntry);
+    return true;
+  }
+
+  /**
+   * Decode the lines up to and including the given line.
+   * 
+   * @return true if the given line exists
+   */
+  boolean decodeThrough(int line) {
+    while (lineCount <= line) {
+      if (!decodeNextLine()) {
+        return false;
       }
     }
+
+    return line >= 0;
   }
 
-  private String getString(String[] strs, int index) {
-    if (index >= 0 && index < strs.length) {
-      return strs[index];
-    } else {
-      return null;
+  /**
+   * Return the value of the given field of the given segment.
+   */
+  int get(int segment, int field) {
+    return segments[segment * SEGMENT_SIZE + field];
+  }
+
+  /**
+   * Return the generated line containing the given decoded segment.
+   */
+  int getLine(int segment) {
+    int low = 0;
+    int high = lineCount - 1;
+
+    // Find the last line that starts at or before the segment.
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+
+      if (lineStarts[mid] <= segment) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
     }
+
+    return low;
+  }
+
+  /**
+   * Return the index of the first segment of the given decoded line. The segments of the line end
+   * where the segments of the next line start.
+   */
+  int getLineStart(int line) {
+    return lineStarts[line];
+  }
+
+  /**
+   * Return the number of segments that have been decoded.
+   */
+  int getSegmentCount() {
+    return segmentCount;
+  }
+
+  private int addSegment(int generatedColumn, int name) {
+    int index = segmentCount * SEGMENT_SIZE;
+
+    if (index + SEGMENT_SIZE > segments.length) {
+      segments = grow(segments);
+    }
+
+    segments[index + COLUMN] = generatedColumn;
+    segments[index + END_COLUMN] = -1;
+    segments[index + SOURCE] = sourceIndex;
+    segments[index + SOURCE_LINE] = sourceLine;
+    segments[index + SOURCE_COLUMN] = sourceColumn;
+    segments[index + NAME] = name;
+
+    return segmentCount++;
+  }
+
+  private int[] grow(int[] array) {
+    int[] newArray = new int[array.length * 2];
+
+    System.arraycopy(array, 0, newArray, 0, array.length);
+
+    return newArray;
   }
 
 }
@@ -86,6 +86,45 @@ public class VlqDecoder {
     return Ints.toArray(results);
   }
 
+  /**
+   * Decode the Base64 VLQ values in the given range of the given string into the given array,
+   * without creating any intermediate objects. Values that do not fit in the array are decoded but
+   * not stored.
+   * 
+   * @param str the string containing the encoded values
+   * @param start the index of the first character to be decoded
+   * @param end the index of the character after the last character to be decoded
+   * @param values the array into which the decoded values are written
+   * @return the number of values in the given range
+   */
+  public static int decode(String str, int start, int end, int[] values) {
+    int count = 0;
+    int i = start;
+
+    while (i < end) {
+      int result = 0;
+      boolean continuation;
+      int shift = 0;
+
+      do {
+        char c = str.charAt(i++);
+        int digit = fromBase64(c);
+        continuation = (digit & VLQ_CONTINUATION_BIT) != 0;
+        digit &= VLQ_BASE_MASK;
+        result = result + (digit << shift);
+        shift = shift + VLQ_BASE_SHIFT;
+      } while (continuation && i < end);
+
+      if (count < values.length) {
+        values[count] = fromVLQSigned(result);
+      }
+
+      count++;
+    }
+
+    return count;
+  }
+
   /**
    * Encode the given sequence of ints to a Base64 VLQ encoded string.
    * 
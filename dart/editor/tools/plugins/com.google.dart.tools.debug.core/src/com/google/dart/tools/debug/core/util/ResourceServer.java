@@ -31,10 +31,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -43,6 +45,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A web server that serves up workspace resources.
@@ -54,6 +57,8 @@ public class ResourceServer implements IResourceResolver {
 
   private Set<String> previousAgents = new HashSet<String>();
 
+  private ResourceServerCache cache = new ResourceServerCache();
+
   /**
    * Create a ResourceServer; serve its resources from any free port.
    * 
@@ -69,7 +74,9 @@ public class ResourceServer implements IResourceResolver {
    * @throws IOException
    */
   public ResourceServer(int port) throws IOException {
-    serverSocket = new ServerSocket(port);
+    // Sockets accepted from a channel let the handlers send large files with transferTo().
+    serverSocket = ServerSocketChannel.open().socket();
+    serverSocket.bind(new InetSocketAddress(port));
     threadPool = Executors.newCachedThreadPool();
 
     new Thread(new Runnable() {
@@ -141,6 +148,11 @@ public class ResourceServer implements IResourceResolver {
     } catch (IOException exception) {
       DartDebugCorePlugin.logError(exception);
     }
+
+    // Close any kept-alive connections; interrupting a channel's thread closes the channel.
+    threadPool.shutdownNow();
+
+    cache.clear();
   }
 
   protected String getAvailableAppsContent() throws IOException {
@@ -195,6 +207,10 @@ public class ResourceServer implements IResourceResolver {
     }
   }
 
+  ResourceServerCache getCache() {
+    return cache;
+  }
+
   private List<IFile> getAllExecutableFiles() {
     final List<IFile> files = new ArrayList<IFile>();
 
@@ -266,7 +282,14 @@ public class ResourceServer implements IResourceResolver {
       while (true) {
         Socket socket = serverSocket.accept();
 
-        threadPool.execute(new ResourceServerHandler(this, socket));
+        try {
+          threadPool.execute(new ResourceServerHandler(this, socket));
+        } catch (RejectedExecutionException e) {
+          // The server was shut down after the connection was accepted.
+          socket.close();
+
+          break;
+        }
       }
     } catch (IOException e) {
       // The server socket was closed by the shutdown() call.
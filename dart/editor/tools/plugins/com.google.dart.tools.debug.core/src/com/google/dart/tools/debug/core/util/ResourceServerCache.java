@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.util;
+
+import com.google.common.io.Files;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-memory cache of the contents of the small files served by a ResourceServer. Entries are
+ * checked against the modification time and length of their file on every lookup, and the least
+ * recently used entries are dropped once the cache grows past its size limit.
+ */
+class ResourceServerCache {
+
+  private static class CacheEntry {
+    final long lastModified;
+    final byte[] contents;
+
+    // null until compression has been tried; an empty array if compression didn't help
+    byte[] compressedContents;
+
+    CacheEntry(long lastModified, byte[] contents) {
+      this.lastModified = lastModified;
+      this.contents = contents;
+    }
+
+    int getSize() {
+      return contents.length + (compressedContents == null ? 0 : compressedContents.length);
+    }
+
+    boolean isCurrent(long lastModified, long length) {
+      return this.lastModified == lastModified && contents.length == length;
+    }
+  }
+
+  /**
+   * Files larger than this are not cached; they're streamed from disk instead.
+   */
+  public static final int MAX_FILE_SIZE = 256 * 1024;
+
+  private static final int MAX_CACHE_SIZE = 16 * 1024 * 1024;
+
+  private static final byte[] NOT_COMPRESSIBLE = new byte[0];
+
+  private static byte[] compress(byte[] contents) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(contents.length / 2);
+    GZIPOutputStream gzip = new GZIPOutputStream(out);
+
+    gzip.write(contents);
+    gzip.close();
+
+    return out.toByteArray();
+  }
+
+  // Iterates in least recently used order.
+  private Map<File, CacheEntry> entries = new LinkedHashMap<File, CacheEntry>(16, 0.75f, true);
+
+  private int cacheSize;
+
+  /**
+   * Remove all the entries from the cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    cacheSize = 0;
+  }
+
+  /**
+   * Return the gzip compressed contents of the given file, or null if compressing the file does not
+   * make it any smaller.
+   * 
+   * @param file the file to read
+   * @param lastModified the modification time of the file
+   * @param length the length of the file
+   * @return the compressed contents, or null
+   * @throws IOException
+   */
+  public byte[] getCompressedContents(File file, long lastModified, long length)
+      throws IOException {
+    CacheEntry entry = getEntry(file, lastModified, length);
+
+    synchronized (this) {
+      if (entry.compressedContents != null) {
+        return entry.compressedContents == NOT_COMPRESSIBLE ? null : entry.compressedContents;
+      }
+    }
+
+    // Compress outside of the lock; two threads racing here produce the same bytes.
+    byte[] compressed = compress(entry.contents);
+
+    if (compressed.length >= entry.contents.length) {
+      compressed = NOT_COMPRESSIBLE;
+    }
+
+    synchronized (this) {
+      if (entry.compressedContents == null) {
+        entry.compressedContents = compressed;
+
+        if (entries.get(file) == entry) {
+          cacheSize += compressed.length;
+          trimToSize();
+        }
+      }
+    }
+
+    return compressed == NOT_COMPRESSIBLE ? null : compressed;
+  }
+
+  /**
+   * Return the contents of the given file, reading them from disk if they are not cached or if the
+   * file has changed since they were cached.
+   * 
+   * @param file the file to read
+   * @param lastModified the modification time of the file
+   * @param length the length of the file
+   * @return the contents of the file
+   * @throws IOException
+   */
+  public byte[] getContents(File file, long lastModified, long length) throws IOException {
+    return getEntry(file, lastModified, length).contents;
+  }
+
+  /**
+   * @return the total number of bytes held by the cache
+   */
+  public synchronized int getSize() {
+    return cacheSize;
+  }
+
+  private CacheEntry getEntry(File file, long lastModified, long length) throws IOException {
+    synchronized (this) {
+      CacheEntry entry = entries.get(file);
+
+      if (entry != null && entry.isCurrent(lastModified, length)) {
+        return entry;
+      }
+    }
+
+    // Don't hold the lock while reading the file.
+    CacheEntry entry = new CacheEntry(lastModified, Files.toByteArray(file));
+
+    // If the file changed while we were reading it, serve the contents but don't cache them.
+    if (entry.contents.length == length && file.lastModified() == lastModified) {
+      synchronized (this) {
+        CacheEntry oldEntry = entries.put(file, entry);
+
+        if (oldEntry != null) {
+          cacheSize -= oldEntry.getSize();
+        }
+
+        cacheSize += entry.getSize();
+
+        trimToSize();
+      }
+    }
+
+    return entry;
+  }
+
+  private void trimToSize() {
+    Iterator<CacheEntry> iter = entries.values().iterator();
+
+    while (cacheSize > MAX_CACHE_SIZE && iter.hasNext()) {
+      cacheSize -= iter.next().getSize();
+      iter.remove();
+    }
+  }
+
+}
@@ -30,10 +30,12 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -45,10 +47,16 @@ import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.DateFormat;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -65,11 +73,12 @@ import java.util.Map;
 // Server: Apache/1.3.3.7 (Unix) (Red-Hat/Linux)
 // Last-Modified: Wed, 08 Jan 2003 23:11:55 GMT
 // Content-Length: 438
-// Connection: close
+// Connection: keep-alive
 // Content-Type: text/html; charset=UTF-8
 
 /**
- * Handles an incoming http request, serving files from the workspace (or error pages) as necessary.
+ * Handles an incoming http connection, serving files from the workspace (or error pages) as
+ * necessary. HTTP/1.1 connections are kept alive, so one handler can serve several requests.
  */
 class ResourceServerHandler implements Runnable {
 
@@ -86,6 +95,13 @@ class ResourceServerHandler implements Runnable {
 
     public Map<String, String> headers = new LinkedHashMap<String, String>();
 
+    public boolean acceptsGzip() {
+      // Accept-Encoding: gzip,deflate,sdch
+      String encodings = headers.get(ACCEPT_ENCODING);
+
+      return encodings != null && encodings.contains("gzip");
+    }
+
     public int getContentLength() {
       String len = headers.get(CONTENT_LENGTH);
 
@@ -133,6 +149,16 @@ class ResourceServerHandler implements Runnable {
       return null;
     }
 
+    public boolean isKeepAlive() {
+      String connection = headers.get(CONNECTION);
+
+      if ("HTTP/1.1".equals(version)) {
+        return !"close".equalsIgnoreCase(connection);
+      } else {
+        return "keep-alive".equalsIgnoreCase(connection);
+      }
+    }
+
     @Override
     public String toString() {
       return "[" + method + " " + file + " " + version + "]";
@@ -153,6 +179,7 @@ class ResourceServerHandler implements Runnable {
     public static final int OK = 200; // "OK"
     public static final int PARTIAL_CONTENT = 206; // "Partial Content"
     public static final int REDIRECT = 302; // "Found"
+    public static final int NOT_MODIFIED = 304; // "Not Modified"
     public static final int NOT_FOUND = 404; // "Not Found"
     public static final int UNAUTHORIZED = 401; // "Unauthorized"
 
@@ -165,8 +192,10 @@ class ResourceServerHandler implements Runnable {
 
     public Map<String, String> headers = new LinkedHashMap<String, String>();
 
-    // one or the other needs to be null
+    // at most one of these can be non-null
     public String responseBodyText;
+    public byte[] responseBodyBytes;
+    public File responseBodyFile;
     public InputStream responseBodyStream;
 
     @Override
@@ -181,6 +210,13 @@ class ResourceServerHandler implements Runnable {
   private static final String ACCEPT_RANGES = "Accept-Ranges";
   private static final String CONTENT_RANGE = "Content-Range";
   private static final String LAST_MODIFIED = "Last-Modified";
+  private static final String CONNECTION = "Connection";
+  private static final String ETAG = "ETag";
+  private static final String IF_NONE_MATCH = "If-None-Match";
+  private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+  private static final String ACCEPT_ENCODING = "Accept-Encoding";
+  private static final String CONTENT_ENCODING = "Content-Encoding";
+  private static final String VARY = "Vary";
 
   private static final String ISO_8859_1 = "ISO-8859-1";
   private static final String US_ASCII = "US-ASCII";
@@ -223,6 +259,11 @@ class ResourceServerHandler implements Runnable {
 
   private static final String CRLF = "\r\n";
 
+  /**
+   * How long, in milliseconds, an idle connection is kept open waiting for the next request.
+   */
+  private static final int KEEP_ALIVE_TIMEOUT = 15000;
+
   private static byte[] AGENT_CONTENT;
 
   /**
@@ -236,6 +277,25 @@ class ResourceServerHandler implements Runnable {
       {"/agent.js", TYPE_JS, "agent.js"},
       {"/apple-touch-icon-precomposed.png", TYPE_PNG, "/resources/apple-touch-icon-precomposed.png"}};
 
+  private static String createETag(long lastModified, long length) {
+    // ETag: "1b6-13c1f4e1a48"
+    return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+  }
+
+  /**
+   * The gzipped content is a different representation of the file, so it needs its own entity tag.
+   */
+  private static String createGzipETag(String etag) {
+    return etag.substring(0, etag.length() - 1) + "-gzip\"";
+  }
+
+  private static String formatDate(Date date) {
+    // SimpleDateFormat is not thread safe.
+    synchronized (HttpResponse.RFC_1123_DATE_FORMAT) {
+      return HttpResponse.RFC_1123_DATE_FORMAT.format(date);
+    }
+  }
+
   @SuppressWarnings("unused")
   private static byte[] getJSAgentContent() {
     if (AGENT_CONTENT == null) {
@@ -251,6 +311,23 @@ class ResourceServerHandler implements Runnable {
     return AGENT_CONTENT;
   }
 
+  private static Date parseDate(String str) {
+    // Some browsers send "If-Modified-Since: <date>; length=<length>".
+    int index = str.indexOf(';');
+
+    if (index != -1) {
+      str = str.substring(0, index);
+    }
+
+    synchronized (HttpResponse.RFC_1123_DATE_FORMAT) {
+      try {
+        return HttpResponse.RFC_1123_DATE_FORMAT.parse(str.trim());
+      } catch (ParseException e) {
+        return null;
+      }
+    }
+  }
+
   private static void setupExtraMappings() {
     extraMappings = new HashMap<String, String>();
 
@@ -286,51 +363,73 @@ class ResourceServerHandler implements Runnable {
   @Override
   public void run() {
     try {
-      DataInputStream in = new DataInputStream(socket.getInputStream());
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+
+      // Don't hold on to idle kept-alive connections forever.
+      socket.setSoTimeout(KEEP_ALIVE_TIMEOUT);
 
-      HttpHeader header = parseHeader(in);
+      boolean firstRequest = true;
+      boolean keepAlive = true;
 
-      if (header == null) {
-        if (DartDebugCorePlugin.LOGGING) {
-          System.out.println("resource server: socket closed early");
+      while (keepAlive) {
+        HttpHeader header = parseHeader(in);
+
+        if (header == null) {
+          if (firstRequest && DartDebugCorePlugin.LOGGING) {
+            System.out.println("resource server: socket closed early");
+          }
+
+          break;
         }
 
-        safeClose(socket);
-      } else if (isAllowableConnection(socket, header)) {
+        firstRequest = false;
+
         HttpResponse response;
 
-        if (HttpHeader.METHOD_GET.equals(header.method)
-            || HttpHeader.METHOD_HEAD.equals(header.method)) {
-          response = createGETResponse(header);
-        } else if (HttpHeader.METHOD_POST.equals(header.method)) {
-          response = createPOSTResponse(header, in);
-        } else {
-          response = createErrorResponse("Request type " + header.method + " not supported.");
-        }
+        if (isAllowableConnection(socket, header)) {
+          if (HttpHeader.METHOD_GET.equals(header.method)
+              || HttpHeader.METHOD_HEAD.equals(header.method)) {
+            response = createGETResponse(header);
+          } else if (HttpHeader.METHOD_POST.equals(header.method)) {
+            response = createPOSTResponse(header, in);
+          } else {
+            response = createErrorResponse("Request type " + header.method + " not supported.");
+          }
 
-        if (DartDebugCorePlugin.LOGGING) {
-          System.out.println("resource server: " + header);
+          if (DartDebugCorePlugin.LOGGING) {
+            System.out.println("resource server: " + header);
 
-          if (response.responseCode != HttpResponse.OK) {
-            System.out.println("       response: " + response);
+            if (response.responseCode != HttpResponse.OK) {
+              System.out.println("       response: " + response);
+            }
           }
+        } else {
+          response = createNotAllowedResponse();
         }
 
-        sendResponse(response);
-      } else {
-        sendResponse(createNotAllowedResponse());
+        keepAlive = canKeepAlive(header, response);
+
+        sendResponse(out, response, HttpHeader.METHOD_HEAD.equals(header.method), keepAlive);
       }
 
       socket.close();
+    } catch (SocketTimeoutException ste) {
+      // The connection was idle for too long.
+      safeClose(socket);
     } catch (IOException ioe) {
       safeClose(socket);
 
       // ignore java.net.SocketException: Connection reset
       // ignore java.net.SocketException: Broken pipe
-      if (!(ioe instanceof ConnectException) && !isConnectionReset(ioe)) {
+      // ignore java.nio.channels.ClosedByInterruptException (the server was shut down)
+      if (!(ioe instanceof ConnectException) && !(ioe instanceof ClosedChannelException)
+          && !isConnectionReset(ioe)) {
         DartDebugCorePlugin.logError(ioe);
       }
     } catch (Throwable t) {
+      safeClose(socket);
+
       DartDebugCorePlugin.logError(t);
     }
   }
@@ -341,6 +440,32 @@ class ResourceServerHandler implements Runnable {
     return response;
   }
 
+  /**
+   * Return whether the connection can be used for another request once the given response has been
+   * sent.
+   */
+  private boolean canKeepAlive(HttpHeader header, HttpResponse response) {
+    // Only GET and HEAD requests are sure not to leave an unread body on the connection.
+    boolean headOnly = HttpHeader.METHOD_HEAD.equals(header.method);
+
+    if (!headOnly && !HttpHeader.METHOD_GET.equals(header.method)) {
+      return false;
+    }
+
+    if (!header.isKeepAlive()) {
+      return false;
+    }
+
+    if (headOnly || response.responseCode == HttpResponse.NOT_MODIFIED) {
+      return true;
+    }
+
+    // Otherwise the client needs the content length to find the end of the response.
+    String length = response.headers.get(CONTENT_LENGTH);
+
+    return length != null && !length.startsWith("-");
+  }
+
   /**
    * Restrict the files which are legal to serve.
    * 
@@ -420,10 +545,12 @@ class ResourceServerHandler implements Runnable {
 
     HttpResponse response = new HttpResponse();
 
+    long lastModified = javaFile.lastModified();
+    long length = javaFile.length();
+
     try {
       // Last-Modified: Wed, 08 Jan 2003 23:11:55 GMT
-      Date date = new Date(javaFile.lastModified());
-      response.headers.put(LAST_MODIFIED, HttpResponse.RFC_1123_DATE_FORMAT.format(date));
+      response.headers.put(LAST_MODIFIED, formatDate(new Date(lastModified)));
     } catch (ArrayIndexOutOfBoundsException ex) {
       // This happens occasionally on Windows. 
 
@@ -431,34 +558,43 @@ class ResourceServerHandler implements Runnable {
       DartDebugCorePlugin.logError(t);
     }
 
+    String etag = createETag(lastModified, length);
+    response.headers.put(ETAG, etag);
+
     // Content-Type: text/html[; charset=UTF-8]
     String contentType = getContentType(getFileExtension(javaFile.getName()));
     response.headers.put(CONTENT_TYPE, contentType);
 
     // Cache-control: no-cache
+    // The browser revalidates on every request, and unchanged files get a 304 below.
     response.headers.put(CACHE_CONTROL, "no-cache");
 
-    // Content-Length: 438
-    if (javaFile != null) {
-      long length = javaFile.length();
+    boolean compressible = isCompressible(contentType);
 
-//      if (javaScriptContent != null) {
-//        length = javaScriptContent.length;
-//      }
+    if (compressible) {
+      response.headers.put(VARY, ACCEPT_ENCODING);
+    }
 
-      response.headers.put(CONTENT_LENGTH, Long.toString(length));
+    if (isNotModified(header, etag, lastModified)) {
+      response.responseCode = HttpResponse.NOT_MODIFIED;
+      response.responseText = "Not Modified";
+
+      return addStandardResponseHeaders(response);
     }
 
+    // Content-Length: 438
+    response.headers.put(CONTENT_LENGTH, Long.toString(length));
+
+    // Indicate that we support requesting a subset of the document.
+    response.headers.put(ACCEPT_RANGES, "bytes");
+
     if (!headOnly) {
-//      if (javaScriptContent != null) {
-//        response.responseBodyStream = new ByteArrayInputStream(javaScriptContent);
-//      } else {
       List<int[]> ranges = header.getRanges();
 
       if (ranges != null) {
         byte[] rangeData = readRangeData(javaFile, ranges);
 
-        response.responseBodyStream = new ByteArrayInputStream(rangeData);
+        response.responseBodyBytes = rangeData;
 
         response.responseCode = HttpResponse.PARTIAL_CONTENT;
         response.responseText = "Partial Content";
@@ -468,13 +604,28 @@ class ResourceServerHandler implements Runnable {
         int[] range = ranges.get(0);
         response.headers.put(CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/"
             + rangeData.length);
+      } else if (length <= ResourceServerCache.MAX_FILE_SIZE) {
+        ResourceServerCache cache = resourceServer.getCache();
+        byte[] contents = null;
+
+        if (compressible && header.acceptsGzip()) {
+          contents = cache.getCompressedContents(javaFile, lastModified, length);
+
+          if (contents != null) {
+            response.headers.put(CONTENT_ENCODING, "gzip");
+            response.headers.put(ETAG, createGzipETag(etag));
+          }
+        }
+
+        if (contents == null) {
+          contents = cache.getContents(javaFile, lastModified, length);
+        }
+
+        response.headers.put(CONTENT_LENGTH, Integer.toString(contents.length));
+        response.responseBodyBytes = contents;
       } else {
-        response.responseBodyStream = new FileInputStream(javaFile);
+        response.responseBodyFile = javaFile;
       }
-
-      // Indicate that we support requesting a subset of the document.
-      response.headers.put(ACCEPT_RANGES, "bytes");
-//      }
     }
 
     addStandardResponseHeaders(response);
@@ -708,10 +859,53 @@ class ResourceServerHandler implements Runnable {
 //    return javaFile.getName().endsWith(".dart.js");
 //  }
 
+  private boolean isCompressible(String contentType) {
+    return contentType.startsWith("text/") || contentType.equals(TYPE_DART)
+        || contentType.endsWith("javascript") || contentType.endsWith("json")
+        || contentType.endsWith("xml");
+  }
+
   private boolean isLocalAddress(InetAddress address) {
     return address.isAnyLocalAddress() || address.isLoopbackAddress();
   }
 
+  /**
+   * Return whether the client's cached copy of the file is still current.
+   */
+  private boolean isNotModified(HttpHeader header, String etag, long lastModified) {
+    // If-None-Match: "1b6-13c1f4e1a48"
+    // This takes precedence over If-Modified-Since.
+    String ifNoneMatch = header.headers.get(IF_NONE_MATCH);
+
+    if (ifNoneMatch != null) {
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+
+        if (tag.equals("*") || tag.equals(etag) || tag.equals(createGzipETag(etag))) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    // If-Modified-Since: Wed, 08 Jan 2003 23:11:55 GMT
+    String ifModifiedSince = header.headers.get(IF_MODIFIED_SINCE);
+
+    if (ifModifiedSince != null) {
+      Date date = parseDate(ifModifiedSince);
+
+      // http dates only have a resolution of one second
+      return date != null && lastModified / 1000 <= date.getTime() / 1000;
+    }
+
+    return false;
+  }
+
   private boolean isSpecialResource(String path) {
     for (String[] resourceInfo : embeddedResources) {
       if (resourceInfo[0].equals(path)) {
@@ -796,6 +990,11 @@ class ResourceServerHandler implements Runnable {
 
     String line = in.readLine();
 
+    // Ignore any blank lines between kept-alive requests.
+    while (line != null && line.isEmpty()) {
+      line = in.readLine();
+    }
+
     if (line == null) {
       return null;
     }
@@ -874,8 +1073,43 @@ class ResourceServerHandler implements Runnable {
     }
   }
 
-  private void sendResponse(HttpResponse response) throws IOException {
-    OutputStream out = socket.getOutputStream();
+  private void sendFile(OutputStream out, File file, long length) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+
+    try {
+      FileChannel channel = in.getChannel();
+
+      // Sockets accepted from a channel let the OS copy the file straight to the network.
+      WritableByteChannel target = socket.getChannel();
+
+      if (target == null) {
+        target = Channels.newChannel(out);
+      }
+
+      long position = 0;
+
+      while (position < length) {
+        long count = channel.transferTo(position, length - position, target);
+
+        if (count <= 0) {
+          throw new EOFException("File truncated while being served: " + file);
+        }
+
+        position += count;
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private void sendResponse(OutputStream out, HttpResponse response, boolean headOnly,
+      boolean keepAlive) throws IOException {
+    if (keepAlive) {
+      response.headers.put(CONNECTION, "keep-alive");
+      response.headers.put("Keep-Alive", "timeout=" + (KEEP_ALIVE_TIMEOUT / 1000));
+    } else {
+      response.headers.put(CONNECTION, "close");
+    }
 
     StringBuilder builder = new StringBuilder();
 
@@ -890,8 +1124,20 @@ class ResourceServerHandler implements Runnable {
 
     out.write(builder.toString().getBytes(ISO_8859_1));
 
-    if (response.responseBodyText != null) {
+    if (headOnly) {
+      if (response.responseBodyStream != null) {
+        response.responseBodyStream.close();
+      }
+    } else if (response.responseBodyText != null) {
       out.write(response.responseBodyText.getBytes(US_ASCII));
+    } else if (response.responseBodyBytes != null) {
+      out.write(response.responseBodyBytes);
+    } else if (response.responseBodyFile != null) {
+      out.flush();
+
+      long length = Long.parseLong(response.headers.get(CONTENT_LENGTH));
+
+      sendFile(out, response.responseBodyFile, length);
     } else if (response.responseBodyStream != null) {
       byte[] buffer = new byte[2048];
 
@@ -907,7 +1153,6 @@ class ResourceServerHandler implements Runnable {
     }
 
     out.flush();
-    out.close();
   }
 
   private HttpResponse serveAvailableApps(HttpHeader header) throws IOException {
@@ -919,7 +1164,7 @@ class ResourceServerHandler implements Runnable {
     response.headers.put(CONTENT_LENGTH, Integer.toString(bytes.length));
     response.headers.put(CONTENT_TYPE, "text/html; charset=UTF-8");
     response.headers.put(CACHE_CONTROL, "no-cache");
-    response.responseBodyStream = new ByteArrayInputStream(bytes);
+    response.responseBodyBytes = bytes;
 
     addStandardResponseHeaders(response);
 
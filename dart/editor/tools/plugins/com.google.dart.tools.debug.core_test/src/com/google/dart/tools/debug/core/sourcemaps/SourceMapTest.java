@@ -25,6 +25,7 @@ import static org.junit.Assert.assertArrayEquals;
 
 import java.io.File;
 import java.net.URL;
+import java.util.List;
 
 public class SourceMapTest extends AbstractDartCoreTest {
 
@@ -44,6 +45,20 @@ public class SourceMapTest extends AbstractDartCoreTest {
     assertEquals("../main.dart,15,0", map.getMappingFor(24, 0).toString());
   }
 
+  public void testReverseMapping() throws Exception {
+    IFile file = testProject.setFileContent("foo.dart.js.map", TEST_SOURCE);
+
+    SourceMap map = SourceMap.createFrom(file);
+
+    List<SourceMapInfo> mappings = map.getReverseMappingsFor("foo.js", 1);
+    assertEquals(1, mappings.size());
+    assertEquals(2, mappings.get(0).getLine());
+    assertEquals(0, mappings.get(0).getColumn());
+    assertEquals(0, map.getReverseMappingsFor("foo.js", 2).size());
+    assertEquals(0, map.getReverseMappingsFor("bar.js", 1).size());
+    assertEquals("are", map.getMappingFor(2, 0).getName());
+  }
+
   public void testSimpleParse() throws Exception {
     String[] expectedNames = {"foo.js", "bar.js"};
 
@@ -88,6 +103,25 @@ public class SourceMapTest extends AbstractDartCoreTest {
         map.getMappingFor(1353, 60).toString());
   }
 
+  public void testSolarReverseMapping() throws Exception {
+    IFile file = testProject.setFileContent(
+        "foo.dart.js.map",
+        getClass().getResourceAsStream("solar.dart.js.map"));
+
+    SourceMap map = SourceMap.createFrom(file);
+
+    String source = "file:///C:/Users/username/solar/solar.dart";
+    List<SourceMapInfo> mappings = map.getReverseMappingsFor(source, 263);
+    assertEquals(1, mappings.size());
+    assertEquals(1351, mappings.get(0).getLine());
+    assertEquals(18, mappings.get(0).getColumn());
+    mappings = map.getReverseMappingsFor(source, 264);
+    assertEquals(1, mappings.size());
+    assertEquals(1353, mappings.get(0).getLine());
+    assertEquals(6, mappings.get(0).getColumn());
+    assertEquals(0, map.getReverseMappingsFor(source, 100000).size());
+  }
+
   public void x_testParseSpeed() throws Exception {
     URL bundleURL = FileLocator.find(DartDebugCoreTestPlugin.getPlugin().getBundle(), new Path(
         "src/com/google/dart/tools/debug/core/sourcemaps/solar.dart.js.map"), null);
@@ -15,6 +15,7 @@
 package com.google.dart.tools.debug.core.util;
 
 import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
 import com.google.dart.tools.core.test.util.TestProject;
@@ -24,13 +25,36 @@ import junit.framework.TestCase;
 
 import org.eclipse.core.resources.IFile;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URI;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 
 public class ResourceServerTest extends TestCase {
+  /**
+   * The size of the large files, which are larger than the files kept in the cache of the server,
+   * so that they are sent straight from the file.
+   */
+  private static final int LARGE_FILE_SIZE = 300 * 1024 + 17;
+
+  private static byte[] createLargeContents() {
+    byte[] contents = new byte[LARGE_FILE_SIZE];
+    for (int i = 0; i < contents.length; i++) {
+      contents[i] = (byte) (i * 31 + i / 251);
+    }
+    return contents;
+  }
+
   private ResourceServer server;
   private TestProject project;
 
@@ -62,6 +86,114 @@ public class ResourceServerTest extends TestCase {
     connection.getInputStream().close();
   }
 
+  public void test_canServeGzippedResource() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append("foo\n");
+    }
+    IFile file = project.setFileContent("foo.txt", builder.toString());
+    String url = server.getUrlForResource(file);
+
+    HttpURLConnection connection = createConnection(url);
+    connection.setRequestProperty("Accept-Encoding", "gzip");
+
+    assertEquals(200, connection.getResponseCode());
+    assertEquals("gzip", connection.getContentEncoding());
+    assertTrue(connection.getContentLength() < builder.length());
+    assertEquals(
+        builder.toString(),
+        CharStreams.toString(new InputStreamReader(
+            new GZIPInputStream(connection.getInputStream()),
+            "UTF-8")));
+
+    connection.disconnect();
+  }
+
+  public void test_canServeLargeResource() throws Exception {
+    byte[] contents = createLargeContents();
+    IFile file = project.setFileContent("foo.bin", new ByteArrayInputStream(contents));
+    String url = server.getUrlForResource(file);
+
+    HttpURLConnection connection = createConnection(url);
+
+    assertEquals(200, connection.getResponseCode());
+    assertEquals(contents.length, connection.getContentLength());
+    InputStream in = connection.getInputStream();
+    try {
+      assertTrue(Arrays.equals(contents, ByteStreams.toByteArray(in)));
+    } finally {
+      in.close();
+    }
+
+    connection.disconnect();
+  }
+
+  public void test_keepAlive() throws Exception {
+    byte[] contents = createLargeContents();
+    IFile foo = project.setFileContent("foo.txt", "foo");
+    IFile large = project.setFileContent("foo.bin", new ByteArrayInputStream(contents));
+    IFile bar = project.setFileContent("bar.txt", "bar!");
+    URI uri = URI.create(server.getUrlForResource(foo));
+
+    Socket socket = new Socket(uri.getHost(), uri.getPort());
+    socket.setSoTimeout(3000);
+
+    try {
+      InputStream in = new BufferedInputStream(socket.getInputStream());
+      OutputStream out = socket.getOutputStream();
+
+      // All of the requests are served on the one HTTP/1.1 connection.
+      sendGetRequest(out, foo);
+      assertEquals("foo", new String(readKeptAliveResponse(in), "UTF-8"));
+
+      sendGetRequest(out, large);
+      assertTrue(Arrays.equals(contents, readKeptAliveResponse(in)));
+
+      sendGetRequest(out, bar);
+      assertEquals("bar!", new String(readKeptAliveResponse(in), "UTF-8"));
+    } finally {
+      socket.close();
+    }
+  }
+
+  public void test_notModifiedETag() throws Exception {
+    IFile file = project.setFileContent("foo.txt", "foo");
+    String url = server.getUrlForResource(file);
+
+    HttpURLConnection connection = createConnection(url);
+    assertEquals(200, connection.getResponseCode());
+    String etag = connection.getHeaderField("ETag");
+    assertNotNull(etag);
+    connection.getInputStream().close();
+
+    connection = createConnection(url);
+    connection.setRequestProperty("If-None-Match", etag);
+    assertEquals(304, connection.getResponseCode());
+
+    connection.disconnect();
+  }
+
+  public void test_notModifiedSince() throws Exception {
+    IFile file = project.setFileContent("foo.txt", "foo");
+    String url = server.getUrlForResource(file);
+
+    HttpURLConnection connection = createConnection(url);
+    assertEquals(200, connection.getResponseCode());
+    long lastModified = connection.getLastModified();
+    assertTrue(lastModified != 0);
+    connection.getInputStream().close();
+
+    connection = createConnection(url);
+    connection.setIfModifiedSince(lastModified);
+    assertEquals(304, connection.getResponseCode());
+
+    connection = createConnection(url);
+    connection.setIfModifiedSince(lastModified - 60 * 1000);
+    assertEquals(200, connection.getResponseCode());
+
+    connection.disconnect();
+  }
+
   public void test_onlyServeWorkspaceFiles() throws Exception {
     File file = File.createTempFile("foo", ".txt");
     Files.write("foo", file, Charsets.UTF_8);
@@ -123,4 +255,57 @@ public class ResourceServerTest extends TestCase {
     return connection;
   }
 
+  /**
+   * Read a line of the header of a response, without the line terminator.
+   */
+  private String readHeaderLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int c = in.read();
+    while (c != '\n') {
+      assertTrue("unexpected end of response", c != -1);
+      if (c != '\r') {
+        line.write(c);
+      }
+      c = in.read();
+    }
+    return line.toString("ISO-8859-1");
+  }
+
+  /**
+   * Read a successful response that keeps the connection open, and return its content.
+   */
+  private byte[] readKeptAliveResponse(InputStream in) throws IOException {
+    assertEquals("HTTP/1.1 200 OK", readHeaderLine(in));
+
+    String connection = null;
+    int contentLength = -1;
+
+    for (String line = readHeaderLine(in); line.length() > 0; line = readHeaderLine(in)) {
+      int index = line.indexOf(':');
+      String name = line.substring(0, index).trim();
+      String value = line.substring(index + 1).trim();
+
+      if (name.equalsIgnoreCase("Connection")) {
+        connection = value;
+      } else if (name.equalsIgnoreCase("Content-Length")) {
+        contentLength = Integer.parseInt(value);
+      }
+    }
+
+    assertEquals("keep-alive", connection);
+    assertTrue(contentLength >= 0);
+
+    byte[] content = new byte[contentLength];
+    ByteStreams.readFully(in, content);
+    return content;
+  }
+
+  private void sendGetRequest(OutputStream out, IFile file) throws IOException {
+    URI uri = URI.create(server.getUrlForResource(file));
+    String request = "GET " + uri.getRawPath() + " HTTP/1.1\r\n" + "Host: " + uri.getHost()
+        + ":" + uri.getPort() + "\r\n\r\n";
+    out.write(request.getBytes("ISO-8859-1"));
+    out.flush();
+  }
+
 }
@@ -14,6 +14,7 @@
 package com.google.dart.tools.search.core.text;
 
 import com.google.dart.tools.search.internal.core.text.TextSearchExecutor;
+import com.google.dart.tools.search.internal.core.text.TrigramIndex;
 import com.google.dart.tools.search.internal.ui.SearchPlugin;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -44,9 +45,11 @@ public abstract class TextSearchEngine {
   }
 
   /**
-   * Creates the default, built-in, text search engine that implements a brute-force search, not
-   * using any search index. Note that clients should always use the search engine provided by
-   * {@link #create()}.
+   * Creates the default, built-in, text search engine. It runs the search pattern against the
+   * content of every file, except for the workspace files that a trigram index of the workspace
+   * shows cannot contain a match. The files are searched using one thread per available processor,
+   * but the matches are reported on the thread performing the search, in the order of the files.
+   * Note that clients should always use the search engine provided by {@link #create()}.
    * 
    * @return an instance of the default text search engine {@link TextSearchEngine}.
    */
@@ -55,7 +58,14 @@ public abstract class TextSearchEngine {
       @Override
       public IStatus search(TextSearchScope scope, TextSearchRequestor requestor,
           Pattern searchPattern, IProgressMonitor monitor) {
-        return new TextSearchExecutor(requestor, searchPattern).search(scope, monitor);
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        TrigramIndex trigramIndex = SearchPlugin.getDefault().getTrigramIndex();
+        TextSearchExecutor executor = new TextSearchExecutor(
+            requestor,
+            searchPattern,
+            threadCount,
+            trigramIndex);
+        return executor.search(scope, monitor);
       }
     };
   }
@@ -64,15 +64,127 @@ import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Executes a text search across {@link File} and {@link IFile} resources.
+ * <p>
+ * A search can optionally use several threads. The files are then read and searched by a pool of
+ * worker threads, while the matches are reported to the collector on the calling thread in the
+ * same order, and with the same calls, as in a search that uses a single thread.
+ * <p>
+ * A search can also use a {@link TrigramIndex} to avoid reading the workspace files that cannot
+ * contain a match. Such files are still passed to the collector, as files without matches.
  */
 public class TextSearchExecutor {
 
+  /**
+   * Reads and searches files on one of the worker threads of a parallel search. Each worker thread
+   * has its own scanner because neither matchers nor char sequence providers are thread-safe.
+   */
+  private class FileScanner {
+
+    private final Matcher scannerMatcher;
+    private final FileCharSequenceProvider scannerFileCharSequenceProvider;
+    private final ExternalFileCharSequenceProvider scannerExternalFileCharSequenceProvider;
+
+    public FileScanner() {
+      scannerMatcher = searchPattern.matcher(new String());
+      scannerFileCharSequenceProvider = new FileCharSequenceProvider();
+      scannerExternalFileCharSequenceProvider = new ExternalFileCharSequenceProvider();
+    }
+
+    public ScannedFile scan(Object file) {
+      if (progressMonitor.isCanceled()) {
+        throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+      }
+      ScannedFile scanned = new ScannedFile(file);
+      CharSequence seq = null;
+      try {
+        if (file instanceof IFile) {
+          IFile iFile = (IFile) file;
+          if (!iFile.exists()) {
+            scanned.missing = true;
+            return scanned;
+          }
+          if (isExcludedByIndex(iFile)) {
+            return scanned;
+          }
+          seq = scannerFileCharSequenceProvider.newCharSequence(iFile);
+          scanned.binary = hasBinaryContent(seq, iFile);
+        } else {
+          seq = scannerExternalFileCharSequenceProvider.newCharSequence((File) file);
+          scanned.binary = hasBinaryContent(seq, (File) file);
+        }
+        if (!scanned.binary) {
+          findMatches(scanned, seq);
+        }
+      } catch (FileCharSequenceProvider.FileCharSequenceException e) {
+        scanned.exception = (Exception) e.getCause();
+      } catch (ExternalFileCharSequenceProvider.FileCharSequenceException e) {
+        scanned.exception = (Exception) e.getCause();
+      } catch (UnsupportedCharsetException e) {
+        scanned.exception = e;
+      } catch (IllegalCharsetNameException e) {
+        scanned.exception = e;
+      } catch (IOException e) {
+        scanned.exception = e;
+      } catch (CoreException e) {
+        scanned.exception = e;
+      } catch (StackOverflowError e) {
+        scanned.stackOverflowError = e;
+      } finally {
+        scannerMatcher.reset(new String()); // clear references
+        if (seq != null) {
+          try {
+            if (file instanceof IFile) {
+              scannerFileCharSequenceProvider.releaseCharSequence(seq);
+            } else {
+              scannerExternalFileCharSequenceProvider.releaseCharSequence(seq);
+            }
+          } catch (IOException e) {
+            SearchPlugin.log(e);
+          }
+        }
+      }
+      return scanned;
+    }
+
+    private void findMatches(ScannedFile scanned, CharSequence searchInput) {
+      scannerMatcher.reset(searchInput);
+      int k = 0;
+      while (scannerMatcher.find()) {
+        int start = scannerMatcher.start();
+        int end = scannerMatcher.end();
+        if (end != start) { // don't report 0-length matches
+          scanned.addMatch(start, end - start);
+        }
+        if (k++ == 20) {
+          if (progressMonitor.isCanceled()) {
+            throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+          }
+          k = 0;
+        }
+      }
+      if (scanned.matchCount > 0) {
+        // the collector reads the content around each match, so keep a copy until it is reported
+        scanned.content = searchInput.toString();
+      }
+    }
+  }
+
   private static class ReusableMatchAccess extends TextSearchMatchAccess {
 
     private int offset;
@@ -135,8 +247,51 @@ public class TextSearchExecutor {
     }
   }
 
+  /**
+   * The result of reading and searching a single file on a worker thread, held until the file can
+   * be reported to the collector.
+   */
+  private static class ScannedFile {
+
+    private final Object /* <IFile,File> */file;
+    private boolean openDocument;
+    private boolean missing;
+    private boolean binary;
+    private CharSequence content;
+    private int[] matches = new int[0]; // offset and length of each match
+    private int matchCount;
+    private Exception exception;
+    private StackOverflowError stackOverflowError;
+
+    public ScannedFile(Object file) {
+      this.file = file;
+    }
+
+    public void addMatch(int offset, int length) {
+      if (matches.length < 2 * matchCount + 2) {
+        int[] newMatches = new int[Math.max(16, 2 * matches.length)];
+        System.arraycopy(matches, 0, newMatches, 0, matches.length);
+        matches = newMatches;
+      }
+      matches[2 * matchCount] = offset;
+      matches[2 * matchCount + 1] = length;
+      matchCount++;
+    }
+  }
+
+  /**
+   * The number of files per worker thread that can be scanned ahead of the file being reported.
+   * This bounds the memory used to hold the content of files with matches.
+   */
+  private static final int FILES_AHEAD_PER_THREAD = 8;
+
   private final TextSearchRequestor collector;
+  private final Pattern searchPattern;
   private final Matcher matcher;
+  private final int threadCount;
+
+  private final TrigramIndex trigramIndex;
+  private final TrigramQuery trigramQuery;
 
   private IProgressMonitor progressMonitor;
 
@@ -153,7 +308,35 @@ public class TextSearchExecutor {
   private final ReusableMatchAccess matchAccess;
 
   public TextSearchExecutor(TextSearchRequestor collector, Pattern searchPattern) {
+    this(collector, searchPattern, 1);
+  }
+
+  /**
+   * Initialize a newly created executor to search files using the given number of threads.
+   * 
+   * @param collector the requestor the matches are reported to
+   * @param searchPattern the pattern to search for
+   * @param threadCount the number of threads used to read and search files
+   */
+  public TextSearchExecutor(TextSearchRequestor collector, Pattern searchPattern, int threadCount) {
+    this(collector, searchPattern, threadCount, null);
+  }
+
+  /**
+   * Initialize a newly created executor to search files using the given number of threads, skipping
+   * the workspace files that the given index shows cannot contain a match.
+   * 
+   * @param collector the requestor the matches are reported to
+   * @param searchPattern the pattern to search for
+   * @param threadCount the number of threads used to read and search files
+   * @param trigramIndex the index used to skip files, or {@code null} if every file is to be read
+   */
+  public TextSearchExecutor(TextSearchRequestor collector, Pattern searchPattern, int threadCount,
+      TrigramIndex trigramIndex) {
     this.collector = collector;
+    this.searchPattern = searchPattern;
+    this.threadCount = threadCount;
+    this.trigramIndex = trigramIndex;
     this.status = new MultiStatus(
         NewSearchUI.PLUGIN_ID,
         IStatus.OK,
@@ -162,6 +345,8 @@ public class TextSearchExecutor {
 
     this.matcher = searchPattern.pattern().length() == 0 ? null
         : searchPattern.matcher(new String());
+    this.trigramQuery = trigramIndex == null || matcher == null ? null
+        : TrigramQuery.create(searchPattern);
 
     this.fileCharSequenceProvider = new FileCharSequenceProvider();
     this.externalFileCharSequenceProvider = new ExternalFileCharSequenceProvider();
@@ -218,8 +403,12 @@ public class TextSearchExecutor {
       monitorUpdateJob.schedule();
       try {
         collector.beginReporting();
-        processFiles(files);
-        processExternalFiles(externalFiles);
+        if (threadCount > 1 && matcher != null && numberOfFilesToScan > 1) {
+          processFilesInParallel(files, externalFiles);
+        } else {
+          processFiles(files);
+          processExternalFiles(externalFiles);
+        }
         return status;
       } finally {
         monitorUpdateJob.cancel();
@@ -244,6 +433,34 @@ public class TextSearchExecutor {
         monitor);
   }
 
+  /**
+   * Record that reading the given file on a worker thread failed, in the same way that the failure
+   * would have been recorded had the file been read on the calling thread.
+   */
+  private void addErrorStatus(Object file, Exception e) {
+    String path;
+    String charSetName;
+    if (file instanceof IFile) {
+      path = ((IFile) file).getFullPath().makeRelative().toString();
+      charSetName = getCharSetName((IFile) file);
+    } else {
+      path = ((File) file).getAbsolutePath().toString();
+      charSetName = getCharSetName((File) file);
+    }
+    String message;
+    if (e instanceof UnsupportedCharsetException) {
+      String[] args = {charSetName, path};
+      message = Messages.format(SearchMessages.TextSearchVisitor_unsupportedcharset, args);
+    } else if (e instanceof IllegalCharsetNameException) {
+      String[] args = {charSetName, path};
+      message = Messages.format(SearchMessages.TextSearchVisitor_illegalcharset, args);
+    } else {
+      String[] args = {getExceptionMessage(e), path};
+      message = Messages.format(SearchMessages.TextSearchVisitor_error, args);
+    }
+    status.add(new Status(IStatus.ERROR, NewSearchUI.PLUGIN_ID, IStatus.ERROR, message, e));
+  }
+
   /**
    * @return returns a map from IFile to IDocument for all open, dirty editors
    */
@@ -301,6 +518,13 @@ public class TextSearchExecutor {
     }
   }
 
+  private Map<IFile, IDocument> getDocumentsInEditors() {
+    if (PlatformUI.isWorkbenchRunning()) {
+      return evalNonFileBufferDocuments();
+    }
+    return Collections.emptyMap();
+  }
+
   private String getExceptionMessage(Exception e) {
     String message = e.getLocalizedMessage();
     if (message == null) {
@@ -384,6 +608,14 @@ public class TextSearchExecutor {
     return false;
   }
 
+  /**
+   * Return {@code true} if the trigram index shows that the content of the given file, which is not
+   * open in an editor, cannot contain a match.
+   */
+  private boolean isExcludedByIndex(IFile file) {
+    return trigramQuery != null && !trigramIndex.mayContain(file, trigramQuery);
+  }
+
   private void locateMatches(File file, CharSequence searchInput) throws CoreException {
     try {
       matcher.reset(searchInput);
@@ -512,7 +744,7 @@ public class TextSearchExecutor {
         DocumentCharSequence documentCharSequence = new DocumentCharSequence(document);
         // assume all documents are non-binary
         locateMatches(file, documentCharSequence);
-      } else {
+      } else if (!isExcludedByIndex(file)) {
         CharSequence seq = null;
         try {
           seq = fileCharSequenceProvider.newCharSequence(file);
@@ -563,12 +795,7 @@ public class TextSearchExecutor {
   }
 
   private void processFiles(IFile[] files) {
-    final Map<IFile, IDocument> documentsInEditors;
-    if (PlatformUI.isWorkbenchRunning()) {
-      documentsInEditors = evalNonFileBufferDocuments();
-    } else {
-      documentsInEditors = Collections.emptyMap();
-    }
+    Map<IFile, IDocument> documentsInEditors = getDocumentsInEditors();
 
     for (IFile file : files) {
       currentFile = file;
@@ -579,4 +806,169 @@ public class TextSearchExecutor {
     }
   }
 
+  /**
+   * Search the given files using a pool of worker threads. Each worker repeatedly takes the next
+   * file that has not yet been scanned, so that the work stays balanced across the threads however
+   * the file sizes are distributed. The results are reported on this thread, in the order of the
+   * files, as soon as each file and all of the files before it have been scanned. Files that are
+   * open in an editor are not read by the workers, because their documents are searched instead.
+   */
+  private void processFilesInParallel(IFile[] files, File[] externalFiles) {
+    Map<IFile, IDocument> documentsInEditors = getDocumentsInEditors();
+
+    final ThreadLocal<FileScanner> scanners = new ThreadLocal<FileScanner>() {
+      @Override
+      protected FileScanner initialValue() {
+        return new FileScanner();
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Text search"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    try {
+      LinkedList<Future<ScannedFile>> pendingFiles = new LinkedList<Future<ScannedFile>>();
+      int maxPendingFiles = threadCount * FILES_AHEAD_PER_THREAD;
+      int submittedCount = 0;
+      boolean stopped = false;
+      while (true) {
+        while (submittedCount < numberOfFilesToScan && pendingFiles.size() < maxPendingFiles) {
+          final Object file = submittedCount < files.length ? files[submittedCount]
+              : externalFiles[submittedCount - files.length];
+          submittedCount++;
+          if (file instanceof IFile && getOpenDocument((IFile) file, documentsInEditors) != null) {
+            // open documents are searched when they are reported, so the file is not read
+            final ScannedFile openFile = new ScannedFile(file);
+            openFile.openDocument = true;
+            FutureTask<ScannedFile> task = new FutureTask<ScannedFile>(new Callable<ScannedFile>() {
+              @Override
+              public ScannedFile call() {
+                return openFile;
+              }
+            });
+            task.run();
+            pendingFiles.add(task);
+            continue;
+          }
+          pendingFiles.add(executor.submit(new Callable<ScannedFile>() {
+            @Override
+            public ScannedFile call() {
+              return scanners.get().scan(file);
+            }
+          }));
+        }
+        if (pendingFiles.isEmpty()) {
+          break;
+        }
+        ScannedFile scanned = waitForScan(pendingFiles.removeFirst());
+        if (scanned.file instanceof IFile) {
+          // as when searching sequentially, stop searching workspace files but not external files
+          if (!stopped) {
+            currentFile = scanned.file;
+            stopped = !reportScannedFile(scanned, documentsInEditors);
+          }
+        } else {
+          currentFile = scanned.file;
+          reportScannedFile(scanned, documentsInEditors);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Report a file that was scanned on a worker thread to the collector, with the same calls that
+   * {@link #processFile(IFile, Map)} and {@link #processExternalFile(File)} would have made.
+   * 
+   * @return {@code false} if the search should not continue
+   */
+  private boolean reportScannedFile(ScannedFile scanned, Map<IFile, IDocument> documentsInEditors) {
+    Object file = scanned.file;
+    if (file instanceof IFile) {
+      IFile iFile = (IFile) file;
+      if (scanned.openDocument || scanned.binary
+          || getOpenDocument(iFile, documentsInEditors) != null) {
+        // open documents are searched here, and binary files only if the collector asks for them
+        return processFile(iFile, documentsInEditors);
+      }
+    } else if (scanned.binary) {
+      return processExternalFile((File) file);
+    }
+    try {
+      if (scanned.missing) {
+        return true;
+      }
+      boolean accepted = file instanceof IFile ? collector.acceptFile((IFile) file)
+          : collector.acceptExternalFile((File) file);
+      if (!accepted) {
+        return true;
+      }
+      try {
+        for (int i = 0; i < scanned.matchCount; i++) {
+          int offset = scanned.matches[2 * i];
+          int length = scanned.matches[2 * i + 1];
+          matchAccess.initialize(file, offset, length, scanned.content);
+          if (!collector.acceptPatternMatch(matchAccess)) {
+            break; // no further reporting requested
+          }
+        }
+      } finally {
+        matchAccess.initialize(null, 0, 0, new String()); // clear references
+      }
+      if (scanned.exception != null) {
+        addErrorStatus(file, scanned.exception);
+      } else if (scanned.stackOverflowError != null) {
+        String message = SearchMessages.TextSearchVisitor_patterntoocomplex0;
+        status.add(new Status(
+            IStatus.ERROR,
+            NewSearchUI.PLUGIN_ID,
+            IStatus.ERROR,
+            message,
+            scanned.stackOverflowError));
+        return false;
+      }
+    } catch (CoreException e) {
+      addErrorStatus(file, e);
+    } finally {
+      numberOfScannedFiles++;
+    }
+    if (progressMonitor.isCanceled()) {
+      throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+    }
+
+    return true;
+  }
+
+  /**
+   * Wait for the given file to be scanned, checking periodically whether the search was canceled.
+   */
+  private ScannedFile waitForScan(Future<ScannedFile> future) {
+    while (true) {
+      if (progressMonitor.isCanceled()) {
+        throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+      }
+      try {
+        return future.get(100, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // check for cancellation again
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException(SearchMessages.TextSearchVisitor_canceled);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+  }
+
 }
@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import com.google.dart.tools.search.internal.ui.SearchPlugin;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the trigrams contained in the text files of the workspace, used to skip the files
+ * that cannot contain a match for a {@link TrigramQuery}.
+ * <p>
+ * The trigrams of each file are recorded in a Bloom filter with roughly one bit per character of
+ * the file, so the index never rules out a file that contains the trigrams of a query, but does
+ * occasionally keep a file that does not. An entry is only used while the file still has the
+ * modification and local time stamps it had when it was indexed, so a search never depends on the
+ * index being up to date: files that have not been indexed yet are simply searched. The index is
+ * kept up to date by a background job driven by resource deltas, and is saved in the state
+ * location of the plug-in between sessions. The job belongs to the job family whose family object
+ * is the index itself.
+ */
+public class TrigramIndex {
+
+  /**
+   * The trigrams of a single file, together with the stamps the file had when it was indexed.
+   */
+  private static class Entry {
+    private final long modificationStamp;
+    private final long localTimeStamp;
+    private final long[] bits;
+
+    public Entry(long modificationStamp, long localTimeStamp, long[] bits) {
+      this.modificationStamp = modificationStamp;
+      this.localTimeStamp = localTimeStamp;
+      this.bits = bits;
+    }
+
+    public boolean isCurrent(IFile file) {
+      return modificationStamp == file.getModificationStamp()
+          && localTimeStamp == file.getLocalTimeStamp();
+    }
+  }
+
+  /**
+   * The job that loads the saved index and then indexes the files that have changed.
+   */
+  private class IndexJob extends Job {
+    public IndexJob() {
+      super("Text search indexing"); //$NON-NLS-1$
+      setSystem(true);
+      setPriority(Job.DECORATE);
+    }
+
+    @Override
+    public boolean belongsTo(Object family) {
+      return family == TrigramIndex.this;
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      if (!loaded) {
+        load();
+        loaded = true;
+      }
+      while (true) {
+        IResource resource = takePendingResource();
+        if (resource == null) {
+          return Status.OK_STATUS;
+        }
+        if (resource instanceof IFile) {
+          indexFile((IFile) resource);
+        } else {
+          for (IFile file : findUnindexedFiles(resource)) {
+            if (monitor.isCanceled()) {
+              return Status.CANCEL_STATUS;
+            }
+            indexFile(file);
+          }
+        }
+        if (monitor.isCanceled()) {
+          return Status.CANCEL_STATUS;
+        }
+      }
+    }
+  }
+
+  /**
+   * The version of the format of the saved index.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The length, in bytes, of the largest file that is indexed. Larger files are always searched.
+   */
+  private static final long MAX_FILE_LENGTH = 1 << 20;
+
+  /**
+   * The minimum and maximum number of bits in the Bloom filter of a file.
+   */
+  private static final int MIN_BITS = 1 << 6;
+  private static final int MAX_BITS = 1 << 18;
+
+  /**
+   * The delay, in milliseconds, before changed files are indexed, so that the files changed by a
+   * single operation are indexed together.
+   */
+  private static final long INDEX_DELAY = 500;
+
+  private static void addTrigram(long[] bits, long trigram) {
+    long hash = mix(trigram);
+    int mask = bits.length * 64 - 1;
+    int first = (int) hash & mask;
+    int second = (int) (hash >>> 32) & mask;
+    bits[first >>> 6] |= 1L << first;
+    bits[second >>> 6] |= 1L << second;
+  }
+
+  private static boolean containsTrigram(long[] bits, long trigram) {
+    long hash = mix(trigram);
+    int mask = bits.length * 64 - 1;
+    int first = (int) hash & mask;
+    int second = (int) (hash >>> 32) & mask;
+    return (bits[first >>> 6] & 1L << first) != 0 && (bits[second >>> 6] & 1L << second) != 0;
+  }
+
+  /**
+   * Return a well distributed hash of the given trigram, using the finalizer of MurmurHash3.
+   */
+  private static long mix(long trigram) {
+    long hash = trigram;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * The file in which the index is saved between sessions.
+   */
+  private final File indexFile;
+
+  /**
+   * A table mapping the full paths of the indexed files to their entries.
+   */
+  private final Map<IPath, Entry> entries = new ConcurrentHashMap<IPath, Entry>();
+
+  /**
+   * The files to be indexed and the containers whose unindexed files are to be indexed.
+   */
+  private final LinkedHashSet<IResource> pendingResources = new LinkedHashSet<IResource>();
+
+  /**
+   * A flag indicating whether the saved index has been loaded.
+   */
+  private volatile boolean loaded = false;
+
+  /**
+   * The provider used to read files, which is only accessed by the index job.
+   */
+  private final FileCharSequenceProvider charSequenceProvider = new FileCharSequenceProvider();
+
+  private final IndexJob indexJob = new IndexJob();
+
+  private final IResourceChangeListener resourceChangeListener = new IResourceChangeListener() {
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+      IResourceDelta delta = event.getDelta();
+      if (delta != null) {
+        try {
+          delta.accept(new IResourceDeltaVisitor() {
+            @Override
+            public boolean visit(IResourceDelta delta) {
+              return processDelta(delta);
+            }
+          });
+        } catch (CoreException e) {
+          SearchPlugin.log(e);
+        }
+      }
+    }
+  };
+
+  /**
+   * Initialize a newly created index.
+   * 
+   * @param indexFile the file in which the index is saved between sessions
+   */
+  public TrigramIndex(File indexFile) {
+    this.indexFile = indexFile;
+  }
+
+  /**
+   * Return {@code false} if the index shows that the content of the given file cannot contain a
+   * match for the given query, or {@code true} if it might, including when the file has not been
+   * indexed or has changed since it was indexed.
+   * 
+   * @param file the file being searched
+   * @param query the trigrams required by the pattern being searched for
+   * @return {@code false} if the file cannot contain a match
+   */
+  public boolean mayContain(IFile file, TrigramQuery query) {
+    Entry entry = entries.get(file.getFullPath());
+    if (entry == null || !entry.isCurrent(file)) {
+      return true;
+    }
+    for (long[] alternative : query.getTrigrams()) {
+      boolean containsAll = true;
+      for (long trigram : alternative) {
+        if (!containsTrigram(entry.bits, trigram)) {
+          containsAll = false;
+          break;
+        }
+      }
+      if (containsAll) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Start keeping the index up to date, after loading the saved index in the background.
+   */
+  public void start() {
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(
+        resourceChangeListener,
+        IResourceChangeEvent.POST_CHANGE);
+    schedule(ResourcesPlugin.getWorkspace().getRoot());
+  }
+
+  /**
+   * Stop keeping the index up to date and save it.
+   */
+  public void stop() {
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(resourceChangeListener);
+    indexJob.cancel();
+    try {
+      indexJob.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (loaded) {
+      save();
+    }
+  }
+
+  /**
+   * Return the entry recording the trigrams of the given file, or {@code null} if the file should
+   * not be indexed.
+   */
+  private Entry computeEntry(IFile file) throws CoreException, IOException {
+    long modificationStamp = file.getModificationStamp();
+    long localTimeStamp = file.getLocalTimeStamp();
+    URI location = file.getLocationURI();
+    if (location == null) {
+      return null;
+    }
+    long length = EFS.getStore(location).fetchInfo().getLength();
+    if (length > MAX_FILE_LENGTH) {
+      return null;
+    }
+    int bitCount = MIN_BITS;
+    while (bitCount < length && bitCount < MAX_BITS) {
+      bitCount <<= 1;
+    }
+    long[] bits = new long[bitCount / 64];
+    CharSequence seq = charSequenceProvider.newCharSequence(file);
+    try {
+      // avoid calling seq.length() as it runs through the complete file
+      char first = 0;
+      char second = 0;
+      for (int i = 0;; i++) {
+        char c = seq.charAt(i);
+        if (c == '\0') {
+          // binary files are not indexed
+          return null;
+        }
+        if (i >= 2) {
+          addTrigram(bits, TrigramQuery.trigram(first, second, c));
+        }
+        first = second;
+        second = c;
+      }
+    } catch (IndexOutOfBoundsException e) {
+      // the end of the file has been reached
+    } finally {
+      charSequenceProvider.releaseCharSequence(seq);
+    }
+    return new Entry(modificationStamp, localTimeStamp, bits);
+  }
+
+  /**
+   * Return the files in the given container that have not been indexed since they last changed.
+   */
+  private List<IFile> findUnindexedFiles(IResource container) {
+    final List<IFile> files = new ArrayList<IFile>();
+    if (!container.isAccessible()) {
+      return files;
+    }
+    try {
+      container.accept(new IResourceProxyVisitor() {
+        @Override
+        public boolean visit(IResourceProxy proxy) {
+          if (proxy.getType() != IResource.FILE) {
+            return true;
+          }
+          Entry entry = entries.get(proxy.requestFullPath());
+          if (entry == null || entry.modificationStamp != proxy.getModificationStamp()) {
+            files.add((IFile) proxy.requestResource());
+          }
+          return false;
+        }
+      }, IResource.NONE);
+    } catch (CoreException e) {
+      SearchPlugin.log(e);
+    }
+    return files;
+  }
+
+  private void indexFile(IFile file) {
+    IPath path = file.getFullPath();
+    if (!file.exists()) {
+      entries.remove(path);
+      return;
+    }
+    Entry entry = entries.get(path);
+    if (entry != null && entry.isCurrent(file)) {
+      return;
+    }
+    try {
+      entry = computeEntry(file);
+    } catch (CoreException e) {
+      entry = null;
+    } catch (IOException e) {
+      entry = null;
+    } catch (FileCharSequenceProvider.FileCharSequenceException e) {
+      // files that cannot be read are searched, which reports the problem
+      entry = null;
+    }
+    if (entry == null) {
+      entries.remove(path);
+    } else {
+      entries.put(path, entry);
+    }
+  }
+
+  private void load() {
+    if (!indexFile.isFile()) {
+      return;
+    }
+    try {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(
+          indexFile)));
+      try {
+        if (input.readInt() != VERSION) {
+          return;
+        }
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+          IPath path = Path.fromPortableString(input.readUTF());
+          long modificationStamp = input.readLong();
+          long localTimeStamp = input.readLong();
+          long[] bits = new long[input.readInt()];
+          for (int j = 0; j < bits.length; j++) {
+            bits[j] = input.readLong();
+          }
+          if (!entries.containsKey(path)) {
+            // the file might have been indexed again already
+            entries.put(path, new Entry(modificationStamp, localTimeStamp, bits));
+          }
+        }
+      } finally {
+        input.close();
+      }
+    } catch (IOException e) {
+      entries.clear();
+      SearchPlugin.log(e);
+    }
+  }
+
+  /**
+   * Record the changes described by the given delta, returning {@code true} if the children of
+   * the changed resource should be visited.
+   */
+  private boolean processDelta(IResourceDelta delta) {
+    IResource resource = delta.getResource();
+    if (resource.getType() != IResource.FILE) {
+      if (resource.getType() == IResource.PROJECT
+          && (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+        schedule(resource);
+        return false;
+      }
+      return true;
+    }
+    int kind = delta.getKind();
+    int changeFlags = IResourceDelta.CONTENT | IResourceDelta.ENCODING | IResourceDelta.REPLACED;
+    if (kind == IResourceDelta.REMOVED) {
+      entries.remove(resource.getFullPath());
+    } else if (kind == IResourceDelta.ADDED || (delta.getFlags() & changeFlags) != 0) {
+      // the stamps do not change when only the encoding does
+      entries.remove(resource.getFullPath());
+      schedule(resource);
+    }
+    return false;
+  }
+
+  private void save() {
+    IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+    Map<IPath, Entry> savedEntries = new HashMap<IPath, Entry>();
+    for (Map.Entry<IPath, Entry> mapEntry : entries.entrySet()) {
+      if (root.getFile(mapEntry.getKey()).exists()) {
+        savedEntries.put(mapEntry.getKey(), mapEntry.getValue());
+      }
+    }
+    try {
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+          new FileOutputStream(indexFile)));
+      try {
+        output.writeInt(VERSION);
+        output.writeInt(savedEntries.size());
+        for (Map.Entry<IPath, Entry> mapEntry : savedEntries.entrySet()) {
+          Entry entry = mapEntry.getValue();
+          output.writeUTF(mapEntry.getKey().toPortableString());
+          output.writeLong(entry.modificationStamp);
+          output.writeLong(entry.localTimeStamp);
+          output.writeInt(entry.bits.length);
+          for (long word : entry.bits) {
+            output.writeLong(word);
+          }
+        }
+      } finally {
+        output.close();
+      }
+    } catch (IOException e) {
+      indexFile.delete();
+      SearchPlugin.log(e);
+    }
+  }
+
+  private void schedule(IResource resource) {
+    synchronized (pendingResources) {
+      pendingResources.add(resource);
+    }
+    indexJob.schedule(INDEX_DELAY);
+  }
+
+  private IResource takePendingResource() {
+    synchronized (pendingResources) {
+      Iterator<IResource> iterator = pendingResources.iterator();
+      if (!iterator.hasNext()) {
+        return null;
+      }
+      IResource resource = iterator.next();
+      iterator.remove();
+      return resource;
+    }
+  }
+}
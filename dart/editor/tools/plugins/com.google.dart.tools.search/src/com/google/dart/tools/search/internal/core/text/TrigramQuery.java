@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2013, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The trigrams that any text matching a search pattern must contain, used to rule out files using
+ * the {@link TrigramIndex} before the pattern itself is run against them.
+ * <p>
+ * The trigrams are taken from the literal text that the pattern requires. A pattern whose top level
+ * is an alternation produces one set of trigrams per alternative, and text can only match if it
+ * contains every trigram of at least one of the sets. Anything the analysis does not understand,
+ * such as character classes, optional characters and groups other than plain groups, is treated as
+ * matching any text, so the trigrams of a query are always a subset of the trigrams of any match.
+ * Characters are case folded, so the same trigrams serve both case-sensitive and case-insensitive
+ * searches.
+ */
+public class TrigramQuery {
+
+  /**
+   * Walks a regular expression, collecting the runs of literal characters that every match must
+   * contain. Plain groups are analyzed like the rest of the pattern when their content is required;
+   * any other group is skipped.
+   */
+  private static class Parser {
+
+    /**
+     * The literal runs collected from one alternative of a group or of the whole pattern.
+     */
+    private static class Sequence {
+      private final List<String> literals = new ArrayList<String>();
+      private StringBuilder run = new StringBuilder();
+
+      public void endRun() {
+        if (run.length() >= 3) {
+          literals.add(run.toString());
+        }
+        run = new StringBuilder();
+      }
+    }
+
+    private final String source;
+    private int index;
+
+    public Parser(String source) {
+      this.source = source;
+    }
+
+    public List<List<String>> parse() throws UnsupportedPatternException {
+      return parseAlternatives(false);
+    }
+
+    /**
+     * Append a literal character to the current run, taking into account any quantifier that
+     * follows it.
+     */
+    private void appendLiteral(Sequence sequence, char c) throws UnsupportedPatternException {
+      sequence.run.append(c);
+      if (index >= source.length()) {
+        return;
+      }
+      char next = source.charAt(index);
+      if (next == '+') {
+        // the character is required, but what follows it might not be adjacent to it
+        sequence.endRun();
+        skipQuantifier();
+      } else if (next == '?' || next == '*' || next == '{') {
+        // the character might not be present at all
+        sequence.run.setLength(sequence.run.length() - 1);
+        sequence.endRun();
+        skipQuantifier();
+      }
+    }
+
+    /**
+     * Return {@code true} if the next character starts a quantifier that allows zero occurrences.
+     */
+    private boolean isOptionalQuantifierNext() {
+      if (index >= source.length()) {
+        return false;
+      }
+      char c = source.charAt(index);
+      if (c == '{') {
+        return index + 1 < source.length() && source.charAt(index + 1) == '0';
+      }
+      return c == '?' || c == '*';
+    }
+
+    /**
+     * Parse the alternatives up to the end of the pattern, or up to and including the parenthesis
+     * that closes the enclosing group.
+     */
+    private List<List<String>> parseAlternatives(boolean inGroup)
+        throws UnsupportedPatternException {
+      List<List<String>> alternatives = new ArrayList<List<String>>();
+      Sequence sequence = new Sequence();
+      while (index < source.length()) {
+        char c = source.charAt(index++);
+        switch (c) {
+          case '\\':
+            parseEscape(sequence);
+            break;
+          case '|':
+            sequence.endRun();
+            alternatives.add(sequence.literals);
+            sequence = new Sequence();
+            break;
+          case '(':
+            sequence.endRun();
+            parseGroup(sequence);
+            break;
+          case ')':
+            if (!inGroup) {
+              throw new UnsupportedPatternException();
+            }
+            sequence.endRun();
+            alternatives.add(sequence.literals);
+            return alternatives;
+          case '[':
+            sequence.endRun();
+            skipCharacterClass();
+            skipQuantifier();
+            break;
+          case '.':
+            sequence.endRun();
+            skipQuantifier();
+            break;
+          case '^':
+          case '$':
+            sequence.endRun();
+            break;
+          case '?':
+          case '*':
+          case '+':
+          case '{':
+            // a quantifier that does not follow anything it could apply to
+            throw new UnsupportedPatternException();
+          default:
+            appendLiteral(sequence, c);
+            break;
+        }
+      }
+      if (inGroup) {
+        throw new UnsupportedPatternException();
+      }
+      sequence.endRun();
+      alternatives.add(sequence.literals);
+      return alternatives;
+    }
+
+    private void parseEscape(Sequence sequence) throws UnsupportedPatternException {
+      if (index >= source.length()) {
+        throw new UnsupportedPatternException();
+      }
+      char c = source.charAt(index++);
+      if (!Character.isLetterOrDigit(c)) {
+        appendLiteral(sequence, c);
+        return;
+      }
+      switch (c) {
+        case 'Q':
+          int end = source.indexOf("\\E", index); //$NON-NLS-1$
+          if (end < 0) {
+            end = source.length();
+          }
+          String quoted = source.substring(index, end);
+          index = Math.min(end + 2, source.length());
+          if (quoted.length() > 0) {
+            sequence.run.append(quoted, 0, quoted.length() - 1);
+            appendLiteral(sequence, quoted.charAt(quoted.length() - 1));
+          }
+          break;
+        case 't':
+          appendLiteral(sequence, '\t');
+          break;
+        case 'n':
+          appendLiteral(sequence, '\n');
+          break;
+        case 'r':
+          appendLiteral(sequence, '\r');
+          break;
+        case 'f':
+          appendLiteral(sequence, '\f');
+          break;
+        case 'a':
+          appendLiteral(sequence, '\u0007');
+          break;
+        case 'e':
+          appendLiteral(sequence, '\u001B');
+          break;
+        case 'b':
+        case 'B':
+        case 'A':
+        case 'G':
+        case 'z':
+        case 'Z':
+          // boundaries do not match any character
+          sequence.endRun();
+          break;
+        case 'd':
+        case 'D':
+        case 's':
+        case 'S':
+        case 'w':
+        case 'W':
+          sequence.endRun();
+          skipQuantifier();
+          break;
+        default:
+          throw new UnsupportedPatternException();
+      }
+    }
+
+    /**
+     * Parse the group whose opening parenthesis has just been consumed. The literals of a plain
+     * group are only required if the group is required and has a single alternative.
+     */
+    private void parseGroup(Sequence sequence) throws UnsupportedPatternException {
+      boolean plain = true;
+      if (index < source.length() && source.charAt(index) == '?') {
+        for (int i = index + 1; i < source.length(); i++) {
+          char c = source.charAt(i);
+          if (c == 'x') {
+            // comments mode changes how the rest of the pattern is interpreted
+            throw new UnsupportedPatternException();
+          } else if (!Character.isLetter(c) && c != '-') {
+            break;
+          }
+        }
+        if (source.startsWith("?:", index)) { //$NON-NLS-1$
+          index += 2;
+        } else {
+          plain = false;
+        }
+      }
+      if (!plain) {
+        skipGroup();
+        skipQuantifier();
+        return;
+      }
+      List<List<String>> alternatives = parseAlternatives(true);
+      boolean optional = isOptionalQuantifierNext();
+      skipQuantifier();
+      if (!optional && alternatives.size() == 1) {
+        sequence.literals.addAll(alternatives.get(0));
+      }
+    }
+
+    private void skipCharacterClass() throws UnsupportedPatternException {
+      int depth = 1;
+      if (index < source.length() && source.charAt(index) == '^') {
+        index++;
+      }
+      if (index < source.length() && source.charAt(index) == ']') {
+        // a leading bracket is a member of the class
+        index++;
+      }
+      while (index < source.length()) {
+        char c = source.charAt(index++);
+        if (c == '\\') {
+          index++;
+        } else if (c == '[') {
+          depth++;
+        } else if (c == ']') {
+          depth--;
+          if (depth == 0) {
+            return;
+          }
+        }
+      }
+      throw new UnsupportedPatternException();
+    }
+
+    private void skipGroup() throws UnsupportedPatternException {
+      int depth = 1;
+      while (index < source.length()) {
+        char c = source.charAt(index++);
+        if (c == '\\') {
+          if (index < source.length() && source.charAt(index) == 'Q') {
+            int end = source.indexOf("\\E", index); //$NON-NLS-1$
+            if (end < 0) {
+              throw new UnsupportedPatternException();
+            }
+            index = end + 2;
+          } else {
+            index++;
+          }
+        } else if (c == '[') {
+          skipCharacterClass();
+        } else if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+          if (depth == 0) {
+            return;
+          }
+        }
+      }
+      throw new UnsupportedPatternException();
+    }
+
+    private void skipQuantifier() throws UnsupportedPatternException {
+      if (index >= source.length()) {
+        return;
+      }
+      char c = source.charAt(index);
+      if (c == '?' || c == '*' || c == '+') {
+        index++;
+      } else if (c == '{') {
+        int end = source.indexOf('}', index);
+        if (end < 0) {
+          throw new UnsupportedPatternException();
+        }
+        index = end + 1;
+      } else {
+        return;
+      }
+      // lazy and possessive quantifiers
+      if (index < source.length() && (source.charAt(index) == '?' || source.charAt(index) == '+')) {
+        index++;
+      }
+    }
+  }
+
+  /**
+   * Thrown internally when a pattern uses a construct that cannot be analyzed safely.
+   */
+  private static class UnsupportedPatternException extends Exception {
+    private static final long serialVersionUID = 1L;
+  }
+
+  /**
+   * The maximum number of trigrams kept for each alternative. More trigrams rarely rule out more
+   * files, but they make every check more expensive.
+   */
+  private static final int MAX_TRIGRAMS = 32;
+
+  /**
+   * Return the query for the given pattern, or {@code null} if the pattern does not require any
+   * trigram, in which case the index cannot be used to rule out any file.
+   * 
+   * @param pattern the pattern being searched for
+   * @return the query for the given pattern
+   */
+  public static TrigramQuery create(Pattern pattern) {
+    String source = pattern.pattern();
+    int flags = pattern.flags();
+    if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+      return null;
+    }
+    List<List<String>> alternatives;
+    if ((flags & Pattern.LITERAL) != 0) {
+      alternatives = new ArrayList<List<String>>();
+      alternatives.add(Collections.singletonList(source));
+    } else {
+      try {
+        alternatives = new Parser(source).parse();
+      } catch (UnsupportedPatternException e) {
+        return null;
+      }
+    }
+    long[][] trigrams = new long[alternatives.size()][];
+    for (int i = 0; i < trigrams.length; i++) {
+      trigrams[i] = getTrigrams(alternatives.get(i));
+      if (trigrams[i].length == 0) {
+        // this alternative can match text that contains none of the trigrams
+        return null;
+      }
+    }
+    return new TrigramQuery(trigrams);
+  }
+
+  /**
+   * Return the case folded form of the given character. Folding through the upper case form first
+   * maps characters such as the long s, which only match their counterparts case-insensitively
+   * through the upper case form, to the same character.
+   */
+  static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  /**
+   * Return the trigram formed by the given characters, after they have been case folded.
+   */
+  static long trigram(char first, char second, char third) {
+    return ((long) fold(first) << 32) | ((long) fold(second) << 16) | fold(third);
+  }
+
+  private static long[] getTrigrams(List<String> literals) {
+    List<Long> trigrams = new ArrayList<Long>();
+    for (String literal : literals) {
+      for (int i = 2; i < literal.length(); i++) {
+        Long trigram = Long.valueOf(trigram(
+            literal.charAt(i - 2),
+            literal.charAt(i - 1),
+            literal.charAt(i)));
+        if (!trigrams.contains(trigram)) {
+          trigrams.add(trigram);
+        }
+      }
+    }
+    int count = Math.min(trigrams.size(), MAX_TRIGRAMS);
+    long[] result = new long[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = trigrams.get(i).longValue();
+    }
+    return result;
+  }
+
+  /**
+   * The trigrams required by each of the alternatives of the pattern.
+   */
+  private final long[][] trigrams;
+
+  private TrigramQuery(long[][] trigrams) {
+    this.trigrams = trigrams;
+  }
+
+  /**
+   * Return the trigrams required by each of the alternatives of the pattern. Text can only match
+   * the pattern if it contains all of the trigrams of at least one alternative.
+   * 
+   * @return the trigrams required by each of the alternatives of the pattern
+   */
+  public long[][] getTrigrams() {
+    return trigrams;
+  }
+}
@@ -14,6 +14,7 @@
 package com.google.dart.tools.search.internal.ui;
 
 import com.google.dart.tools.search.internal.core.text.TextSearchEngineRegistry;
+import com.google.dart.tools.search.internal.core.text.TrigramIndex;
 import com.google.dart.tools.search.internal.ui.util.ExceptionHandler;
 import com.google.dart.tools.search.ui.NewSearchUI;
 import com.google.dart.tools.search2.internal.ui.InternalSearchUI;
@@ -37,6 +38,7 @@ import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -213,6 +215,8 @@ public class SearchPlugin extends AbstractUIPlugin {
 
   private TextSearchQueryProviderRegistry fTextSearchQueryProviderRegistry;
 
+  private TrigramIndex fTrigramIndex;
+
   public SearchPlugin() {
     super();
     Assert.isTrue(fgSearchPlugin == null);
@@ -286,6 +290,19 @@ public class SearchPlugin extends AbstractUIPlugin {
     return fTextSearchQueryProviderRegistry;
   }
 
+  /**
+   * @return the index used to skip files that cannot contain a match, which is started the first
+   *         time it is requested
+   */
+  public synchronized TrigramIndex getTrigramIndex() {
+    if (fTrigramIndex == null) {
+      File indexFile = getStateLocation().append("trigram.index").toFile(); //$NON-NLS-1$
+      fTrigramIndex = new TrigramIndex(indexFile);
+      fTrigramIndex.start();
+    }
+    return fTrigramIndex;
+  }
+
   /*
    * @see org.eclipse.ui.plugin.AbstractUIPlugin#start(org.osgi.framework.BundleContext)
    */
@@ -300,6 +317,12 @@ public class SearchPlugin extends AbstractUIPlugin {
   @Override
   public void stop(BundleContext context) throws Exception {
     InternalSearchUI.shutdown();
+    synchronized (this) {
+      if (fTrigramIndex != null) {
+        fTrigramIndex.stop();
+        fTrigramIndex = null;
+      }
+    }
     super.stop(context);
     fgSearchPlugin = null;
   }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import com.google.dart.tools.core.test.util.TestProject;
+import com.google.dart.tools.search.core.text.TextSearchMatchAccess;
+import com.google.dart.tools.search.core.text.TextSearchRequestor;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class TextSearchExecutorTest extends TestCase {
+  /**
+   * A requestor that records the files and matches it is given, and can stop the search.
+   */
+  private static class RecordingRequestor extends TextSearchRequestor {
+    private final List<String> events = new ArrayList<String>();
+    private final NullProgressMonitor monitor;
+    private final int cancelAfterFileCount;
+    private final boolean acceptOneMatchPerFile;
+
+    public RecordingRequestor(NullProgressMonitor monitor, int cancelAfterFileCount,
+        boolean acceptOneMatchPerFile) {
+      this.monitor = monitor;
+      this.cancelAfterFileCount = cancelAfterFileCount;
+      this.acceptOneMatchPerFile = acceptOneMatchPerFile;
+    }
+
+    @Override
+    public boolean acceptFile(IFile file) {
+      events.add(file.getName());
+      if (getFileCount() == cancelAfterFileCount) {
+        monitor.setCanceled(true);
+      }
+      return true;
+    }
+
+    @Override
+    public boolean acceptPatternMatch(TextSearchMatchAccess matchAccess) {
+      events.add(matchAccess.getMatchOffset() + ":"
+          + matchAccess.getFileContent(matchAccess.getMatchOffset(), matchAccess.getMatchLength()));
+      return !acceptOneMatchPerFile;
+    }
+
+    public int getFileCount() {
+      int count = 0;
+      for (String event : events) {
+        if (event.endsWith(".txt")) {
+          count++;
+        }
+      }
+      return count;
+    }
+  }
+
+  private static final int FILE_COUNT = 50;
+
+  private TestProject testProject;
+  private IFile[] files;
+
+  public void test_search_dirtyDocument() throws Exception {
+    IFile file = files[1];
+    IPath path = file.getFullPath();
+    ITextFileBufferManager manager = FileBuffers.getTextFileBufferManager();
+    manager.connect(path, LocationKind.IFILE, null);
+    try {
+      manager.getTextFileBuffer(path, LocationKind.IFILE).getDocument().set("dirty foo1 foo2\n");
+      for (int threadCount : new int[] {1, 4}) {
+        List<String> events = search("foo\\d", threadCount, false);
+        assertEquals(file.getName(), events.get(2));
+        assertEquals("6:foo1", events.get(3));
+        assertEquals("11:foo2", events.get(4));
+        assertEquals(files[2].getName(), events.get(5));
+      }
+    } finally {
+      manager.disconnect(path, LocationKind.IFILE, null);
+    }
+    // the content on disk is searched once the document has been closed
+    List<String> events = search("foo\\d", 4, false);
+    assertEquals(file.getName(), events.get(2));
+    assertEquals("0:foo1", events.get(3));
+    assertEquals(files[2].getName(), events.get(4));
+  }
+
+  public void test_search_monitorCanceled() throws Exception {
+    for (int threadCount : new int[] {1, 4}) {
+      NullProgressMonitor monitor = new NullProgressMonitor();
+      RecordingRequestor requestor = new RecordingRequestor(monitor, 3, false);
+      TextSearchExecutor executor = new TextSearchExecutor(
+          requestor,
+          Pattern.compile("foo\\d"),
+          threadCount);
+      try {
+        executor.search(files, new File[0], monitor);
+        fail("Expected OperationCanceledException");
+      } catch (OperationCanceledException exception) {
+        // expected
+      }
+      assertEquals(3, requestor.getFileCount());
+    }
+  }
+
+  public void test_search_order() throws Exception {
+    List<String> expected = search("foo\\d+|bar", 1, false);
+    assertEquals(FILE_COUNT * 4, expected.size());
+    for (int i = 0; i < 5; i++) {
+      assertEquals(expected, search("foo\\d+|bar", 4, false));
+    }
+  }
+
+  public void test_search_stopMatches() throws Exception {
+    for (int threadCount : new int[] {1, 4}) {
+      List<String> events = search("foo\\d+|bar", threadCount, true);
+      assertEquals(FILE_COUNT * 2, events.size());
+      for (int i = 0; i < FILE_COUNT; i++) {
+        assertEquals(files[i].getName(), events.get(2 * i));
+        assertEquals("0:foo" + i, events.get(2 * i + 1));
+      }
+    }
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    testProject = new TestProject();
+    files = new IFile[FILE_COUNT];
+    for (int i = 0; i < FILE_COUNT; i++) {
+      StringBuilder content = new StringBuilder();
+      content.append("foo" + i + " bar\n");
+      // files of different sizes are scanned at different speeds
+      for (int j = 0; j < i * 100; j++) {
+        content.append("filler line\n");
+      }
+      content.append("bar\n");
+      files[i] = testProject.setFileContent("file" + i + ".txt", content.toString());
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    testProject.dispose();
+    super.tearDown();
+  }
+
+  private List<String> search(String pattern, int threadCount, boolean acceptOneMatchPerFile) {
+    NullProgressMonitor monitor = new NullProgressMonitor();
+    RecordingRequestor requestor = new RecordingRequestor(monitor, -1, acceptOneMatchPerFile);
+    TextSearchExecutor executor = new TextSearchExecutor(
+        requestor,
+        Pattern.compile(pattern),
+        threadCount);
+    assertTrue(executor.search(files, new File[0], monitor).isOK());
+    return requestor.events;
+  }
+}
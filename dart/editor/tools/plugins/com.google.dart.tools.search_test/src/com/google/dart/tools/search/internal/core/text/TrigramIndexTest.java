@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import com.google.dart.tools.core.test.util.TestProject;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.jobs.Job;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.regex.Pattern;
+
+public class TrigramIndexTest extends TestCase {
+  private static final String CONTENT = "class FooBar {\n  int baz;\n}\n";
+
+  private static TrigramQuery query(String pattern) {
+    TrigramQuery query = TrigramQuery.create(Pattern.compile(pattern));
+    assertNotNull(query);
+    return query;
+  }
+
+  private static void waitForIndex(TrigramIndex index) throws Exception {
+    Job.getJobManager().join(index, null);
+  }
+
+  private TestProject testProject;
+  private File indexFile;
+  private TrigramIndex index;
+
+  public void test_mayContain() throws Exception {
+    IFile file = testProject.setFileContent("test.txt", CONTENT);
+    index.start();
+    waitForIndex(index);
+    assertTrue(index.mayContain(file, query("FooBar")));
+    assertTrue(index.mayContain(file, query("int\\s+baz;")));
+    assertFalse(index.mayContain(file, query("Quux")));
+  }
+
+  public void test_mayContain_alternation() throws Exception {
+    IFile file = testProject.setFileContent("test.txt", CONTENT);
+    index.start();
+    waitForIndex(index);
+    assertTrue(index.mayContain(file, query("Quux|FooBar")));
+    assertTrue(index.mayContain(file, query("Quux|Zork|baz")));
+    assertFalse(index.mayContain(file, query("Quux|Zork")));
+  }
+
+  public void test_mayContain_binaryFile() throws Exception {
+    IFile file = testProject.setFileContent("test.bin", "Foo\0Bar");
+    index.start();
+    waitForIndex(index);
+    assertTrue(index.mayContain(file, query("Quux")));
+  }
+
+  public void test_mayContain_caseFolding() throws Exception {
+    IFile file = testProject.setFileContent("test.txt", CONTENT);
+    index.start();
+    waitForIndex(index);
+    assertTrue(index.mayContain(file, query("FOOBAR")));
+    assertTrue(index.mayContain(file, query("foobar")));
+    Pattern pattern = Pattern.compile("CLASS", Pattern.CASE_INSENSITIVE);
+    assertTrue(index.mayContain(file, TrigramQuery.create(pattern)));
+  }
+
+  public void test_mayContain_changed() throws Exception {
+    IFile file = testProject.setFileContent("test.txt", CONTENT);
+    index.start();
+    waitForIndex(index);
+    assertFalse(index.mayContain(file, query("Quux")));
+    testProject.setFileContent("test.txt", "class Quux {}\n");
+    // the entry of the old content is not used, even before the file is indexed again
+    assertTrue(index.mayContain(file, query("Quux")));
+    assertTrue(index.mayContain(file, query("FooBar")));
+    waitForIndex(index);
+    assertTrue(index.mayContain(file, query("Quux")));
+    assertFalse(index.mayContain(file, query("FooBar")));
+  }
+
+  public void test_mayContain_notIndexed() throws Exception {
+    IFile file = testProject.setFileContent("test.txt", CONTENT);
+    assertTrue(index.mayContain(file, query("Quux")));
+  }
+
+  public void test_stop() throws Exception {
+    IFile file = testProject.setFileContent("test.txt", CONTENT);
+    index.start();
+    waitForIndex(index);
+    index.stop();
+    assertTrue(indexFile.isFile());
+    TrigramIndex savedIndex = new TrigramIndex(indexFile);
+    savedIndex.start();
+    try {
+      waitForIndex(savedIndex);
+      assertTrue(savedIndex.mayContain(file, query("FooBar")));
+      assertFalse(savedIndex.mayContain(file, query("Quux")));
+    } finally {
+      savedIndex.stop();
+    }
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    testProject = new TestProject();
+    indexFile = File.createTempFile("trigrams", ".index");
+    indexFile.delete();
+    index = new TrigramIndex(indexFile);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    index.stop();
+    testProject.dispose();
+    indexFile.delete();
+    super.tearDown();
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.tools.search.internal.core.text;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class TrigramQueryTest extends TestCase {
+  /**
+   * Assert that the index cannot be used to rule out files for the given pattern.
+   */
+  private static void assertNoQuery(String pattern) {
+    assertNull(pattern, TrigramQuery.create(Pattern.compile(pattern)));
+  }
+
+  /**
+   * Assert that the query for the given pattern requires, for each alternative, exactly the
+   * trigrams of the space separated literals given for that alternative.
+   */
+  private static void assertQuery(String pattern, String... alternatives) {
+    TrigramQuery query = TrigramQuery.create(Pattern.compile(pattern));
+    assertNotNull("no query for " + pattern, query);
+    long[][] trigrams = query.getTrigrams();
+    assertEquals(alternatives.length, trigrams.length);
+    for (int i = 0; i < alternatives.length; i++) {
+      List<Long> expected = new ArrayList<Long>();
+      for (String literal : alternatives[i].split(" ")) {
+        for (long trigram : getLiteralTrigrams(literal)) {
+          if (!expected.contains(trigram)) {
+            expected.add(trigram);
+          }
+        }
+      }
+      assertEquals(toString(expected), toString(trigrams[i]));
+    }
+  }
+
+  private static long[] getLiteralTrigrams(String literal) {
+    TrigramQuery query = TrigramQuery.create(Pattern.compile(literal, Pattern.LITERAL));
+    assertNotNull(query);
+    assertEquals(1, query.getTrigrams().length);
+    return query.getTrigrams()[0];
+  }
+
+  private static String toString(List<Long> trigrams) {
+    long[] array = new long[trigrams.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = trigrams.get(i).longValue();
+    }
+    return toString(array);
+  }
+
+  private static String toString(long[] trigrams) {
+    long[] sorted = trigrams.clone();
+    Arrays.sort(sorted);
+    return Arrays.toString(sorted);
+  }
+
+  public void test_create_alternation() throws Exception {
+    assertQuery("foo|barbaz", "foo", "barbaz");
+    assertQuery("abc|def|ghi", "abc", "def", "ghi");
+    assertQuery("ab.cde|fgh", "cde", "fgh");
+  }
+
+  public void test_create_alternation_withoutTrigrams() throws Exception {
+    assertNoQuery("foo|ba");
+    assertNoQuery("foo|");
+    assertNoQuery("|foo");
+  }
+
+  public void test_create_anchors() throws Exception {
+    assertQuery("^abc$", "abc");
+    assertQuery("abc\\bdef", "abc def");
+    assertQuery("\\Aabc\\z", "abc");
+  }
+
+  public void test_create_caseFolding() throws Exception {
+    long[] lowerCase = getLiteralTrigrams("abc");
+    assertEquals(toString(lowerCase), toString(getLiteralTrigrams("ABC")));
+    assertEquals(toString(lowerCase), toString(getLiteralTrigrams("aBc")));
+    TrigramQuery query = TrigramQuery.create(Pattern.compile("ABC", Pattern.CASE_INSENSITIVE));
+    assertEquals(toString(lowerCase), toString(query.getTrigrams()[0]));
+    // the long s only matches 's' case-insensitively through the upper case form
+    assertEquals(toString(getLiteralTrigrams("sss")), toString(getLiteralTrigrams("\u017Fss")));
+    assertEquals(toString(getLiteralTrigrams("sss")), toString(getLiteralTrigrams("SSS")));
+  }
+
+  public void test_create_characterClass() throws Exception {
+    assertQuery("abc[xy]def", "abc def");
+    assertQuery("abc[^xy]*def", "abc def");
+    assertQuery("[a-z]+foo", "foo");
+    assertNoQuery("ab[c]de");
+  }
+
+  public void test_create_characterClass_bracketMember() throws Exception {
+    assertQuery("abc[]x]def", "abc def");
+    assertQuery("abc[^]x]def", "abc def");
+    assertQuery("abc[\\]x]def", "abc def");
+  }
+
+  public void test_create_characterClass_nested() throws Exception {
+    assertQuery("abc[a-z&&[^q]]def", "abc def");
+  }
+
+  public void test_create_comments() throws Exception {
+    assertNull(TrigramQuery.create(Pattern.compile("abc", Pattern.COMMENTS)));
+    assertNoQuery("(?x)abc");
+    assertNoQuery("(?ix)abc");
+  }
+
+  public void test_create_escape() throws Exception {
+    assertQuery("foo\\.bar", "foo.bar");
+    assertQuery("a\\(b\\)c", "a(b)c");
+    assertQuery("a\\\\bc", "a\\bc");
+    assertQuery("a\\tbc", "a\tbc");
+    assertQuery("ab\\nc", "ab\nc");
+  }
+
+  public void test_create_escape_characterClass() throws Exception {
+    assertQuery("foo\\dbar", "foo bar");
+    assertQuery("foo\\s+bar", "foo bar");
+    assertQuery("foo\\w*bar", "foo bar");
+  }
+
+  public void test_create_escape_quantified() throws Exception {
+    assertQuery("abc\\.?def", "abc def");
+    assertQuery("abc\\.+def", "abc. def");
+  }
+
+  public void test_create_escape_unsupported() throws Exception {
+    assertNoQuery("\\p{L}abc");
+    assertNoQuery("abc\\1");
+  }
+
+  public void test_create_group() throws Exception {
+    assertQuery("abc(def)ghi", "abc def ghi");
+    assertQuery("abc(?:def)ghi", "abc def ghi");
+    assertQuery("a((bcd))e", "bcd");
+  }
+
+  public void test_create_group_alternation() throws Exception {
+    assertQuery("(foo|bar)bazz", "bazz");
+    assertNoQuery("x(foo|bar)");
+  }
+
+  public void test_create_group_flags() throws Exception {
+    assertQuery("(?i)abc", "abc");
+    assertQuery("(?-i:xyz)abc", "abc");
+  }
+
+  public void test_create_group_lookaround() throws Exception {
+    assertQuery("abc(?=def)", "abc");
+    assertQuery("(?<!xyz)abc", "abc");
+    assertQuery("(?!x[)]y)abc", "abc");
+  }
+
+  public void test_create_group_quantified() throws Exception {
+    assertQuery("abc(def)?ghi", "abc ghi");
+    assertQuery("abc(def)*ghi", "abc ghi");
+    assertQuery("abc(def){0,2}ghi", "abc ghi");
+    assertQuery("(abc)+def", "abc def");
+    assertQuery("(abc){2}", "abc");
+    assertNoQuery("(abc)*");
+  }
+
+  public void test_create_literal() throws Exception {
+    assertQuery("abc", "abc");
+    assertQuery("abcd", "abcd");
+    assertNoQuery("ab");
+    assertNoQuery(".*");
+  }
+
+  public void test_create_literalFlag() throws Exception {
+    TrigramQuery query = TrigramQuery.create(Pattern.compile("a.b*(c", Pattern.LITERAL));
+    long[][] trigrams = query.getTrigrams();
+    assertEquals(1, trigrams.length);
+    assertEquals(4, trigrams[0].length);
+    assertNull(TrigramQuery.create(Pattern.compile("a*", Pattern.LITERAL)));
+  }
+
+  public void test_create_maxTrigrams() throws Exception {
+    assertEquals(32, getLiteralTrigrams("abcdefghijklmnopqrstuvwxyz0123456789").length);
+  }
+
+  public void test_create_quantifier() throws Exception {
+    assertQuery("abcd+efg", "abcd efg");
+    assertQuery("abcd+?efg", "abcd efg");
+    assertQuery("abcx?def", "abc def");
+    assertQuery("abcx*def", "abc def");
+    assertQuery("abcx{2}def", "abc def");
+    assertQuery("abcx{2,}+def", "abc def");
+  }
+
+  public void test_create_quoted() throws Exception {
+    assertQuery("\\Qa.b*c\\E", "a.b*c");
+    assertQuery("abc\\Q.*d\\Eef", "abc.*def");
+    assertQuery("\\Qa|b\\E|xyz", "a|b", "xyz");
+    assertQuery("abc\\Qd\\E?efg", "abc efg");
+  }
+
+  public void test_create_quoted_inGroup() throws Exception {
+    assertQuery("(?=\\Q)\\E)abc", "abc");
+  }
+
+  public void test_create_quoted_unterminated() throws Exception {
+    assertQuery("\\Qabc", "abc");
+    assertQuery("\\Q(x|y)", "(x|y)");
+  }
+}
@@ -43,6 +43,9 @@ public class TestAll {
     // Debug
     suite.addTest(com.google.dart.tools.debug.core.TestAll.suite());
 
+    // Search
+    suite.addTest(com.google.dart.tools.search.TestAll.suite());
+
     // UI
     suite.addTest(com.google.dart.tools.ui.TestAll.suite());
     // TODO: the UI tests are disabled on linux, due to model dialogs blocking tests -